@@ -0,0 +1,457 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats doubles as ASCII straight into a reusable byte buffer, without
+ * creating intermediate Strings. Two styles are supported, each producing
+ * exactly the same characters as the formatter it replaces:
+ * <ul>
+ * <li>significant digits, as <tt>new ScientificFormat(sigDigits, maxWidth,
+ * false)</tt>, see {@link #createSignificant(int, int)};</li>
+ * <li>fraction digits, as <tt>new DecimalFormat("#.###")</tt> with the given
+ * number of '#' after the decimal point and US symbols, see
+ * {@link #createFractional(int)}.</li>
+ * </ul>
+ * Common values are converted with long arithmetic only. In fraction digits
+ * style, values needing more than 15 significant digits are taken from
+ * {@link Double#toString(double)}. Values which cannot be rounded reliably
+ * that way (values very close to a rounding tie, very large or very small
+ * values, infinities and NaN) are handed to the original formatter.
+ * <p>
+ * An encoder is not thread safe, use one instance per writer.
+ *
+ * @version $Id$
+ */
+public class FixedPrecisionEncoder {
+
+    // exactly representable powers of ten
+    private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+            1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+            1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    // largest scaled value for which rounding is decided in double arithmetic,
+    // the error on the scaled value stays well below TIE_MARGIN
+    private static final double MAX_ROUNDED = 1e9;
+
+    private static final double TIE_MARGIN = 1e-6;
+
+    // largest value with at most 15 significant digits
+    private static final double MAX_EXACT = 1e15;
+
+    private static final double MIN_SIGNIFICANT = 1e-9;
+
+    private static final double LOG10_2 = Math.log(2) / Math.log(10);
+
+    private final boolean significant;
+
+    private final int digits;
+
+    private final int maxWidth;
+
+    private ScientificFormat scientificFormat;
+
+    private DecimalFormat decimalFormat;
+
+    private byte[] buffer = new byte[256];
+
+    private int count;
+
+    private final byte[] digitBuffer = new byte[24];
+
+    private FixedPrecisionEncoder(boolean significant, int digits, int maxWidth) {
+        this.significant = significant;
+        this.digits = digits;
+        this.maxWidth = maxWidth;
+    }
+
+    /**
+     * Creates an encoder which writes the same characters as
+     * {@link ScientificFormat#format(double)} for
+     * <tt>new ScientificFormat(sigDigits, maxWidth, false)</tt>.
+     */
+    public static FixedPrecisionEncoder createSignificant(int sigDigits,
+            int maxWidth) {
+        if (sigDigits < 1) throw new IllegalArgumentException("sigDigits");
+        if (maxWidth < 3) throw new IllegalArgumentException("maxWidth");
+        return new FixedPrecisionEncoder(true, sigDigits, maxWidth);
+    }
+
+    /**
+     * Creates an encoder which writes the same characters as a
+     * <tt>DecimalFormat</tt> with pattern "#.##..." (maxFractionDigits '#'
+     * after the decimal point) and US symbols, so at most maxFractionDigits
+     * decimal places and no trailing zeros.
+     */
+    public static FixedPrecisionEncoder createFractional(int maxFractionDigits) {
+        if (maxFractionDigits < 0)
+            throw new IllegalArgumentException("maxFractionDigits");
+        return new FixedPrecisionEncoder(false, maxFractionDigits, 0);
+    }
+
+    /**
+     * Clears the buffer.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * @return number of bytes in the buffer
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the internal buffer, valid from 0 to size()
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+
+    public void appendTo(StringBuffer s) {
+        for (int i = 0; i < count; i++) {
+            s.append((char) (buffer[i] & 0xFF));
+        }
+    }
+
+    public String toString() {
+        return toString(0);
+    }
+
+    /**
+     * @return the buffer from start to size() as String
+     */
+    public String toString(int start) {
+        char[] c = new char[count - start];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (char) (buffer[start + i] & 0xFF);
+        }
+        return new String(c);
+    }
+
+    /**
+     * Drops everything after the first size bytes, such as what was appended
+     * after a size() taken earlier.
+     */
+    public void truncate(int size) {
+        if ((size < 0) || (size > count))
+            throw new IllegalArgumentException("size");
+        count = size;
+    }
+
+    /**
+     * @return the formatted value as String, leaves the buffer untouched.
+     */
+    public String format(double d) {
+        int mark = count;
+        append(d);
+        String result = toString(mark);
+        count = mark;
+        return result;
+    }
+
+    public FixedPrecisionEncoder append(char c) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Appends the string, characters outside ISO-8859-1 are written as '?'.
+     */
+    public FixedPrecisionEncoder append(String s) {
+        int n = s.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            buffer[count++] = (byte) ((c <= 0xFF) ? c : '?');
+        }
+        return this;
+    }
+
+    public FixedPrecisionEncoder append(long v) {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) {
+                return append(Long.toString(v));
+            }
+            append('-');
+            v = -v;
+        }
+        appendDigits(v, 1);
+        return this;
+    }
+
+    public FixedPrecisionEncoder append(double d) {
+        boolean done = significant ? appendSignificant(d)
+                : appendFractional(d);
+        if (!done) {
+            append(slowFormat(d));
+        }
+        return this;
+    }
+
+    private String slowFormat(double d) {
+        if (significant) {
+            if (scientificFormat == null) {
+                scientificFormat = new ScientificFormat(digits, maxWidth,
+                        false);
+            }
+            return scientificFormat.format(d);
+        } else {
+            if (decimalFormat == null) {
+                StringBuffer pattern = new StringBuffer("#");
+                if (digits > 0) {
+                    pattern.append('.');
+                    for (int i = 0; i < digits; i++) {
+                        pattern.append('#');
+                    }
+                }
+                decimalFormat = new DecimalFormat(pattern.toString(),
+                        new DecimalFormatSymbols(Locale.US));
+            }
+            return decimalFormat.format(d);
+        }
+    }
+
+    private static boolean isNegative(double d) {
+        return Double.doubleToLongBits(d) < 0;
+    }
+
+    private static double scale(double a, int s) {
+        return (s >= 0) ? a * POW10[s] : a / POW10[-s];
+    }
+
+    /**
+     * Significant digits, ScientificFormat style: digits are the value rounded
+     * to sigDigits digits, placed according to the exponent, without
+     * exponential notation inside the maxWidth window.
+     */
+    private boolean appendSignificant(double d) {
+        if ((digits < 2) || (digits > 9)) {
+            return false;
+        }
+
+        // number of digits before the decimal point
+        int exponent;
+        long m;
+        if (d == 0) {
+            exponent = 1;
+            m = 0;
+        } else {
+            double a = Math.abs(d);
+            if (!(a >= MIN_SIGNIFICANT && a < MAX_EXACT)) {
+                return false;
+            }
+
+            double lo = POW10[digits - 1];
+            double hi = POW10[digits];
+            // estimate of the decimal exponent from the binary one, corrected
+            // below if it is off by one
+            int e2 = (int) (Double.doubleToLongBits(a) >> 52) - 1023;
+            int e = (int) Math.floor(e2 * LOG10_2);
+            double r = scale(a, digits - 1 - e);
+            if (r < lo) {
+                e--;
+                r = scale(a, digits - 1 - e);
+            } else if (r >= hi) {
+                e++;
+                r = scale(a, digits - 1 - e);
+            }
+
+            m = (long) r;
+            double fraction = r - m;
+            if (Math.abs(fraction - 0.5) < TIE_MARGIN) {
+                return false;
+            }
+            if (fraction > 0.5) {
+                m++;
+            }
+            if (m >= (long) hi) {
+                m /= 10;
+                e++;
+            }
+            if (m < (long) lo) {
+                return false;
+            }
+            exponent = e + 1;
+        }
+
+        if ((exponent > maxWidth) || (exponent < -maxWidth + digits + 1)) {
+            return false;
+        }
+
+        int n = toDigits(m, digits);
+        int start = digitBuffer.length - n;
+
+        ensureCapacity(digits + Math.abs(exponent) + 2);
+        if (isNegative(d)) {
+            buffer[count++] = '-';
+        }
+        if (exponent >= digits) {
+            System.arraycopy(digitBuffer, start, buffer, count, n);
+            count += n;
+            for (int i = digits; i < exponent; i++) {
+                buffer[count++] = '0';
+            }
+        } else if (exponent <= 0) {
+            buffer[count++] = '.';
+            for (int i = exponent; i < 0; i++) {
+                buffer[count++] = '0';
+            }
+            System.arraycopy(digitBuffer, start, buffer, count, n);
+            count += n;
+        } else {
+            System.arraycopy(digitBuffer, start, buffer, count, exponent);
+            count += exponent;
+            buffer[count++] = '.';
+            System.arraycopy(digitBuffer, start + exponent, buffer, count, n
+                    - exponent);
+            count += n - exponent;
+        }
+        return true;
+    }
+
+    /**
+     * Fraction digits, DecimalFormat style: the shortest decimal which reads
+     * back as the same double, rounded to at most the given number of
+     * fraction digits.
+     */
+    private boolean appendFractional(double d) {
+        if (d == 0) {
+            if (isNegative(d)) {
+                append('-');
+            }
+            append('0');
+            return true;
+        }
+
+        double a = Math.abs(d);
+        if (!(a < MAX_EXACT)) {
+            return false;
+        }
+
+        // shortest decimal with at most 15 significant digits
+        int maxK = Math.min(digits, POW10.length - 1);
+        for (int k = 0; k <= maxK; k++) {
+            double r = a * POW10[k];
+            if (r >= MAX_EXACT) {
+                break;
+            }
+            double m = Math.floor(r + 0.5);
+            if (m / POW10[k] == a) {
+                if (d < 0) {
+                    append('-');
+                }
+                appendDecimal((long) m, k);
+                return true;
+            }
+        }
+
+        // shortest decimal with more than 15 significant digits, within the
+        // range Double.toString writes without exponent
+        if ((a >= 1e-3) && (a < 1e7)) {
+            String shortest = Double.toString(a);
+            if (shortest.length() - shortest.indexOf('.') - 1 <= digits) {
+                if (d < 0) {
+                    append('-');
+                }
+                append(shortest);
+                return true;
+            }
+        }
+
+        // more fraction digits needed than allowed, round
+        if (digits < POW10.length) {
+            double r = a * POW10[digits];
+            if (r < MAX_ROUNDED) {
+                long m = (long) r;
+                double fraction = r - m;
+                if (Math.abs(fraction - 0.5) < TIE_MARGIN) {
+                    return false;
+                }
+                if (fraction > 0.5) {
+                    m++;
+                }
+                if (d < 0) {
+                    append('-');
+                }
+                appendDecimal(m, digits);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends m * 10^-k, leaving out trailing zeros in the fraction.
+     */
+    private void appendDecimal(long m, int k) {
+        long integer = 0;
+        long fraction = m;
+        if (k < 19) {
+            long p = 1;
+            for (int i = 0; i < k; i++) {
+                p *= 10;
+            }
+            integer = m / p;
+            fraction = m % p;
+        }
+
+        appendDigits(integer, 1);
+        if (fraction != 0) {
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                k--;
+            }
+            append('.');
+            appendDigits(fraction, k);
+        }
+    }
+
+    /**
+     * Appends v, padded with leading zeros to at least minDigits.
+     */
+    private void appendDigits(long v, int minDigits) {
+        int n = toDigits(v, minDigits);
+        ensureCapacity(n);
+        System.arraycopy(digitBuffer, digitBuffer.length - n, buffer, count, n);
+        count += n;
+    }
+
+    /**
+     * Writes v right-aligned into digitBuffer, padded with leading zeros to at
+     * least minDigits.
+     *
+     * @return number of digits written
+     */
+    private int toDigits(long v, int minDigits) {
+        int i = digitBuffer.length;
+        do {
+            digitBuffer[--i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        while (digitBuffer.length - i < minDigits) {
+            digitBuffer[--i] = '0';
+        }
+        return digitBuffer.length - i;
+    }
+
+    private void ensureCapacity(int n) {
+        if (count + n > buffer.length) {
+            byte[] b = new byte[Math.max(buffer.length * 2, count + n)];
+            System.arraycopy(buffer, 0, b, 0, count);
+            buffer = b;
+        }
+    }
+}
@@ -76,77 +76,197 @@ public class ImageUtilities {
     public static byte[] getBytes(RenderedImage image, Color bkg, String code, int pad) {
         if (pad < 1) pad = 1;
 
-        Raster raster = image.getData();
-
         int width = image.getWidth();
         int height = image.getHeight();
 
         boolean preMultiply = (code.charAt(0) == '*');
         if (preMultiply) code = code.substring(1);
+        if (preMultiply && (bkg == null)) bkg = Color.BLACK;
 
+        int[] shifts = getShifts(code);
         int pixelSize = code.length();
 
         int size = width*height*pixelSize;
         size += (width % pad)*height;
-        int index = 0;
         byte[] bytes = new byte[size];
-        
-        ColorModel colorModel = image.getColorModel();
 
+        if (isStandardLayout(image)) {
+            getBytesByStrip((BufferedImage)image, bkg, preMultiply, shifts, pad, bytes);
+            return bytes;
+        }
+
+        Raster raster = image.getData();
+        ColorModel colorModel = image.getColorModel();
+        Object pixel = null;
+        int index = 0;
         for (int y=0; y<height; y++) {
             for (int x=0; x<width; x++) {
+                pixel = raster.getDataElements(image.getMinX()+x, image.getMinY()+y, pixel);
+                index = putPixel(colorModel.getRGB(pixel), bkg, preMultiply, shifts, bytes, index);
+            }
+            index += width % pad;
+        }
 
-                int argb = colorModel.getRGB(raster.getDataElements(x, y, (Object)null));
-                int a = ((argb >> 24) & 0xFF);
-                int r = ((argb >> 16) & 0xFF);
-                int g = ((argb >>  8) & 0xFF);
-                int b = ((argb >>  0) & 0xFF);
-                
-                // Check the transparancy. If transparent substitute
-                // the background color.
-                if (preMultiply && (a < 0xFF)) {
-                    if (bkg == null) bkg = Color.BLACK;
-                    double alpha = a/255.0;
-                    r = (int)(alpha*r+(1-alpha)*bkg.getRed());
-                    g = (int)(alpha*g+(1-alpha)*bkg.getGreen());
-                    b = (int)(alpha*b+(1-alpha)*bkg.getBlue());
-                }
+        return bytes;
+    }
 
-                for (int i=0; i<code.length(); i++) {
-                    switch (code.charAt(i)) {
-                        case 'a':
-                        case 'A':
-                            bytes[index] = (byte)a;
-                            break;
+    // number of rows read from the raster at once by the fast path
+    private static final int STRIP_PIXELS = 1 << 16;
 
-                        case 'r':
-                        case 'R':
-                            bytes[index] = (byte)r;
-                            break;
+    /**
+     * @return true if the image is a BufferedImage whose pixels can be read
+     *         in bulk by {@link #getBytesByStrip}.
+     */
+    private static boolean isStandardLayout(RenderedImage image) {
+        if (!(image instanceof BufferedImage)) return false;
+        switch (((BufferedImage)image).getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+            case BufferedImage.TYPE_BYTE_GRAY:
+                return true;
+            default:
+                return false;
+        }
+    }
 
-                        case 'g':
-                        case 'G':
-                            bytes[index] = (byte)g;
-                            break;
+    /**
+     * Reads the pixels of one of the standard image types a strip of rows at
+     * a time into a reusable buffer, without copying the whole image and
+     * without allocating per pixel. Gives the same bytes as the general loop.
+     */
+    private static void getBytesByStrip(BufferedImage image, Color bkg, boolean preMultiply,
+                                        int[] shifts, int pad, byte[] bytes) {
+        Raster raster = image.getRaster();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int type = image.getType();
+        int rows = Math.max(1, Math.min(height, STRIP_PIXELS / Math.max(1, width)));
 
-                        case 'b':
-                        case 'B':
-                            bytes[index] = (byte)b;
-                            break;
+        int[] grayToRGB = null;
+        if (type == BufferedImage.TYPE_BYTE_GRAY) {
+            // gray is linear, convert through the color model once per level
+            grayToRGB = new int[256];
+            byte[] gray = new byte[1];
+            for (int i=0; i<256; i++) {
+                gray[0] = (byte)i;
+                grayToRGB[i] = image.getColorModel().getRGB(gray);
+            }
+        }
+
+        int[] ints = null;
+        byte[] samples = null;
+        int index = 0;
+        for (int y=0; y<height; y+=rows) {
+            int n = Math.min(rows, height-y);
+            int x0 = raster.getMinX();
+            int y0 = raster.getMinY()+y;
+            if ((type == BufferedImage.TYPE_INT_RGB) || (type == BufferedImage.TYPE_INT_ARGB)) {
+                ints = (int[])raster.getDataElements(x0, y0, width, n, ints);
+            } else {
+                samples = (byte[])raster.getDataElements(x0, y0, width, n, samples);
+            }
 
+            int i = 0;
+            for (int row=0; row<n; row++) {
+                for (int x=0; x<width; x++) {
+                    int argb;
+                    switch (type) {
+                        case BufferedImage.TYPE_INT_RGB:
+                            argb = 0xFF000000 | ints[i++];
+                            break;
+                        case BufferedImage.TYPE_INT_ARGB:
+                            argb = ints[i++];
+                            break;
+                        case BufferedImage.TYPE_3BYTE_BGR:
+                            // data elements are in band order, R G B
+                            argb = 0xFF000000 | ((samples[i] & 0xFF) << 16)
+                                | ((samples[i+1] & 0xFF) << 8) | (samples[i+2] & 0xFF);
+                            i += 3;
+                            break;
+                        case BufferedImage.TYPE_4BYTE_ABGR:
+                            // data elements are in band order, R G B A
+                            argb = ((samples[i+3] & 0xFF) << 24) | ((samples[i] & 0xFF) << 16)
+                                | ((samples[i+1] & 0xFF) << 8) | (samples[i+2] & 0xFF);
+                            i += 4;
+                            break;
                         default:
-                            System.err.println(ImageUtilities.class.getClass()+": Invalid code in '"+code+"'");
+                            argb = grayToRGB[samples[i++] & 0xFF];
                             break;
                     }
-                    index++;
+                    index = putPixel(argb, bkg, preMultiply, shifts, bytes, index);
                 }
+                index += width % pad;
             }
-            for (int i=0; i<(width % pad); i++) {
-                bytes[index] = 0;
-                index++;
+        }
+    }
+
+    /**
+     * @return for each character of the code the shift of its component in
+     *         an ARGB int, or -1 for an invalid character
+     */
+    private static int[] getShifts(String code) {
+        int[] shifts = new int[code.length()];
+        for (int i=0; i<code.length(); i++) {
+            switch (code.charAt(i)) {
+                case 'a':
+                case 'A':
+                    shifts[i] = 24;
+                    break;
+
+                case 'r':
+                case 'R':
+                    shifts[i] = 16;
+                    break;
+
+                case 'g':
+                case 'G':
+                    shifts[i] = 8;
+                    break;
+
+                case 'b':
+                case 'B':
+                    shifts[i] = 0;
+                    break;
+
+                default:
+                    System.err.println(ImageUtilities.class.getClass()+": Invalid code in '"+code+"'");
+                    shifts[i] = -1;
+                    break;
             }
         }
+        return shifts;
+    }
 
-        return bytes;
+    /**
+     * Stores the components of one pixel.
+     *
+     * @return index of the next pixel
+     */
+    private static int putPixel(int argb, Color bkg, boolean preMultiply, int[] shifts,
+                                byte[] bytes, int index) {
+        int a = ((argb >> 24) & 0xFF);
+
+        // Check the transparancy. If transparent substitute
+        // the background color.
+        if (preMultiply && (a < 0xFF)) {
+            int r = ((argb >> 16) & 0xFF);
+            int g = ((argb >>  8) & 0xFF);
+            int b = ((argb >>  0) & 0xFF);
+            double alpha = a/255.0;
+            r = (int)(alpha*r+(1-alpha)*bkg.getRed());
+            g = (int)(alpha*g+(1-alpha)*bkg.getGreen());
+            b = (int)(alpha*b+(1-alpha)*bkg.getBlue());
+            argb = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+
+        for (int i=0; i<shifts.length; i++) {
+            if (shifts[i] >= 0) {
+                bytes[index] = (byte)(argb >> shifts[i]);
+            }
+            index++;
+        }
+        return index;
     }
 }
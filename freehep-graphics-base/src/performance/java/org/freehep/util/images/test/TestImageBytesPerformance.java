@@ -0,0 +1,144 @@
+package org.freehep.util.images.test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.freehep.util.images.ImageUtilities;
+
+/**
+ * Compares ImageUtilities.getBytes with the per pixel loop it used before
+ * (whole image copy, getDataElements and getRGB for every pixel) on images of
+ * the standard BufferedImage types. Checks that the bytes are identical and
+ * prints the time per image.
+ *
+ * Usage: TestImageBytesPerformance [width height]
+ *
+ * @version $Id$
+ */
+public class TestImageBytesPerformance {
+
+    private static final int ROUNDS = 3;
+
+    private static final int[] types = { BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY };
+
+    private static final String[] typeNames = { "INT_RGB", "INT_ARGB",
+            "3BYTE_BGR", "4BYTE_ABGR", "BYTE_GRAY" };
+
+    /**
+     * The loop of ImageUtilities.getBytes before the bulk paths were added,
+     * as used by RawImageWriter for PDF and PS images ("*RGB" or "A").
+     */
+    private static byte[] perPixel(RenderedImage image, Color bkg,
+            String code, int pad) {
+        Raster raster = image.getData();
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        boolean preMultiply = (code.charAt(0) == '*');
+        if (preMultiply) code = code.substring(1);
+
+        int size = width * height * code.length();
+        size += (width % pad) * height;
+        int index = 0;
+        byte[] bytes = new byte[size];
+
+        ColorModel colorModel = image.getColorModel();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int argb = colorModel.getRGB(raster.getDataElements(x, y,
+                        (Object) null));
+                int a = ((argb >> 24) & 0xFF);
+                int r = ((argb >> 16) & 0xFF);
+                int g = ((argb >> 8) & 0xFF);
+                int b = ((argb >> 0) & 0xFF);
+                if (preMultiply && (a < 0xFF)) {
+                    if (bkg == null) bkg = Color.BLACK;
+                    double alpha = a / 255.0;
+                    r = (int) (alpha * r + (1 - alpha) * bkg.getRed());
+                    g = (int) (alpha * g + (1 - alpha) * bkg.getGreen());
+                    b = (int) (alpha * b + (1 - alpha) * bkg.getBlue());
+                }
+                for (int i = 0; i < code.length(); i++) {
+                    switch (code.charAt(i)) {
+                    case 'A':
+                        bytes[index] = (byte) a;
+                        break;
+                    case 'R':
+                        bytes[index] = (byte) r;
+                        break;
+                    case 'G':
+                        bytes[index] = (byte) g;
+                        break;
+                    case 'B':
+                        bytes[index] = (byte) b;
+                        break;
+                    }
+                    index++;
+                }
+            }
+            index += width % pad;
+        }
+        return bytes;
+    }
+
+    private static void run(String name, BufferedImage image, String code) {
+        byte[] expected = null;
+        byte[] actual = null;
+        long loopTime = Long.MAX_VALUE;
+        long bulkTime = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            expected = perPixel(image, Color.WHITE, code, 1);
+            long t1 = System.nanoTime();
+            actual = ImageUtilities.getBytes(image, Color.WHITE, code, 1);
+            long t2 = System.nanoTime();
+            loopTime = Math.min(loopTime, t1 - t0);
+            bulkTime = Math.min(bulkTime, t2 - t1);
+        }
+
+        boolean identical = Arrays.equals(expected, actual);
+        System.out.println(name + " " + code + ": "
+                + (identical ? "identical" : "DIFFERENT") + ", "
+                + expected.length + " bytes");
+        System.out.println("    per pixel: " + (loopTime / 1000000) + " ms");
+        System.out.println("    bulk:      " + (bulkTime / 1000000) + " ms");
+        System.out.println("    speedup:   " + ((double) loopTime / bulkTime));
+        if (!identical) {
+            System.exit(1);
+        }
+    }
+
+    public static void main(String[] args) {
+        int width = (args.length > 1) ? Integer.parseInt(args[0]) : 3840;
+        int height = (args.length > 1) ? Integer.parseInt(args[1]) : 2160;
+
+        // photo-like content with some transparency
+        Random random = new Random(4321);
+        int[] row = new int[width];
+        for (int t = 0; t < types.length; t++) {
+            BufferedImage image = new BufferedImage(width, height, types[t]);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int noise = random.nextInt(16);
+                    row[x] = (Math.min(255, x * 255 / width + noise) << 16)
+                            | (Math.min(255, y * 255 / height + noise) << 8)
+                            | ((x + y) & 0xFF)
+                            | (((x % 97 == 0) ? 0x80 : 0xFF) << 24);
+                }
+                image.setRGB(0, y, width, 1, row, 0, width);
+            }
+
+            run(typeNames[t], image, "*RGB");
+            if (image.getColorModel().hasAlpha()) {
+                run(typeNames[t], image, "A");
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.freehep.util.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import org.freehep.util.FixedPrecisionEncoder;
+import org.freehep.util.ScientificFormat;
+
+/**
+ * Compares FixedPrecisionEncoder with the String based formatting used so far
+ * by the PDF (ScientificFormat 5/100), PS (ScientificFormat 6/9) and SVG
+ * (DecimalFormat with 20 fraction digits) writers. Writes a path-like stream of
+ * coordinates with both, checks that the bytes are identical and prints the
+ * throughput.
+ * 
+ * Usage: TestFixedPrecisionPerformance [numberOfValues]
+ *
+ * @version $Id$
+ */
+public class TestFixedPrecisionPerformance {
+
+    private static final int ROUNDS = 5;
+
+    private static byte[] formatted(Format format, double[] values)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                values.length * 12);
+        for (int i = 0; i < values.length; i++) {
+            out.write(format.format(new Double(values[i])).getBytes(
+                    "ISO-8859-1"));
+            out.write(' ');
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encoded(FixedPrecisionEncoder encoder,
+            double[] values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                values.length * 12);
+        for (int i = 0; i < values.length; i++) {
+            encoder.reset();
+            encoder.append(values[i]).append(' ');
+            encoder.writeTo(out);
+        }
+        return out.toByteArray();
+    }
+
+    private static void run(String name, Format format,
+            FixedPrecisionEncoder encoder, double[] values) throws IOException {
+        byte[] expected = null;
+        byte[] actual = null;
+        long formatTime = Long.MAX_VALUE;
+        long encoderTime = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            expected = formatted(format, values);
+            long t1 = System.nanoTime();
+            actual = encoded(encoder, values);
+            long t2 = System.nanoTime();
+            formatTime = Math.min(formatTime, t1 - t0);
+            encoderTime = Math.min(encoderTime, t2 - t1);
+        }
+
+        boolean identical = Arrays.equals(expected, actual);
+        System.out.println(name + ": " + (identical ? "identical" : "DIFFERENT")
+                + ", " + expected.length + " bytes");
+        System.out.println("    format:  "
+                + (formatTime / values.length) + " ns/value");
+        System.out.println("    encoder: "
+                + (encoderTime / values.length) + " ns/value");
+        System.out.println("    speedup: "
+                + ((double) formatTime / encoderTime));
+        if (!identical) {
+            System.exit(1);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+
+        // coordinates as they appear in plots: page coordinates, some of them
+        // float precision, some of them on a grid
+        Random random = new Random(1234);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            switch (i % 4) {
+            case 0:
+                values[i] = random.nextDouble() * 800;
+                break;
+            case 1:
+                values[i] = (float) (random.nextDouble() * 600);
+                break;
+            case 2:
+                values[i] = random.nextInt(8000) * 0.25;
+                break;
+            default:
+                values[i] = (random.nextDouble() - 0.5) * 2;
+                break;
+            }
+        }
+
+        run("PDF", new ScientificFormat(5, 100, false), FixedPrecisionEncoder
+                .createSignificant(5, 100), values);
+        run("PS", new ScientificFormat(6, 9, false), FixedPrecisionEncoder
+                .createSignificant(6, 9), values);
+        run("SVG", new DecimalFormat("#.####################",
+                new DecimalFormatSymbols(Locale.US)), FixedPrecisionEncoder
+                .createFractional(20), values);
+    }
+}
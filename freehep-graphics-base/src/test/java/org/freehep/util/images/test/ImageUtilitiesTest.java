@@ -0,0 +1,191 @@
+package org.freehep.util.images.test;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+import org.freehep.util.images.ImageUtilities;
+
+/**
+ * Checks that the bulk paths of ImageUtilities.getBytes for the standard
+ * BufferedImage types give the same bytes as the general per pixel path.
+ *
+ * @version $Id$
+ */
+public class ImageUtilitiesTest extends TestCase {
+
+    private static final int[] types = { BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY };
+
+    private static final String[] codes = { "ARGB", "RGB", "BGR", "A",
+            "*RGB", "*ARGB" };
+
+    /**
+     * Hides the type of a BufferedImage, so that getBytes takes the general
+     * path.
+     */
+    private static class Wrapper implements RenderedImage {
+        private BufferedImage image;
+
+        Wrapper(BufferedImage image) {
+            this.image = image;
+        }
+
+        public Vector<RenderedImage> getSources() {
+            return null;
+        }
+
+        public Object getProperty(String name) {
+            return image.getProperty(name);
+        }
+
+        public String[] getPropertyNames() {
+            return image.getPropertyNames();
+        }
+
+        public ColorModel getColorModel() {
+            return image.getColorModel();
+        }
+
+        public SampleModel getSampleModel() {
+            return image.getSampleModel();
+        }
+
+        public int getWidth() {
+            return image.getWidth();
+        }
+
+        public int getHeight() {
+            return image.getHeight();
+        }
+
+        public int getMinX() {
+            return 0;
+        }
+
+        public int getMinY() {
+            return 0;
+        }
+
+        public int getNumXTiles() {
+            return 1;
+        }
+
+        public int getNumYTiles() {
+            return 1;
+        }
+
+        public int getMinTileX() {
+            return 0;
+        }
+
+        public int getMinTileY() {
+            return 0;
+        }
+
+        public int getTileWidth() {
+            return image.getWidth();
+        }
+
+        public int getTileHeight() {
+            return image.getHeight();
+        }
+
+        public int getTileGridXOffset() {
+            return 0;
+        }
+
+        public int getTileGridYOffset() {
+            return 0;
+        }
+
+        public Raster getTile(int tileX, int tileY) {
+            return image.getData();
+        }
+
+        public Raster getData() {
+            return image.getData();
+        }
+
+        public Raster getData(Rectangle rect) {
+            return image.getData(rect);
+        }
+
+        public WritableRaster copyData(WritableRaster raster) {
+            return image.copyData(raster);
+        }
+    }
+
+    private static BufferedImage createImage(int type, int width, int height,
+            Random random) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int argb = random.nextInt();
+                // include fully opaque and fully transparent pixels
+                if (x % 5 == 0) {
+                    argb |= 0xFF000000;
+                } else if (x % 7 == 0) {
+                    argb &= 0x00FFFFFF;
+                }
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSameBytes(BufferedImage image, String name) {
+        for (int c = 0; c < codes.length; c++) {
+            for (int pad = 1; pad <= 4; pad *= 2) {
+                Color[] bkgs = { null, Color.WHITE, new Color(10, 200, 30) };
+                for (int b = 0; b < bkgs.length; b++) {
+                    byte[] expected = ImageUtilities.getBytes(new Wrapper(
+                            image), bkgs[b], codes[c], pad);
+                    byte[] actual = ImageUtilities.getBytes(image, bkgs[b],
+                            codes[c], pad);
+                    assertTrue(name + " code " + codes[c] + " pad " + pad
+                            + " bkg " + bkgs[b], Arrays.equals(expected,
+                            actual));
+                }
+            }
+        }
+    }
+
+    public void testStandardTypes() {
+        Random random = new Random(17);
+        for (int t = 0; t < types.length; t++) {
+            assertSameBytes(createImage(types[t], 37, 23, random), "type "
+                    + types[t]);
+        }
+    }
+
+    public void testSubimages() {
+        Random random = new Random(23);
+        for (int t = 0; t < types.length; t++) {
+            BufferedImage image = createImage(types[t], 50, 40, random);
+            assertSameBytes(image.getSubimage(7, 5, 31, 19), "subimage of type "
+                    + types[t]);
+        }
+    }
+
+    public void testLargeImage() {
+        // more rows than are read at once
+        Random random = new Random(5);
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB, 1001,
+                300, random);
+        assertTrue(Arrays.equals(ImageUtilities.getBytes(new Wrapper(image),
+                null, "*RGB", 1), ImageUtilities.getBytes(image, null, "*RGB",
+                1)));
+    }
+}
@@ -0,0 +1,119 @@
+package org.freehep.util.test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.freehep.util.FixedPrecisionEncoder;
+import org.freehep.util.ScientificFormat;
+
+/**
+ * Checks that FixedPrecisionEncoder writes exactly the same characters as the
+ * formatters it replaces.
+ *
+ * @version $Id$
+ */
+public class FixedPrecisionEncoderTest extends TestCase {
+
+    private static final double[] values = { 0.0, -0.0, 1.0, -1.0, 0.5, 0.1,
+            0.30000000000000004, 123.0, 123.456, -123.456, 99999.5, 99999.49,
+            9.999995, 1.000005, 0.00012345, 1.5e-5, 1e-7, 1e-25, -1e-25, 1e15,
+            1e16, 1e20, 1e300, 4.9e-324, 595.2756, 841.8898, 0.125, 0.375,
+            2.5, 1.0 / 3.0, 2.0 / 3.0, Double.MAX_VALUE, Double.MIN_VALUE };
+
+    private static void assertSame(ScientificFormat format,
+            FixedPrecisionEncoder encoder, double d) {
+        encoder.reset();
+        encoder.append(d);
+        assertEquals("value " + d, format.format(d), encoder.toString());
+    }
+
+    private static void assertSame(DecimalFormat format,
+            FixedPrecisionEncoder encoder, double d) {
+        encoder.reset();
+        encoder.append(d);
+        assertEquals("value " + d, format.format(d), encoder.toString());
+    }
+
+    private static double random(Random random, int i) {
+        switch (i % 6) {
+        case 0:
+            return Double.longBitsToDouble(random.nextLong());
+        case 1:
+            return (random.nextDouble() - 0.5) * 2000;
+        case 2:
+            return random.nextInt(100000) * 0.1;
+        case 3:
+            return random.nextGaussian() * 1e-3;
+        case 4:
+            return (float) (random.nextDouble() * 600);
+        default:
+            return random.nextInt(1000) / 8.0;
+        }
+    }
+
+    public void testSignificant() {
+        int[][] configs = { { 5, 100 }, { 6, 9 }, { 4, 8 } };
+        Random random = new Random(4711);
+        for (int c = 0; c < configs.length; c++) {
+            ScientificFormat format = new ScientificFormat(configs[c][0],
+                    configs[c][1], false);
+            FixedPrecisionEncoder encoder = FixedPrecisionEncoder
+                    .createSignificant(configs[c][0], configs[c][1]);
+            for (int i = 0; i < values.length; i++) {
+                assertSame(format, encoder, values[i]);
+            }
+            for (int i = 0; i < 50000; i++) {
+                assertSame(format, encoder, random(random, i));
+            }
+        }
+    }
+
+    public void testFractional() {
+        int[] configs = { 20, 3, 0 };
+        Random random = new Random(4711);
+        for (int c = 0; c < configs.length; c++) {
+            StringBuffer pattern = new StringBuffer("#");
+            if (configs[c] > 0) {
+                pattern.append('.');
+            }
+            for (int i = 0; i < configs[c]; i++) {
+                pattern.append('#');
+            }
+            DecimalFormat format = new DecimalFormat(pattern.toString(),
+                    new DecimalFormatSymbols(Locale.US));
+            FixedPrecisionEncoder encoder = FixedPrecisionEncoder
+                    .createFractional(configs[c]);
+            for (int i = 0; i < values.length; i++) {
+                assertSame(format, encoder, values[i]);
+            }
+            for (int i = 0; i < 50000; i++) {
+                double d = random(random, i);
+                if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                    assertSame(format, encoder, d);
+                }
+            }
+        }
+    }
+
+    public void testBuffer() {
+        FixedPrecisionEncoder encoder = FixedPrecisionEncoder
+                .createSignificant(5, 100);
+        for (int i = 0; i < 100; i++) {
+            encoder.append(1.5).append(' ').append(-7L).append(" m\n");
+        }
+        assertEquals(100 * "1.5000 -7 m\n".length(), encoder.size());
+        assertEquals("2.2500", encoder.format(2.25));
+        assertEquals(100 * "1.5000 -7 m\n".length(), encoder.size());
+        int mark = encoder.size();
+        encoder.append("L ").append(0.5);
+        assertEquals("L .50000", encoder.toString(mark));
+        encoder.truncate(mark);
+        assertEquals(mark, encoder.size());
+        encoder.reset();
+        assertEquals("", encoder.toString());
+    }
+}
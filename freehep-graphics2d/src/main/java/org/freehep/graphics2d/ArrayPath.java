@@ -22,6 +22,11 @@ public class ArrayPath implements Shape {
 
         private double[] xPoints, yPoints;
 
+        // transform applied to the points while iterating
+        private boolean transformed;
+
+        private double m00, m10, m01, m11, m02, m12;
+
         private double lastX, lastY;
 
         private int nPoints;
@@ -35,33 +40,55 @@ public class ArrayPath implements Shape {
         private boolean isDone;
 
         private ArrayPathIterator(double[] xPoints, double[] yPoints,
-                int nPoints, boolean closed, int resolution) {
+                int nPoints, boolean closed, int resolution,
+                AffineTransform t) {
             this.xPoints = xPoints;
             this.yPoints = yPoints;
             this.nPoints = nPoints;
             this.closed = closed;
             this.resolution = resolution;
+            if (t != null) {
+                transformed = true;
+                m00 = t.getScaleX();
+                m10 = t.getShearY();
+                m01 = t.getShearX();
+                m11 = t.getScaleY();
+                m02 = t.getTranslateX();
+                m12 = t.getTranslateY();
+            }
             currentPoint = 0;
             isDone = nPoints == 0;
         }
 
+        private double getX(int i) {
+            return transformed ? m00 * xPoints[i] + m01 * yPoints[i] + m02
+                    : xPoints[i];
+        }
+
+        private double getY(int i) {
+            return transformed ? m10 * xPoints[i] + m11 * yPoints[i] + m12
+                    : yPoints[i];
+        }
+
         public boolean isDone() {
             return isDone;
         }
 
         public void next() {
             currentPoint++;
-            while ((currentPoint < nPoints - 1)
-                    && (Math.abs(xPoints[currentPoint] - lastX) < resolution)
-                    && (Math.abs(yPoints[currentPoint] - lastY) < resolution)) {
-                currentPoint++;
-            }
-
-            if (closed
-                    && (currentPoint == nPoints - 1)
-                    && (Math.abs(xPoints[currentPoint] - xPoints[0]) < resolution)
-                    && (Math.abs(yPoints[currentPoint] - yPoints[0]) < resolution)) {
-                currentPoint++; // skip last point since it is same as first
+            if (resolution > 0) {
+                while ((currentPoint < nPoints - 1)
+                        && (Math.abs(getX(currentPoint) - lastX) < resolution)
+                        && (Math.abs(getY(currentPoint) - lastY) < resolution)) {
+                    currentPoint++;
+                }
+
+                if (closed
+                        && (currentPoint == nPoints - 1)
+                        && (Math.abs(getX(currentPoint) - getX(0)) < resolution)
+                        && (Math.abs(getY(currentPoint) - getY(0)) < resolution)) {
+                    currentPoint++; // skip last point since it is same as first
+                }
             }
 
             isDone = (closed) ? currentPoint > nPoints
@@ -73,8 +100,8 @@ public class ArrayPath implements Shape {
                 return PathIterator.SEG_CLOSE;
             }
 
-            coords[0] = lastX = xPoints[currentPoint];
-            coords[1] = lastY = yPoints[currentPoint];
+            coords[0] = lastX = getX(currentPoint);
+            coords[1] = lastY = getY(currentPoint);
             return (currentPoint == 0) ? PathIterator.SEG_MOVETO
                     : PathIterator.SEG_LINETO;
         }
@@ -84,8 +111,8 @@ public class ArrayPath implements Shape {
                 return PathIterator.SEG_CLOSE;
             }
 
-            lastX = xPoints[currentPoint];
-            lastY = yPoints[currentPoint];
+            lastX = getX(currentPoint);
+            lastY = getY(currentPoint);
             coords[0] = (float) lastX;
             coords[1] = (float) lastY;
             return (currentPoint == 0) ? PathIterator.SEG_MOVETO
@@ -114,6 +141,23 @@ public class ArrayPath implements Shape {
         this.resolution = resolution;
     }
 
+    /**
+     * Creates a path of the points of a polyline/polygon which are visible at
+     * the given pixel size in device space, see {@link PolylineDecimator}.
+     *
+     * @param transform transform from user to device space, null for identity
+     * @param pixelSize size of a pixel in device space
+     */
+    public ArrayPath(double[] xPoints, double[] yPoints, int nPoints,
+            boolean closed, AffineTransform transform, double pixelSize) {
+        this.xPoints = new double[nPoints];
+        this.yPoints = new double[nPoints];
+        this.nPoints = PolylineDecimator.decimate(xPoints, yPoints, 0,
+                nPoints, transform, pixelSize, this.xPoints, this.yPoints);
+        this.closed = closed;
+        this.resolution = 0;
+    }
+
     public boolean contains(double x, double y) {
         // conservative guess
         return false;
@@ -133,8 +177,43 @@ public class ArrayPath implements Shape {
     }
 
     public boolean intersects(double x, double y, double w, double h) {
-        // conservative guess
-        return true;
+        if ((nPoints == 0) || (w <= 0) || (h <= 0)) {
+            return false;
+        }
+
+        // any edge, including the implicit closing one, inside the rectangle
+        Rectangle2D r = new Rectangle2D.Double(x, y, w, h);
+        for (int i = 0; i < nPoints; i++) {
+            int j = (i + 1 < nPoints) ? i + 1 : 0;
+            if (r.intersectsLine(xPoints[i], yPoints[i], xPoints[j],
+                    yPoints[j])) {
+                return true;
+            }
+        }
+
+        // otherwise the rectangle is either completely inside or outside
+        return getWinding(x + w / 2, y + h / 2) != 0;
+    }
+
+    /**
+     * @return winding number of the polygon around the given point
+     */
+    private int getWinding(double px, double py) {
+        int winding = 0;
+        for (int i = 0; i < nPoints; i++) {
+            int j = (i + 1 < nPoints) ? i + 1 : 0;
+            double x1 = xPoints[i], y1 = yPoints[i];
+            double x2 = xPoints[j], y2 = yPoints[j];
+            double side = (x2 - x1) * (py - y1) - (px - x1) * (y2 - y1);
+            if (y1 <= py) {
+                if ((y2 > py) && (side > 0)) {
+                    winding++;
+                }
+            } else if ((y2 <= py) && (side < 0)) {
+                winding--;
+            }
+        }
+        return winding;
     }
 
     public boolean intersects(Rectangle2D r) {
@@ -176,22 +255,8 @@ public class ArrayPath implements Shape {
     }
 
     public PathIterator getPathIterator(AffineTransform t) {
-        double[] transformedXPoints = xPoints;
-        double[] transformedYPoints = yPoints;
-        if (t != null) {
-            // FIXME, this seems a silly slow way to deal with this.
-            transformedXPoints = new double[nPoints];
-            transformedYPoints = new double[nPoints];
-            Point2D s = new Point2D.Double();
-            Point2D d = new Point2D.Double();
-            for (int i = 0; i < nPoints; i++) {
-                s.setLocation(xPoints[i], yPoints[i]);
-                t.transform(s, d);
-                transformedXPoints[i] = d.getX();
-                transformedYPoints[i] = d.getY();
-            }
-        }
-        return new ArrayPathIterator(transformedXPoints, transformedYPoints,
-                nPoints, closed, resolution);
+        // the transform is applied point by point while iterating
+        return new ArrayPathIterator(xPoints, yPoints, nPoints, closed,
+                resolution, t);
     }
 }
@@ -0,0 +1,598 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphics2d;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedString;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Drawing calls recorded by a {@link DisplayListGraphics2D}, which can be
+ * replayed into any number of VectorGraphics, for instance to export the same
+ * drawing to several formats without running the paint code again.
+ * <p>
+ * The calls are kept in two primitive arrays: opcodes with their integer
+ * operands, and the coordinates of all calls. Shapes are stored as their
+ * coordinates. Colors, paints, strokes, fonts, strings, images and other
+ * objects are stored once in an object table and referred to by index.
+ * <p>
+ * A display list is immutable, so it may be replayed on several threads at
+ * the same time, each into its own VectorGraphics. Images are shared between
+ * the replays and must not be modified after they were drawn.
+ *
+ * @version $Id$
+ */
+public final class DisplayList {
+
+    // state
+    static final int SET_COLOR = 1;
+
+    static final int SET_PAINT = 2;
+
+    static final int SET_BACKGROUND = 3;
+
+    static final int SET_STROKE = 4;
+
+    static final int SET_FONT = 5;
+
+    static final int SET_COMPOSITE = 6;
+
+    static final int SET_RENDERING_HINT = 7;
+
+    static final int SET_RENDERING_HINTS = 8;
+
+    static final int ADD_RENDERING_HINTS = 9;
+
+    static final int SET_PAINT_MODE = 10;
+
+    static final int SET_XOR_MODE = 11;
+
+    static final int SET_COLOR_MODE = 12;
+
+    // transform
+    static final int SET_TRANSFORM = 20;
+
+    static final int TRANSFORM = 21;
+
+    static final int TRANSLATE = 22;
+
+    static final int ROTATE = 23;
+
+    static final int SCALE = 24;
+
+    static final int SHEAR = 25;
+
+    // clip
+    static final int SET_CLIP = 30;
+
+    static final int CLIP = 31;
+
+    // shapes
+    static final int DRAW = 40;
+
+    static final int FILL = 41;
+
+    static final int FILL_AND_DRAW = 42;
+
+    static final int DRAW_LINE = 43;
+
+    static final int DRAW_RECT = 44;
+
+    static final int FILL_RECT = 45;
+
+    static final int CLEAR_RECT = 46;
+
+    static final int DRAW_OVAL = 47;
+
+    static final int FILL_OVAL = 48;
+
+    static final int DRAW_ROUND_RECT = 49;
+
+    static final int FILL_ROUND_RECT = 50;
+
+    static final int DRAW_ARC = 51;
+
+    static final int FILL_ARC = 52;
+
+    static final int DRAW_POLYLINE = 53;
+
+    static final int DRAW_POLYGON = 54;
+
+    static final int FILL_POLYGON = 55;
+
+    static final int DRAW_SYMBOL = 56;
+
+    static final int FILL_SYMBOL = 57;
+
+    static final int FILL_AND_DRAW_SYMBOL = 58;
+
+    // text
+    static final int DRAW_STRING = 60;
+
+    static final int DRAW_STRING_ALIGNED = 61;
+
+    static final int DRAW_STRING_FRAMED = 62;
+
+    static final int DRAW_TAG_STRING = 63;
+
+    static final int DRAW_TAG_STRING_ALIGNED = 64;
+
+    static final int DRAW_TAG_STRING_FRAMED = 65;
+
+    static final int DRAW_ATTRIBUTED_STRING = 66;
+
+    static final int DRAW_GLYPH_VECTOR = 67;
+
+    // images
+    static final int DRAW_IMAGE = 70;
+
+    static final int DRAW_IMAGE_SCALED = 71;
+
+    static final int DRAW_IMAGE_AREA = 72;
+
+    static final int DRAW_IMAGE_TRANSFORMED = 73;
+
+    static final int DRAW_IMAGE_FILTERED = 74;
+
+    static final int DRAW_RENDERED_IMAGE = 75;
+
+    static final int DRAW_RENDERABLE_IMAGE = 76;
+
+    static final int COPY_AREA = 77;
+
+    // other
+    static final int PRINT_COMMENT = 80;
+
+    static final int CREATE = 81;
+
+    static final int DISPOSE = 82;
+
+    // kinds of shapes
+    static final int SHAPE_PATH = 0;
+
+    static final int SHAPE_RECTANGLE = 1;
+
+    static final int SHAPE_RECTANGLE_2D = 2;
+
+    static final int SHAPE_LINE = 3;
+
+    static final int SHAPE_ELLIPSE = 4;
+
+    static final int SHAPE_ROUND_RECTANGLE = 5;
+
+    static final int SHAPE_ARC = 6;
+
+    // opcode in the lower bits of an instruction, graphics in the upper bits
+    static final int OPCODE_BITS = 8;
+
+    static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    private final int[] ops;
+
+    private final double[] coords;
+
+    private final Object[] objects;
+
+    private final int graphicsCount;
+
+    private final int instructionCount;
+
+    DisplayList(int[] ops, double[] coords, Object[] objects,
+            int graphicsCount, int instructionCount) {
+        this.ops = ops;
+        this.coords = coords;
+        this.objects = objects;
+        this.graphicsCount = graphicsCount;
+        this.instructionCount = instructionCount;
+    }
+
+    /**
+     * @return number of recorded drawing and state calls
+     */
+    public int getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * @return approximate size of the list in bytes, not counting the objects
+     *         it refers to
+     */
+    public long getByteCount() {
+        return 4L * ops.length + 8L * coords.length + 4L * objects.length;
+    }
+
+    /**
+     * Replays all recorded calls into the given graphics. Graphics which were
+     * created on the recording graphics are created and disposed on the given
+     * graphics in the same order. Export is neither started nor ended, so
+     * the caller calls startExport() and endExport() around the replay.
+     *
+     * @param g graphics to draw into
+     */
+    public void replay(VectorGraphics g) {
+        new Reader().replay(g);
+    }
+
+    /**
+     * Two display lists are equal if they contain the same calls with equal
+     * arguments.
+     */
+    public boolean equals(Object obj) {
+        if (!(obj instanceof DisplayList)) {
+            return false;
+        }
+        DisplayList list = (DisplayList) obj;
+        return Arrays.equals(ops, list.ops)
+                && Arrays.equals(coords, list.coords)
+                && Arrays.equals(objects, list.objects);
+    }
+
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ops) + Arrays.hashCode(coords);
+    }
+
+    public String toString() {
+        return getClass().getName() + "[" + instructionCount
+                + " instructions, " + ops.length + " ints, " + coords.length
+                + " coordinates, " + objects.length + " objects, "
+                + graphicsCount + " graphics]";
+    }
+
+    /**
+     * Cursor into the arrays, one per replay.
+     */
+    private class Reader {
+        private int op, coord;
+
+        private int nextInt() {
+            return ops[op++];
+        }
+
+        private double nextDouble() {
+            return coords[coord++];
+        }
+
+        private Object nextObject() {
+            int index = ops[op++];
+            return (index < 0) ? null : objects[index];
+        }
+
+        private AffineTransform nextTransform() {
+            double[] m = new double[6];
+            System.arraycopy(coords, coord, m, 0, 6);
+            coord += 6;
+            return new AffineTransform(m);
+        }
+
+        private Shape nextShape() {
+            int kind = nextInt();
+            switch (kind) {
+            case SHAPE_RECTANGLE:
+                return new Rectangle(nextInt(), nextInt(),
+                        nextInt(), nextInt());
+            case SHAPE_RECTANGLE_2D:
+                return new Rectangle2D.Double(nextDouble(), nextDouble(),
+                        nextDouble(), nextDouble());
+            case SHAPE_LINE:
+                return new Line2D.Double(nextDouble(), nextDouble(),
+                        nextDouble(), nextDouble());
+            case SHAPE_ELLIPSE:
+                return new Ellipse2D.Double(nextDouble(), nextDouble(),
+                        nextDouble(), nextDouble());
+            case SHAPE_ROUND_RECTANGLE:
+                return new RoundRectangle2D.Double(nextDouble(), nextDouble(),
+                        nextDouble(), nextDouble(), nextDouble(), nextDouble());
+            case SHAPE_ARC:
+                return new Arc2D.Double(nextDouble(), nextDouble(),
+                        nextDouble(), nextDouble(), nextDouble(), nextDouble(),
+                        nextInt());
+            case SHAPE_PATH:
+            default:
+                int windingRule = nextInt();
+                int segments = nextInt();
+                DisplayListPath path = new DisplayListPath(ops, op, segments,
+                        coords, coord, windingRule);
+                op += segments;
+                coord += path.getCoordinateCount();
+                return path;
+            }
+        }
+
+        private double[] nextPoints(int n) {
+            double[] points = new double[n];
+            System.arraycopy(coords, coord, points, 0, n);
+            coord += n;
+            return points;
+        }
+
+        private void replay(VectorGraphics root) {
+            VectorGraphics[] graphics = new VectorGraphics[graphicsCount];
+            graphics[0] = root;
+            while (op < ops.length) {
+                int instruction = nextInt();
+                VectorGraphics g = graphics[instruction >>> OPCODE_BITS];
+                switch (instruction & OPCODE_MASK) {
+                case SET_COLOR:
+                    g.setColor((Color) nextObject());
+                    break;
+                case SET_PAINT:
+                    g.setPaint((Paint) nextObject());
+                    break;
+                case SET_BACKGROUND:
+                    g.setBackground((Color) nextObject());
+                    break;
+                case SET_STROKE:
+                    g.setStroke((Stroke) nextObject());
+                    break;
+                case SET_FONT:
+                    g.setFont((Font) nextObject());
+                    break;
+                case SET_COMPOSITE:
+                    g.setComposite((Composite) nextObject());
+                    break;
+                case SET_RENDERING_HINT:
+                    g.setRenderingHint((RenderingHints.Key) nextObject(),
+                            nextObject());
+                    break;
+                case SET_RENDERING_HINTS:
+                    g.setRenderingHints((Map<?, ?>) nextObject());
+                    break;
+                case ADD_RENDERING_HINTS:
+                    g.addRenderingHints((Map<?, ?>) nextObject());
+                    break;
+                case SET_PAINT_MODE:
+                    g.setPaintMode();
+                    break;
+                case SET_XOR_MODE:
+                    g.setXORMode((Color) nextObject());
+                    break;
+                case SET_COLOR_MODE:
+                    g.setColorMode(nextInt());
+                    break;
+
+                case SET_TRANSFORM:
+                    g.setTransform(nextTransform());
+                    break;
+                case TRANSFORM:
+                    g.transform(nextTransform());
+                    break;
+                case TRANSLATE:
+                    g.translate(nextDouble(), nextDouble());
+                    break;
+                case ROTATE:
+                    g.rotate(nextDouble());
+                    break;
+                case SCALE:
+                    g.scale(nextDouble(), nextDouble());
+                    break;
+                case SHEAR:
+                    g.shear(nextDouble(), nextDouble());
+                    break;
+
+                case SET_CLIP:
+                    g.setClip((nextInt() != 0) ? nextShape() : null);
+                    break;
+                case CLIP:
+                    g.clip(nextShape());
+                    break;
+
+                case DRAW:
+                    g.draw(nextShape());
+                    break;
+                case FILL:
+                    g.fill(nextShape());
+                    break;
+                case FILL_AND_DRAW: {
+                    Color fillColor = (Color) nextObject();
+                    g.fillAndDraw(nextShape(), fillColor);
+                    break;
+                }
+                case DRAW_LINE:
+                    g.drawLine(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble());
+                    break;
+                case DRAW_RECT:
+                    g.drawRect(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble());
+                    break;
+                case FILL_RECT:
+                    g.fillRect(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble());
+                    break;
+                case CLEAR_RECT:
+                    g.clearRect(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble());
+                    break;
+                case DRAW_OVAL:
+                    g.drawOval(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble());
+                    break;
+                case FILL_OVAL:
+                    g.fillOval(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble());
+                    break;
+                case DRAW_ROUND_RECT:
+                    g.drawRoundRect(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble(), nextDouble(), nextDouble());
+                    break;
+                case FILL_ROUND_RECT:
+                    g.fillRoundRect(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble(), nextDouble(), nextDouble());
+                    break;
+                case DRAW_ARC:
+                    g.drawArc(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble(), nextDouble(), nextDouble());
+                    break;
+                case FILL_ARC:
+                    g.fillArc(nextDouble(), nextDouble(), nextDouble(),
+                            nextDouble(), nextDouble(), nextDouble());
+                    break;
+                case DRAW_POLYLINE: {
+                    int n = nextInt();
+                    g.drawPolyline(nextPoints(n), nextPoints(n), n);
+                    break;
+                }
+                case DRAW_POLYGON: {
+                    int n = nextInt();
+                    g.drawPolygon(nextPoints(n), nextPoints(n), n);
+                    break;
+                }
+                case FILL_POLYGON: {
+                    int n = nextInt();
+                    g.fillPolygon(nextPoints(n), nextPoints(n), n);
+                    break;
+                }
+                case DRAW_SYMBOL:
+                    g.drawSymbol(nextDouble(), nextDouble(), nextDouble(),
+                            nextInt());
+                    break;
+                case FILL_SYMBOL:
+                    g.fillSymbol(nextDouble(), nextDouble(), nextDouble(),
+                            nextInt());
+                    break;
+                case FILL_AND_DRAW_SYMBOL:
+                    g.fillAndDrawSymbol(nextDouble(), nextDouble(),
+                            nextDouble(), nextInt(), (Color) nextObject());
+                    break;
+
+                case DRAW_STRING:
+                    g.drawString((String) nextObject(), nextDouble(),
+                            nextDouble());
+                    break;
+                case DRAW_STRING_ALIGNED:
+                    g.drawString((String) nextObject(), nextDouble(),
+                            nextDouble(), nextInt(), nextInt());
+                    break;
+                case DRAW_STRING_FRAMED:
+                    g.drawString((String) nextObject(), nextDouble(),
+                            nextDouble(), nextInt(), nextInt(), nextInt() != 0,
+                            (Color) nextObject(), nextDouble(), nextInt() != 0,
+                            (Color) nextObject());
+                    break;
+                case DRAW_TAG_STRING:
+                    g.drawString((TagString) nextObject(), nextDouble(),
+                            nextDouble());
+                    break;
+                case DRAW_TAG_STRING_ALIGNED:
+                    g.drawString((TagString) nextObject(), nextDouble(),
+                            nextDouble(), nextInt(), nextInt());
+                    break;
+                case DRAW_TAG_STRING_FRAMED:
+                    g.drawString((TagString) nextObject(), nextDouble(),
+                            nextDouble(), nextInt(), nextInt(), nextInt() != 0,
+                            (Color) nextObject(), nextDouble(), nextInt() != 0,
+                            (Color) nextObject());
+                    break;
+                case DRAW_ATTRIBUTED_STRING:
+                    g.drawString(((AttributedString) nextObject())
+                            .getIterator(), (float) nextDouble(),
+                            (float) nextDouble());
+                    break;
+                case DRAW_GLYPH_VECTOR:
+                    g.drawGlyphVector((GlyphVector) nextObject(),
+                            (float) nextDouble(), (float) nextDouble());
+                    break;
+
+                case DRAW_IMAGE: {
+                    Image image = (Image) nextObject();
+                    Color bkg = (Color) nextObject();
+                    int x = nextInt();
+                    int y = nextInt();
+                    if (bkg != null) {
+                        g.drawImage(image, x, y, bkg, null);
+                    } else {
+                        g.drawImage(image, x, y, null);
+                    }
+                    break;
+                }
+                case DRAW_IMAGE_SCALED: {
+                    Image image = (Image) nextObject();
+                    Color bkg = (Color) nextObject();
+                    int x = nextInt();
+                    int y = nextInt();
+                    int w = nextInt();
+                    int h = nextInt();
+                    if (bkg != null) {
+                        g.drawImage(image, x, y, w, h, bkg, null);
+                    } else {
+                        g.drawImage(image, x, y, w, h, null);
+                    }
+                    break;
+                }
+                case DRAW_IMAGE_AREA: {
+                    Image image = (Image) nextObject();
+                    Color bkg = (Color) nextObject();
+                    int dx1 = nextInt();
+                    int dy1 = nextInt();
+                    int dx2 = nextInt();
+                    int dy2 = nextInt();
+                    int sx1 = nextInt();
+                    int sy1 = nextInt();
+                    int sx2 = nextInt();
+                    int sy2 = nextInt();
+                    if (bkg != null) {
+                        g.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2,
+                                sy2, bkg, null);
+                    } else {
+                        g.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2,
+                                sy2, null);
+                    }
+                    break;
+                }
+                case DRAW_IMAGE_TRANSFORMED:
+                    g.drawImage((Image) nextObject(), nextTransform(), null);
+                    break;
+                case DRAW_IMAGE_FILTERED:
+                    g.drawImage((BufferedImage) nextObject(),
+                            (BufferedImageOp) nextObject(), nextInt(),
+                            nextInt());
+                    break;
+                case DRAW_RENDERED_IMAGE:
+                    g.drawRenderedImage((RenderedImage) nextObject(),
+                            nextTransform());
+                    break;
+                case DRAW_RENDERABLE_IMAGE:
+                    g.drawRenderableImage((RenderableImage) nextObject(),
+                            nextTransform());
+                    break;
+                case COPY_AREA:
+                    g.copyArea(nextInt(), nextInt(), nextInt(),
+                            nextInt(), nextInt(), nextInt());
+                    break;
+
+                case PRINT_COMMENT:
+                    g.printComment((String) nextObject());
+                    break;
+                case CREATE:
+                    graphics[nextInt()] = (VectorGraphics) g.create();
+                    break;
+                case DISPOSE:
+                    g.dispose();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode "
+                            + (instruction & OPCODE_MASK) + " in display list");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,864 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphics2d;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.Toolkit;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * VectorGraphics which records all drawing calls into a {@link DisplayList}
+ * instead of drawing them. The paint code of a component can then run once,
+ * and the display list be replayed into the drivers of several output
+ * formats, possibly on several threads:
+ *
+ * <pre><code>
+ *  DisplayListGraphics2D recorder = new DisplayListGraphics2D();
+ *  component.paint(recorder);
+ *  DisplayList list = recorder.getDisplayList();
+ *
+ *  VectorGraphics g = new PDFGraphics2D(file, size);
+ *  g.startExport();
+ *  list.replay(g);
+ *  g.endExport();
+ * </code></pre>
+ *
+ * The recorder keeps track of the graphics state (transform, clip, stroke,
+ * paint, font, ...) the way the drivers do, so that paint code can query it.
+ * Its initial state is the one of the drivers: black paint, Dialog 12pt,
+ * a 1 pixel wide stroke with square caps and miter joins, the identity
+ * transform and no clip. Graphics created from the recorder record into the
+ * same display list.
+ *
+ * @version $Id$
+ */
+public class DisplayListGraphics2D extends AbstractVectorGraphics {
+
+    /**
+     * Buffer shared by a recorder and all graphics created from it.
+     */
+    private static class Recording {
+        private int[] ops = new int[1024];
+
+        private int opCount;
+
+        private double[] coords = new double[4096];
+
+        private int coordCount;
+
+        private List<Object> objects = new ArrayList<Object>();
+
+        private Map<Object, Integer> objectIndex = new HashMap<Object, Integer>();
+
+        private int graphicsCount = 1;
+
+        private int instructionCount;
+
+        private void op(int graphics, int opcode) {
+            add((graphics << DisplayList.OPCODE_BITS) | opcode);
+            instructionCount++;
+        }
+
+        private void add(int i) {
+            if (opCount == ops.length) {
+                int[] newOps = new int[2 * ops.length];
+                System.arraycopy(ops, 0, newOps, 0, opCount);
+                ops = newOps;
+            }
+            ops[opCount++] = i;
+        }
+
+        private void add(double d) {
+            if (coordCount == coords.length) {
+                double[] newCoords = new double[2 * coords.length];
+                System.arraycopy(coords, 0, newCoords, 0, coordCount);
+                coords = newCoords;
+            }
+            coords[coordCount++] = d;
+        }
+
+        private void add(double[] d, int n) {
+            for (int i = 0; i < n; i++) {
+                add(d[i]);
+            }
+        }
+
+        /**
+         * Adds the index of an object, equal objects of the same class are
+         * stored only once.
+         */
+        private void addObject(Object o) {
+            if (o == null) {
+                add(-1);
+                return;
+            }
+            Integer index = objectIndex.get(o);
+            if ((index == null)
+                    || (objects.get(index.intValue()).getClass() != o
+                            .getClass())) {
+                index = new Integer(objects.size());
+                objects.add(o);
+                objectIndex.put(o, index);
+            }
+            add(index.intValue());
+        }
+
+        private void addTransform(AffineTransform t) {
+            double[] m = new double[6];
+            t.getMatrix(m);
+            add(m, 6);
+        }
+
+        private void addShape(Shape s) {
+            if (s instanceof Rectangle) {
+                Rectangle r = (Rectangle) s;
+                add(DisplayList.SHAPE_RECTANGLE);
+                add(r.x);
+                add(r.y);
+                add(r.width);
+                add(r.height);
+            } else if (s instanceof Rectangle2D) {
+                Rectangle2D r = (Rectangle2D) s;
+                add(DisplayList.SHAPE_RECTANGLE_2D);
+                add(r.getX());
+                add(r.getY());
+                add(r.getWidth());
+                add(r.getHeight());
+            } else if (s instanceof Line2D) {
+                Line2D l = (Line2D) s;
+                add(DisplayList.SHAPE_LINE);
+                add(l.getX1());
+                add(l.getY1());
+                add(l.getX2());
+                add(l.getY2());
+            } else if (s instanceof Ellipse2D) {
+                Ellipse2D e = (Ellipse2D) s;
+                add(DisplayList.SHAPE_ELLIPSE);
+                add(e.getX());
+                add(e.getY());
+                add(e.getWidth());
+                add(e.getHeight());
+            } else if (s instanceof RoundRectangle2D) {
+                RoundRectangle2D r = (RoundRectangle2D) s;
+                add(DisplayList.SHAPE_ROUND_RECTANGLE);
+                add(r.getX());
+                add(r.getY());
+                add(r.getWidth());
+                add(r.getHeight());
+                add(r.getArcWidth());
+                add(r.getArcHeight());
+            } else if (s instanceof Arc2D) {
+                Arc2D a = (Arc2D) s;
+                add(DisplayList.SHAPE_ARC);
+                add(a.getX());
+                add(a.getY());
+                add(a.getWidth());
+                add(a.getHeight());
+                add(a.getAngleStart());
+                add(a.getAngleExtent());
+                add(a.getArcType());
+            } else {
+                PathIterator pi = s.getPathIterator(null);
+                add(DisplayList.SHAPE_PATH);
+                add(pi.getWindingRule());
+                int countIndex = opCount;
+                add(0);
+                int segments = 0;
+                double[] c = new double[6];
+                while (!pi.isDone()) {
+                    int type = pi.currentSegment(c);
+                    add(type);
+                    add(c, 2 * DisplayListPath.getPointCount(type));
+                    segments++;
+                    pi.next();
+                }
+                ops[countIndex] = segments;
+            }
+        }
+
+        private DisplayList getDisplayList() {
+            int[] o = new int[opCount];
+            System.arraycopy(ops, 0, o, 0, opCount);
+            double[] c = new double[coordCount];
+            System.arraycopy(coords, 0, c, 0, coordCount);
+            return new DisplayList(o, c, objects.toArray(), graphicsCount,
+                    instructionCount);
+        }
+    }
+
+    private final Recording recording;
+
+    // index of this graphics in the display list
+    private final int id;
+
+    private boolean disposed;
+
+    private AffineTransform transform;
+
+    // clip in device space
+    private Area clip;
+
+    private Stroke stroke;
+
+    private Composite composite;
+
+    private RenderingHints hints;
+
+    /**
+     * Creates a recorder with an empty display list.
+     */
+    public DisplayListGraphics2D() {
+        super();
+        recording = new Recording();
+        id = 0;
+        transform = new AffineTransform();
+        clip = null;
+        stroke = new BasicStroke(1.0f, BasicStroke.CAP_SQUARE,
+                BasicStroke.JOIN_MITER, 10.0f, null, 0.0f);
+        composite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER);
+        hints = new RenderingHints(null);
+
+        super.setColor(Color.BLACK);
+        super.setBackground(Color.BLACK);
+        super.setFont(new Font("Dialog", Font.PLAIN, 12));
+    }
+
+    protected DisplayListGraphics2D(DisplayListGraphics2D graphics) {
+        super(graphics);
+        recording = graphics.recording;
+        id = recording.graphicsCount++;
+        transform = new AffineTransform(graphics.transform);
+        clip = (graphics.clip != null) ? new Area(graphics.clip) : null;
+        stroke = graphics.stroke;
+        composite = graphics.composite;
+        hints = (RenderingHints) graphics.hints.clone();
+    }
+
+    /**
+     * Returns the calls recorded so far on this graphics and all graphics
+     * created from it. Recording may continue afterwards, later calls are
+     * not part of the returned list.
+     *
+     * @return recorded calls
+     */
+    public DisplayList getDisplayList() {
+        return recording.getDisplayList();
+    }
+
+    private void op(int opcode) {
+        recording.op(id, opcode);
+    }
+
+    /*
+     * Export, the drivers the list is replayed into start and end their own
+     * export.
+     */
+    public void startExport() {
+    }
+
+    public void endExport() {
+    }
+
+    public void printComment(String comment) {
+        op(DisplayList.PRINT_COMMENT);
+        recording.addObject(comment);
+    }
+
+    /*
+     * Create and dispose
+     */
+    public Graphics create() {
+        DisplayListGraphics2D graphics = new DisplayListGraphics2D(this);
+        op(DisplayList.CREATE);
+        recording.add(graphics.id);
+        return graphics;
+    }
+
+    public Graphics create(double x, double y, double width, double height) {
+        DisplayListGraphics2D graphics = (DisplayListGraphics2D) create();
+        graphics.translate(x, y);
+        graphics.clipRect(0, 0, width, height);
+        return graphics;
+    }
+
+    public void dispose() {
+        // the replayed graphics is disposed by its owner, created ones once
+        if ((id == 0) || disposed) {
+            return;
+        }
+        disposed = true;
+        op(DisplayList.DISPOSE);
+    }
+
+    /*
+     * Shapes
+     */
+    public void draw(Shape s) {
+        op(DisplayList.DRAW);
+        recording.addShape(s);
+    }
+
+    public void fill(Shape s) {
+        op(DisplayList.FILL);
+        recording.addShape(s);
+    }
+
+    public void fillAndDraw(Shape s, Color fillColor) {
+        op(DisplayList.FILL_AND_DRAW);
+        recording.addObject(fillColor);
+        recording.addShape(s);
+    }
+
+    private void op(int opcode, double a, double b, double c, double d) {
+        op(opcode);
+        recording.add(a);
+        recording.add(b);
+        recording.add(c);
+        recording.add(d);
+    }
+
+    private void op(int opcode, double a, double b, double c, double d,
+            double e, double f) {
+        op(opcode, a, b, c, d);
+        recording.add(e);
+        recording.add(f);
+    }
+
+    public void drawLine(double x1, double y1, double x2, double y2) {
+        op(DisplayList.DRAW_LINE, x1, y1, x2, y2);
+    }
+
+    public void drawRect(double x, double y, double width, double height) {
+        op(DisplayList.DRAW_RECT, x, y, width, height);
+    }
+
+    public void fillRect(double x, double y, double width, double height) {
+        op(DisplayList.FILL_RECT, x, y, width, height);
+    }
+
+    public void clearRect(double x, double y, double width, double height) {
+        op(DisplayList.CLEAR_RECT, x, y, width, height);
+    }
+
+    public void drawOval(double x, double y, double width, double height) {
+        op(DisplayList.DRAW_OVAL, x, y, width, height);
+    }
+
+    public void fillOval(double x, double y, double width, double height) {
+        op(DisplayList.FILL_OVAL, x, y, width, height);
+    }
+
+    public void drawRoundRect(double x, double y, double width, double height,
+            double arcWidth, double arcHeight) {
+        op(DisplayList.DRAW_ROUND_RECT, x, y, width, height, arcWidth,
+                arcHeight);
+    }
+
+    public void fillRoundRect(double x, double y, double width, double height,
+            double arcWidth, double arcHeight) {
+        op(DisplayList.FILL_ROUND_RECT, x, y, width, height, arcWidth,
+                arcHeight);
+    }
+
+    public void drawArc(double x, double y, double width, double height,
+            double startAngle, double arcAngle) {
+        op(DisplayList.DRAW_ARC, x, y, width, height, startAngle, arcAngle);
+    }
+
+    public void fillArc(double x, double y, double width, double height,
+            double startAngle, double arcAngle) {
+        op(DisplayList.FILL_ARC, x, y, width, height, startAngle, arcAngle);
+    }
+
+    private void op(int opcode, double[] xPoints, double[] yPoints, int nPoints) {
+        op(opcode);
+        recording.add(nPoints);
+        recording.add(xPoints, nPoints);
+        recording.add(yPoints, nPoints);
+    }
+
+    public void drawPolyline(double[] xPoints, double[] yPoints, int nPoints) {
+        op(DisplayList.DRAW_POLYLINE, xPoints, yPoints, nPoints);
+    }
+
+    public void drawPolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        op(DisplayList.DRAW_POLYGON, xPoints, yPoints, nPoints);
+    }
+
+    public void fillPolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        op(DisplayList.FILL_POLYGON, xPoints, yPoints, nPoints);
+    }
+
+    public void drawSymbol(double x, double y, double size, int symbol) {
+        op(DisplayList.DRAW_SYMBOL);
+        recording.add(x);
+        recording.add(y);
+        recording.add(size);
+        recording.add(symbol);
+    }
+
+    public void fillSymbol(double x, double y, double size, int symbol) {
+        op(DisplayList.FILL_SYMBOL);
+        recording.add(x);
+        recording.add(y);
+        recording.add(size);
+        recording.add(symbol);
+    }
+
+    public void fillAndDrawSymbol(double x, double y, double size, int symbol,
+            Color fillColor) {
+        op(DisplayList.FILL_AND_DRAW_SYMBOL);
+        recording.add(x);
+        recording.add(y);
+        recording.add(size);
+        recording.add(symbol);
+        recording.addObject(fillColor);
+    }
+
+    protected Shape createShape(double[] xPoints, double[] yPoints,
+            int nPoints, boolean close) {
+        return new ArrayPath(xPoints, yPoints, nPoints, close, 0);
+    }
+
+    /*
+     * Text
+     */
+    private void opString(int opcode, Object str, double x, double y) {
+        op(opcode);
+        recording.addObject(str);
+        recording.add(x);
+        recording.add(y);
+    }
+
+    private void opFrame(int horizontal, int vertical, boolean framed,
+            Color frameColor, double frameWidth, boolean banner,
+            Color bannerColor) {
+        recording.add(horizontal);
+        recording.add(vertical);
+        recording.add(framed ? 1 : 0);
+        recording.addObject(frameColor);
+        recording.add(frameWidth);
+        recording.add(banner ? 1 : 0);
+        recording.addObject(bannerColor);
+    }
+
+    public void drawString(String str, double x, double y) {
+        opString(DisplayList.DRAW_STRING, str, x, y);
+    }
+
+    public void drawString(String str, double x, double y, int horizontal,
+            int vertical) {
+        opString(DisplayList.DRAW_STRING_ALIGNED, str, x, y);
+        recording.add(horizontal);
+        recording.add(vertical);
+    }
+
+    public void drawString(String str, double x, double y, int horizontal,
+            int vertical, boolean framed, Color frameColor, double frameWidth,
+            boolean banner, Color bannerColor) {
+        opString(DisplayList.DRAW_STRING_FRAMED, str, x, y);
+        opFrame(horizontal, vertical, framed, frameColor, frameWidth, banner,
+                bannerColor);
+    }
+
+    public void drawString(TagString str, double x, double y) {
+        opString(DisplayList.DRAW_TAG_STRING, str, x, y);
+    }
+
+    public void drawString(TagString str, double x, double y, int horizontal,
+            int vertical) {
+        opString(DisplayList.DRAW_TAG_STRING_ALIGNED, str, x, y);
+        recording.add(horizontal);
+        recording.add(vertical);
+    }
+
+    public void drawString(TagString str, double x, double y, int horizontal,
+            int vertical, boolean framed, Color frameColor, double frameWidth,
+            boolean banner, Color bannerColor) {
+        opString(DisplayList.DRAW_TAG_STRING_FRAMED, str, x, y);
+        opFrame(horizontal, vertical, framed, frameColor, frameWidth, banner,
+                bannerColor);
+    }
+
+    public void drawString(AttributedCharacterIterator iterator, float x,
+            float y) {
+        // the iterator may be changed by the caller, keep a copy
+        opString(DisplayList.DRAW_ATTRIBUTED_STRING, new AttributedString(
+                iterator), x, y);
+    }
+
+    public void drawGlyphVector(GlyphVector g, float x, float y) {
+        opString(DisplayList.DRAW_GLYPH_VECTOR, g, x, y);
+    }
+
+    /*
+     * Images
+     */
+    private void opImage(int opcode, Object image, Color bgColor) {
+        op(opcode);
+        recording.addObject(image);
+        recording.addObject(bgColor);
+    }
+
+    public boolean drawImage(Image image, int x, int y, ImageObserver observer) {
+        return drawImage(image, x, y, null, observer);
+    }
+
+    public boolean drawImage(Image image, int x, int y, Color bgColor,
+            ImageObserver observer) {
+        opImage(DisplayList.DRAW_IMAGE, image, bgColor);
+        recording.add(x);
+        recording.add(y);
+        return true;
+    }
+
+    public boolean drawImage(Image image, int x, int y, int width, int height,
+            ImageObserver observer) {
+        return drawImage(image, x, y, width, height, null, observer);
+    }
+
+    public boolean drawImage(Image image, int x, int y, int width, int height,
+            Color bgColor, ImageObserver observer) {
+        opImage(DisplayList.DRAW_IMAGE_SCALED, image, bgColor);
+        recording.add(x);
+        recording.add(y);
+        recording.add(width);
+        recording.add(height);
+        return true;
+    }
+
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2,
+            int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+        return drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null,
+                observer);
+    }
+
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2,
+            int sx1, int sy1, int sx2, int sy2, Color bgColor,
+            ImageObserver observer) {
+        opImage(DisplayList.DRAW_IMAGE_AREA, image, bgColor);
+        recording.add(dx1);
+        recording.add(dy1);
+        recording.add(dx2);
+        recording.add(dy2);
+        recording.add(sx1);
+        recording.add(sy1);
+        recording.add(sx2);
+        recording.add(sy2);
+        return true;
+    }
+
+    public boolean drawImage(Image image, AffineTransform xform,
+            ImageObserver observer) {
+        op(DisplayList.DRAW_IMAGE_TRANSFORMED);
+        recording.addObject(image);
+        recording.addTransform(xform);
+        return true;
+    }
+
+    public void drawImage(BufferedImage image, BufferedImageOp op, int x, int y) {
+        op(DisplayList.DRAW_IMAGE_FILTERED);
+        recording.addObject(image);
+        recording.addObject(op);
+        recording.add(x);
+        recording.add(y);
+    }
+
+    public void drawRenderedImage(RenderedImage image, AffineTransform xform) {
+        op(DisplayList.DRAW_RENDERED_IMAGE);
+        recording.addObject(image);
+        recording.addTransform(xform);
+    }
+
+    public void drawRenderableImage(RenderableImage image,
+            AffineTransform xform) {
+        op(DisplayList.DRAW_RENDERABLE_IMAGE);
+        recording.addObject(image);
+        recording.addTransform(xform);
+    }
+
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+        op(DisplayList.COPY_AREA);
+        recording.add(x);
+        recording.add(y);
+        recording.add(width);
+        recording.add(height);
+        recording.add(dx);
+        recording.add(dy);
+    }
+
+    /*
+     * Transformations
+     */
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    public void setTransform(AffineTransform xform) {
+        transform.setTransform(xform);
+        op(DisplayList.SET_TRANSFORM);
+        recording.addTransform(xform);
+    }
+
+    public void transform(AffineTransform xform) {
+        transform.concatenate(xform);
+        op(DisplayList.TRANSFORM);
+        recording.addTransform(xform);
+    }
+
+    public void translate(double tx, double ty) {
+        transform.translate(tx, ty);
+        op(DisplayList.TRANSLATE);
+        recording.add(tx);
+        recording.add(ty);
+    }
+
+    public void rotate(double theta) {
+        transform.rotate(theta);
+        op(DisplayList.ROTATE);
+        recording.add(theta);
+    }
+
+    public void scale(double sx, double sy) {
+        transform.scale(sx, sy);
+        op(DisplayList.SCALE);
+        recording.add(sx);
+        recording.add(sy);
+    }
+
+    public void shear(double shx, double shy) {
+        transform.shear(shx, shy);
+        op(DisplayList.SHEAR);
+        recording.add(shx);
+        recording.add(shy);
+    }
+
+    /*
+     * Clipping
+     */
+    public Shape getClip() {
+        if (clip == null) {
+            return null;
+        }
+        try {
+            return new Area(transform.createInverse().createTransformedShape(
+                    clip));
+        } catch (NoninvertibleTransformException e) {
+            return null;
+        }
+    }
+
+    public Rectangle getClipBounds() {
+        Shape s = getClip();
+        return (s != null) ? s.getBounds() : null;
+    }
+
+    public Rectangle getClipBounds(Rectangle r) {
+        Rectangle bounds = getClipBounds();
+        if (bounds != null)
+            r.setBounds(bounds);
+        return r;
+    }
+
+    public void clipRect(int x, int y, int width, int height) {
+        clip(new Rectangle(x, y, width, height));
+    }
+
+    public void clipRect(double x, double y, double width, double height) {
+        clip(new Rectangle2D.Double(x, y, width, height));
+    }
+
+    public void setClip(int x, int y, int width, int height) {
+        setClip(new Rectangle(x, y, width, height));
+    }
+
+    public void setClip(double x, double y, double width, double height) {
+        setClip(new Rectangle2D.Double(x, y, width, height));
+    }
+
+    public void setClip(Shape s) {
+        clip = (s != null) ? new Area(transform.createTransformedShape(s))
+                : null;
+        op(DisplayList.SET_CLIP);
+        recording.add((s != null) ? 1 : 0);
+        if (s != null) {
+            recording.addShape(s);
+        }
+    }
+
+    public void clip(Shape s) {
+        if (s == null) {
+            setClip(null);
+            return;
+        }
+        Area area = new Area(transform.createTransformedShape(s));
+        if (clip != null) {
+            clip.intersect(area);
+        } else {
+            clip = area;
+        }
+        op(DisplayList.CLIP);
+        recording.addShape(s);
+    }
+
+    /*
+     * Graphics state
+     */
+    public Stroke getStroke() {
+        return stroke;
+    }
+
+    public void setStroke(Stroke s) {
+        stroke = s;
+        op(DisplayList.SET_STROKE);
+        recording.addObject(s);
+    }
+
+    public void setColor(Color color) {
+        if (color == null)
+            return;
+        super.setColor(color);
+        op(DisplayList.SET_COLOR);
+        recording.addObject(color);
+    }
+
+    public void setPaint(Paint paint) {
+        if (paint == null)
+            return;
+        super.setPaint(paint);
+        op(DisplayList.SET_PAINT);
+        recording.addObject(paint);
+    }
+
+    public void setBackground(Color color) {
+        super.setBackground(color);
+        op(DisplayList.SET_BACKGROUND);
+        recording.addObject(color);
+    }
+
+    public void setColorMode(int colorMode) {
+        super.setColorMode(colorMode);
+        op(DisplayList.SET_COLOR_MODE);
+        recording.add(colorMode);
+    }
+
+    public void setFont(Font font) {
+        if (font == null)
+            return;
+        super.setFont(font);
+        op(DisplayList.SET_FONT);
+        recording.addObject(font);
+    }
+
+    public Composite getComposite() {
+        return composite;
+    }
+
+    public void setComposite(Composite comp) {
+        composite = comp;
+        op(DisplayList.SET_COMPOSITE);
+        recording.addObject(comp);
+    }
+
+    public void setPaintMode() {
+        op(DisplayList.SET_PAINT_MODE);
+    }
+
+    public void setXORMode(Color c1) {
+        op(DisplayList.SET_XOR_MODE);
+        recording.addObject(c1);
+    }
+
+    public RenderingHints getRenderingHints() {
+        return (RenderingHints) hints.clone();
+    }
+
+    public Object getRenderingHint(RenderingHints.Key key) {
+        return hints.get(key);
+    }
+
+    public void setRenderingHint(RenderingHints.Key key, Object hint) {
+        if ((key == null) || (hint == null))
+            return;
+        hints.put(key, hint);
+        op(DisplayList.SET_RENDERING_HINT);
+        recording.addObject(key);
+        recording.addObject(hint);
+    }
+
+    public void setRenderingHints(Map<?, ?> newHints) {
+        hints.clear();
+        hints.putAll(newHints);
+        op(DisplayList.SET_RENDERING_HINTS);
+        recording.addObject(new RenderingHints(copy(newHints)));
+    }
+
+    public void addRenderingHints(Map<?, ?> newHints) {
+        hints.putAll(newHints);
+        op(DisplayList.ADD_RENDERING_HINTS);
+        recording.addObject(new RenderingHints(copy(newHints)));
+    }
+
+    private static Map<RenderingHints.Key, Object> copy(Map<?, ?> hints) {
+        Map<RenderingHints.Key, Object> copy = new HashMap<RenderingHints.Key, Object>();
+        for (Map.Entry<?, ?> entry : hints.entrySet()) {
+            copy.put((RenderingHints.Key) entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
+    public FontRenderContext getFontRenderContext() {
+        // same as the drivers
+        return new FontRenderContext(new AffineTransform(1, 0, 0, 1, 0, 0),
+                true, true);
+    }
+
+    /**
+     * @deprecated
+     */
+    public FontMetrics getFontMetrics(Font font) {
+        return Toolkit.getDefaultToolkit().getFontMetrics(font);
+    }
+
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return null;
+    }
+
+    public String toString() {
+        return getClass().getName() + "[" + recording.instructionCount
+                + " instructions]";
+    }
+}
@@ -0,0 +1,189 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphics2d;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Path stored in a {@link DisplayList}: the segment types are taken from the
+ * integer array and the coordinates from the double array of the list, so a
+ * replayed path does not copy its coordinates.
+ *
+ * @version $Id$
+ */
+class DisplayListPath implements Shape {
+
+    private class DisplayListPathIterator implements PathIterator {
+
+        private AffineTransform transform;
+
+        private int segment, coord;
+
+        private DisplayListPathIterator(AffineTransform transform) {
+            this.transform = transform;
+            segment = 0;
+            coord = coordStart;
+        }
+
+        public int getWindingRule() {
+            return windingRule;
+        }
+
+        public boolean isDone() {
+            return segment >= segments;
+        }
+
+        public void next() {
+            coord += getPointCount(types[typeStart + segment]) * 2;
+            segment++;
+        }
+
+        public int currentSegment(double[] c) {
+            int type = types[typeStart + segment];
+            int n = getPointCount(type);
+            if (transform != null) {
+                transform.transform(coords, coord, c, 0, n);
+            } else {
+                System.arraycopy(coords, coord, c, 0, 2 * n);
+            }
+            return type;
+        }
+
+        public int currentSegment(float[] c) {
+            int type = types[typeStart + segment];
+            int n = getPointCount(type);
+            if (transform != null) {
+                transform.transform(coords, coord, c, 0, n);
+            } else {
+                for (int i = 0; i < 2 * n; i++) {
+                    c[i] = (float) coords[coord + i];
+                }
+            }
+            return type;
+        }
+    }
+
+    private final int[] types;
+
+    private final int typeStart;
+
+    private final int segments;
+
+    private final double[] coords;
+
+    private final int coordStart;
+
+    private final int windingRule;
+
+    private GeneralPath path;
+
+    DisplayListPath(int[] types, int typeStart, int segments, double[] coords,
+            int coordStart, int windingRule) {
+        this.types = types;
+        this.typeStart = typeStart;
+        this.segments = segments;
+        this.coords = coords;
+        this.coordStart = coordStart;
+        this.windingRule = windingRule;
+    }
+
+    /**
+     * @return number of points of a segment
+     */
+    static int getPointCount(int type) {
+        switch (type) {
+        case PathIterator.SEG_MOVETO:
+        case PathIterator.SEG_LINETO:
+            return 1;
+        case PathIterator.SEG_QUADTO:
+            return 2;
+        case PathIterator.SEG_CUBICTO:
+            return 3;
+        case PathIterator.SEG_CLOSE:
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * @return number of coordinates of this path
+     */
+    int getCoordinateCount() {
+        int n = 0;
+        for (int i = 0; i < segments; i++) {
+            n += getPointCount(types[typeStart + i]) * 2;
+        }
+        return n;
+    }
+
+    private GeneralPath getPath() {
+        if (path == null) {
+            path = new GeneralPath(this);
+        }
+        return path;
+    }
+
+    public boolean contains(double x, double y) {
+        return getPath().contains(x, y);
+    }
+
+    public boolean contains(double x, double y, double w, double h) {
+        return getPath().contains(x, y, w, h);
+    }
+
+    public boolean contains(Point2D p) {
+        return contains(p.getX(), p.getY());
+    }
+
+    public boolean contains(Rectangle2D r) {
+        return contains(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    public boolean intersects(double x, double y, double w, double h) {
+        return getPath().intersects(x, y, w, h);
+    }
+
+    public boolean intersects(Rectangle2D r) {
+        return intersects(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    public Rectangle2D getBounds2D() {
+        int n = getCoordinateCount();
+        if (n == 0) {
+            return new Rectangle2D.Double();
+        }
+        double x1 = coords[coordStart], x2 = x1;
+        double y1 = coords[coordStart + 1], y2 = y1;
+        for (int i = 2; i < n; i += 2) {
+            double x = coords[coordStart + i];
+            double y = coords[coordStart + i + 1];
+            if (x < x1)
+                x1 = x;
+            if (y < y1)
+                y1 = y;
+            if (x > x2)
+                x2 = x;
+            if (y > y2)
+                y2 = y;
+        }
+        return new Rectangle2D.Double(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    public Rectangle getBounds() {
+        return getBounds2D().getBounds();
+    }
+
+    public PathIterator getPathIterator(AffineTransform t) {
+        return new DisplayListPathIterator(t);
+    }
+
+    public PathIterator getPathIterator(AffineTransform t, double flatness) {
+        return new FlatteningPathIterator(getPathIterator(t), flatness);
+    }
+}
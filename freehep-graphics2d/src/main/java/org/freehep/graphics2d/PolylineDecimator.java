@@ -0,0 +1,231 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphics2d;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * Reduces the points of a polyline to those which are visible at a given
+ * pixel size in device space. Polylines which run monotonically along the
+ * device x axis, such as data series, keep the first, last, lowest and
+ * highest point of every pixel column (M4 reduction), which draws the same
+ * pixels as the full polyline. Other polylines are simplified by the
+ * Douglas-Peucker algorithm with a tolerance of half a pixel.
+ *
+ * The remaining points are copies of original points in user space, so the
+ * result can be drawn with the same transform as the input.
+ *
+ * @version $Id$
+ */
+public class PolylineDecimator {
+
+    private PolylineDecimator() {
+    }
+
+    /**
+     * Decimates a polyline.
+     *
+     * @param xPoints x coordinates in user space
+     * @param yPoints y coordinates in user space
+     * @param offset index of the first point
+     * @param nPoints number of points
+     * @param transform transform from user to device space, null for identity
+     * @param pixelSize size of a pixel in device space
+     * @param xOut receives the x coordinates, at least nPoints long
+     * @param yOut receives the y coordinates, at least nPoints long
+     * @return number of points written to xOut and yOut
+     */
+    public static int decimate(double[] xPoints, double[] yPoints, int offset,
+            int nPoints, AffineTransform transform, double pixelSize,
+            double[] xOut, double[] yOut) {
+        if ((nPoints <= 4) || !(pixelSize > 0)) {
+            System.arraycopy(xPoints, offset, xOut, 0, nPoints);
+            System.arraycopy(yPoints, offset, yOut, 0, nPoints);
+            return nPoints;
+        }
+
+        double[] m = new double[6];
+        if (transform != null) {
+            transform.getMatrix(m);
+        } else {
+            m[0] = m[3] = 1;
+        }
+
+        int n = decimateColumns(xPoints, yPoints, offset, nPoints, m,
+                pixelSize, xOut, yOut);
+        if (n < 0) {
+            n = decimateDouglasPeucker(xPoints, yPoints, offset, nPoints, m,
+                    pixelSize / 2, xOut, yOut);
+        }
+        return n;
+    }
+
+    /**
+     * M4 reduction per device pixel column.
+     *
+     * @return number of points, or -1 if the polyline does not run
+     *         monotonically along the device x axis
+     */
+    private static int decimateColumns(double[] xPoints, double[] yPoints,
+            int offset, int nPoints, double[] m, double pixelSize,
+            double[] xOut, double[] yOut) {
+        int[] indices = new int[4];
+        int count = 0;
+        int direction = 0;
+
+        int end = offset + nPoints;
+        double x = xPoints[offset];
+        double y = yPoints[offset];
+        long column = (long) Math.floor((m[0] * x + m[2] * y + m[4])
+                / pixelSize);
+        double minY = m[1] * x + m[3] * y + m[5];
+        double maxY = minY;
+        int first = offset, last = offset, min = offset, max = offset;
+        for (int i = offset + 1; i < end; i++) {
+            x = xPoints[i];
+            y = yPoints[i];
+            long c = (long) Math.floor((m[0] * x + m[2] * y + m[4])
+                    / pixelSize);
+            double deviceY = m[1] * x + m[3] * y + m[5];
+            if (c == column) {
+                last = i;
+                if (deviceY < minY) {
+                    minY = deviceY;
+                    min = i;
+                }
+                if (deviceY > maxY) {
+                    maxY = deviceY;
+                    max = i;
+                }
+                continue;
+            }
+
+            int d = (c > column) ? 1 : -1;
+            if (direction == 0) {
+                direction = d;
+            } else if (d != direction) {
+                return -1;
+            }
+
+            indices[0] = first;
+            indices[1] = min;
+            indices[2] = max;
+            indices[3] = last;
+            count = copyColumn(xPoints, yPoints, indices, xOut, yOut, count);
+
+            column = c;
+            first = last = min = max = i;
+            minY = maxY = deviceY;
+        }
+        indices[0] = first;
+        indices[1] = min;
+        indices[2] = max;
+        indices[3] = last;
+        return copyColumn(xPoints, yPoints, indices, xOut, yOut, count);
+    }
+
+    /**
+     * Copies the distinct points of a column in their original order.
+     *
+     * @return new number of points in xOut and yOut
+     */
+    private static int copyColumn(double[] xPoints, double[] yPoints,
+            int[] indices, double[] xOut, double[] yOut, int count) {
+        // first and last are already in place, only min and max may swap
+        if (indices[1] > indices[2]) {
+            int t = indices[1];
+            indices[1] = indices[2];
+            indices[2] = t;
+        }
+        int previous = -1;
+        for (int i = 0; i < indices.length; i++) {
+            int index = indices[i];
+            if (index != previous) {
+                xOut[count] = xPoints[index];
+                yOut[count] = yPoints[index];
+                count++;
+                previous = index;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Douglas-Peucker simplification in device space, without recursion so
+     * long polylines cannot overflow the stack.
+     *
+     * @return number of points
+     */
+    private static int decimateDouglasPeucker(double[] xPoints,
+            double[] yPoints, int offset, int nPoints, double[] m,
+            double tolerance, double[] xOut, double[] yOut) {
+        double[] dx = new double[nPoints];
+        double[] dy = new double[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            double x = xPoints[offset + i];
+            double y = yPoints[offset + i];
+            dx[i] = m[0] * x + m[2] * y + m[4];
+            dy[i] = m[1] * x + m[3] * y + m[5];
+        }
+
+        boolean[] keep = new boolean[nPoints];
+        keep[0] = true;
+        keep[nPoints - 1] = true;
+        double tolerance2 = tolerance * tolerance;
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = nPoints - 1;
+        while (top > 0) {
+            int b = stack[--top];
+            int a = stack[--top];
+
+            double ax = dx[a], ay = dy[a];
+            double sx = dx[b] - ax, sy = dy[b] - ay;
+            double length2 = sx * sx + sy * sy;
+            double maxDistance2 = tolerance2;
+            int farthest = -1;
+            for (int i = a + 1; i < b; i++) {
+                double px = dx[i] - ax, py = dy[i] - ay;
+                double distance2;
+                double t = (length2 > 0) ? (px * sx + py * sy) / length2 : 0;
+                if (t <= 0) {
+                    distance2 = px * px + py * py;
+                } else if (t >= 1) {
+                    double qx = px - sx, qy = py - sy;
+                    distance2 = qx * qx + qy * qy;
+                } else {
+                    double cross = px * sy - py * sx;
+                    distance2 = cross * cross / length2;
+                }
+                if (distance2 > maxDistance2) {
+                    maxDistance2 = distance2;
+                    farthest = i;
+                }
+            }
+
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                if (top + 4 > stack.length) {
+                    int[] s = new int[stack.length * 2];
+                    System.arraycopy(stack, 0, s, 0, top);
+                    stack = s;
+                }
+                stack[top++] = a;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = b;
+            }
+        }
+
+        int count = 0;
+        for (int i = 0; i < nPoints; i++) {
+            if (keep[i]) {
+                xOut[count] = xPoints[offset + i];
+                yOut[count] = yPoints[offset + i];
+                count++;
+            }
+        }
+        return count;
+    }
+}
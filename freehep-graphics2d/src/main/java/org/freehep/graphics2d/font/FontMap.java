@@ -39,11 +39,9 @@ public class FontMap
   {
     "Bold", "Bd", "Medium", "Medi", "Md", "Demi", "Dm"
   };
-  //
-  private static FontMap instance = null;
-  // Family+style->Font
-  private Map<String, Map<Integer, Font>> allFontsMap;
-  private String[] allFontFamilies;
+  // Family+style->Font, replaced as a whole by updateAllFontsMap()
+  private volatile Map<String, Map<Integer, Font>> allFontsMap;
+  private volatile String[] allFontFamilies;
 
   /**
    * Font class wrapper to fix italic bugs. Italic text handling takes into
@@ -133,11 +131,18 @@ public class FontMap
     updateAllFontsMap();
   }
 
+  /**
+   * Lazily creates the instance on first use, the class loader guarantees
+   * this happens only once even if called from several threads.
+   */
+  private static class Holder
+  {
+    private static final FontMap instance = new FontMap();
+  }
+
   public static FontMap getInstance()
   {
-    if (instance == null)
-      instance = new FontMap();
-    return instance;
+    return Holder.instance;
   }
 
   public Map<String, Map<Integer, Font>> getAllFontsMap()
@@ -161,7 +166,8 @@ public class FontMap
     GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
     Font[] allFonts = ge.getAllFonts();
     sortFontsByPSName(allFonts);
-    allFontsMap = new HashMap<String, Map<Integer, Font>>(allFonts.length * 4);
+    // built completely before publishing, so readers never see a partial map
+    Map<String, Map<Integer, Font>> allFontsMap = new HashMap<String, Map<Integer, Font>>(allFonts.length * 4);
 
     for (Font font : allFonts)
     {
@@ -188,11 +194,14 @@ public class FontMap
       }
     }
 
-    allFontFamilies = new String[allFontsMap.size()];
+    String[] allFontFamilies = new String[allFontsMap.size()];
     int i = 0;
     for (String family : allFontsMap.keySet())
       allFontFamilies[i++] = family;
     Arrays.sort(allFontFamilies);
+
+    this.allFontsMap = allFontsMap;
+    this.allFontFamilies = allFontFamilies;
   }
 
   public static Font getFont(Font font)
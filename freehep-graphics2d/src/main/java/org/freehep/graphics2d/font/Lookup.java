@@ -10,14 +10,11 @@ package org.freehep.graphics2d.font;
  * @version $Id: freehep-graphics2d/src/main/java/org/freehep/graphics2d/font/Lookup.java 7aee336a8992 2005/11/25 23:19:05 duns $
  */
 public class Lookup {
-    private static Lookup instance;
+    private static final Lookup instance = new Lookup();
 
     private CharTable[] tables;
 
     public static Lookup getInstance() {
-        if (instance == null) {
-            instance = new Lookup();
-        }
         return (instance);
     }
 
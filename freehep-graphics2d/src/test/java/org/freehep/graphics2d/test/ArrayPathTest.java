@@ -0,0 +1,93 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphics2d.test;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphics2d.ArrayPath;
+
+/**
+ * Checks that ArrayPath iterates with a transform the same way as over
+ * points transformed beforehand.
+ *
+ * @version $Id$
+ */
+public class ArrayPathTest extends TestCase {
+
+    private static void assertSamePath(PathIterator expected,
+            PathIterator actual) {
+        double[] e = new double[6];
+        double[] a = new double[6];
+        float[] f = new float[6];
+        int segment = 0;
+        while (!expected.isDone()) {
+            assertFalse("segment " + segment, actual.isDone());
+            int type = expected.currentSegment(e);
+            assertEquals("segment " + segment, type, actual.currentSegment(a));
+            assertEquals("segment " + segment, type, actual.currentSegment(f));
+            if (type != PathIterator.SEG_CLOSE) {
+                assertEquals(e[0], a[0], 0);
+                assertEquals(e[1], a[1], 0);
+                assertEquals((float) e[0], f[0], 0);
+                assertEquals((float) e[1], f[1], 0);
+            }
+            expected.next();
+            actual.next();
+            segment++;
+        }
+        assertTrue(actual.isDone());
+    }
+
+    public void testTransform() {
+        Random random = new Random(13);
+        int n = 1000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * 100;
+            y[i] = random.nextDouble() * 100;
+        }
+        // close to the first point, left out at resolution 1
+        x[n - 1] = x[0] + 0.1;
+        y[n - 1] = y[0];
+
+        AffineTransform t = new AffineTransform();
+        t.translate(20, 30);
+        t.rotate(0.3);
+        t.scale(0.05, 0.07);
+
+        double[] tx = new double[n];
+        double[] ty = new double[n];
+        Point2D p = new Point2D.Double();
+        for (int i = 0; i < n; i++) {
+            p.setLocation(x[i], y[i]);
+            t.transform(p, p);
+            tx[i] = p.getX();
+            ty[i] = p.getY();
+        }
+
+        for (int resolution = 0; resolution < 3; resolution++) {
+            for (int closed = 0; closed < 2; closed++) {
+                ArrayPath path = new ArrayPath(x, y, n, closed == 1,
+                        resolution);
+                ArrayPath reference = new ArrayPath(tx, ty, n, closed == 1,
+                        resolution);
+                assertSamePath(reference.getPathIterator(null), path
+                        .getPathIterator(t));
+                assertSamePath(new ArrayPath(x, y, n, closed == 1,
+                        resolution).getPathIterator(null), path
+                        .getPathIterator(null));
+            }
+        }
+    }
+
+    public void testEmpty() {
+        ArrayPath path = new ArrayPath(new double[0], new double[0], 0, true,
+                0);
+        assertTrue(path.getPathIterator(new AffineTransform()).isDone());
+    }
+}
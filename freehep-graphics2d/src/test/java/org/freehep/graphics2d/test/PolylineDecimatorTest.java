@@ -0,0 +1,167 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphics2d.test;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphics2d.ArrayPath;
+import org.freehep.graphics2d.PolylineDecimator;
+
+/**
+ * Checks that decimated polylines draw the same pixels as the originals.
+ *
+ * @version $Id$
+ */
+public class PolylineDecimatorTest extends TestCase {
+
+    private static final int WIDTH = 400;
+
+    private static final int HEIGHT = 200;
+
+    private static Shape createPath(double[] x, double[] y, int n) {
+        GeneralPath path = new GeneralPath();
+        path.moveTo((float) x[0], (float) y[0]);
+        for (int i = 1; i < n; i++) {
+            path.lineTo((float) x[i], (float) y[i]);
+        }
+        return path;
+    }
+
+    private static int[] render(Shape shape, AffineTransform transform) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL,
+                RenderingHints.VALUE_STROKE_PURE);
+        g.setColor(Color.WHITE);
+        g.transform(transform);
+        g.setStroke(new BasicStroke(0));
+        g.draw(shape);
+        g.dispose();
+        return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+
+    private static int countDifferences(int[] a, int[] b) {
+        int n = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public void testSeries() {
+        Random random = new Random(5);
+        int n = 200000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = Math.sin(i / 5000.0) * 40 + random.nextGaussian() * 10;
+        }
+        AffineTransform t = new AffineTransform(WIDTH / (double) n, 0, 0,
+                -1, 0, HEIGHT / 2);
+
+        double[] xOut = new double[n];
+        double[] yOut = new double[n];
+        int m = PolylineDecimator.decimate(x, y, 0, n, t, 1, xOut, yOut);
+        assertTrue("kept " + m, m <= 4 * WIDTH + 4);
+        assertEquals(x[0], xOut[0], 0);
+        assertEquals(x[n - 1], xOut[m - 1], 0);
+
+        int[] expected = render(createPath(x, y, n), t);
+        int[] actual = render(createPath(xOut, yOut, m), t);
+        // the rasterizer may round single pixels at column edges differently
+        int lit = countDifferences(expected, new int[expected.length]);
+        int differences = countDifferences(expected, actual);
+        assertTrue(differences + " of " + lit + " pixels differ",
+                differences * 1000 < lit);
+    }
+
+    public void testReversedSeries() {
+        int n = 10000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = n - i;
+            y[i] = (i % 7) * 3;
+        }
+        AffineTransform t = AffineTransform.getScaleInstance(WIDTH
+                / (double) n, 1);
+        double[] xOut = new double[n];
+        double[] yOut = new double[n];
+        int m = PolylineDecimator.decimate(x, y, 0, n, t, 1, xOut, yOut);
+        assertTrue("kept " + m, m <= 4 * (WIDTH + 1));
+    }
+
+    public void testDouglasPeucker() {
+        // a circle drawn many times, not monotonic in x
+        int n = 50000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            double a = i * 0.01;
+            x[i] = 200 + Math.cos(a) * 80;
+            y[i] = 100 + Math.sin(a) * 80;
+        }
+        double[] xOut = new double[n];
+        double[] yOut = new double[n];
+        int m = PolylineDecimator.decimate(x, y, 0, n, null, 1, xOut, yOut);
+        assertTrue("kept " + m, m < n / 10);
+
+        // every original point is within half a pixel of the result
+        double[] c = new double[6];
+        double[] px = new double[m];
+        double[] py = new double[m];
+        int k = 0;
+        for (PathIterator pi = new ArrayPath(x, y, n, false, null, 1)
+                .getPathIterator(null); !pi.isDone(); pi.next()) {
+            pi.currentSegment(c);
+            px[k] = c[0];
+            py[k] = c[1];
+            k++;
+        }
+        assertEquals(m, k);
+        for (int i = 0; i < n; i += 97) {
+            double best = Double.MAX_VALUE;
+            for (int j = 1; j < m; j++) {
+                best = Math.min(best, distance(x[i], y[i], px[j - 1],
+                        py[j - 1], px[j], py[j]));
+            }
+            assertTrue("point " + i + " off by " + best, best <= 0.5 + 1e-9);
+        }
+    }
+
+    public void testShort() {
+        double[] x = { 0, 0.1, 0.2 };
+        double[] y = { 0, 5, 0 };
+        double[] xOut = new double[3];
+        double[] yOut = new double[3];
+        assertEquals(3, PolylineDecimator.decimate(x, y, 0, 3, null, 1, xOut,
+                yOut));
+    }
+
+    private static double distance(double x, double y, double x1, double y1,
+            double x2, double y2) {
+        double sx = x2 - x1, sy = y2 - y1;
+        double length2 = sx * sx + sy * sy;
+        double t = (length2 > 0) ? ((x - x1) * sx + (y - y1) * sy) / length2
+                : 0;
+        t = Math.max(0, Math.min(1, t));
+        double dx = x - (x1 + t * sx), dy = y - (y1 + t * sy);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -334,6 +334,9 @@ public class CGMGraphics2D extends AbstractVectorGraphicsIO {
      */
     /* 5.1.4. shapes */
     public void draw(Shape s) {
+        if (isCulled(s, true)) {
+            return;
+        }
         try {
             if (getStroke() instanceof BasicStroke) {
                 // in this case we've already handled the stroke
@@ -348,6 +351,9 @@ public class CGMGraphics2D extends AbstractVectorGraphicsIO {
     }
 
     public void fill(Shape s) {
+        if (isCulled(s, false)) {
+            return;
+        }
         try {
             drawPath(s, true);
         } catch (IOException e) {
@@ -357,6 +363,9 @@ public class CGMGraphics2D extends AbstractVectorGraphicsIO {
 
     // TODO: Does not use current stroke yet
     public void fillAndDraw(Shape s, Color fillColor) {
+        if (isCulled(s, true)) {
+            return;
+        }
         try {
             setNonStrokeColor(fillColor);
             drawPath(s, true);
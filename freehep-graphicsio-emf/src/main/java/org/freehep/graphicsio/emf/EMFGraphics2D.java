@@ -27,6 +27,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.text.AttributedCharacterIterator.Attribute;
 import java.util.HashMap;
 import java.util.Map;
@@ -88,14 +89,25 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
 
     private EMFHandleManager handleManager;
 
+    private EMFObjectCache objectCache;
+
     private int penHandle;
 
     private int brushHandle;
 
+    // objects selected when this context was saved
+    private int savedPenHandle;
+
+    private int savedBrushHandle;
+
     private Rectangle imageBounds;
 
     private OutputStream ros;
 
+    // true if ros is a file opened by this class, which can be written in
+    // place
+    private boolean seekable;
+
     private EMFOutputStream os;
 
     private Color textColor = null;
@@ -137,12 +149,21 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
     public static final String BACKGROUND_COLOR = rootKey + "."
             + PageConstants.BACKGROUND_COLOR;
 
+    /**
+     * Number of GDI handles the document keeps in use. Pens and brushes stay
+     * alive up to this budget, so that selecting them again needs no new
+     * object.
+     */
+    public static final String HANDLE_BUDGET = rootKey + ".HandleBudget";
+
     private static final UserProperties defaultProperties = new UserProperties();
     static {
         defaultProperties.setProperty(TRANSPARENT, true);
         defaultProperties.setProperty(BACKGROUND, false);
         defaultProperties.setProperty(BACKGROUND_COLOR, Color.white);
         defaultProperties.setProperty(CLIP, true);
+        defaultProperties.setProperty(HANDLE_BUDGET,
+                EMFHandleManager.DEFAULT_HANDLE_BUDGET);
         // NOTE: using TEXT_AS_SHAPES makes the text shapes quite unreadable.
         defaultProperties.setProperty(TEXT_AS_SHAPES, false);
     }
@@ -163,11 +184,13 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
     public EMFGraphics2D(File file, Dimension size)
             throws FileNotFoundException {
         this(new FileOutputStream(file), size);
+        seekable = true;
     }
 
     public EMFGraphics2D(File file, Component component)
             throws FileNotFoundException {
         this(new FileOutputStream(file), component);
+        seekable = true;
     }
 
     public EMFGraphics2D(OutputStream os, Dimension size) {
@@ -189,6 +212,7 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
         evenOdd = false;
 
         handleManager = new EMFHandleManager();
+        objectCache = new EMFObjectCache(handleManager);
         ros = os;
         initProperties(defaultProperties);
     }
@@ -203,6 +227,16 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
         os = graphics.os;
         imageBounds = graphics.imageBounds;
         handleManager = graphics.handleManager;
+        objectCache = graphics.objectCache;
+        penHandle = graphics.penHandle;
+        brushHandle = graphics.brushHandle;
+        if (doRestoreOnDispose) {
+            // the saved device context still selects these
+            savedPenHandle = penHandle;
+            savedBrushHandle = brushHandle;
+            objectCache.pin(savedPenHandle);
+            objectCache.pin(savedBrushHandle);
+        }
         fontTable = graphics.fontTable;
         unitFontTable = graphics.unitFontTable;
         pathConstructor = graphics.pathConstructor;
@@ -225,8 +259,6 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
      */
     /* 3.1 Header & Trailer */
     public void writeHeader() throws IOException {
-        ros = new BufferedOutputStream(ros);
-        
         // Image size must be independent of screen!!! // Levantovsky, MagicPlot
         Dimension device = imageBounds.getSize();
         /*Dimension device = isDeviceIndependent() ? new Dimension(1024, 768)
@@ -235,8 +267,17 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
 //        if (!isDeviceIndependent()) {
 //            producer += " " + version.substring(1, version.length() - 1);
 //        }
-        os = new EMFOutputStream(ros, imageBounds, handleManager, getCreator(),
-                producer, device);
+        handleManager.setHandleBudget(getPropertyInt(HANDLE_BUDGET));
+        if (seekable) {
+            // records go straight to the file, instead of into memory
+            FileChannel channel = ((FileOutputStream) ros).getChannel();
+            os = new EMFOutputStream(channel, imageBounds, handleManager,
+                    getCreator(), producer, device);
+        } else {
+            ros = new BufferedOutputStream(ros);
+            os = new EMFOutputStream(ros, imageBounds, handleManager,
+                    getCreator(), producer, device);
+        }
         pathConstructor = new EMFPathConstructor(os, imageBounds);
 
         Point orig = new Point(imageBounds.x, imageBounds.y);
@@ -287,6 +328,7 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
             os.writeTag(new DeleteObject(handle));
             handleManager.freeHandle(handle);
         }
+        objectCache.clear();
         os.writeTag(new EOF());
     }
 
@@ -334,13 +376,10 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
     }
 
     protected void writeGraphicsRestore() throws IOException {
-        if (penHandle != 0)
-            os.writeTag(new DeleteObject(handleManager.freeHandle(penHandle)));
-        if (brushHandle != 0)
-            os
-                    .writeTag(new DeleteObject(handleManager
-                            .freeHandle(brushHandle)));
+        // pens and brushes stay in the object cache
         os.writeTag(new RestoreDC());
+        objectCache.unpin(savedPenHandle);
+        objectCache.unpin(savedBrushHandle);
     }
 
     /*
@@ -350,6 +389,9 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
      */
     /* 5.1.4. shapes */
     public void draw(Shape shape) {
+        if (isCulled(shape, true)) {
+            return;
+        }
         try {
             if (getStroke() instanceof BasicStroke) {
                 writePen((BasicStroke) getStroke(), getColor());
@@ -366,6 +408,9 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
     }
 
     public void fill(Shape shape) {
+        if (isCulled(shape, false)) {
+            return;
+        }
         try {
             if (getPaint() instanceof Color) {
                 writeBrush(getColor());
@@ -381,6 +426,9 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
     }
 
     public void fillAndDraw(Shape shape, Color fillColor) {
+        if (isCulled(shape, true)) {
+            return;
+        }
         try {
             if (getPaint() instanceof Color) {
                 writePen((BasicStroke) getStroke(), getColor());
@@ -724,13 +772,16 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
 
         ExtLogPen pen = new ExtLogPen(style, toUnit(stroke.getLineWidth()),
                 brushStyle, getPrintColor(color), 0, dash);
-        if (penHandle != 0) {
-            os.writeTag(new DeleteObject(penHandle));
-        } else {
-            penHandle = handleManager.getHandle();
+        Integer handle = objectCache.get(pen);
+        if (handle == null) {
+            handle = new Integer(objectCache.add(pen, penHandle, brushHandle,
+                    os));
+            os.writeTag(new ExtCreatePen(handle.intValue(), pen));
+        }
+        if (handle.intValue() != penHandle) {
+            penHandle = handle.intValue();
+            os.writeTag(new SelectObject(penHandle));
         }
-        os.writeTag(new ExtCreatePen(penHandle, pen));
-        os.writeTag(new SelectObject(penHandle));
 
         if (!(getStroke() instanceof BasicStroke)
                 || (((BasicStroke) getStroke()).getMiterLimit() != stroke
@@ -748,13 +799,16 @@ public class EMFGraphics2D extends AbstractVectorGraphicsIO implements
                 : EMFConstants.BS_SOLID;
 
         LogBrush32 brush = new LogBrush32(brushStyle, getPrintColor(color), 0);
-        if (brushHandle != 0) {
-            os.writeTag(new DeleteObject(brushHandle));
-        } else {
-            brushHandle = handleManager.getHandle();
+        Integer handle = objectCache.get(brush);
+        if (handle == null) {
+            handle = new Integer(objectCache.add(brush, penHandle,
+                    brushHandle, os));
+            os.writeTag(new CreateBrushIndirect(handle.intValue(), brush));
+        }
+        if (handle.intValue() != brushHandle) {
+            brushHandle = handle.intValue();
+            os.writeTag(new SelectObject(brushHandle));
         }
-        os.writeTag(new CreateBrushIndirect(brushHandle, brush));
-        os.writeTag(new SelectObject(brushHandle));
     }
 
     private int toUnit(double d) {
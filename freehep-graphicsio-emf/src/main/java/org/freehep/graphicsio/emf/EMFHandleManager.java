@@ -9,10 +9,18 @@ import java.util.BitSet;
  * @version $Id: freehep-graphicsio-emf/src/main/java/org/freehep/graphicsio/emf/EMFHandleManager.java f24bd43ca24b 2005/12/02 00:39:35 duns $
  */
 public class EMFHandleManager {
+    /**
+     * number of handles a document is allowed to keep in use, unless it
+     * needs more to select its objects
+     */
+    public static final int DEFAULT_HANDLE_BUDGET = 256;
+
     private BitSet handles = new BitSet();
 
     private int maxHandle;
 
+    private int handleBudget = DEFAULT_HANDLE_BUDGET;
+
     public int getHandle() {
         int handle = nextClearBit();
         handles.set(handle);
@@ -40,4 +48,16 @@ public class EMFHandleManager {
     public int maxHandlesUsed() {
         return maxHandle + 1;
     }
+
+    public int handlesInUse() {
+        return handles.cardinality();
+    }
+
+    public int getHandleBudget() {
+        return handleBudget;
+    }
+
+    public void setHandleBudget(int handleBudget) {
+        this.handleBudget = handleBudget;
+    }
 }
@@ -4,13 +4,22 @@ import org.freehep.graphicsio.emf.gdi.BitmapInfoHeader;
 import org.freehep.graphicsio.emf.gdi.BlendFunction;
 
 import java.awt.image.BufferedImage;
-import java.awt.Color;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
 import java.io.IOException;
 import java.util.Arrays;
 
 /**
  * this class creates a BufferedImage from EMF imaga data stored in
- * a byte[].
+ * a byte[]. The pixels are written directly into the data buffer of
+ * an image which has the layout of the bitmap wherever Java2D has one:
+ * indexed bitmaps become images with an IndexColorModel, 24 bit bitmaps
+ * TYPE_3BYTE_BGR images.
  *
  * @author Steffen Greiffenberg
  * @version $Id: freehep-graphicsio-emf/src/main/java/org/freehep/graphicsio/emf/EMFImageLoader.java 10ec7516e3ce 2007/02/06 18:42:34 duns $
@@ -22,10 +31,10 @@ public class EMFImageLoader {
      * BitmapInfoHeader data
      *
      * @param bmi BitmapInfoHeader storing Bitmap informations
-     * @param width expected image width
-     * @param height expected image height
+     * @param width expected image width, used if the header has none
+     * @param height expected image height, used if the header has none
      * @param emf EMF stream
-     * @param len length of image data
+     * @param len length of image data, including the color table
      * @param blendFunction contains values for transparency
      * @return BufferedImage or null
      * @throws java.io.IOException thrown by EMFInputStream
@@ -38,371 +47,352 @@ public class EMFImageLoader {
         int len,
         BlendFunction blendFunction) throws IOException {
 
-        // 0    Windows 98/Me, Windows 2000/XP: The number of bits-per-pixel
-        // is specified or is implied by the JPEG or PNG format.
+        int bitCount = bmi.getBitCount();
+        int compression = bmi.getCompression();
 
-        if (bmi.getBitCount() == 1) {
-            // 1 	The bitmap is monochrome, and the bmiColors
-            // member of BITMAPINFO contains two entries. Each
-            // bit in the bitmap array represents a pixel. If
-            // the bit is clear, the pixel is displayed with
-            // the color of the first entry in the bmiColors
-            // table; if the bit is set, the pixel has the color
-            // of the second entry in the table.
-            // byte[] bytes = emf.readByte(len);
-
-            int blue = emf.readUnsignedByte();
-            int green = emf.readUnsignedByte();
-            int red = emf.readUnsignedByte();
-            /*int unused =*/ emf.readUnsignedByte();
-
-            int color1 = new Color(red, green, blue).getRGB();
-
-            blue = emf.readUnsignedByte();
-            green = emf.readUnsignedByte();
-            red = emf.readUnsignedByte();
-            /*unused = */ emf.readUnsignedByte();
-
-            int color2 = new Color(red, green, blue).getRGB();
-
-            BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-            int[] data = emf.readUnsignedByte(len - 8);
-
-            // TODO: this is highly experimental and does
-            // not work for the tested examples
-            int strangeOffset = width % 8;
-            if (strangeOffset != 0) {
-                strangeOffset = 8 - strangeOffset;
+        // a negative height denotes a top-down bitmap,
+        // otherwise the rows are stored bottom-up
+        if (bmi.getWidth() > 0 && bmi.getHeight() != 0) {
+            width = bmi.getWidth();
+            height = bmi.getHeight();
+        }
+        boolean topDown = height < 0;
+        height = Math.abs(height);
+
+        // BI_BITFIELDS: three DWORD masks for red, green and blue
+        int[] masks = null;
+        // 1, 4 and 8 bits: the RGBQUAD color table
+        int[] colorTable = null;
+
+        if (compression == EMFConstants.BI_BITFIELDS) {
+            masks = new int[] {
+                emf.readDWORD(), emf.readDWORD(), emf.readDWORD()};
+            len -= 12;
+        } else if (bitCount <= 8) {
+            int colorsUsed = bmi.getClrUsed();
+            if (colorsUsed <= 0) {
+                colorsUsed = 1 << bitCount;
             }
+            colorTable = readColorTable(emf, colorsUsed, bitCount);
+            len -= colorsUsed * 4;
+        }
 
-            // iterator for pixel data
-            int pixel = 0;
-
-            // mask for getting the bits from a pixel data byte
-            int[] mask = {0x01, 0x02, 0x04, 0x08, 0x10, 0x20, 0x40, 0x80};
+        if (width <= 0 || height <= 0 || len <= 0) {
+            emf.skipBytes(Math.max(len, 0));
+            return null;
+        }
 
-            // image data are swapped compared to java standard
-            for (int y = height - 1; y > -1; y--) {
-                for (int x = 0; x < width; x++) {
-                    int pixelDataGroup = data[pixel / 8];
-                    int pixelData = pixelDataGroup & mask[pixel % 8];
-                    pixel ++;
+        if (compression == EMFConstants.BI_RGB &&
+            (bitCount == 1 || bitCount == 4 || bitCount == 8)) {
+            // 1 	The bitmap is monochrome, and the bmiColors
+            // member of BITMAPINFO contains two entries.
+            // 4, 8 	The bitmap has a maximum of 16 or 256 colors, and the
+            // bmiColors member of BITMAPINFO contains up to 16 or 256
+            // entries. Each pixel is an index into the color table.
+            IndexColorModel cm = new IndexColorModel(
+                bitCount, colorTable.length, colorTable,
+                0, false, -1, DataBuffer.TYPE_BYTE);
+            BufferedImage result = new BufferedImage(
+                width, height,
+                bitCount == 8 ?
+                    BufferedImage.TYPE_BYTE_INDEXED :
+                    BufferedImage.TYPE_BYTE_BINARY,
+                cm);
+            readBytes(result, bitCount, topDown, emf, len);
+            return result;
+        }
 
-                    if (pixelData > 0) {
-                        result.setRGB(x, y, color2);
-                    } else {
-                        result.setRGB(x, y, color1);
-                    }
-                }
-                // add the extra width
-                pixel = pixel + strangeOffset;
+        else if ((compression == EMFConstants.BI_RLE8 && bitCount == 8) ||
+            (compression == EMFConstants.BI_RLE4 && bitCount == 4)) {
+            // run length encoded bitmaps, always bottom-up
+            int[] cmap = new int[256];
+            Arrays.fill(cmap, 0xFF000000);
+            System.arraycopy(colorTable, 0, cmap, 0, colorTable.length);
+            IndexColorModel cm = new IndexColorModel(
+                8, 256, cmap, 0, false, -1, DataBuffer.TYPE_BYTE);
+            BufferedImage result = new BufferedImage(
+                width, height, BufferedImage.TYPE_BYTE_INDEXED, cm);
+
+            int size = bmi.getSizeImage();
+            if (size <= 0 || size > len) {
+                size = len;
             }
-
-            /* for debugging: shows every loaded image
-            javax.swing.JFrame f = new javax.swing.JFrame("test");
-            f.getContentPane().setBackground(Color.green);
-            f.getContentPane().setLayout(
-                new java.awt.BorderLayout(0, 0));
-            f.getContentPane().add(
-                java.awt.BorderLayout.CENTER,
-                new javax.swing.JLabel(
-                    new javax.swing.ImageIcon(result)));
-            f.setSize(new java.awt.Dimension(width + 20, height + 20));
-            f.setVisible(true);*/
-
+            byte[] rle = new byte[size];
+            emf.readFully(rle);
+            decodeRLE(rle, bitCount,
+                ((DataBufferByte) result.getRaster().getDataBuffer()).getData(),
+                width, height);
             return result;
+        }
 
-        } else if ((bmi.getBitCount() == 8) &&
-            (bmi.getCompression() == EMFConstants.BI_RGB)) {
-            // 8 	The bitmap has a maximum of 256 colors, and the bmiColors member
-            // of BITMAPINFO contains up to 256 entries. In this case, each byte in
-            // the array represents a single pixel.
-
-            // TODO has to be done in BitMapInfoHeader?
-            // read the color table
-            int colorsUsed = bmi.getClrUsed();
-
-            // typedef struct tagRGBQUAD {
-            //   BYTE    rgbBlue;
-            //   BYTE    rgbGreen;
-            //   BYTE    rgbRed;
-            //   BYTE    rgbReserved;
-            // } RGBQUAD;
-            int[] colors = emf.readUnsignedByte(colorsUsed * 4);
-
-            // data a indexes to a certain color in the colortable.
-            // Each byte represents a pixel
-            int[] data = emf.readUnsignedByte(len - (colorsUsed * 4));
-
-            // convert it to a color table
-            int[] colorTable = new int[256];
-            // iterator for color data
-            int color = 0;
-            for (int i = 0; i < colorsUsed; i++, color = i * 4) {
-                colorTable[i] = new Color(
-                    colors[color + 2],
-                    colors[color + 1],
-                    colors[color]).getRGB();
-            }
+        else if (compression == EMFConstants.BI_RGB && bitCount == 24) {
+            // Each 3-byte triplet in the bitmap array represents the
+            // relative intensities of blue, green, and red, which is
+            // the layout of TYPE_3BYTE_BGR
+            BufferedImage result = new BufferedImage(
+                width, height, BufferedImage.TYPE_3BYTE_BGR);
+            readBytes(result, bitCount, topDown, emf, len);
+            return result;
+        }
 
-            // fill with black to avoid ArrayIndexOutOfBoundExceptions;
-            // somme images seem to use more colors than stored in ClrUsed
-            if (colorsUsed < 256) {
-                Arrays.fill(colorTable, colorsUsed, 256, 0);
+        else if (bitCount == 16) {
+            // The relative intensities of red, green, and blue are
+            // represented with five bits for each color component, unless
+            // BI_BITFIELDS specifies other masks.
+            if (masks == null) {
+                masks = new int[] {0x7C00, 0x3E0, 0x1F};
             }
-
-            // don't know why, but the width has to be adjusted ...
-            // it took more than an hour to determine the strangeOffset
-            int strangeOffset = width % 4;
-            if (strangeOffset != 0) {
-                strangeOffset = 4 - strangeOffset;
+            BufferedImage result;
+            if (masks[0] == 0x7C00 && masks[1] == 0x3E0 && masks[2] == 0x1F) {
+                result = new BufferedImage(
+                    width, height, BufferedImage.TYPE_USHORT_555_RGB);
+            } else if (masks[0] == 0xF800 && masks[1] == 0x7E0 &&
+                masks[2] == 0x1F) {
+                result = new BufferedImage(
+                    width, height, BufferedImage.TYPE_USHORT_565_RGB);
+            } else {
+                ColorModel cm = new DirectColorModel(
+                    16, masks[0], masks[1], masks[2]);
+                result = new BufferedImage(
+                    cm, cm.createCompatibleWritableRaster(width, height),
+                    false, null);
             }
 
-            // create the image
-            BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-            // iterator for pixel data
-            int pixel = 0;
-
-            // image data are swapped compared to java standard
-            for (int y = height - 1; y > -1; y--) {
-                for (int x = 0; x < width; x++) {
-                    result.setRGB(x, y, colorTable[data[pixel++]]);
+            short[] data = ((DataBufferUShort)
+                result.getRaster().getDataBuffer()).getData();
+            int stride = ((width * 16 + 31) / 32) * 4;
+            byte[] row = new byte[stride];
+            int rows = Math.min(height, len / stride);
+            for (int r = 0; r < rows; r++) {
+                emf.readFully(row);
+                int off = (topDown ? r : height - 1 - r) * width;
+                for (int x = 0, i = 0; x < width; x++, i += 2) {
+                    data[off + x] = (short)
+                        ((row[i] & 0xFF) | ((row[i + 1] & 0xFF) << 8));
                 }
-                // add the extra width
-                pixel = pixel + strangeOffset;
             }
-
             return result;
         }
 
-        // The bitmap has a maximum of 2^16 colors. If the biCompression member
-        // of the BITMAPINFOHEADER is BI_RGB, the bmiColors member of BITMAPINFO is
-        // NULL.
-        else if ((bmi.getBitCount() == 16) &&
-            (bmi.getCompression() == EMFConstants.BI_RGB)) {
-
-            // Each WORD in the bitmap array represents a single pixel. The
-            // relative intensities of red, green, and blue are represented with
-            // five bits for each color component. The value for blue is in the least
-            // significant five bits, followed by five bits each for green and red.
-            // The most significant bit is not used. The bmiColors color table is used
-            // for optimizing colors used on palette-based devices, and must contain
-            // the number of entries specified by the biClrUsed member of the
-            // BITMAPINFOHEADER.
-            int[] data = emf.readDWORD(len / 4);
-
-            // don't know why, by the width has to be the half ...
-            // maybe that has something to do with sie HALFTONE rendering setting.
-            width = (width + (width % 2)) / 2;
-            // to avoid ArrayIndexOutOfBoundExcesptions
-            height = data.length / width / 2;
-
-            // create a non transparent image
-            BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-            // found no sample and color model to mak this work
-            // tag.image.setRGB(0, 0, tag.widthSrc, tag.heightSrc, data, 0, 0);
-
-            // used in the loop
-            int off = 0;
-            int pixel, neighbor;
+        else if (bitCount == 32) {
+            // Each DWORD in the bitmap array represents the relative
+            // intensities of blue, green, and red, respectively, for a
+            // pixel. The high byte in each DWORD is not used, unless
+            // AlphaBlend has AC_SRC_ALPHA set.
+            if (masks == null) {
+                masks = new int[] {0xFF0000, 0xFF00, 0xFF};
+            }
+            boolean standard = masks[0] == 0xFF0000 &&
+                masks[1] == 0xFF00 && masks[2] == 0xFF;
+
+            // The SourceConstantaAlpha member of BLENDFUNCTION specifies an
+            // alpha transparency value to be used on the entire source
+            // bitmap. The SourceConstantAlpha value is combined with any
+            // per-pixel alpha values.
+            int sourceConstantAlpha = 0xFF;
+            boolean perPixelAlpha = false;
+            if (blendFunction != null) {
+                sourceConstantAlpha = blendFunction.getSourceConstantAlpha();
+                perPixelAlpha = standard &&
+                    blendFunction.getAlphaFormat() == EMFConstants.AC_SRC_ALPHA;
+            }
 
-            // image data are swapped compared to java standard
-            for (int y = height - 1; y > -1; y--, off = off + width) {
-                for (int x = 0; x < width; x++) {
-                    neighbor = data[off + width];
-                    pixel = data[off++];
+            BufferedImage result;
+            if (perPixelAlpha) {
+                // the source pixels are premultiplied by their alpha
+                result = new BufferedImage(
+                    width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            } else if (standard && sourceConstantAlpha != 0xFF) {
+                result = new BufferedImage(
+                    width, height, BufferedImage.TYPE_INT_ARGB);
+            } else if (standard) {
+                result = new BufferedImage(
+                    width, height, BufferedImage.TYPE_INT_RGB);
+            } else {
+                ColorModel cm = new DirectColorModel(
+                    32, masks[0], masks[1], masks[2]);
+                result = new BufferedImage(
+                    cm, cm.createCompatibleWritableRaster(width, height),
+                    false, null);
+            }
 
-                    // compute the average of the pixel and it's neighbor
-                    // and set the reulting color values
-                    result.setRGB(x, y, new Color(
-                        // 0xF800 = 2 * 0x7C00
-                        (float)((pixel & 0x7C00) + (neighbor & 0x7C00)) / 0xF800,
-                        (float)((pixel & 0x3E0) + (neighbor & 0x3E0)) / 0x7C0,
-                        (float)((pixel & 0x1F) + (neighbor & 0x1F)) / 0x3E).getRGB());
+            int[] data = ((DataBufferInt)
+                result.getRaster().getDataBuffer()).getData();
+            int stride = width * 4;
+            byte[] row = new byte[stride];
+            int rows = Math.min(height, len / stride);
+            for (int r = 0; r < rows; r++) {
+                emf.readFully(row);
+                int off = (topDown ? r : height - 1 - r) * width;
+                for (int x = 0, i = 0; x < width; x++, i += 4) {
+                    int pixel = (row[i] & 0xFF) |
+                        ((row[i + 1] & 0xFF) << 8) |
+                        ((row[i + 2] & 0xFF) << 16) |
+                        ((row[i + 3] & 0xFF) << 24);
+
+                    if (perPixelAlpha && sourceConstantAlpha != 0xFF) {
+                        // Src.Red = Src.Red * SourceConstantAlpha / 255.0,
+                        // and the same for green, blue and alpha
+                        pixel =
+                            ((((pixel >>> 24) * sourceConstantAlpha) / 0xFF) << 24) |
+                            (((((pixel >> 16) & 0xFF) * sourceConstantAlpha) / 0xFF) << 16) |
+                            (((((pixel >> 8) & 0xFF) * sourceConstantAlpha) / 0xFF) << 8) |
+                            (((pixel & 0xFF) * sourceConstantAlpha) / 0xFF);
+                    } else if (!perPixelAlpha && standard) {
+                        // Dst = Src * (SCA/255.0) + Dst * (1.0 - (SCA/255.0))
+                        pixel = (sourceConstantAlpha << 24) |
+                            (pixel & 0xFFFFFF);
+                    }
+                    data[off + x] = pixel;
                 }
             }
-
-            /* for debugging: shows every loaded image
-            javax.swing.JFrame f = new javax.swing.JFrame("test");
-            f.getContentPane().setBackground(Color.green);
-            f.getContentPane().setLayout(
-                new java.awt.BorderLayout(0, 0));
-            f.getContentPane().add(
-                java.awt.BorderLayout.CENTER,
-                new javax.swing.JLabel(
-                    new javax.swing.ImageIcon(result)));
-            f.pack();
-            f.setVisible(true);*/
-
             return result;
         }
-        // The bitmap has a maximum of 2^32 colors. If the biCompression member of the
-        // BITMAPINFOHEADER is BI_RGB, the bmiColors member of BITMAPINFO is NULL.
-        else if ((bmi.getBitCount() == 32) &&
-            (bmi.getCompression() == EMFConstants.BI_RGB)) {
-            // Each DWORD in the bitmap array represents the relative intensities of blue,
-            // green, and red, respectively, for a pixel. The high byte in each DWORD is not
-            // used. The bmiColors color table is used for optimizing colors used on
-            // palette-based devices, and must contain the number of entries specified
-            // by the biClrUsed member of the BITMAPINFOHEADER.
 
-            width = (width + (width % 20)) / 20;
-            height = (height + (height % 20)) / 20;
-
-            // create a transparent image
-            BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            // read the image data
-            int[] data = emf.readDWORD(len / 4);
-
-            // used to iterate the pixels later
-            int off = 0;
-            int pixel;
-            int alpha;
-
-            // The SourceConstantaAlpha member of BLENDFUNCTION specifies an alpha transparency
-            // value to be used on the entire source bitmap. The SourceConstantAlpha value is
-            // combined with any per-pixel alpha values. If SourceConstantAlpha is 0, it is
-            // assumed that the image is transparent. Set the SourceConstantAlpha value to 255
-            // (which indicates that the image is opaque) when you only want to use per-pixel
-            // alpha values.
-            int sourceConstantAlpha = blendFunction.getSourceConstantAlpha();
-
-            if (blendFunction.getAlphaFormat() != EMFConstants.AC_SRC_ALPHA) {
-                // If the source bitmap has no per-pixel alpha value (that is, AC_SRC_ALPHA is not
-                // set), the SourceConstantAlpha value determines the blend of the source and
-                // destination bitmaps, as shown in the following table. Note that SCA is used
-                // for SourceConstantAlpha here. Also, SCA is divided by 255 because it has a
-                // value that ranges from 0 to 255.
-
-                // Dst.Red 	= Src.Red * (SCA/255.0) 	+ Dst.Red * (1.0 - (SCA/255.0))
-                // Dst.Green 	= Src.Green * (SCA/255.0) 	+ Dst.Green * (1.0 - (SCA/255.0))
-                // Dst.Blue 	= Src.Blue * (SCA/255.0) 	+ Dst.Blue * (1.0 - (SCA/255.0))
-
-                // If the destination bitmap has an alpha channel, then the blend is as follows.
-                // Dst.Alpha 	= Src.Alpha * (SCA/255.0) 	+ Dst.Alpha * (1.0 - (SCA/255.0))
-
-                for (int y = height - 1; y > -1 && off < data.length; y--) {
-                    for (int x = 0; x < width && off < data.length; x++) {
-                        pixel = data[off++];
+        // JPEG and PNG compression, and combinations not defined
+        // by the DIB format
+        emf.skipBytes(len);
+        return null;
+    }
 
-                        result.setRGB(x, y, new Color(
-                            (pixel & 0xFF0000) >> 16,
-                            (pixel & 0xFF00) >> 8,
-                            (pixel & 0xFF),
-                            // TODO not tested
-                            sourceConstantAlpha
-                        ).getRGB());
-                    }
-                }
+    /**
+     * reads a color table of RGBQUAD entries
+     *
+     * @param emf EMF stream
+     * @param colorsUsed number of entries in the stream
+     * @param bitCount bits per pixel
+     * @return ARGB values with 2^bitCount entries
+     * @throws IOException thrown by EMFInputStream
+     */
+    private static int[] readColorTable(
+        EMFInputStream emf,
+        int colorsUsed,
+        int bitCount) throws IOException {
+
+        // fill with black to avoid ArrayIndexOutOfBoundExceptions;
+        // somme images seem to use more colors than stored in ClrUsed
+        int[] colorTable = new int[1 << bitCount];
+        Arrays.fill(colorTable, 0xFF000000);
+
+        // typedef struct tagRGBQUAD {
+        //   BYTE    rgbBlue;
+        //   BYTE    rgbGreen;
+        //   BYTE    rgbRed;
+        //   BYTE    rgbReserved;
+        // } RGBQUAD;
+        for (int i = 0; i < colorsUsed; i++) {
+            int blue = emf.readUnsignedByte();
+            int green = emf.readUnsignedByte();
+            int red = emf.readUnsignedByte();
+            /*int unused =*/ emf.readUnsignedByte();
+            if (i < colorTable.length) {
+                colorTable[i] = 0xFF000000 | (red << 16) | (green << 8) | blue;
             }
-            // When the BlendOp parameter is AC_SRC_OVER , the source bitmap is placed over
-            // the destination bitmap based on the alpha values of the source pixels.
-            else {
-                // If the source bitmap does not use SourceConstantAlpha (that is, it equals
-                // 0xFF), the per-pixel alpha determines the blend of the source and destination
-                // bitmaps, as shown in the following table.
-                if (sourceConstantAlpha == 0xFF) {
-                    // Dst.Red 	= Src.Red 	+ (1 - Src.Alpha) * Dst.Red
-                    // Dst.Green 	= Src.Green 	+ (1 - Src.Alpha) * Dst.Green
-                    // Dst.Blue 	= Src.Blue 	+ (1 - Src.Alpha) * Dst.Blue
-
-                    // If the destination bitmap has an alpha channel, then the blend is as follows.
-                    // Dest.alpha 	= Src.Alpha 	+ (1 - SrcAlpha) * Dst.Alpha
+        }
+        return colorTable;
+    }
 
-                    // image data are swapped compared to java standard
-                    for (int y = height - 1; y > -1 && off < data.length; y--) {
-                        for (int x = 0; x < width && off < data.length; x++) {
-                            pixel = data[off++];
-                            alpha = (pixel & 0xFF000000) >> 24;
-                            if (alpha == -1) {
-                                alpha = 0xFF;
-                            }
+    /**
+     * reads the rows of a bitmap directly into the byte data of an
+     * image with the same pixel layout
+     *
+     * @param image image of TYPE_BYTE_BINARY, TYPE_BYTE_INDEXED or
+     * TYPE_3BYTE_BGR
+     * @param bitCount bits per pixel
+     * @param topDown true if the first row is at the top
+     * @param emf EMF stream
+     * @param len length of the pixel data
+     * @throws IOException thrown by EMFInputStream
+     */
+    private static void readBytes(
+        BufferedImage image,
+        int bitCount,
+        boolean topDown,
+        EMFInputStream emf,
+        int len) throws IOException {
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] data = ((DataBufferByte)
+            image.getRaster().getDataBuffer()).getData();
+
+        // Java packs the rows tightly, DIBs to multiples of a DWORD
+        int rowLength = (width * bitCount + 7) / 8;
+        int stride = ((width * bitCount + 31) / 32) * 4;
+        int rows = Math.min(height, len / stride);
+        for (int r = 0; r < rows; r++) {
+            int y = topDown ? r : height - 1 - r;
+            emf.readFully(data, y * rowLength, rowLength);
+            emf.skipBytes(stride - rowLength);
+        }
+    }
 
-                            result.setRGB(x, y, new Color(
-                                (pixel & 0xFF0000) >> 16,
-                                (pixel & 0xFF00) >> 8,
-                                (pixel & 0xFF),
-                                alpha
-                            ).getRGB());
-                        }
-                    }
+    /**
+     * decodes a BI_RLE8 or BI_RLE4 bitmap into one index per pixel
+     *
+     * @param rle compressed bitmap
+     * @param bitCount 8 for BI_RLE8, 4 for BI_RLE4
+     * @param data indices of the pixels, row by row from the top
+     * @param width width of the bitmap
+     * @param height height of the bitmap
+     */
+    private static void decodeRLE(
+        byte[] rle,
+        int bitCount,
+        byte[] data,
+        int width,
+        int height) {
+
+        // position from the bottom left corner
+        int x = 0;
+        int y = 0;
+        int i = 0;
+        while (i + 1 < rle.length && y < height) {
+            int count = rle[i++] & 0xFF;
+            int value = rle[i++] & 0xFF;
+
+            if (count > 0) {
+                // encoded mode: count pixels of value, for RLE4
+                // alternating between the two indices in value
+                int end = Math.min(x + count, width);
+                int off = (height - 1 - y) * width;
+                for (int n = 0; x < end; n++, x++) {
+                    data[off + x] = (byte) ((bitCount == 8) ?
+                        value :
+                        ((n & 1) == 0) ? value >> 4 : value & 0x0F);
                 }
-
-                // If the source has both the SourceConstantAlpha (that is, it is not 0xFF)
-                // and per-pixel alpha, the source is pre-multiplied by the SourceConstantAlpha
-                // and then the blend is based on the per-pixel alpha. The following tables show
-                // this. Note that SourceConstantAlpha is divided by 255 because it has a value
-                // that ranges from 0 to 255.
-                else {
-                    // Src.Red 	= Src.Red 	* SourceConstantAlpha / 255.0;
-                    // Src.Green 	= Src.Green 	* SourceConstantAlpha / 255.0;
-                    // Src.Blue 	= Src.Blue 	* SourceConstantAlpha / 255.0;
-                    // Src.Alpha 	= Src.Alpha 	* SourceConstantAlpha / 255.0;
-
-                    // Dst.Red 	= Src.Red 	+ (1 - Src.Alpha) * Dst.Red
-                    // Dst.Green 	= Src.Green 	+ (1 - Src.Alpha) * Dst.Green
-                    // Dst.Blue 	= Src.Blue 	+ (1 - Src.Alpha) * Dst.Blue
-                    // Dst.Alpha 	= Src.Alpha 	+ (1 - Src.Alpha) * Dst.Alpha
-
-                    for (int y = height - 1; y > -1 && off < data.length; y--) {
-                        for (int x = 0; x < width && off < data.length; x++) {
-                            pixel = data[off++];
-
-                            alpha = (pixel & 0xFF000000) >> 24;
-                            if (alpha == -1) {
-                                alpha = 0xFF;
-                            }
-
-                            // TODO not tested
-                            alpha = alpha * sourceConstantAlpha / 0xFF;
-
-                            result.setRGB(x, y, new Color(
-                                (pixel & 0xFF0000) >> 16,
-                                (pixel & 0xFF00) >> 8,
-                                (pixel & 0xFF),
-                                alpha
-                            ).getRGB());
-                        }
+            } else if (value == 0) {
+                // end of line
+                x = 0;
+                y++;
+            } else if (value == 1) {
+                // end of bitmap
+                break;
+            } else if (value == 2) {
+                // delta: move right and up
+                if (i + 1 >= rle.length) {
+                    break;
+                }
+                x += rle[i++] & 0xFF;
+                y += rle[i++] & 0xFF;
+            } else {
+                // absolute mode: value indices follow, padded
+                // to a 16-bit boundary
+                int bytes = (bitCount == 8) ? value : (value + 1) / 2;
+                if (i + bytes > rle.length) {
+                    break;
+                }
+                int off = (height - 1 - y) * width;
+                for (int n = 0; n < value && x < width; n++, x++) {
+                    if (bitCount == 8) {
+                        data[off + x] = rle[i + n];
+                    } else {
+                        int b = rle[i + n / 2] & 0xFF;
+                        data[off + x] = (byte) (((n & 1) == 0) ? b >> 4 : b & 0x0F);
                     }
                 }
+                i += bytes + (bytes & 1);
             }
-                        
-            /* for debugging: shows every loaded image
-            javax.swing.JFrame f = new javax.swing.JFrame("test");
-            f.getContentPane().setBackground(Color.green);
-            f.getContentPane().setLayout(
-                new java.awt.BorderLayout(0, 0));
-            f.getContentPane().add(
-                java.awt.BorderLayout.CENTER,
-                new javax.swing.JLabel(
-                    new javax.swing.ImageIcon(result)));
-            f.setSize(new java.awt.Dimension(width + 20, height + 20));
-            f.setVisible(true);*/
-            
-            return result;
-        }
-        // If the biCompression member of the BITMAPINFOHEADER is BI_BITFIELDS,
-        // the bmiColors member contains three DWORD color masks that specify the
-        // red, green, and blue components, respectively, of each pixel. Each DWORD
-        // in the bitmap array represents a single pixel.
-
-        // Windows NT/ 2000: When the biCompression member is BI_BITFIELDS, bits set in
-        // each DWORD mask must be contiguous and should not overlap the bits of
-        // another mask. All the bits in the pixel do not need to be used.
-
-        // Windows 95/98/Me: When the biCompression member is BI_BITFIELDS, the system
-        // supports only the following 32-bpp color mask: The blue mask is 0x000000FF,
-        // the green mask is 0x0000FF00, and the red mask is 0x00FF0000.
-        else if ((bmi.getBitCount() == 32) &&
-            (bmi.getCompression() == EMFConstants.BI_BITFIELDS)) {
-            /* byte[] bytes =*/ emf.readByte(len);
-            return null;
-        } else {
-            /* byte[] bytes =*/ emf.readByte(len);
-            return null;
         }
     }
 }
@@ -0,0 +1,116 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.emf;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.freehep.graphicsio.emf.gdi.DeleteObject;
+import org.freehep.graphicsio.emf.gdi.GDIObject;
+
+/**
+ * Pens and brushes created by {@link EMFGraphics2D} which are still alive in
+ * the EMF, so that selecting one of them again only needs a SelectObject
+ * record. The least recently selected objects are deleted when the handles in
+ * use reach the budget of the {@link EMFHandleManager}. Objects selected in a
+ * device context saved by SaveDC are pinned, and never deleted before the
+ * matching RestoreDC.
+ *
+ * @version $Id$
+ */
+class EMFObjectCache {
+
+    private EMFHandleManager handleManager;
+
+    // in the order of their last selection
+    private LinkedHashMap<GDIObject, Integer> objects = new LinkedHashMap<GDIObject, Integer>(
+            16, 0.75f, true);
+
+    // number of saved device contexts selecting a handle
+    private Map<Integer, Integer> pinned = new HashMap<Integer, Integer>();
+
+    public EMFObjectCache(EMFHandleManager handleManager) {
+        this.handleManager = handleManager;
+    }
+
+    /**
+     * @param object pen or brush
+     * @return handle of an equal object, or null if it has to be created
+     */
+    public Integer get(GDIObject object) {
+        return objects.get(object);
+    }
+
+    /**
+     * Allocates a handle for a new object, after deleting the least recently
+     * selected objects which are not in use while the budget is exhausted.
+     * The caller writes the record creating the object.
+     *
+     * @param object pen or brush
+     * @param penHandle pen selected in the current device context, or 0
+     * @param brushHandle brush selected in the current device context, or 0
+     * @param os stream to write DeleteObject records to
+     * @return handle for the object
+     * @throws IOException if a record cannot be written
+     */
+    public int add(GDIObject object, int penHandle, int brushHandle,
+            EMFOutputStream os) throws IOException {
+        Iterator<Integer> i = objects.values().iterator();
+        while ((handleManager.handlesInUse() >= handleManager
+                .getHandleBudget())
+                && i.hasNext()) {
+            int handle = i.next().intValue();
+            if ((handle == penHandle) || (handle == brushHandle)
+                    || pinned.containsKey(new Integer(handle))) {
+                continue;
+            }
+            i.remove();
+            os.writeTag(new DeleteObject(handleManager.freeHandle(handle)));
+        }
+
+        int handle = handleManager.getHandle();
+        objects.put(object, new Integer(handle));
+        return handle;
+    }
+
+    /**
+     * Keeps the object with the given handle until {@link #unpin(int)}.
+     *
+     * @param handle handle of a pen or brush, or 0
+     */
+    public void pin(int handle) {
+        if (handle == 0) {
+            return;
+        }
+        Integer key = new Integer(handle);
+        Integer count = pinned.get(key);
+        pinned.put(key, new Integer((count == null) ? 1
+                : count.intValue() + 1));
+    }
+
+    /**
+     * @param handle handle passed to {@link #pin(int)} before
+     */
+    public void unpin(int handle) {
+        Integer key = new Integer(handle);
+        Integer count = pinned.get(key);
+        if (count == null) {
+            return;
+        }
+        if (count.intValue() > 1) {
+            pinned.put(key, new Integer(count.intValue() - 1));
+        } else {
+            pinned.remove(key);
+        }
+    }
+
+    /**
+     * Forgets all objects, once their handles are deleted.
+     */
+    public void clear() {
+        objects.clear();
+        pinned.clear();
+    }
+}
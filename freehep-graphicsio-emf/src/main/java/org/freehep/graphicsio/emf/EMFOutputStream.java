@@ -6,8 +6,11 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 
 import org.freehep.util.io.ActionHeader;
 import org.freehep.util.io.Tag;
@@ -17,6 +20,11 @@ import org.freehep.util.io.TaggedOutputStream;
 /**
  * EMF Binary Output Stream. Tags written with this OutputStream will produce a
  * binary EMF file.
+ * <p>
+ * Written to a plain OutputStream, the records are kept in memory until
+ * close() knows the size of the file for the header. Written to a
+ * FileChannel, for instance of a RandomAccessFile, the records go straight to
+ * the file and close() writes the header over a placeholder.
  * 
  * @author Mark Donszelmann
  * @version $Id: freehep-graphicsio-emf/src/main/java/org/freehep/graphicsio/emf/EMFOutputStream.java eb6e9c24f3e4 2006/03/02 00:56:03 duns $
@@ -37,10 +45,42 @@ public class EMFOutputStream extends TaggedOutputStream {
 
     private Dimension device;
 
+    // file the records are written to directly, or null
+    private FileChannel channel;
+
+    private long headerStart;
+
+    private long headerEnd;
+
     public EMFOutputStream(OutputStream os, Rectangle imageBounds,
             EMFHandleManager handles, String application, String name,
             Dimension device, int version) throws IOException {
 
+        this(os, null, imageBounds, handles, application, name, device,
+                version);
+    }
+
+    public EMFOutputStream(FileChannel channel, Rectangle imageBounds,
+            EMFHandleManager handles, String application, String name,
+            Dimension device, int version) throws IOException {
+
+        this(new BufferedOutputStream(Channels.newOutputStream(channel)),
+                channel, imageBounds, handles, application, name, device,
+                version);
+    }
+
+    public EMFOutputStream(FileChannel channel, Rectangle imageBounds,
+            EMFHandleManager handles, String application, String name,
+            Dimension device) throws IOException {
+
+        this(channel, imageBounds, handles, application, name, device, 1);
+    }
+
+    private EMFOutputStream(OutputStream os, FileChannel channel,
+            Rectangle imageBounds, EMFHandleManager handles,
+            String application, String name, Dimension device, int version)
+            throws IOException {
+
         // EMF is little-endian
         super(os, new EMFTagSet(version), null, true);
         this.recordCount = 0;
@@ -50,9 +90,18 @@ public class EMFOutputStream extends TaggedOutputStream {
         this.application = application;
         this.name = name;
         this.device = device;
-
-        // will be popped by close()
-        pushBuffer();
+        this.channel = channel;
+
+        if (channel == null) {
+            // will be popped by close()
+            pushBuffer();
+        } else {
+            // will be overwritten by close(), the header has a fixed size
+            headerStart = channel.position();
+            writeHeader(createHeader(0));
+            flush();
+            headerEnd = channel.position();
+        }
     }
 
     public EMFOutputStream(OutputStream os, Rectangle imageBounds,
@@ -63,17 +112,28 @@ public class EMFOutputStream extends TaggedOutputStream {
     }
 
     public void close() throws IOException {
-        int len = popBuffer();
         recordCount++;
-        EMFHeader header = new EMFHeader(imageBounds, getVersion(), 0, len,
-                recordCount, handles.maxHandlesUsed(), application, name,
-                device);
-        writeHeader(header);
-        append();
+        if (channel == null) {
+            int len = popBuffer();
+            writeHeader(createHeader(len));
+            append();
+        } else {
+            flush();
+            long end = channel.position();
+            channel.position(headerStart);
+            writeHeader(createHeader((int) (end - headerEnd)));
+            flush();
+            channel.position(end);
+        }
 
         super.close();
     }
 
+    private EMFHeader createHeader(int len) {
+        return new EMFHeader(imageBounds, getVersion(), 0, len, recordCount,
+                handles.maxHandlesUsed(), application, name, device);
+    }
+
     // DWORD
     public void writeDWORD(int i) throws IOException {
         writeUnsignedInt(i);
@@ -6,7 +6,12 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * simple panel which displays an EMF image using the {@link EMFRenderer}
@@ -31,6 +36,28 @@ public class EMFPanel extends JComponent {
      */
     private double scale = 1;
 
+    /**
+     * width and height of the cached tiles
+     */
+    private static final int TILE_SIZE = 256;
+
+    /**
+     * maximum number of entries in {@link #tiles}
+     */
+    private int tileCacheSize = 64;
+
+    /**
+     * tiles rendered at the current scale by their position in units of
+     * TILE_SIZE, least recently used first
+     */
+    private Map<Point, BufferedImage> tiles =
+        new LinkedHashMap<Point, BufferedImage>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(
+                Map.Entry<Point, BufferedImage> e) {
+                return size() > tileCacheSize;
+            }
+        };
+
     /**
      * defines a white background
      */
@@ -38,6 +65,17 @@ public class EMFPanel extends JComponent {
         setBackground(Color.white);
     }
 
+    /**
+     * Sets the number of rendered tiles kept for panning and repainting.
+     * The default is 64 tiles of 256 by 256 pixels.
+     *
+     * @param size maximum number of tiles, 0 to render on every repaint
+     */
+    public void setTileCacheSize(int size) {
+        tileCacheSize = size;
+        tiles.clear();
+    }
+
     /**
      * sets the renderer an resets size
      * @param renderer EMFRenderer to display
@@ -45,6 +83,7 @@ public class EMFPanel extends JComponent {
     public void setRenderer(EMFRenderer renderer) {
         this.renderer = renderer;
         scale = 1;
+        tiles.clear();
         setSize(getPreferredSize());
     }
 
@@ -77,6 +116,13 @@ public class EMFPanel extends JComponent {
         // to restore AffineTransform
         AffineTransform at = g2.getTransform();
 
+        // tiles can only be copied if nothing but translated
+        if ((tileCacheSize > 0)
+            && ((at.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0)) {
+            paintTiles(g2);
+            return;
+        }
+
         // apply the scale factor
         g2.scale(scale, scale);
 
@@ -87,11 +133,62 @@ public class EMFPanel extends JComponent {
         g2.setTransform(at);
     }
 
+    /**
+     * paints the tiles intersecting the clip, and renders the missing ones
+     * @param g2 Context of the component
+     */
+    private void paintTiles(Graphics2D g2) {
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        clip = clip.intersection(new Rectangle(getPreferredSize()));
+        if (clip.isEmpty()) {
+            return;
+        }
+
+        int x0 = clip.x / TILE_SIZE;
+        int y0 = clip.y / TILE_SIZE;
+        int x1 = (clip.x + clip.width - 1) / TILE_SIZE;
+        int y1 = (clip.y + clip.height - 1) / TILE_SIZE;
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                Point key = new Point(x, y);
+                BufferedImage tile = tiles.get(key);
+                if (tile == null) {
+                    tile = renderTile(x, y);
+                    tiles.put(key, tile);
+                }
+                g2.drawImage(tile, x * TILE_SIZE, y * TILE_SIZE, null);
+            }
+        }
+    }
+
+    /**
+     * renders a tile at the current scale, the renderer only replays
+     * the records which paint into it
+     * @param x horizontal position in units of TILE_SIZE
+     * @param y vertical position in units of TILE_SIZE
+     * @return the tile
+     */
+    private BufferedImage renderTile(int x, int y) {
+        BufferedImage tile = new BufferedImage(
+            TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = tile.createGraphics();
+        g2.translate(-x * TILE_SIZE, -y * TILE_SIZE);
+        g2.clipRect(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        g2.scale(scale, scale);
+        renderer.paint(g2);
+        g2.dispose();
+        return tile;
+    }
+
     /**
      * scale = scale * 2
      */
     public void zoomIn() {
         scale = scale * SCALE_FACTOR;
+        tiles.clear();
         setSize(getPreferredSize());
         repaint();
     }
@@ -101,6 +198,7 @@ public class EMFPanel extends JComponent {
      */
     public void zoomOut() {
         scale = scale / SCALE_FACTOR;
+        tiles.clear();
         setSize(getPreferredSize());
         repaint();
     }
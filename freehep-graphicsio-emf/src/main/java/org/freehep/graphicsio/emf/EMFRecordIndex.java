@@ -0,0 +1,206 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.emf;
+
+import java.awt.geom.Rectangle2D;
+import java.util.BitSet;
+
+/**
+ * Grid of the bounds of EMF drawing records, used by {@link EMFRenderer} to
+ * find the records which paint into a given rectangle. An entry is either a
+ * single record or a range of records, such as a path bracket, which is
+ * replayed as a whole. The bounds are in the user space of the graphics
+ * context passed to {@link EMFRenderer#paint(java.awt.Graphics2D)}.
+ *
+ * @version $Id$
+ */
+class EMFRecordIndex {
+
+    /**
+     * maximum number of cells along each axis
+     */
+    private static final int MAX_CELLS = 256;
+
+    // records in the index, and their bounds
+    private BitSet indexed = new BitSet();
+
+    private int count;
+
+    private int[] first = new int[256];
+
+    private int[] last = new int[256];
+
+    private double[] bounds = new double[4 * 256];
+
+    // grid built by build()
+    private Rectangle2D area;
+
+    private int columns, rows;
+
+    private double cellWidth, cellHeight;
+
+    private int[][] cells;
+
+    // records covering a large part of the grid, checked by every query
+    private int[] large;
+
+    /**
+     * Adds a range of records, before {@link #build()} is called.
+     *
+     * @param firstRecord index of the first record
+     * @param lastRecord index of the last record
+     * @param r bounds of everything the records paint
+     */
+    public void add(int firstRecord, int lastRecord, Rectangle2D r) {
+        if (count == first.length) {
+            int[] newFirst = new int[2 * count];
+            System.arraycopy(first, 0, newFirst, 0, count);
+            first = newFirst;
+            int[] newLast = new int[2 * count];
+            System.arraycopy(last, 0, newLast, 0, count);
+            last = newLast;
+            double[] newBounds = new double[8 * count];
+            System.arraycopy(bounds, 0, newBounds, 0, 4 * count);
+            bounds = newBounds;
+        }
+        first[count] = firstRecord;
+        last[count] = lastRecord;
+        bounds[4 * count] = r.getMinX();
+        bounds[4 * count + 1] = r.getMinY();
+        bounds[4 * count + 2] = r.getMaxX();
+        bounds[4 * count + 3] = r.getMaxY();
+        count++;
+        indexed.set(firstRecord, lastRecord + 1);
+        if (area == null) {
+            area = new Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(),
+                r.getHeight());
+        } else {
+            area.add(r);
+        }
+    }
+
+    /**
+     * Distributes the records over the cells of the grid.
+     */
+    public void build() {
+        if (count == 0) {
+            return;
+        }
+
+        // about four records per cell
+        int n = Math.max(1, Math.min(MAX_CELLS, (int) Math.sqrt(count / 4)));
+        columns = (area.getWidth() > 0) ? n : 1;
+        rows = (area.getHeight() > 0) ? n : 1;
+        cellWidth = area.getWidth() / columns;
+        cellHeight = area.getHeight() / rows;
+
+        // count the records per cell, then fill them in
+        int[] sizes = new int[columns * rows];
+        int largeSize = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < count; i++) {
+                int x0 = column(bounds[4 * i]);
+                int y0 = row(bounds[4 * i + 1]);
+                int x1 = column(bounds[4 * i + 2]);
+                int y1 = row(bounds[4 * i + 3]);
+                int covered = (x1 - x0 + 1) * (y1 - y0 + 1);
+                if (covered > Math.max(4, sizes.length / 4)) {
+                    if (pass == 0) {
+                        largeSize++;
+                    } else {
+                        large[largeSize++] = i;
+                    }
+                    continue;
+                }
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        int cell = y * columns + x;
+                        if (pass == 0) {
+                            sizes[cell]++;
+                        } else {
+                            cells[cell][sizes[cell]++] = i;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                large = new int[largeSize];
+                largeSize = 0;
+                cells = new int[sizes.length][];
+                for (int cell = 0; cell < sizes.length; cell++) {
+                    cells[cell] = new int[sizes[cell]];
+                    sizes[cell] = 0;
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        if (cellWidth <= 0) {
+            return 0;
+        }
+        int column = (int) ((x - area.getMinX()) / cellWidth);
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    private int row(double y) {
+        if (cellHeight <= 0) {
+            return 0;
+        }
+        int row = (int) ((y - area.getMinY()) / cellHeight);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    /**
+     * @param record index of the record
+     * @return true if the bounds of the record are known
+     */
+    public boolean contains(int record) {
+        return indexed.get(record);
+    }
+
+    /**
+     * @return number of entries in the index
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the records which paint into the given rectangle.
+     *
+     * @param r rectangle to query
+     * @return set of the indices of the records intersecting r
+     */
+    public BitSet query(Rectangle2D r) {
+        BitSet result = new BitSet();
+        if ((cells == null) || (r.getMaxX() < area.getMinX())
+            || (r.getMinX() > area.getMaxX())
+            || (r.getMaxY() < area.getMinY())
+            || (r.getMinY() > area.getMaxY())) {
+            return result;
+        }
+        query(large, r, result);
+        int x0 = column(r.getMinX());
+        int y0 = row(r.getMinY());
+        int x1 = column(r.getMaxX());
+        int y1 = row(r.getMaxY());
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                query(cells[y * columns + x], r, result);
+            }
+        }
+        return result;
+    }
+
+    private void query(int[] list, Rectangle2D r, BitSet result) {
+        for (int j = 0; j < list.length; j++) {
+            int i = list[j];
+            if ((bounds[4 * i] <= r.getMaxX())
+                && (bounds[4 * i + 2] >= r.getMinX())
+                && (bounds[4 * i + 1] <= r.getMaxY())
+                && (bounds[4 * i + 3] >= r.getMinY())) {
+                result.set(first[i], last[i] + 1);
+            }
+        }
+    }
+}
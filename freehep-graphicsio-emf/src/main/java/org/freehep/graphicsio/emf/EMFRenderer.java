@@ -1,6 +1,9 @@
 package org.freehep.graphicsio.emf;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.awt.Graphics2D;
 import java.awt.Dimension;
 import java.awt.Point;
@@ -17,13 +20,46 @@ import java.awt.image.BufferedImage;
 import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.logging.Logger;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.Stack;
 import java.util.Vector;
 import java.util.Map;
 
 import org.freehep.util.io.Tag;
+import org.freehep.graphicsio.emf.gdi.AbstractExtTextOut;
+import org.freehep.graphicsio.emf.gdi.AbstractPolyPolygon;
+import org.freehep.graphicsio.emf.gdi.AlphaBlend;
+import org.freehep.graphicsio.emf.gdi.Arc;
+import org.freehep.graphicsio.emf.gdi.ArcTo;
+import org.freehep.graphicsio.emf.gdi.BeginPath;
+import org.freehep.graphicsio.emf.gdi.BitBlt;
+import org.freehep.graphicsio.emf.gdi.Chord;
+import org.freehep.graphicsio.emf.gdi.CloseFigure;
+import org.freehep.graphicsio.emf.gdi.CreateDIBPatternBrushPt;
+import org.freehep.graphicsio.emf.gdi.EMFPolygon;
+import org.freehep.graphicsio.emf.gdi.EMFRectangle;
+import org.freehep.graphicsio.emf.gdi.Ellipse;
+import org.freehep.graphicsio.emf.gdi.EndPath;
+import org.freehep.graphicsio.emf.gdi.FillPath;
 import org.freehep.graphicsio.emf.gdi.GDIObject;
+import org.freehep.graphicsio.emf.gdi.LineTo;
+import org.freehep.graphicsio.emf.gdi.MoveToEx;
+import org.freehep.graphicsio.emf.gdi.Pie;
+import org.freehep.graphicsio.emf.gdi.PolyBezier;
+import org.freehep.graphicsio.emf.gdi.PolyBezierTo;
+import org.freehep.graphicsio.emf.gdi.Polyline;
+import org.freehep.graphicsio.emf.gdi.PolylineTo;
+import org.freehep.graphicsio.emf.gdi.RoundRect;
+import org.freehep.graphicsio.emf.gdi.StretchDIBits;
+import org.freehep.graphicsio.emf.gdi.StrokeAndFillPath;
+import org.freehep.graphicsio.emf.gdi.StrokePath;
 
 /**
  * Standalone EMF renderer.
@@ -178,6 +214,65 @@ public class EMFRenderer {
      */
     private Vector<Tag> tags = new Vector<Tag>(0);
 
+    /**
+     * read-only view of the file if the renderer was created by
+     * {@link #EMFRenderer(java.io.File)}, null otherwise. The records
+     * are then decoded from it during {@link #paint(java.awt.Graphics2D)}
+     * rather than kept in {@link #tags}.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * offsets of the records in {@link #buffer}
+     */
+    private int[] offsets;
+
+    /**
+     * number of records in {@link #offsets}
+     */
+    private int recordCount;
+
+    /**
+     * stream positioned on a record in {@link #buffer} to decode it
+     */
+    private RecordInputStream recordInput;
+
+    private EMFInputStream records;
+
+    /**
+     * decoded bitmap records by index, least recently used first
+     */
+    private Map<Integer, Tag> bitmaps;
+
+    /**
+     * maximum number of entries in {@link #bitmaps}
+     */
+    private int bitmapCacheSize = 16;
+
+    /**
+     * bounds of the drawing records, built during the first call to
+     * {@link #paint(java.awt.Graphics2D)}. Later calls only replay the
+     * drawing records which intersect the clip, and all other records.
+     */
+    private EMFRecordIndex index;
+
+    /**
+     * inverse of {@link #initialTransform} while the index is built,
+     * null otherwise
+     */
+    private AffineTransform indexTransform;
+
+    /**
+     * bounds of what the current record paints while the index is built
+     */
+    private Rectangle2D paintedBounds;
+
+    /**
+     * number of records replayed by the last call to
+     * {@link #paint(java.awt.Graphics2D)}
+     */
+    private int paintedRecordCount;
+
     /**
      * Created by BeginPath and closed by EndPath.
      */
@@ -239,6 +334,225 @@ public class EMFRenderer {
         is.close();
     }
 
+    /**
+     * Constructs a renderer which maps the file into memory and only indexes
+     * the EMF records. The records are decoded again on every call to
+     * {@link #paint(java.awt.Graphics2D)}, except for the most recently
+     * used bitmaps, so that the memory used does not grow with the size of
+     * the file.
+     *
+     * @param file the EMF file to read the records from.
+     * @throws IOException if an error occurs reading the header or indexing
+     *         the records.
+     */
+    public EMFRenderer(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("EMF file too large: " + file);
+            }
+            // the mapping stays valid after the file is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel
+                .size());
+        } finally {
+            raf.close();
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        recordInput = new RecordInputStream(buffer);
+        records = new EMFInputStream(recordInput);
+        header = records.readHeader();
+
+        bitmaps = new LinkedHashMap<Integer, Tag>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Tag> e) {
+                return size() > bitmapCacheSize;
+            }
+        };
+
+        // record the offset of every record after the header
+        offsets = new int[1024];
+        int limit = buffer.limit();
+        int offset = buffer.getInt(4);
+        while (offset + 8 <= limit) {
+            int length = buffer.getInt(offset + 4);
+            if ((length < 8) || (length > limit - offset)) {
+                throw new IOException("Invalid EMF record length " + length
+                    + " at offset " + offset);
+            }
+            if (recordCount == offsets.length) {
+                int[] newOffsets = new int[2 * offsets.length];
+                System.arraycopy(offsets, 0, newOffsets, 0, recordCount);
+                offsets = newOffsets;
+            }
+            offsets[recordCount++] = offset;
+            offset += length;
+        }
+    }
+
+    /**
+     * Sets the number of decoded bitmaps kept between calls to
+     * {@link #paint(java.awt.Graphics2D)} by a renderer created by
+     * {@link #EMFRenderer(java.io.File)}. The default is 16.
+     *
+     * @param size maximum number of bitmaps, 0 to decode them every time
+     */
+    public void setBitmapCacheSize(int size) {
+        bitmapCacheSize = size;
+        if (bitmaps != null && bitmaps.size() > size) {
+            bitmaps.clear();
+        }
+    }
+
+    /**
+     * @return the number of EMF records after the header
+     */
+    public int getRecordCount() {
+        return (buffer != null) ? recordCount : tags.size();
+    }
+
+    /**
+     * @return the number of records replayed by the last call to
+     *         {@link #paint(java.awt.Graphics2D)}
+     */
+    public int getPaintedRecordCount() {
+        return paintedRecordCount;
+    }
+
+    /**
+     * @param tag record
+     * @return true if the record does nothing but paint, so that it can be
+     *         skipped if it paints outside the clip
+     */
+    private static boolean isDrawing(Tag tag) {
+        return (tag instanceof AbstractPolyPolygon)
+            || (tag instanceof EMFPolygon) || (tag instanceof Polyline)
+            || (tag instanceof PolyBezier) || (tag instanceof EMFRectangle)
+            || (tag instanceof Ellipse) || (tag instanceof RoundRect)
+            || (tag instanceof Arc) || (tag instanceof Chord)
+            || (tag instanceof Pie) || (tag instanceof AbstractExtTextOut)
+            || (tag instanceof StretchDIBits) || (tag instanceof BitBlt)
+            || (tag instanceof AlphaBlend);
+    }
+
+    /**
+     * @param tag record
+     * @return true if the record only adds to the path between BeginPath
+     *         and EndPath
+     */
+    private static boolean isPathConstruction(Tag tag) {
+        return (tag instanceof MoveToEx) || (tag instanceof LineTo)
+            || (tag instanceof PolylineTo) || (tag instanceof PolyBezierTo)
+            || (tag instanceof ArcTo) || (tag instanceof CloseFigure)
+            || (tag instanceof EndPath) || isDrawing(tag);
+    }
+
+    /**
+     * @param tag record
+     * @return true if the record paints and clears the current path
+     */
+    private static boolean isPathDrawing(Tag tag) {
+        return (tag instanceof StrokePath) || (tag instanceof FillPath)
+            || (tag instanceof StrokeAndFillPath);
+    }
+
+    /**
+     * Adds the bounds of a shape painted with the current transform to
+     * {@link #paintedBounds} while the index is built.
+     *
+     * @param s painted shape
+     * @param stroke stroke the shape is drawn with, null if it is filled
+     */
+    private void addPaintedBounds(Shape s, Stroke stroke) {
+        if (indexTransform == null) {
+            return;
+        }
+
+        AffineTransform t = new AffineTransform(indexTransform);
+        t.concatenate(g2.getTransform());
+        Rectangle2D bounds;
+        if (stroke instanceof BasicStroke) {
+            // a miter extends at most meterLimit half widths from the path
+            BasicStroke bs = (BasicStroke) stroke;
+            double pad = bs.getLineWidth() / 2
+                * Math.max(1, Math.max(meterLimit, bs.getMiterLimit()))
+                * Math.max(Math.hypot(t.getScaleX(), t.getShearY()), Math
+                    .hypot(t.getShearX(), t.getScaleY()));
+            bounds = t.createTransformedShape(s).getBounds2D();
+            bounds.setRect(bounds.getX() - pad, bounds.getY() - pad, bounds
+                .getWidth() + 2 * pad, bounds.getHeight() + 2 * pad);
+        } else if (stroke != null) {
+            bounds = t.createTransformedShape(stroke.createStrokedShape(s))
+                .getBounds2D();
+        } else {
+            bounds = t.createTransformedShape(s).getBounds2D();
+        }
+
+        if (paintedBounds == null) {
+            paintedBounds = bounds;
+        } else {
+            paintedBounds.add(bounds);
+        }
+    }
+
+    /**
+     * Decodes the record with the given index from {@link #buffer}.
+     *
+     * @param index index of the record
+     * @return the decoded record
+     * @throws IOException if the record cannot be decoded
+     */
+    private Tag readRecord(int index) throws IOException {
+        Integer key = new Integer(index);
+        Tag tag = bitmaps.get(key);
+        if (tag == null) {
+            recordInput.position(offsets[index]);
+            tag = records.readTag();
+            if ((tag instanceof StretchDIBits) || (tag instanceof BitBlt)
+                || (tag instanceof AlphaBlend)
+                || (tag instanceof CreateDIBPatternBrushPt)) {
+                bitmaps.put(key, tag);
+            }
+        }
+        return tag;
+    }
+
+    /**
+     * InputStream reading from a ByteBuffer at a position which can be
+     * changed.
+     */
+    private static class RecordInputStream extends InputStream {
+        private ByteBuffer buffer;
+
+        private RecordInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        private void position(int position) {
+            buffer.position(position);
+        }
+
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
     /**
      * Gets the size of a canvas which would be required to render the EMF.
      *
@@ -311,15 +625,86 @@ public class EMFRenderer {
         // determin initial clip after all basic transformations
         initialClip = g2.getClip();
 
+        // find the drawing records which paint into the clip, leaving room
+        // for antialiasing
+        BitSet visible = null;
+        if ((index != null) && (clip != null) && (at.getDeterminant() != 0)) {
+            double pad = 2 / Math.sqrt(Math.abs(at.getDeterminant()));
+            Rectangle2D r = clip.getBounds2D();
+            r.setRect(r.getX() - pad, r.getY() - pad, r.getWidth() + 2 * pad,
+                r.getHeight() + 2 * pad);
+            visible = index.query(r);
+        }
+
+        // build the index while painting everything the first time
+        EMFRecordIndex newIndex = null;
+        if (index == null) {
+            try {
+                indexTransform = at.createInverse();
+                newIndex = new EMFRecordIndex();
+            } catch (NoninvertibleTransformException e) {
+                indexTransform = null;
+            }
+        }
+
         // iterate and render all tags
         Tag tag;
-        for (int i = 0; i < tags.size(); i++) {
-            tag = tags.get(i);
+        int bracket = -1;
+        paintedRecordCount = 0;
+        for (int i = 0; i < getRecordCount(); i++) {
+            if ((visible != null) && !visible.get(i) && index.contains(i)) {
+                continue;
+            }
+
+            if (buffer != null) {
+                try {
+                    tag = readRecord(i);
+                } catch (IOException e) {
+                    logger.warning("cannot read record " + i + ": " + e);
+                    break;
+                }
+            } else {
+                tag = tags.get(i);
+            }
+            // a path bracket without figures from before can be skipped
+            // as a whole
+            if ((newIndex != null) && (tag instanceof BeginPath)) {
+                bracket = ((path == null) && (figure == null)) ? i : -1;
+            }
+
+            paintedBounds = null;
             if (tag instanceof EMFTag) {
-                ((EMFTag) tags.get(i)).render(this);
+                ((EMFTag) tag).render(this);
             } else {
                 logger.warning("unknown tag: " + tag);
             }
+            paintedRecordCount++;
+
+            // the composite is only left alone by R2_COPYPEN
+            if (newIndex == null) {
+                continue;
+            } else if (bracket < 0) {
+                if ((paintedBounds != null) && isDrawing(tag)
+                    && (rop2 == EMFConstants.R2_COPYPEN)) {
+                    newIndex.add(i, i, paintedBounds);
+                }
+            } else if (isPathDrawing(tag)) {
+                if ((paintedBounds != null) && (path == null)
+                    && (figure == null) && (rop2 == EMFConstants.R2_COPYPEN)) {
+                    newIndex.add(bracket, i, paintedBounds);
+                }
+                bracket = -1;
+            } else if ((bracket != i)
+                && ((paintedBounds != null) || !isPathConstruction(tag))) {
+                bracket = -1;
+            }
+        }
+
+        if (newIndex != null) {
+            newIndex.build();
+            index = newIndex;
+            indexTransform = null;
+            paintedBounds = null;
         }
 
         // reset Transform and clip
@@ -535,6 +920,14 @@ public class EMFRenderer {
         } else {
             g2.setPaint(textColor);
             g2.drawString(text, (int)x, (int)y);
+            if (indexTransform != null) {
+                Rectangle2D bounds = g2.getFont().createGlyphVector(
+                    g2.getFontRenderContext(), text).getVisualBounds();
+                bounds.setRect(bounds.getX() + (int)x - 1,
+                    bounds.getY() + (int)y - 1,
+                    bounds.getWidth() + 2, bounds.getHeight() + 2);
+                addPaintedBounds(bounds, null);
+            }
         }
     }
 
@@ -585,6 +978,7 @@ public class EMFRenderer {
     private void fillShape(Graphics2D g2, Shape s) {
         g2.setPaint(brushPaint);
         g2.fill(s);
+        addPaintedBounds(s, null);
     }
 
     /**
@@ -644,6 +1038,7 @@ public class EMFRenderer {
         }
 
         g2.draw(s);
+        addPaintedBounds(s, penStroke);
     }
 
     // ---------------------------------------------------------------------
@@ -684,10 +1079,15 @@ public class EMFRenderer {
 
     public void drawImage(BufferedImage image, AffineTransform transform) {
         g2.drawImage(image, transform, null);
+        addPaintedBounds(transform.createTransformedShape(new Rectangle2D.Double(
+            0, 0, image.getWidth(), image.getHeight())), null);
     }
 
     public void drawImage(BufferedImage image, int x, int y, int width, int height) {
         g2.drawImage(image, x, y, width,  height,  null);
+        Rectangle2D bounds = new Rectangle2D.Double();
+        bounds.setFrameFromDiagonal(x, y, x + width, y + height);
+        addPaintedBounds(bounds, null);
     }
 
     public void drawShape(Shape shape) {
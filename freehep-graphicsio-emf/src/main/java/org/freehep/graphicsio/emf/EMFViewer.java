@@ -13,8 +13,6 @@ import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.BufferedInputStream;
 
 /**
  * Simple frame to display EMF images.
@@ -111,10 +109,7 @@ public class EMFViewer extends JFrame {
      */
     public void show(File emfFile) {
         try {
-            FileInputStream fis = new FileInputStream(emfFile);
-            EMFInputStream emf = new EMFInputStream(new BufferedInputStream(fis));
-
-            EMFRenderer renderer = new EMFRenderer(emf);
+            EMFRenderer renderer = new EMFRenderer(emfFile);
             emfPanel.setRenderer(renderer);
 
             // set the window title
@@ -109,7 +109,7 @@ public class AlphaBlend extends EMFTag implements EMFConstants {
             tag.width,
             tag.height,
             emf,
-            bitmapSize,
+            bmiSize - BitmapInfoHeader.size + bitmapSize,
             tag.dwROP);
 
         return tag;
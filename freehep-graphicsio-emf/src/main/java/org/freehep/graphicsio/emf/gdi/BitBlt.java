@@ -107,7 +107,7 @@ public class BitBlt extends EMFTag implements EMFConstants {
                 tag.width,
                 tag.height,
                 emf,
-                bitmapSize, null);
+                bmiSize - BitmapInfoHeader.size + bitmapSize, null);
         } else {
             tag.image = null;
         }
@@ -102,6 +102,10 @@ public class BitmapInfoHeader implements EMFConstants {
         return compression;
     }
 
+    public int getSizeImage() {
+        return sizeImage;
+    }
+
     public int getClrUsed() {
         return clrUsed;
     }
@@ -3,6 +3,7 @@ package org.freehep.graphicsio.emf.gdi;
 
 import java.awt.Color;
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.freehep.graphicsio.emf.EMFInputStream;
 import org.freehep.graphicsio.emf.EMFOutputStream;
@@ -70,6 +71,24 @@ public class ExtLogPen extends AbstractPen {
         emf.writeDWORD(style);
     }
 
+    public boolean equals(Object o) {
+        if (!(o instanceof ExtLogPen))
+            return false;
+        ExtLogPen p = (ExtLogPen) o;
+        return (penStyle == p.penStyle) && (width == p.width)
+                && (brushStyle == p.brushStyle) && color.equals(p.color)
+                && (hatch == p.hatch) && Arrays.equals(style, p.style);
+    }
+
+    public int hashCode() {
+        int h = penStyle;
+        h = h * 31 + width;
+        h = h * 31 + brushStyle;
+        h = h * 31 + color.hashCode();
+        h = h * 31 + hatch;
+        return h * 31 + Arrays.hashCode(style);
+    }
+
     public String toString() {
         StringBuffer s = new StringBuffer();
         s.append("  ExtLogPen\n");
@@ -43,6 +43,17 @@ public class LogBrush32 implements EMFConstants, GDIObject {
         emf.writeULONG(hatch);
     }
 
+    public boolean equals(Object o) {
+        if (!(o instanceof LogBrush32))
+            return false;
+        LogBrush32 b = (LogBrush32) o;
+        return (style == b.style) && color.equals(b.color) && (hatch == b.hatch);
+    }
+
+    public int hashCode() {
+        return (style * 31 + color.hashCode()) * 31 + hatch;
+    }
+
     public String toString() {
         return "  LogBrush32\n" + "    style: " + style +
             "\n    color: " + color +
@@ -0,0 +1,166 @@
+package org.freehep.graphicsio.emf.test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.freehep.graphicsio.emf.EMFConstants;
+import org.freehep.graphicsio.emf.EMFImageLoader;
+import org.freehep.graphicsio.emf.EMFInputStream;
+import org.freehep.graphicsio.emf.gdi.BitmapInfoHeader;
+
+/**
+ * Decodes DIBs of every supported kind with EMFImageLoader, and compares the
+ * uncompressed ones to decoding pixel by pixel with setRGB, the way the
+ * former implementation did. Prints the time per image and per pixel.
+ *
+ * Usage: TestImageLoader [size [iterations]]
+ * <p>
+ * for instance <tt>1000 20</tt> for bitmaps of 1000 x 1000 pixels.
+ *
+ * @version $Id$
+ */
+public class TestImageLoader {
+
+    private static final int WARMUP = 3;
+
+    public static void main(String[] args) throws IOException {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+
+        System.out.println("EMFImageLoader, " + size + " x " + size
+                + " pixels, " + iterations + " iterations");
+        int[][] kinds = { { 1, EMFConstants.BI_RGB }, { 4, EMFConstants.BI_RGB },
+                { 8, EMFConstants.BI_RGB }, { 4, EMFConstants.BI_RLE4 },
+                { 8, EMFConstants.BI_RLE8 }, { 16, EMFConstants.BI_RGB },
+                { 24, EMFConstants.BI_RGB }, { 32, EMFConstants.BI_RGB } };
+        for (int k = 0; k < kinds.length; k++) {
+            int bitCount = kinds[k][0];
+            int compression = kinds[k][1];
+            BitmapInfoHeader bmi = new BitmapInfoHeader(size, size, bitCount,
+                    compression, 0, 0, 0, 0, 0);
+            byte[] dib = createDIB(size, bitCount, compression);
+
+            for (int i = 0; i < WARMUP; i++) {
+                load(bmi, size, dib);
+                if (isFormer(bitCount, compression)) {
+                    loadFormer(bmi, size, dib);
+                }
+            }
+            long t0 = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                load(bmi, size, dib);
+            }
+            long t1 = System.nanoTime();
+            String name = bitCount + " bit"
+                    + ((compression == EMFConstants.BI_RGB) ? "" : " RLE");
+            print(name, "bulk", t1 - t0, iterations, size);
+
+            if (isFormer(bitCount, compression)) {
+                t0 = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    loadFormer(bmi, size, dib);
+                }
+                t1 = System.nanoTime();
+                print(name, "setRGB", t1 - t0, iterations, size);
+            }
+        }
+    }
+
+    private static void print(String name, String label, long nanos,
+            int iterations, int size) {
+        double perIteration = nanos / (double) iterations;
+        System.out.println("    " + name + ", " + label + ": "
+                + (long) (perIteration / 1000) + " us/image, "
+                + (float) (perIteration / size / size) + " ns/pixel");
+    }
+
+    /**
+     * Creates the color table and bits of a bitmap with random pixels, in
+     * runs of random length for the compressed ones.
+     */
+    private static byte[] createDIB(int size, int bitCount, int compression) {
+        Random random = new Random(1);
+        int colors = (bitCount <= 8) ? 1 << bitCount : 0;
+        int stride = ((size * bitCount + 31) / 32) * 4;
+        byte[] dib = new byte[4 * colors + 4 * size * size + stride * size];
+        random.nextBytes(dib);
+        if (compression == EMFConstants.BI_RGB) {
+            byte[] result = new byte[4 * colors + stride * size];
+            System.arraycopy(dib, 0, result, 0, result.length);
+            return result;
+        }
+
+        int n = 4 * colors;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size;) {
+                int run = Math.min(size - x, 1 + random.nextInt(32));
+                dib[n++] = (byte) run;
+                dib[n++] = (byte) random.nextInt(256);
+                x += run;
+            }
+            // end of line
+            dib[n++] = 0;
+            dib[n++] = 0;
+        }
+        // end of bitmap
+        dib[n++] = 0;
+        dib[n++] = 1;
+        byte[] result = new byte[n];
+        System.arraycopy(dib, 0, result, 0, n);
+        return result;
+    }
+
+    private static BufferedImage load(BitmapInfoHeader bmi, int size,
+            byte[] dib) throws IOException {
+        EMFInputStream emf = new EMFInputStream(new ByteArrayInputStream(dib));
+        return EMFImageLoader.readImage(bmi, size, size, emf, dib.length,
+                null);
+    }
+
+    private static boolean isFormer(int bitCount, int compression) {
+        return (compression == EMFConstants.BI_RGB)
+                && ((bitCount == 8) || (bitCount == 32));
+    }
+
+    /**
+     * The former implementation: reads every pixel separately and sets it
+     * with setRGB.
+     */
+    private static BufferedImage loadFormer(BitmapInfoHeader bmi, int size,
+            byte[] dib) throws IOException {
+        EMFInputStream emf = new EMFInputStream(new ByteArrayInputStream(dib));
+        BufferedImage result = new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_RGB);
+        int[] colorTable = null;
+        if (bmi.getBitCount() == 8) {
+            colorTable = new int[256];
+            for (int i = 0; i < colorTable.length; i++) {
+                int b = emf.readUnsignedByte();
+                int g = emf.readUnsignedByte();
+                int r = emf.readUnsignedByte();
+                emf.readUnsignedByte();
+                colorTable[i] = new Color(r, g, b).getRGB();
+            }
+        }
+        for (int y = size - 1; y >= 0; y--) {
+            for (int x = 0; x < size; x++) {
+                if (colorTable != null) {
+                    result.setRGB(x, y, colorTable[emf.readUnsignedByte()]);
+                } else {
+                    int b = emf.readUnsignedByte();
+                    int g = emf.readUnsignedByte();
+                    int r = emf.readUnsignedByte();
+                    emf.readUnsignedByte();
+                    result.setRGB(x, y, new Color(r, g, b).getRGB());
+                }
+            }
+            if (colorTable != null) {
+                emf.skipBytes(((size + 3) & ~3) - size);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.emf.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.emf.EMFGraphics2D;
+
+/**
+ * Checks that EMFGraphics2D writes the same file in place as through a
+ * stream, where the header is written after the records are buffered.
+ *
+ * @version $Id$
+ */
+public class EMFFileOutputTest extends TestCase {
+
+    private static void draw(EMFGraphics2D g) {
+        g.startExport();
+        for (int i = 0; i < 100; i++) {
+            g.setColor(new Color(2 * i, 255 - 2 * i, 100));
+            g.drawLine(i, 0, 200 - i, 200);
+            g.fillRect(i, i, 3, 3);
+        }
+        g.endExport();
+    }
+
+    private static byte[] read(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = new FileInputStream(file);
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    public void testFile() throws Exception {
+        Dimension size = new Dimension(200, 200);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        draw(new EMFGraphics2D(out, size));
+        byte[] expected = out.toByteArray();
+
+        File file = File.createTempFile("EMFFileOutputTest", ".emf");
+        try {
+            draw(new EMFGraphics2D(file, size));
+            byte[] actual = read(file);
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals("byte " + i, expected[i], actual[i]);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.emf.test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.emf.EMFConstants;
+import org.freehep.graphicsio.emf.EMFImageLoader;
+import org.freehep.graphicsio.emf.EMFInputStream;
+import org.freehep.graphicsio.emf.gdi.BitmapInfoHeader;
+import org.freehep.graphicsio.emf.gdi.BlendFunction;
+
+/**
+ * Checks the pixels decoded by EMFImageLoader for each kind of DIB.
+ *
+ * @version $Id$
+ */
+public class EMFImageLoaderTest extends TestCase {
+
+    private static final int BLACK = 0xFF000000;
+
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private static final int RED = 0xFFFF0000;
+
+    private static final int GREEN = 0xFF00FF00;
+
+    private static final int BLUE = 0xFF0000FF;
+
+    /**
+     * color table of black, white, red, green and blue
+     */
+    private static final int[] TABLE = {
+        0, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0, 0, 0, 0xFF, 0, 0, 0xFF, 0, 0,
+        0xFF, 0, 0, 0 };
+
+    private static BufferedImage read(int width, int height, int bitCount,
+            int compression, int clrUsed, int[] data, BlendFunction blend)
+            throws IOException {
+        byte[] bytes = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            bytes[i] = (byte) data[i];
+        }
+        BitmapInfoHeader bmi = new BitmapInfoHeader(width, height, bitCount,
+                compression, 0, 0, 0, clrUsed, 0);
+        EMFInputStream emf = new EMFInputStream(new ByteArrayInputStream(
+                bytes));
+        return EMFImageLoader.readImage(bmi, width, Math.abs(height), emf,
+                bytes.length, blend);
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static void assertPixels(int[][] expected, BufferedImage image) {
+        assertEquals(expected.length, image.getHeight());
+        for (int y = 0; y < expected.length; y++) {
+            assertEquals(expected[y].length, image.getWidth());
+            for (int x = 0; x < expected[y].length; x++) {
+                assertEquals("pixel " + x + "," + y, Integer
+                        .toHexString(expected[y][x]), Integer
+                        .toHexString(image.getRGB(x, y)));
+            }
+        }
+    }
+
+    public void test1Bit() throws Exception {
+        // bottom-up, one byte and three bytes of padding per row
+        BufferedImage image = read(3, 2, 1, EMFConstants.BI_RGB, 2, concat(
+                new int[] { 0, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0 }, new int[] {
+                        0xA0, 0, 0, 0, 0x60, 0, 0, 0 }), null);
+        assertPixels(new int[][] { { BLACK, WHITE, WHITE },
+                { WHITE, BLACK, WHITE } }, image);
+    }
+
+    public void test4Bit() throws Exception {
+        BufferedImage image = read(3, 1, 4, EMFConstants.BI_RGB, 5, concat(
+                TABLE, new int[] { 0x23, 0x40, 0, 0 }), null);
+        assertPixels(new int[][] { { RED, GREEN, BLUE } }, image);
+    }
+
+    public void test8BitTopDown() throws Exception {
+        BufferedImage image = read(2, -2, 8, EMFConstants.BI_RGB, 5, concat(
+                TABLE, new int[] { 1, 2, 0, 0, 3, 4, 0, 0 }), null);
+        assertPixels(new int[][] { { WHITE, RED }, { GREEN, BLUE } }, image);
+    }
+
+    public void testRLE8() throws Exception {
+        // a run of three reds, two absolute pixels, end of line; a delta
+        // of one to the right, a run of two whites, end of bitmap
+        BufferedImage image = read(5, 2, 8, EMFConstants.BI_RLE8, 5, concat(
+                TABLE, new int[] { 3, 2, 0, 3, 3, 4, 1, 0, 0, 0, 0, 2, 1,
+                        0, 2, 1, 0, 1 }), null);
+        assertPixels(new int[][] { { BLACK, WHITE, WHITE, BLACK, BLACK },
+                { RED, RED, RED, GREEN, BLUE } }, image);
+    }
+
+    public void testRLE4() throws Exception {
+        // a run alternating between red and green, three absolute
+        // pixels, end of bitmap
+        BufferedImage image = read(7, 1, 4, EMFConstants.BI_RLE4, 5, concat(
+                TABLE, new int[] { 4, 0x23, 0, 3, 0x41, 0x20, 0, 1 }), null);
+        assertPixels(new int[][] { { RED, GREEN, RED, GREEN, BLUE, WHITE,
+                RED } }, image);
+    }
+
+    public void test16Bit() throws Exception {
+        // 5-5-5, two pixels and a padding of two bytes
+        BufferedImage image = read(3, 1, 16, EMFConstants.BI_RGB, 0,
+                new int[] { 0x00, 0x7C, 0xE0, 0x03, 0x1F, 0x00, 0, 0 },
+                null);
+        assertPixels(new int[][] { { RED, GREEN, BLUE } }, image);
+    }
+
+    public void test16BitFields() throws Exception {
+        // 5-6-5
+        BufferedImage image = read(2, 1, 16, EMFConstants.BI_BITFIELDS, 0,
+                new int[] { 0x00, 0xF8, 0, 0, 0xE0, 0x07, 0, 0, 0x1F, 0, 0,
+                        0, 0x00, 0xF8, 0xE0, 0x07 }, null);
+        assertPixels(new int[][] { { RED, GREEN } }, image);
+    }
+
+    public void test24Bit() throws Exception {
+        // bottom-up, three bytes of padding per row
+        BufferedImage image = read(3, 2, 24, EMFConstants.BI_RGB, 0,
+                new int[] { 0xFF, 0, 0, 0, 0xFF, 0, 0, 0, 0xFF, 0, 0, 0, 0,
+                        0, 0, 0xFF, 0xFF, 0xFF, 0x20, 0x40, 0x60, 0, 0, 0 },
+                null);
+        assertPixels(new int[][] { { BLACK, WHITE, 0xFF604020 },
+                { BLUE, GREEN, RED } }, image);
+    }
+
+    public void test32Bit() throws Exception {
+        // the high byte is ignored
+        BufferedImage image = read(2, 1, 32, EMFConstants.BI_RGB, 0,
+                new int[] { 0, 0, 0xFF, 0x12, 0x20, 0x40, 0x60, 0x80 }, null);
+        assertPixels(new int[][] { { RED, 0xFF604020 } }, image);
+    }
+
+    public void test32BitAlpha() throws Exception {
+        // premultiplied pixels, half transparent red and opaque blue
+        BlendFunction blend = new BlendFunction(EMFConstants.AC_SRC_OVER, 0,
+                0xFF, EMFConstants.AC_SRC_ALPHA);
+        BufferedImage image = read(2, 1, 32, EMFConstants.BI_RGB, 0,
+                new int[] { 0, 0, 0x80, 0x80, 0xFF, 0, 0, 0xFF }, blend);
+        assertEquals(BufferedImage.TYPE_INT_ARGB_PRE, image.getType());
+        assertPixels(new int[][] { { 0x80FF0000, BLUE } }, image);
+    }
+
+    public void test32BitConstantAlpha() throws Exception {
+        BlendFunction blend = new BlendFunction(EMFConstants.AC_SRC_OVER, 0,
+                0x40, 0);
+        BufferedImage image = read(1, 1, 32, EMFConstants.BI_RGB, 0,
+                new int[] { 0, 0xFF, 0, 0 }, blend);
+        assertPixels(new int[][] { { 0x4000FF00 } }, image);
+    }
+
+    public void testUnsupported() throws Exception {
+        assertNull(read(1, 1, 24, EMFConstants.BI_JPEG, 0, new int[] { 0xFF,
+                0xD8, 0, 0 }, null));
+    }
+}
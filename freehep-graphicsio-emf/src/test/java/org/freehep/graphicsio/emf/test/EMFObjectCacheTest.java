@@ -0,0 +1,103 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.emf.test;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.emf.EMFGraphics2D;
+import org.freehep.graphicsio.emf.EMFHandleManager;
+import org.freehep.graphicsio.emf.EMFInputStream;
+import org.freehep.util.io.Tag;
+
+/**
+ * Checks that EMFGraphics2D creates each pen and brush once, as long as the
+ * handle budget allows it.
+ *
+ * @version $Id$
+ */
+public class EMFObjectCacheTest extends TestCase {
+
+    private static final int SERIES = 3;
+
+    private static final int POINTS = 100;
+
+    /**
+     * Writes a plot alternating between a few series colours, and counts the
+     * records by name.
+     */
+    private static Map<String, Integer> write(int handleBudget)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EMFGraphics2D g = new EMFGraphics2D(out, new Dimension(200, 200));
+        Properties properties = new Properties();
+        properties.setProperty(EMFGraphics2D.HANDLE_BUDGET, Integer
+                .toString(handleBudget));
+        g.setProperties(properties);
+        g.startExport();
+        Color[] colors = { Color.RED, Color.GREEN, Color.BLUE };
+        for (int i = 0; i < POINTS; i++) {
+            for (int j = 0; j < SERIES; j++) {
+                g.setColor(colors[j]);
+                g.drawLine(i, 10 * j, i + 1, 10 * j + 5);
+                g.fillRect(i, 100 + 10 * j, 2, 2);
+            }
+            if (i % 10 == 0) {
+                Graphics2D child = (Graphics2D) g.create();
+                child.setColor(Color.ORANGE);
+                child.setStroke(new BasicStroke(3));
+                child.drawLine(i, 150, i + 5, 190);
+                child.dispose();
+            }
+        }
+        g.endExport();
+
+        Map<String, Integer> count = new HashMap<String, Integer>();
+        EMFInputStream in = new EMFInputStream(new ByteArrayInputStream(out
+                .toByteArray()));
+        in.readHeader();
+        for (Tag tag = in.readTag(); tag != null; tag = in.readTag()) {
+            Integer n = count.get(tag.getName());
+            count.put(tag.getName(), new Integer((n == null) ? 1 : n
+                    .intValue() + 1));
+        }
+        in.close();
+        return count;
+    }
+
+    private static int count(Map<String, Integer> count, String name) {
+        Integer n = count.get(name);
+        return (n == null) ? 0 : n.intValue();
+    }
+
+    public void testCache() throws Exception {
+        Map<String, Integer> count = write(EMFHandleManager.DEFAULT_HANDLE_BUDGET);
+        // one pen per series and one for the child contexts
+        assertEquals(SERIES + 1, count(count, "ExtCreatePen"));
+        assertEquals(SERIES, count(count, "CreateBrushIndirect"));
+        // switching back to a series only selects its objects
+        assertTrue(count(count, "SelectObject") >= 2 * SERIES * POINTS);
+        // the remaining objects are deleted at the end
+        assertEquals(count(count, "ExtCreatePen")
+                + count(count, "CreateBrushIndirect"), count(count,
+                "DeleteObject"));
+    }
+
+    public void testBudget() throws Exception {
+        Map<String, Integer> count = write(2);
+        // every change needs a new object, as before the cache
+        assertEquals(SERIES * POINTS + POINTS / 10, count(count,
+                "ExtCreatePen"));
+        assertEquals(count(count, "ExtCreatePen")
+                + count(count, "CreateBrushIndirect"), count(count,
+                "DeleteObject"));
+    }
+}
@@ -0,0 +1,139 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.emf.test;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.emf.EMFInputStream;
+import org.freehep.graphicsio.emf.EMFRenderer;
+
+/**
+ * Checks that the renderer created from a file, and the renderer replaying
+ * only the records in the clip, paint the same as the one created from a
+ * stream.
+ *
+ * @version $Id$
+ */
+public class EMFRendererTest extends TestCase {
+
+    private File file;
+
+    /**
+     * Copies the reference file, which contains bitmaps, to a temporary
+     * file.
+     */
+    protected void setUp() throws Exception {
+        file = copy("/emf/TestImages.emf.gz");
+    }
+
+    private File copy(String resource) throws IOException {
+        File file = File.createTempFile("EMFRendererTest", ".emf");
+        InputStream in = getClass().getResourceAsStream(resource);
+        if (resource.endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        OutputStream out = new FileOutputStream(file);
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        out.close();
+        in.close();
+        return file;
+    }
+
+    protected void tearDown() {
+        file.delete();
+    }
+
+    private static BufferedImage paint(EMFRenderer renderer) {
+        return paint(renderer, null);
+    }
+
+    private static BufferedImage paint(EMFRenderer renderer, Rectangle clip) {
+        BufferedImage image = new BufferedImage(600, 600,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        if (clip != null) {
+            g.clip(clip);
+        }
+        renderer.paint(g);
+        g.dispose();
+        return image;
+    }
+
+    private static void assertSameImage(BufferedImage expected,
+            BufferedImage actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel " + x + "," + y, expected.getRGB(x, y),
+                        actual.getRGB(x, y));
+            }
+        }
+    }
+
+    private EMFRenderer read() throws IOException {
+        return new EMFRenderer(new EMFInputStream(new FileInputStream(file)));
+    }
+
+    public void testRecords() throws Exception {
+        EMFRenderer expected = read();
+        EMFRenderer actual = new EMFRenderer(file);
+        assertTrue(expected.getRecordCount() > 0);
+        assertEquals(expected.getRecordCount(), actual.getRecordCount());
+        assertEquals(expected.getSize(), actual.getSize());
+    }
+
+    public void testPaint() throws Exception {
+        BufferedImage expected = paint(read());
+        EMFRenderer renderer = new EMFRenderer(file);
+        assertSameImage(expected, paint(renderer));
+        // again, with the bitmaps from the cache
+        assertSameImage(expected, paint(renderer));
+    }
+
+    public void testNoBitmapCache() throws Exception {
+        EMFRenderer renderer = new EMFRenderer(file);
+        renderer.setBitmapCacheSize(0);
+        assertSameImage(paint(read()), paint(renderer));
+    }
+
+    public void testClip() throws Exception {
+        String[] resources = { "/emf/TestShapes.emf", "/emf/TestLabels.emf",
+                "/emf/TestClip.emf", "/emf/TestImages.emf.gz" };
+        Rectangle[] clips = { new Rectangle(0, 0, 600, 600),
+                new Rectangle(40, 30, 100, 80),
+                new Rectangle(250, 100, 31, 300) };
+        for (int i = 0; i < resources.length; i++) {
+            File f = copy(resources[i]);
+            try {
+                // the first paint indexes the records
+                EMFRenderer renderer = new EMFRenderer(f);
+                paint(renderer);
+                assertEquals(renderer.getRecordCount(), renderer
+                        .getPaintedRecordCount());
+                for (int j = 0; j < clips.length; j++) {
+                    BufferedImage expected = paint(new EMFRenderer(f),
+                            clips[j]);
+                    assertSameImage(expected, paint(renderer, clips[j]));
+                }
+                // the drawing records outside the last clip are skipped
+                assertTrue(renderer.getPaintedRecordCount() < renderer
+                        .getRecordCount());
+            } finally {
+                f.delete();
+            }
+        }
+    }
+}
@@ -15,19 +15,31 @@
  */
 package org.freehep.graphicsio.pdf;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * Cache of the ExtGState dictionaries of a document. Every distinct alpha is
+ * written once and referred to by name from all pages.
  *
  * @author Alexander Levantovsky, MagicPlot
  */
 public class AlphaQueue
 {
-  private Map<Float, String> extGStates = new HashMap<Float, String>();
+  private Map<Float, String> extGStates = new LinkedHashMap<Float, String>();
+  // alphas used on the current page
+  private Set<Float> pageAlphas = new LinkedHashSet<Float>();
   private int alphaIndex = 1;
+  private int reused;
 
+  /**
+   * @return the name of the ExtGState with the given alpha for both filling
+   *         and stroking
+   */
   public String getAlphaName(float alpha) {
       String alphaName = extGStates.get(alpha);
       if (alphaName == null)
@@ -36,10 +48,76 @@ public class AlphaQueue
         alphaIndex++;
         extGStates.put(alpha, alphaName);
       }
+      else
+      {
+        reused++;
+      }
+      pageAlphas.add(alpha);
       return alphaName;
   }
-  
-  public Set<Float> keySet() {
-    return extGStates.keySet();
+
+  /**
+   * Writes the ExtGState dictionary which should be the value of the
+   * resources dictionary's /ExtGState entry.
+   *
+   * @return number of entries written
+   */
+  public int addExtGStates(PDFWriter pdf) throws IOException {
+    if (extGStates.isEmpty())
+      return 0;
+
+    PDFDictionary dictionary = pdf.openDictionary("ExtGState");
+    for (Iterator<Float> i = extGStates.keySet().iterator(); i.hasNext();) {
+      addExtGState(pdf, dictionary, i.next());
+    }
+    pdf.close(dictionary);
+    return extGStates.size();
+  }
+
+  /**
+   * Writes the ExtGStates used since the last call to <tt>clearPage()</tt>
+   * into the given dictionary, which should be the /ExtGState entry of a
+   * page's resources dictionary.
+   *
+   * @return number of entries written
+   */
+  public int addPageExtGStates(PDFWriter pdf, PDFDictionary dictionary) throws IOException {
+    for (Iterator<Float> i = pageAlphas.iterator(); i.hasNext();) {
+      addExtGState(pdf, dictionary, i.next());
+    }
+    return pageAlphas.size();
+  }
+
+  /** @return true if ExtGStates were used on the current page */
+  public boolean hasPageExtGStates() {
+    return !pageAlphas.isEmpty();
+  }
+
+  /** Starts a new page for <tt>addPageExtGStates()</tt>. */
+  public void clearPage() {
+    pageAlphas.clear();
+  }
+
+  private void addExtGState(PDFWriter pdf, PDFDictionary dictionary, Float alpha) throws IOException {
+    PDFDictionary alphaDictionary = dictionary.openDictionary(extGStates.get(alpha));
+    alphaDictionary.entry("ca", alpha.floatValue());
+    alphaDictionary.entry("CA", alpha.floatValue());
+    alphaDictionary.entry("BM", pdf.name("Normal"));
+    alphaDictionary.entry("AIS", false);
+    dictionary.close(alphaDictionary);
+  }
+
+  /**
+   * @return number of distinct ExtGStates
+   */
+  public int size() {
+    return extGStates.size();
+  }
+
+  /**
+   * @return number of requests which were answered with an existing ExtGState
+   */
+  public int getReusedCount() {
+    return reused;
   }
 }
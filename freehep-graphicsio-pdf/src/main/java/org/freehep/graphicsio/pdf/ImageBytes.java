@@ -2,18 +2,21 @@
 package org.freehep.graphicsio.pdf;
 
 import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.ImageEncoderPool;
 import org.freehep.graphicsio.ImageGraphics2D;
 
 import java.awt.image.RenderedImage;
 import java.awt.Color;
 import java.io.IOException;
+import java.util.concurrent.Future;
 
 /**
  * PDF writes images as ZLIB or JPEG. This class converts an image to a
  * byte[]. If neither {@link ImageConstants#ZLIB} nor
  * {@link ImageConstants#JPEG} is passed the smallest size is stored
  * for {@link #getBytes()}. The method {@link #getFormat()} returns the
- * used format.
+ * used format. The encoding runs in an {@link ImageEncoderPool}, and may
+ * still be running until one of these methods is called.
  *
  * @author Steffen Greiffenberg
  * @version $Revision$
@@ -30,6 +33,16 @@ class ImageBytes {
      */
     private byte[] bytes;
 
+    /**
+     * Write bytes without ASCII85 encoding
+     */
+    private boolean binary;
+
+    /**
+     * Pending encodings, null if not needed or already taken
+     */
+    private Future<byte[]> zlibBytes, jpgBytes;
+
     /**
      * Encodes the passed image
      *
@@ -40,76 +53,123 @@ class ImageBytes {
      * @throws IOException thrown by {@link org.freehep.graphicsio.ImageGraphics2D#toByteArray(java.awt.image.RenderedImage, String, String, java.util.Properties)}
      */
     public ImageBytes(RenderedImage image, Color bkg, String format, String colorModel) throws IOException {
+        this(image, bkg, format, colorModel, false, new ImageEncoderPool(null));
+    }
+
+    /**
+     * Starts encoding the passed image, the encoding is finished by
+     * {@link #getBytes()} or {@link #getFormat()}.
+     *
+     * @param image image to convert
+     * @param bkg background color
+     * @param format format could be {@link ImageConstants#ZLIB} or {@link ImageConstants#JPEG}
+     * @param colorModel e.g. {@link org.freehep.graphicsio.ImageConstants#COLOR_MODEL_RGB}
+     * @param binary if true the bytes are not ASCII85 encoded
+     * @param pool pool to run the encoding(s) in
+     */
+    public ImageBytes(RenderedImage image, Color bkg, String format, String colorModel, boolean binary, ImageEncoderPool pool) {
+        this.binary = binary;
 
         // ZLIB encoding, transparent images allways require ZLIB
         if (ImageConstants.ZLIB.equals(format) || (image.getColorModel().hasAlpha() && (bkg == null))) {
-            bytes = toZLIB(image, bkg, colorModel);
-            this.format = ImageConstants.ZLIB;
+            zlibBytes = toZLIB(pool, image, bkg, colorModel);
         }
 
         // JPG encoding
         else  if (ImageConstants.JPEG.equals(format)) {
-            bytes = toJPG(image);
-            this.format = ImageConstants.JPG;
+            jpgBytes = toJPG(pool, image);
         } else {
-            // calculate both byte arrays
-            byte[] jpgBytes = toJPG(image);
-            byte[] zlibBytes = toZLIB(image, bkg, colorModel);
+            // calculate both byte arrays, concurrently if the pool allows
+            jpgBytes = toJPG(pool, image);
+            zlibBytes = toZLIB(pool, image, bkg, colorModel);
+        }
+    }
+
+    /**
+     * Waits for the encoding(s) and picks the format.
+     */
+    private void finish() throws IOException {
+        if (bytes != null) {
+            return;
+        }
+
+        if (jpgBytes == null) {
+            bytes = ImageEncoderPool.get(zlibBytes);
+            format = ImageConstants.ZLIB;
+        } else if (zlibBytes == null) {
+            bytes = ImageEncoderPool.get(jpgBytes);
+            format = ImageConstants.JPG;
+        } else {
+            byte[] jpg = ImageEncoderPool.get(jpgBytes);
+            byte[] zlib = ImageEncoderPool.get(zlibBytes);
 
             // compare sizes to determine smalles format
-            if (jpgBytes.length < 0.5 * zlibBytes.length) {
-                bytes = jpgBytes;
-                this.format = ImageConstants.JPG;
+            if (jpg.length < 0.5 * zlib.length) {
+                bytes = jpg;
+                format = ImageConstants.JPG;
             } else {
-                bytes = zlibBytes;
-                this.format = ImageConstants.ZLIB;
+                bytes = zlib;
+                format = ImageConstants.ZLIB;
             }
         }
+        jpgBytes = null;
+        zlibBytes = null;
     }
 
     /**
      * Creates the ZLIB Bytes for PDF images
      *
+     * @param pool pool to run the encoding in
      * @param image image to convert
      * @param bkg background color
      * @param colorModel e.g. {@link org.freehep.graphicsio.ImageConstants#COLOR_MODEL_RGB}
      * @return bytes
-     * @throws IOException thrown by {@link org.freehep.graphicsio.ImageGraphics2D#toByteArray(java.awt.image.RenderedImage, String, String, java.util.Properties)}
      */
-    private byte[] toZLIB(RenderedImage image, Color bkg, String colorModel) throws IOException {
-        return ImageGraphics2D.toByteArray(
+    private Future<byte[]> toZLIB(ImageEncoderPool pool, RenderedImage image, Color bkg, String colorModel) {
+        return pool.toByteArray(
             image,
             ImageConstants.RAW,
-            ImageConstants.ENCODING_FLATE_ASCII85,
+            binary ? ImageConstants.ENCODING_FLATE : ImageConstants.ENCODING_FLATE_ASCII85,
             ImageGraphics2D.getRAWProperties(bkg, colorModel));
     }
 
     /**
      * Creates the JPG bytes for PDF images
      *
+     * @param pool pool to run the encoding in
      * @param image image to convert
      * @return bytes
-     * @throws IOException thrown by {@link org.freehep.graphicsio.ImageGraphics2D#toByteArray(java.awt.image.RenderedImage, String, String, java.util.Properties)}
      */
-    private byte[] toJPG(RenderedImage image) throws IOException {
-        return ImageGraphics2D.toByteArray(
+    private Future<byte[]> toJPG(ImageEncoderPool pool, RenderedImage image) {
+        return pool.toByteArray(
             image,
             ImageConstants.JPG,
-            ImageConstants.ENCODING_ASCII85,
+            binary ? null : ImageConstants.ENCODING_ASCII85,
             null);
     }
 
     /**
      * @return bytes
+     * @throws IOException thrown by {@link org.freehep.graphicsio.ImageGraphics2D#toByteArray(java.awt.image.RenderedImage, String, String, java.util.Properties)}
      */
-    public byte[] getBytes() {
+    public byte[] getBytes() throws IOException {
+        finish();
         return bytes;
     }
 
+    /**
+     * @return true if the bytes are not ASCII85 encoded
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
     /**
      * @return used encoding format
+     * @throws IOException thrown by {@link org.freehep.graphicsio.ImageGraphics2D#toByteArray(java.awt.image.RenderedImage, String, String, java.util.Properties)}
      */
-    public String getFormat() {
+    public String getFormat() throws IOException {
+        finish();
         return format;
     }
 }
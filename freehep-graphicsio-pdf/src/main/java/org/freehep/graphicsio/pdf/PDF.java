@@ -1,11 +1,15 @@
 // Copyright 2000-2005 FreeHEP
 package org.freehep.graphicsio.pdf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.util.Hashtable;
 import java.util.Vector;
 
+import org.freehep.util.io.FlateOutputStream;
+
 /**
  * Implements the lookup tables.
  * <p>
@@ -21,10 +25,20 @@ public class PDF {
 
     private Vector<PDFRef> refsByNumber = new Vector<PDFRef>(); // of PDFRefs stored by number
 
-    private Vector<Integer> xrefsByNumber = new Vector<Integer>(); // of offsets stored by
-                                                    // refnumber
+    // offsets stored by refnumber, or the index in the object stream for
+    // compressed objects, UNDEFINED for objects not (yet) written
+    private long[] xrefsByNumber = new long[256];
+
+    // object stream numbers stored by refnumber, 0 if the object is not
+    // compressed
+    private int[] objectStreamsByNumber = new int[256];
+
+    private static final long UNDEFINED = -1;
 
-    private int startXref = 0;
+    private long startXref = 0;
+
+    // write image, font and content data without ASCII85 encoding
+    private boolean binary = false;
 
     protected PDFByteWriter out;
 
@@ -32,7 +46,19 @@ public class PDF {
         this.out = out;
         // add dummy element to refsByNumber and xrefsByNumber
         refsByNumber.addElement(new PDFRef("Dummy", 0, 0));
-        xrefsByNumber.addElement(new Integer(999999));
+        xrefsByNumber[0] = 999999;
+    }
+
+    /**
+     * @param binary if true images, masks and embedded fonts are written as
+     *        binary data rather than ASCII85 encoded
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    public boolean isBinary() {
+        return binary;
     }
 
     public PDFName name(String name) {
@@ -48,7 +74,8 @@ public class PDF {
             ref = new PDFRef(name, refNumber, generationNumber);
             refsByName.put(name, ref);
             refsByNumber.add(ref);
-            xrefsByNumber.add(null);
+            ensureXRefCapacity(refNumber + 1);
+            xrefsByNumber[refNumber] = UNDEFINED;
         }
         return ref;
     }
@@ -61,8 +88,40 @@ public class PDF {
         return refs;
     }
 
-    protected void setXRef(int objectNumber, int offset) {
-        xrefsByNumber.set(objectNumber, new Integer(offset));
+    private void ensureXRefCapacity(int size) {
+        if (size > xrefsByNumber.length) {
+            int length = Math.max(size, xrefsByNumber.length * 2);
+            long[] xrefs = new long[length];
+            System.arraycopy(xrefsByNumber, 0, xrefs, 0, xrefsByNumber.length);
+            xrefsByNumber = xrefs;
+            int[] objectStreams = new int[length];
+            System.arraycopy(objectStreamsByNumber, 0, objectStreams, 0,
+                    objectStreamsByNumber.length);
+            objectStreamsByNumber = objectStreams;
+        }
+    }
+
+    /**
+     * @return number of entries in the cross-reference table, including the
+     *         free entry 0.
+     */
+    private int getXRefSize() {
+        return refsByNumber.size();
+    }
+
+    protected void setXRef(int objectNumber, long offset) {
+        xrefsByNumber[objectNumber] = offset;
+        objectStreamsByNumber[objectNumber] = 0;
+    }
+
+    /**
+     * Records that the object is stored in an object stream, at the given
+     * index. Only listed by {@link #xrefStream(String, String, String)}.
+     */
+    protected void setCompressedXRef(int objectNumber, int objectStreamNumber,
+            int index) {
+        xrefsByNumber[objectNumber] = index;
+        objectStreamsByNumber[objectNumber] = objectStreamNumber;
     }
 
     protected void xref() throws IOException {
@@ -71,7 +130,7 @@ public class PDF {
         startXref = out.getCount();
         out.printPlain("xref");
         out.println();
-        out.printPlain(0 + " " + xrefsByNumber.size());
+        out.printPlain(0 + " " + getXRefSize());
         out.println();
 
         // the free list header
@@ -79,10 +138,9 @@ public class PDF {
                 + " f\r\n");
 
         // the used list
-        for (int i = 1; i < xrefsByNumber.size(); i++) {
-            Integer offsetObject = xrefsByNumber.get(i);
-            if (offsetObject != null) {
-                int offset = offsetObject.intValue();
+        for (int i = 1; i < getXRefSize(); i++) {
+            long offset = xrefsByNumber[i];
+            if (offset != UNDEFINED) {
                 out.printPlain(offsetFormat.format(offset) + " "
                         + linkFormat.format(0) + " n\r\n");
             } else {
@@ -95,6 +153,103 @@ public class PDF {
         out.println();
     }
 
+    /**
+     * Writes the cross-reference table and the trailer as one (PDF 1.5)
+     * cross-reference stream, which also lists the objects stored in object
+     * streams. Followed by {@link #startxref()}.
+     */
+    protected void xrefStream(String name, String rootName, String docInfoName)
+            throws IOException {
+        PDFRef ref = ref(name);
+        startXref = out.getCount();
+        setXRef(ref.getObjectNumber(), startXref);
+
+        // width of the second field, large enough for offsets and object
+        // stream numbers, the third holds generations and indices
+        long max = 0;
+        for (int i = 1; i < getXRefSize(); i++) {
+            if (objectStreamsByNumber[i] != 0) {
+                max = Math.max(max, objectStreamsByNumber[i]);
+            } else {
+                max = Math.max(max, xrefsByNumber[i]);
+            }
+        }
+        int[] widths = { 1, 1, 2 };
+        while ((widths[1] < 8) && ((max >>> (8 * widths[1])) != 0)) {
+            widths[1]++;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FlateOutputStream table = new FlateOutputStream(bytes);
+        // the free list header
+        xrefEntry(table, widths, 0, 0, 65535);
+        for (int i = 1; i < getXRefSize(); i++) {
+            long offset = xrefsByNumber[i];
+            if (offset == UNDEFINED) {
+                PDFRef undefined = refsByNumber.get(i);
+                System.err.println("PDFWriter: PDFRef '" + undefined.getName()
+                        + "' is used but not defined.");
+                xrefEntry(table, widths, 0, 0, 0);
+            } else if (objectStreamsByNumber[i] != 0) {
+                xrefEntry(table, widths, 2, objectStreamsByNumber[i],
+                        (int) offset);
+            } else {
+                xrefEntry(table, widths, 1, offset, 0);
+            }
+        }
+        table.finish();
+
+        PDFDictionary dictionary = openEncodedStream(ref);
+        dictionary.entry("Type", name("XRef"));
+        dictionary.entry("Size", getXRefSize());
+        dictionary.entry("Root", ref(rootName));
+        if (docInfoName != null)
+            dictionary.entry("Info", ref(docInfoName));
+        dictionary.entry("W", widths);
+        dictionary.entry("Filter", name("FlateDecode"));
+        closeEncodedStream(dictionary, bytes.toByteArray());
+    }
+
+    private static void xrefEntry(OutputStream table, int[] widths, int type,
+            long field2, int field3) throws IOException {
+        table.write(type);
+        for (int i = widths[1] - 1; i >= 0; i--) {
+            table.write((int) (field2 >>> (8 * i)));
+        }
+        table.write(field3 >>> 8);
+        table.write(field3);
+    }
+
+    /**
+     * Starts an indirect stream object of which the data is known, and
+     * returns its dictionary, to be finished by
+     * {@link #closeEncodedStream(PDFDictionary, byte[])}.
+     */
+    PDFDictionary openEncodedStream(PDFRef ref) throws IOException {
+        setXRef(ref.getObjectNumber(), out.getCount());
+        out.println(ref.getObjectNumber() + " " + ref.getGenerationNumber()
+                + " obj");
+        out.indent();
+        return new PDFDictionary(this, out);
+    }
+
+    /**
+     * Adds the length, closes the dictionary and writes the data and the end
+     * of the stream object.
+     */
+    void closeEncodedStream(PDFDictionary dictionary, byte[] data)
+            throws IOException {
+        dictionary.entry("Length", data.length);
+        dictionary.close();
+        out.printPlain("stream\n");
+        out.write(data);
+        out.printPlain("\nendstream");
+        out.println();
+        out.outdent();
+        out.println("endobj");
+        out.println();
+    }
+
     protected void trailer(String rootName, String docInfoName)
             throws IOException {
         out.println("trailer");
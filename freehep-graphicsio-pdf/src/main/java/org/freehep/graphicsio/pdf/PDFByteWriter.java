@@ -1,31 +1,56 @@
 package org.freehep.graphicsio.pdf;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
-import org.freehep.util.io.CountedByteOutputStream;
-
 /**
  * Implements the real writer for the PDFWriter. This class does byte-counting
  * to eventually build the cross-reference table, block length counting for the
- * length of streams, and platform dependent end-of-line characters.
+ * length of streams, and platform dependent end-of-line characters. The byte
+ * count is a long, so files can be larger than 2 GB.
  * <p>
  * 
  * @author Mark Donszelmann
  * @version $Id: freehep-graphicsio-pdf/src/main/java/org/freehep/graphicsio/pdf/PDFByteWriter.java f493ff6e61b2 2005/12/01 18:46:43 duns $
  */
-public class PDFByteWriter extends CountedByteOutputStream implements
+public class PDFByteWriter extends FilterOutputStream implements
         PDFConstants {
 
+    private long count;
+
     private int indent;
 
     private String indentString = "   ";
 
     PDFByteWriter(OutputStream out) {
         super(out);
+        count = 0;
         indent = 0;
     }
 
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    public void write(byte[] b) throws IOException {
+        out.write(b);
+        count += b.length;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    /**
+     * @return number of bytes written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
     public void write(String s) throws IOException {
         write(s.getBytes("ISO-8859-1"));
     }
@@ -79,6 +104,19 @@ public class PDFByteWriter extends CountedByteOutputStream implements
         printPlain(Integer.toString(number));
     }
 
+    public void print(long number) throws IOException {
+        print(Long.toString(number));
+    }
+
+    public void println(long number) throws IOException {
+        print(number);
+        println();
+    }
+
+    public void printPlain(long number) throws IOException {
+        printPlain(Long.toString(number));
+    }
+
     public void print(double number) throws IOException {
         print(Double.toString(number));
     }
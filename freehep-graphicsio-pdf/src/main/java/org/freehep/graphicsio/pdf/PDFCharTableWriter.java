@@ -8,11 +8,10 @@ import org.freehep.graphicsio.font.FontEmbedder;
 
 public class PDFCharTableWriter implements PDFRedundanceTracker.Writer {
 
-    private static PDFCharTableWriter ctw;
+    // stateless, may be shared by all documents
+    private static final PDFCharTableWriter ctw = new PDFCharTableWriter();
 
     public static PDFCharTableWriter getInstance() {
-        if (ctw == null)
-            ctw = new PDFCharTableWriter();
         return ctw;
     }
 
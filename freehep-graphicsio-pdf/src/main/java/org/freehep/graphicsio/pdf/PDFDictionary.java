@@ -30,8 +30,16 @@ public class PDFDictionary implements PDFConstants {
     PDFDictionary(PDF pdf, PDFByteWriter writer, PDFObject parent)
             throws IOException {
         this.pdf = pdf;
-        object = parent;
         out = writer;
+        open(parent);
+    }
+
+    /**
+     * Starts the dictionary as (part of) the given parent object. Used by the
+     * constructor and to continue a stream in a new object.
+     */
+    void open(PDFObject parent) throws IOException {
+        object = parent;
         out.println("<< ");
         out.indent();
         ok = true;
@@ -66,6 +74,12 @@ public class PDFDictionary implements PDFConstants {
         out.println("/" + key + " " + number);
     }
 
+    public void entry(String key, long number) throws IOException {
+        if (!ok)
+            System.err.println("PDFWriter error: 'PDFDictionary' was closed");
+        out.println("/" + key + " " + number);
+    }
+
     public void entry(String key, double number) throws IOException {
         if (!ok)
             System.err.println("PDFWriter error: 'PDFDictionary' was closed");
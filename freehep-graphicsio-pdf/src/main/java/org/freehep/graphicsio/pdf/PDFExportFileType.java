@@ -73,6 +73,10 @@ public class PDFExportFileType extends AbstractExportFileType {
 
 		format.add(TableLayout.FULL, new OptionCheckBox(options,
 				PDFGraphics2D.COMPRESS, "Compress"));
+		format.add(TableLayout.FULL, new OptionCheckBox(options,
+				PDFGraphics2D.OBJECT_STREAMS, "Compress Objects (PDF 1.5)"));
+		format.add(TableLayout.FULL, new OptionCheckBox(options,
+				PDFGraphics2D.BINARY, "Binary"));
 
 		JPanel preview = new OptionPanel("Preview");
 
@@ -91,6 +91,15 @@ public abstract class PDFFontEmbedder extends FontEmbedder {
     protected void closeEmbedFont() {
     }
     
+    /**
+     * Returns the filters for glyph and font program streams, which are
+     * ASCII85 encoded unless the writer writes binary data.
+     */
+    static String[] getFontFilters(PDFWriter pdf) {
+        return pdf.isBinary() ? new String[] { "Flate" } : new String[] {
+                "Flate", "ASCII85" };
+    }
+
     public static void writeToUnicode(PDFWriter pdf, String ref, CharTable charTable) throws IOException {
         PDFStream toUnicode = pdf.openStream(ref);
         
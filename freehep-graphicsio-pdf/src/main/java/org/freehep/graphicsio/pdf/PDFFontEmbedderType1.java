@@ -29,27 +29,39 @@ public class PDFFontEmbedderType1 extends FontEmbedderType1 {
 
     private PDFRedundanceTracker redundanceTracker;
 
+    private int number;
+
     public static PDFFontEmbedderType1 create(FontRenderContext context,
             PDFWriter pdf, String reference, PDFRedundanceTracker tracker) {
+        return create(context, pdf, reference, tracker, 0);
+    }
+
+    /**
+     * @param number sequence number of the embedded font within the
+     *        document, used to make up a unique subset name
+     */
+    public static PDFFontEmbedderType1 create(FontRenderContext context,
+            PDFWriter pdf, String reference, PDFRedundanceTracker tracker,
+            int number) {
         return new PDFFontEmbedderType1(context, pdf, reference,
-                new ByteArrayOutputStream(), tracker);
+                new ByteArrayOutputStream(), tracker, number);
     }
 
     private PDFFontEmbedderType1(FontRenderContext context, PDFWriter pdf,
             String reference, ByteArrayOutputStream byteOut,
-            PDFRedundanceTracker tracker) {
+            PDFRedundanceTracker tracker, int number) {
         super(context, byteOut, false);
         this.byteBuffer = byteOut;
         this.pdf = pdf;
         this.reference = reference;
         this.redundanceTracker = tracker;
+        this.number = number;
     }
 
     private String getReference() {
         return reference;
     }
     
-    private static int number = 0;
     private String getTwoLetters(int number) {
         int a = number / 25;
         int b = number - (a * 25);
@@ -66,7 +78,7 @@ public class PDFFontEmbedderType1 extends FontEmbedderType1 {
     protected void openIncludeFont() throws IOException {
         super.openIncludeFont();
         String fontSubsetName = (getEncodingTable() instanceof  CustomCharTable ? "CUST" : "LATI") 
-                + getTwoLetters(number++) + "+" + getFontPSName();
+                + getTwoLetters(number) + "+" + getFontPSName();
         
         PDFDictionary fontDict = pdf.openDictionary(reference);
 
@@ -132,8 +144,8 @@ public class PDFFontEmbedderType1 extends FontEmbedderType1 {
     protected void closeEmbedFont() throws IOException {
         super.closeEmbedFont();
 
-        fontFile = pdf.openStream(getReference() + "FontFile", new String[] {
-                "Flate", "ASCII85" });
+        fontFile = pdf.openStream(getReference() + "FontFile",
+                PDFFontEmbedder.getFontFilters(pdf));
         fontFile.entry("Length1", getAsciiLength());
         fontFile.entry("Length2", getEncryptedLength());
         fontFile.entry("Length3", 0); // leave it to the viewer application to
@@ -71,8 +71,7 @@ public class PDFFontEmbedderType3 extends PDFFontEmbedder {
         double sidebearing = 0; // glyphMetrics != null ? glyphMetrics.getLSB() : 0;
       
         PDFStream glyphStream = pdf.openStream(
-                createCharacterReference(characterName), new String[] {
-                        "Flate", "ASCII85" });
+                createCharacterReference(characterName), PDFFontEmbedder.getFontFilters(pdf));
 
         Rectangle2D bounds = glyphMetrics != null ? glyphMetrics.getBounds2D()
                 : glyph.getBounds2D();
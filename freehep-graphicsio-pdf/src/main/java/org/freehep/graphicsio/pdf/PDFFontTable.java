@@ -6,7 +6,9 @@ import java.awt.font.FontRenderContext;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Properties;
+import java.util.Set;
 
 import org.freehep.graphics2d.font.CharTable;
 import org.freehep.graphics2d.font.CustomCharTable;
@@ -29,6 +31,11 @@ public class PDFFontTable extends FontTable {
 
     private PDFRedundanceTracker tracker;
 
+    private int type1Count = 0;
+
+    // the fonts used since the last clearPage()
+    private Set<Entry> pageSet = new LinkedHashSet<Entry>();
+
     public PDFFontTable(PDFWriter pdf) {
         super();
         this.pdf = pdf;
@@ -40,15 +47,48 @@ public class PDFFontTable extends FontTable {
         Collection<?> fonts = getEntries();
         if (fonts.size() > 0) {
             PDFDictionary fontList = pdf.openDictionary("FontList");
-            for (Iterator<?> i = fonts.iterator(); i.hasNext();) {
-                Entry e = (Entry) i.next();
-                fontList.entry(e.getReference(), pdf.ref(e.getReference()));
-            }
+            addFonts(fontList, fonts);
             pdf.close(fontList);
         }
         return fonts.size();
     }
 
+    /** Adds the given fonts to the dictionary. */
+    private void addFonts(PDFDictionary fontList, Collection<?> fonts)
+            throws IOException {
+        for (Iterator<?> i = fonts.iterator(); i.hasNext();) {
+            Entry e = (Entry) i.next();
+            fontList.entry(e.getReference(), pdf.ref(e.getReference()));
+        }
+    }
+
+    /**
+     * Adds the fonts used since the last call to <tt>clearPage()</tt> to the
+     * given dictionary. The fonts themselves are shared by all pages.
+     */
+    public int addPageFonts(PDFDictionary fontList) throws IOException {
+        addFonts(fontList, pageSet);
+        return pageSet.size();
+    }
+
+    /** @return true if fonts were used on the current page */
+    public boolean hasPageFonts() {
+        return !pageSet.isEmpty();
+    }
+
+    /** Starts a new page for <tt>addPageFonts()</tt>. */
+    public void clearPage() {
+        pageSet.clear();
+    }
+
+    public Entry fontEntry(Font font, boolean customEncoding, boolean embed,
+            boolean embedStandard, String embedAs) {
+        Entry e = super.fontEntry(font, customEncoding, embed, embedStandard,
+                embedAs);
+        pageSet.add(e);
+        return e;
+    }
+
     /** Embeds all not yet embedded fonts to the file. */
     public void embedAll(FontRenderContext context, final boolean embed, 
             boolean embedStandard, String embedAs) throws IOException {
@@ -67,7 +107,7 @@ public class PDFFontTable extends FontTable {
                     if (embedAs.equals(FontConstants.EMBED_FONTS_TYPE3)) {
                         fontIncluder = new PDFFontEmbedderType3(context, pdf, e.getReference(), tracker);
                     } else if (embedAs.equals(FontConstants.EMBED_FONTS_TYPE1)) {
-                        fontIncluder = PDFFontEmbedderType1.create(context, pdf, e.getReference(), tracker);
+                        fontIncluder = PDFFontEmbedderType1.create(context, pdf, e.getReference(), tracker, type1Count++);
                     } else {
                         System.out.println("PDFFontTable: invalid value for embedAs: " + embedAs);
                     }
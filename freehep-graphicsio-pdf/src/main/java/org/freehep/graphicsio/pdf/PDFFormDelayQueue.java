@@ -0,0 +1,155 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf;
+
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delay shapes for writing Form XObjects to the pdf file when the pageStream
+ * is complete. Every form is written once per key and then invoked by
+ * <tt>Do</tt> as often as needed. The forms take color, line width and
+ * transparency from the graphics state in which they are invoked.
+ *
+ * @version $Id$
+ */
+public class PDFFormDelayQueue {
+
+    private class Entry {
+        private Shape shape;
+
+        private boolean fill;
+
+        private Rectangle2D bbox;
+
+        private String name;
+
+        private Entry(Shape shape, boolean fill, Rectangle2D bbox) {
+            this.shape = shape;
+            this.fill = fill;
+            this.bbox = bbox;
+            this.name = "Form" + formMap.size();
+        }
+    }
+
+    private Map<Object, Entry> formMap;
+
+    private List<Entry> formList;
+
+    private List<Entry> pendingList;
+
+    // forms used on the current page
+    private Set<Entry> pageSet;
+
+    private PDFWriter pdf;
+
+    private String[] encode;
+
+    /**
+     * @param encode filters for the form streams, may be null
+     */
+    public PDFFormDelayQueue(PDFWriter pdf, String[] encode) {
+        this.pdf = pdf;
+        this.encode = encode;
+        this.formMap = new HashMap<Object, Entry>();
+        this.formList = new LinkedList<Entry>();
+        this.pendingList = new LinkedList<Entry>();
+        this.pageSet = new LinkedHashSet<Entry>();
+    }
+
+    /**
+     * Returns the name of the form for the given key, which draws the shape
+     * if it is new.
+     *
+     * @param key equal for forms with equal content
+     * @param shape shape of the form
+     * @param fill true to fill the shape, false to stroke it
+     * @param bbox bounds of everything the form paints
+     * @return name of the form
+     */
+    public PDFName delayForm(Object key, Shape shape, boolean fill,
+            Rectangle2D bbox) {
+        Entry entry = formMap.get(key);
+        if (entry == null) {
+            entry = new Entry(shape, fill, bbox);
+            formMap.put(key, entry);
+            formList.add(entry);
+            pendingList.add(entry);
+        }
+        pageSet.add(entry);
+        return pdf.name(entry.name);
+    }
+
+    /** @return true if forms were delayed */
+    public boolean hasXObjects() {
+        return !formList.isEmpty();
+    }
+
+    /** Creates a stream for every delayed form that is not written yet. */
+    public void processAll() throws IOException {
+        for (Iterator<Entry> i = pendingList.iterator(); i.hasNext();) {
+            Entry entry = i.next();
+            PDFStream form = pdf.openStream(entry.name, encode);
+            form.entry("Type", pdf.name("XObject"));
+            form.entry("Subtype", pdf.name("Form"));
+            form.entry("FormType", 1);
+            form.entry("BBox", new double[] { entry.bbox.getMinX(),
+                    entry.bbox.getMinY(), entry.bbox.getMaxX(),
+                    entry.bbox.getMaxY() });
+            boolean eofill = form.drawPath(entry.shape);
+            if (!entry.fill) {
+                form.stroke();
+            } else if (eofill) {
+                form.fillEvenOdd();
+            } else {
+                form.fill();
+            }
+            pdf.close(form);
+
+            // only the name is needed from now on
+            entry.shape = null;
+        }
+        pendingList.clear();
+    }
+
+    /**
+     * Adds the names of all forms to the dictionary which is the value of
+     * the resources dictionary's /XObject entry.
+     */
+    public int addXObjects(PDFDictionary xobj) throws IOException {
+        for (Iterator<Entry> i = formList.iterator(); i.hasNext();) {
+            Entry entry = i.next();
+            xobj.entry(entry.name, pdf.ref(entry.name));
+        }
+        return formList.size();
+    }
+
+    /**
+     * Adds the names of the forms used since the last call to
+     * <tt>clearPage()</tt> to the given dictionary.
+     */
+    public int addPageXObjects(PDFDictionary xobj) throws IOException {
+        for (Iterator<Entry> i = pageSet.iterator(); i.hasNext();) {
+            Entry entry = i.next();
+            xobj.entry(entry.name, pdf.ref(entry.name));
+        }
+        return pageSet.size();
+    }
+
+    /** @return true if XObjects were used on the current page */
+    public boolean hasPageXObjects() {
+        return !pageSet.isEmpty();
+    }
+
+    /** Starts a new page for <tt>addPageXObjects()</tt>. */
+    public void clearPage() {
+        pageSet.clear();
+    }
+}
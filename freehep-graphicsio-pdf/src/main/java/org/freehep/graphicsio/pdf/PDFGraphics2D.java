@@ -16,13 +16,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-
+import java.util.concurrent.ExecutorService;
 import org.freehep.graphics2d.TagString;
 import org.freehep.graphics2d.font.CharTable;
 import org.freehep.graphics2d.font.FontUtilities;
@@ -30,6 +31,7 @@ import org.freehep.graphics2d.font.Lookup;
 import org.freehep.graphicsio.AbstractVectorGraphicsIO;
 import org.freehep.graphicsio.FontConstants;
 import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.ImageEncoderPool;
 import org.freehep.graphicsio.ImageGraphics2D;
 import org.freehep.graphicsio.InfoConstants;
 import org.freehep.graphicsio.MultiPageDocument;
@@ -111,6 +113,37 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 
 	public static final String COMPRESS = rootKey + ".Compress";
 
+	/**
+	 * Write each image as soon as it is drawn, rather than keeping all images
+	 * until the end of the page. The page content is then split into several
+	 * streams.
+	 */
+	public static final String STREAM_IMAGES = rootKey + ".StreamImages";
+
+	/**
+	 * Pack all objects which are not streams into compressed object streams
+	 * and write a compressed cross-reference stream. The file is written as
+	 * PDF 1.5, which Acrobat Reader 6 and later can read.
+	 */
+	public static final String OBJECT_STREAMS = rootKey + ".ObjectStreams";
+
+	/**
+	 * Write page content, images, masks and embedded fonts as binary data,
+	 * rather than ASCII85 encoded. The file gets smaller, but can no longer
+	 * be sent over channels which only pass 7-bit ASCII.
+	 */
+	public static final String BINARY = rootKey + ".Binary";
+
+	/**
+	 * Give every page its own resources dictionary, written when the page is
+	 * closed, rather than one dictionary for the whole document written at
+	 * the end. The dictionary lists only the fonts, images, patterns and
+	 * graphics states used on the page, and refers to objects shared by all
+	 * pages. Only their names are kept once a page is written, and fonts,
+	 * which hardly take memory, are embedded at the end of the document.
+	 */
+	public static final String PAGE_RESOURCES = rootKey + ".PageResources";
+
 	public static final String VERSION = rootKey + ".Version";
 
 	public static final String WRITE_IMAGES_AS = rootKey + "."
@@ -133,6 +166,10 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 
 		defaultProperties.setProperty(VERSION, VERSION5);
 		defaultProperties.setProperty(COMPRESS, true);
+		defaultProperties.setProperty(STREAM_IMAGES, false);
+		defaultProperties.setProperty(OBJECT_STREAMS, false);
+		defaultProperties.setProperty(BINARY, false);
+		defaultProperties.setProperty(PAGE_RESOURCES, false);
 		defaultProperties.setProperty(PAGE_SIZE, PageConstants.INTERNATIONAL);
 		defaultProperties.setProperty(PAGE_MARGINS, PageConstants.getMargins(PageConstants.SMALL));
 		defaultProperties.setProperty(ORIENTATION, PageConstants.PORTRAIT);
@@ -165,8 +202,12 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 
 	private static final String PDF_VERSION = "1.4";
 
+	private static final String PDF_VERSION_OBJECT_STREAMS = "1.5";
+
 	private static final String[] COMPRESS_FILTERS = { ImageConstants.ENCODING_FLATE, ImageConstants.ENCODING_ASCII85};
 
+	private static final String[] BINARY_COMPRESS_FILTERS = { ImageConstants.ENCODING_FLATE };
+
 	private static final String[] NO_FILTERS = {};
 
 	private static final double FONTSIZE_CORRECTION = 1.0;
@@ -188,14 +229,26 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 
 	private PDFStream pageStream;
 
+	// names of the parts of the pageStream, in case images are streamed
+	private List<String> pageContents;
+
+	private boolean streamImages;
+
+	private boolean pageResources;
+
 	// remember some things to do
 	private PDFFontTable fontTable; // remember which standard fonts were used
 
 	private PDFImageDelayQueue delayImageQueue; // remember images XObjects to
 
+	// encodes images, on the calling thread unless an executor is set
+	private ImageEncoderPool imageEncoderPool = new ImageEncoderPool(null);
+
 	// include in the file
 	private PDFPaintDelayQueue delayPaintQueue; // remember patterns to include
 
+	private PDFFormDelayQueue delayFormQueue; // remember instanced symbols
+
         private AlphaQueue alphaQueue;
 
         // in the file
@@ -262,6 +315,7 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 		currentPage = 0;
 		multiPage = false;
 		titles = new ArrayList<String>();
+		pageContents = new ArrayList<String>();
 		initProperties(defaultProperties);
 	}
 
@@ -271,8 +325,11 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 
 		this.os = graphics.os;
 		this.pageStream = graphics.pageStream;
+		this.pageContents = graphics.pageContents;
+		this.streamImages = graphics.streamImages;
 
 		this.delayImageQueue = graphics.delayImageQueue;
+		this.delayFormQueue = graphics.delayFormQueue;
 		this.delayPaintQueue = graphics.delayPaintQueue;
 		this.alphaQueue = graphics.alphaQueue;
 		this.fontTable = graphics.fontTable;
@@ -295,6 +352,19 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 		return multiPage;
 	}
 
+	/**
+	 * Sets the executor on which images are encoded, null (the default)
+	 * encodes images on the drawing thread when they are written. With an
+	 * executor an image is encoded as soon as it is drawn, for the "smallest"
+	 * setting of WRITE_IMAGES_AS the JPEG and ZLIB trials run concurrently.
+	 * The output does not depend on the executor. Drawn images should not be
+	 * modified until the page is closed. The executor is not shut down.
+	 * Has to be called before startExport().
+	 */
+	public void setImageExecutor(ExecutorService executor) {
+		imageEncoderPool = new ImageEncoderPool(executor);
+	}
+
 	/**
 	 * Set the clipping enabled flag. This will affect all output operations
 	 * after this call completes. In some circumstances the clipping region is
@@ -317,10 +387,20 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 	 * output the page tree.
 	 */
 	public void writeHeader() throws IOException {
-		os = new PDFWriter(new BufferedOutputStream(ros), PDF_VERSION);
+		if (isProperty(OBJECT_STREAMS)) {
+			os = new PDFWriter(new BufferedOutputStream(ros),
+					PDF_VERSION_OBJECT_STREAMS, true);
+		} else {
+			os = new PDFWriter(new BufferedOutputStream(ros), PDF_VERSION);
+		}
+		os.setBinary(isProperty(BINARY));
 
+		streamImages = isProperty(STREAM_IMAGES);
+		pageResources = isProperty(PAGE_RESOURCES);
 		delayImageQueue = new PDFImageDelayQueue(os);
+		delayImageQueue.setImageEncoderPool(imageEncoderPool);
 		delayPaintQueue = new PDFPaintDelayQueue(os, delayImageQueue);
+		delayFormQueue = new PDFFormDelayQueue(os, getPageFilters());
                 alphaQueue = new AlphaQueue();
 
 		fontTable = new PDFFontTable(os);
@@ -393,39 +473,57 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
                       ? PageConstants.getSize(getProperty(PAGE_SIZE),
                       getProperty(ORIENTATION)) : getSize();
 		pages.setMediaBox(0, 0, pageSize.getWidth(), pageSize.getHeight());
-		pages.setResources("Resources");
+		if (!pageResources)
+			pages.setResources("Resources");
 		os.close(pages);
 
 		// ProcSet
 		os.object("PageProcSet", new Object[] { os.name("PDF"),
 				os.name("Text"), os.name("ImageC") });
 
+		if (!pageResources)
+			writeResources();
+
+		// outlines
+		PDFOutlineList outlines = os.openOutlineList("Outlines", "Outline1",
+				"Outline" + currentPage);
+		os.close(outlines);
+
+		for (int i = 1; i <= currentPage; i++) {
+			String prev = i > 1 ? "Outline" + (i - 1) : null;
+			String next = i < currentPage ? "Outline" + (i + 1) : null;
+			PDFOutline outline = os.openOutline("Outline" + i, titles
+					.get(i - 1), "Outlines", prev, next);
+			outline
+					.setDest(new Object[] { os.ref("Page" + i), os.name("Fit") });
+			os.close(outline);
+		}
+
+		// delayed objects (images, patterns, fonts)
+		processDelayed();
+	}
+
+	/**
+	 * Writes the resources dictionary shared by all pages.
+	 */
+	private void writeResources() throws IOException {
 		// Font
 		int nFonts = fontTable.addFontDictionary();
 
 		// XObject
-		int nXObjects = delayImageQueue.addXObjects();
+		int nXObjects = 0;
+		if (delayImageQueue.hasXObjects() || delayFormQueue.hasXObjects()) {
+			PDFDictionary xobj = os.openDictionary("XObjects");
+			nXObjects += delayImageQueue.addXObjects(xobj);
+			nXObjects += delayFormQueue.addXObjects(xobj);
+			os.close(xobj);
+		}
 
 		// Pattern
 		int nPatterns = delayPaintQueue.addPatterns();
 
 		// ExtGState
-		if (!alphaQueue.keySet().isEmpty()) {
-			PDFDictionary extGState = os.openDictionary("ExtGState");
-
-			for (Iterator<Float> i = alphaQueue.keySet().iterator(); i.hasNext();) {
-				Float alpha = i.next();
-				String alphaName = alphaQueue.getAlphaName(alpha);
-				PDFDictionary alphaDictionary = extGState
-						.openDictionary(alphaName);
-				alphaDictionary.entry("ca", alpha.floatValue());
-				alphaDictionary.entry("CA", alpha.floatValue());
-				alphaDictionary.entry("BM", os.name("Normal"));
-				alphaDictionary.entry("AIS", false);
-				extGState.close(alphaDictionary);
-			}
-			os.close(extGState);
-		}
+		int nExtGStates = alphaQueue.addExtGStates(os);
 
 		// resources
 		PDFDictionary resources = os.openDictionary("Resources");
@@ -436,38 +534,98 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 			resources.entry("XObject", os.ref("XObjects"));
 		if (nPatterns > 0)
 			resources.entry("Pattern", os.ref("Pattern"));
-		if (!alphaQueue.keySet().isEmpty())
+		if (nExtGStates > 0)
 			resources.entry("ExtGState", os.ref("ExtGState"));
 		os.close(resources);
-                
-   		// outlines
-		PDFOutlineList outlines = os.openOutlineList("Outlines", "Outline1",
-				"Outline" + currentPage);
-		os.close(outlines);
+	}
 
-		for (int i = 1; i <= currentPage; i++) {
-			String prev = i > 1 ? "Outline" + (i - 1) : null;
-			String next = i < currentPage ? "Outline" + (i + 1) : null;
-			PDFOutline outline = os.openOutline("Outline" + i, titles
-					.get(i - 1), "Outlines", prev, next);
-			outline
-					.setDest(new Object[] { os.ref("Page" + i), os.name("Fit") });
-			os.close(outline);
+	/**
+	 * Writes the resources dictionary of the current page, with everything
+	 * used on it.
+	 */
+	private void writePageResources() throws IOException {
+		PDFDictionary resources = os.openDictionary("Resources" + currentPage);
+		resources.entry("ProcSet", os.ref("PageProcSet"));
+
+		if (fontTable.hasPageFonts()) {
+			PDFDictionary fonts = resources.openDictionary("Font");
+			fontTable.addPageFonts(fonts);
+			resources.close(fonts);
 		}
 
-		// delayed objects (images, patterns, fonts)
-		processDelayed();
+		if (delayImageQueue.hasPageXObjects()
+				|| delayFormQueue.hasPageXObjects()) {
+			PDFDictionary xobj = resources.openDictionary("XObject");
+			delayImageQueue.addPageXObjects(xobj);
+			delayFormQueue.addPageXObjects(xobj);
+			resources.close(xobj);
+		}
+
+		if (delayPaintQueue.hasPagePatterns()) {
+			PDFDictionary patterns = resources.openDictionary("Pattern");
+			delayPaintQueue.addPagePatterns(patterns);
+			resources.close(patterns);
+		}
+
+		if (alphaQueue.hasPageExtGStates()) {
+			PDFDictionary extGState = resources.openDictionary("ExtGState");
+			alphaQueue.addPageExtGStates(os, extGState);
+			resources.close(extGState);
+		}
+		os.close(resources);
 	}
 
 	public void closeStream() throws IOException {
 		os.close();
 	}
 
+	/**
+	 * @return number of distinct pattern dictionaries (gradient and texture
+	 *         paints) in the document, or 0 if the export has not started.
+	 */
+	public int getPatternCount() {
+		return delayPaintQueue != null ? delayPaintQueue.getPaintCount() : 0;
+	}
+
+	/**
+	 * @return number of paints which were written as a reference to an
+	 *         earlier, identical pattern dictionary.
+	 */
+	public int getReusedPatternCount() {
+		return delayPaintQueue != null ? delayPaintQueue.getReusedCount() : 0;
+	}
+
+	/**
+	 * @return number of distinct ExtGState dictionaries in the document, or 0
+	 *         if the export has not started.
+	 */
+	public int getExtGStateCount() {
+		return alphaQueue != null ? alphaQueue.size() : 0;
+	}
+
+	/**
+	 * @return number of graphics state changes which referred to an earlier,
+	 *         identical ExtGState dictionary.
+	 */
+	public int getReusedExtGStateCount() {
+		return alphaQueue != null ? alphaQueue.getReusedCount() : 0;
+	}
+
 	private void processDelayed() throws IOException {
+		processDelayed(true);
+	}
+
+	/**
+	 * Writes the delayed images, patterns and forms, and with
+	 * <tt>fonts</tt> also the delayed fonts.
+	 */
+	private void processDelayed(boolean fonts) throws IOException {
 		delayImageQueue.processAll();
 		delayPaintQueue.processAll();
-		fontTable.embedAll(getFontRenderContext(), isProperty(EMBED_FONTS), !isProperty(EMBED_SKIP_STANDARD_FONTS),
-				getProperty(EMBED_FONTS_AS));
+		delayFormQueue.processAll();
+		if (fonts)
+			fontTable.embedAll(getFontRenderContext(), isProperty(EMBED_FONTS), !isProperty(EMBED_SKIP_STANDARD_FONTS),
+					getProperty(EMBED_FONTS_AS));
 	}
 
 	/* 3.2 MultipageDocument methods */
@@ -507,6 +665,8 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 
 		PDFPage page = os.openPage("Page" + currentPage, "RootPage");
 		page.setContents("PageContents" + currentPage);
+		if (pageResources)
+			page.setResources("Resources" + currentPage);
                 page.setGroup("Group" + currentPage);
 
 		if (thumbnail != null)
@@ -526,8 +686,12 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 			os.close(thumbnailStream);
 		}
 
-		pageStream = os.openStream("PageContents" + currentPage,
-				isProperty(COMPRESS) ? COMPRESS_FILTERS : NO_FILTERS);
+		String contents = "PageContents" + currentPage;
+		if (streamImages) {
+			pageContents.clear();
+			contents = nextContentsPart();
+		}
+		pageStream = os.openStream(contents, getPageFilters());
 
 		// transform the coordinate system as necessary
 		// 1. flip the coordinate system down and translate it upwards again
@@ -606,8 +770,25 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 		os.close(pageStream);
 		pageStream = null;
 
-		processDelayed(); // This does not work properly with acrobat reader
-		// 4!
+		if (streamImages) {
+			os.object("PageContents" + currentPage, os.ref(pageContents
+					.toArray(new String[pageContents.size()])));
+		}
+
+		// with page resources fonts are embedded at the end, so that they
+		// contain the characters of all pages
+		processDelayed(!pageResources); // This does not work properly with
+		// acrobat reader 4!
+
+		if (pageResources)
+			writePageResources();
+		delayImageQueue.clearPage();
+		delayFormQueue.clearPage();
+		delayPaintQueue.clearPage();
+		fontTable.clearPage();
+		alphaQueue.clearPage();
+		if (pageResources)
+			os.flush();
 	}
 
 	public void setHeader(Font font, TagString left, TagString center,
@@ -712,6 +893,9 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 	 * 5.1.4. shapes
 	 */
 	public void draw(Shape s) {
+		if (isCulled(s, true)) {
+			return;
+		}
 		try {
 			if (getStroke() instanceof BasicStroke) {
 				// in this case we've already handled the stroke
@@ -728,6 +912,9 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 	}
 
 	public void fill(Shape s) {
+		if (isCulled(s, false)) {
+			return;
+		}
 		try {
 			boolean eofill = pageStream.drawPath(s);
 			if (eofill) {
@@ -740,6 +927,32 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 		}
 	}
 
+	/**
+	 * Writes the symbol as a Form XObject on first use and invokes it at the
+	 * given position. The form inherits color, line width and transparency
+	 * from the page.
+	 */
+	protected boolean writeSymbol(double x, double y, String key, Shape shape,
+			boolean fill) throws IOException {
+		Object formKey = key;
+		Rectangle2D bbox = shape.getBounds2D();
+		if (!fill) {
+			// the bounding box has to include the stroke
+			BasicStroke stroke = (BasicStroke) getStroke();
+			formKey = Arrays.asList(new Object[] { key, stroke });
+			bbox = stroke.createStrokedShape(shape).getBounds2D();
+		}
+		bbox.setRect(bbox.getX() - 1, bbox.getY() - 1, bbox.getWidth() + 2,
+				bbox.getHeight() + 2);
+		PDFName name = delayFormQueue.delayForm(formKey, shape, fill, bbox);
+
+		pageStream.save();
+		pageStream.matrix(1, 0, 0, 1, x, y);
+		pageStream.xObject(name);
+		pageStream.restore();
+		return true;
+	}
+
 	/* 5.2 Images */
 	public void copyArea(int x, int y, int width, int height, int dx, int dy) {
 		writeWarning(getClass()
@@ -750,6 +963,12 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 			Color bkg) throws IOException {
 		PDFName ref = delayImageQueue.delayImage(image, bkg,
 				getProperty(WRITE_IMAGES_AS));
+		if (streamImages && delayImageQueue.hasPending()) {
+			// write the image now and continue the page in a new stream
+			os.suspend(pageStream);
+			delayImageQueue.processAll();
+			os.resume(pageStream, nextContentsPart());
+		}
 
 		AffineTransform imageTransform = new AffineTransform(image.getWidth(),
 				0.0, 0.0, -image.getHeight(), 0.0, image.getHeight());
@@ -1016,6 +1235,25 @@ public class PDFGraphics2D extends AbstractVectorGraphicsIO implements
 				"PDFLatin"), this, isProperty(EMBED_FONTS));
 	}
 
+	/**
+	 * @return the name of the next part of the page contents, only used if
+	 *         images are streamed.
+	 */
+	private String nextContentsPart() {
+		String part = "PageContents" + currentPage + "." + pageContents.size();
+		pageContents.add(part);
+		return part;
+	}
+
+	/**
+	 * @return the filters for the page contents.
+	 */
+	private String[] getPageFilters() {
+		if (!isProperty(COMPRESS))
+			return NO_FILTERS;
+		return isProperty(BINARY) ? BINARY_COMPRESS_FILTERS : COMPRESS_FILTERS;
+	}
+
         private double getWidth() {
           // True image size - Levantovsky, MagicPlot
           if (!isProperty(ALLOW_RESIZING_AND_MARGINS))
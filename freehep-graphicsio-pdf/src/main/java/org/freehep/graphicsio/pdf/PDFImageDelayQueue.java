@@ -4,15 +4,29 @@ package org.freehep.graphicsio.pdf;
 import java.awt.Color;
 import java.awt.image.RenderedImage;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+
+import org.freehep.graphicsio.ImageCache;
+import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.ImageEncoderPool;
+import org.freehep.graphicsio.ImageFingerprint;
 
 /**
  * Delay <tt>Image</tt> objects for writing XObjects to the pdf file when the
- * pageStream is complete. Caches identical images to only write them once.
+ * pageStream is complete. Caches images by content (see
+ * {@link ImageFingerprint}) to only write identical images once.
+ * <p>
+ * Images are released as soon as they are written. In streaming mode the
+ * caller is expected to call {@link #processAll()} right after an image has
+ * been delayed.
+ * <p>
+ * With an {@link ImageEncoderPool} backed by an executor, images are encoded
+ * in the background from the moment they are delayed. They are still written
+ * in the order in which they were delayed.
  * 
  * @author Simon Fischer
  * @author Mark Donszelmann
@@ -32,7 +46,7 @@ public class PDFImageDelayQueue {
 
         private String writeAs;
 
-        private boolean written;
+        private ImageBytes bytes, maskBytes;
 
         private Entry(RenderedImage image, Color bkg, String writeAs) {
             this.image = image;
@@ -44,57 +58,127 @@ public class PDFImageDelayQueue {
             } else {
                 maskName = null;
             }
-            this.written = false;
+        }
+
+        /** Starts encoding the image and its mask, if not yet started. */
+        private void encode() {
+            if (bytes == null) {
+                bytes = new ImageBytes(image, bkg, writeAs,
+                        ImageConstants.COLOR_MODEL_RGB, pdf.isBinary(), pool);
+                if (maskName != null) {
+                    maskBytes = new ImageBytes(image, null, writeAs,
+                            ImageConstants.COLOR_MODEL_A, pdf.isBinary(), pool);
+                }
+            }
         }
     }
 
-    private Map<RenderedImage, Entry>imageMap;
+    private ImageCache<Entry> imageCache;
 
     private List<Entry>imageList;
 
+    // images drawn on the current page
+    private Set<Entry> pageSet;
+
+    private List<Entry>pendingList;
+
     private PDFWriter pdf;
 
+    private ImageEncoderPool pool = new ImageEncoderPool(null);
+
     public PDFImageDelayQueue(PDFWriter pdf) {
         this.pdf = pdf;
-        this.imageMap = new HashMap<RenderedImage, Entry>();
+        this.imageCache = new ImageCache<Entry>();
         this.imageList = new LinkedList<Entry>();
+        this.pageSet = new LinkedHashSet<Entry>();
+        this.pendingList = new LinkedList<Entry>();
+    }
+
+    /**
+     * Sets the pool to encode images in. If the pool has an executor, images
+     * are encoded as soon as they are delayed, otherwise when they are
+     * written.
+     */
+    public void setImageEncoderPool(ImageEncoderPool pool) {
+        this.pool = pool;
     }
 
     public PDFName delayImage(RenderedImage image, Color bkg, String writeAs) {
-        Entry entry = imageMap.get(image);
+        ImageFingerprint key = imageCache.fingerprint(image, bkg, writeAs);
+        Entry entry = imageCache.get(key);
         if (entry == null) {
             entry = new Entry(image, bkg, writeAs);
-            imageMap.put(image, entry);
+            imageCache.put(key, entry);
             imageList.add(entry);
+            pendingList.add(entry);
+            if (pool.getExecutor() != null) {
+                entry.encode();
+            }
         }
+        pageSet.add(entry);
 
         return pdf.name(entry.name);
     }
 
+    /**
+     * Adds the names of the images drawn since the last call to
+     * <tt>clearPage()</tt> to the given dictionary.
+     */
+    public int addPageXObjects(PDFDictionary xobj) throws IOException {
+        for (Iterator<Entry> i = pageSet.iterator(); i.hasNext();) {
+            Entry entry = i.next();
+            xobj.entry(entry.name, pdf.ref(entry.name));
+        }
+        return pageSet.size();
+    }
+
+    /** @return true if XObjects were used on the current page */
+    public boolean hasPageXObjects() {
+        return !pageSet.isEmpty();
+    }
+
+    /** Starts a new page for <tt>addPageXObjects()</tt>. */
+    public void clearPage() {
+        pageSet.clear();
+    }
+
+    /** @return true if images were delayed */
+    public boolean hasXObjects() {
+        return !imageList.isEmpty();
+    }
+
+    /** @return true if some delayed images are not written yet. */
+    public boolean hasPending() {
+        return !pendingList.isEmpty();
+    }
+
     /** Creates a stream for every delayed image that is not written yet. */
     public void processAll() throws IOException {
-        for (Iterator<Entry> i = imageList.iterator(); i.hasNext();) {
+        for (Iterator<Entry> i = pendingList.iterator(); i.hasNext();) {
             Entry entry = i.next();
-
-            if (!entry.written) {
-                entry.written = true;
-
-                PDFStream img = pdf.openStream(entry.name);
-                img.entry("Subtype", pdf.name("Image"));
-                img.entry("Interpolate", true);
-                if (entry.maskName != null)
-                    img.entry("SMask", pdf.ref(entry.maskName));
-                img.image(entry.image, entry.bkg, entry.writeAs);
-                pdf.close(img);
-
-                if (entry.maskName != null) {
-                    PDFStream mask = pdf.openStream(entry.maskName);
-                    mask.entry("Subtype", pdf.name("Image"));
-                    mask.imageMask(entry.image, entry.writeAs);
-                    pdf.close(mask);
-                }
+            entry.encode();
+
+            PDFStream img = pdf.openStream(entry.name);
+            img.entry("Subtype", pdf.name("Image"));
+            img.entry("Interpolate", true);
+            if (entry.maskName != null)
+                img.entry("SMask", pdf.ref(entry.maskName));
+            img.image(entry.image, entry.bytes);
+            pdf.close(img);
+
+            if (entry.maskName != null) {
+                PDFStream mask = pdf.openStream(entry.maskName);
+                mask.entry("Subtype", pdf.name("Image"));
+                mask.imageMask(entry.image, entry.maskBytes);
+                pdf.close(mask);
             }
+
+            // only the name is needed from now on
+            entry.image = null;
+            entry.bytes = null;
+            entry.maskBytes = null;
         }
+        pendingList.clear();
     }
 
     /**
@@ -104,14 +188,23 @@ public class PDFImageDelayQueue {
     public int addXObjects() throws IOException {
         if (imageList.size() > 0) {
             PDFDictionary xobj = pdf.openDictionary("XObjects");
-            for (Iterator<Entry> i = imageList.iterator(); i.hasNext();) {
-                Entry entry = i.next();
-                xobj.entry(entry.name, pdf.ref(entry.name));
-                if (entry.maskName != null)
-                    xobj.entry(entry.maskName, pdf.ref(entry.maskName));
-            }
+            addXObjects(xobj);
             pdf.close(xobj);
         }
         return imageList.size();
     }
+
+    /**
+     * Adds all names to the given dictionary, which may also hold other
+     * XObjects.
+     */
+    public int addXObjects(PDFDictionary xobj) throws IOException {
+        for (Iterator<Entry> i = imageList.iterator(); i.hasNext();) {
+            Entry entry = i.next();
+            xobj.entry(entry.name, pdf.ref(entry.name));
+            if (entry.maskName != null)
+                xobj.entry(entry.maskName, pdf.ref(entry.maskName));
+        }
+        return imageList.size();
+    }
 }
@@ -19,6 +19,9 @@ public class PDFObject implements PDFConstants {
 
     private boolean ok;
 
+    // stored in an object stream, without obj and endobj
+    private boolean compressed;
+
     PDFObject(PDF pdf, PDFByteWriter writer, int objectNumber,
             int generationNumber) throws IOException {
         this.pdf = pdf;
@@ -26,12 +29,25 @@ public class PDFObject implements PDFConstants {
         out.println(objectNumber + " " + generationNumber + " obj");
         out.indent();
         ok = true;
+        compressed = false;
+    }
+
+    /**
+     * Creates an object written into an object stream.
+     */
+    PDFObject(PDF pdf, PDFByteWriter writer) throws IOException {
+        this.pdf = pdf;
+        out = writer;
+        ok = true;
+        compressed = true;
     }
 
     void close() throws IOException {
-        out.outdent();
-        out.println("endobj");
-        out.println();
+        if (!compressed) {
+            out.outdent();
+            out.println("endobj");
+            out.println();
+        }
         ok = false;
     }
 
@@ -41,6 +57,12 @@ public class PDFObject implements PDFConstants {
         out.println(number);
     }
 
+    public void entry(long number) throws IOException {
+        if (!ok)
+            System.err.println("PDFWriter: 'PDFObject' was closed");
+        out.println(number);
+    }
+
     public void entry(Object[] objs) throws IOException {
         if (!ok)
             System.err.println("PDFWriter: 'PDFObject' was closed");
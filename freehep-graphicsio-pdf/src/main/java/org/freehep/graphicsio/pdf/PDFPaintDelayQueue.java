@@ -8,23 +8,31 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.freehep.graphicsio.ImageFingerprint;
 
 /**
  * Delay <tt>Paint</tt> objects (gradient/texture, not color) for writing
  * pattern/shading/function dictionaries to the pdf file when the pageStream is
- * complete.<br>
- * TODO: - reuse pattern dictionaries if possible - cyclic function not working
- * yet (ps calculation)
+ * complete. Paints with equal colors, points, anchor, image, cycle flag and
+ * matrix share one pattern dictionary.<br>
+ * TODO: - cyclic function not working yet (ps calculation)
  * 
  * @author Simon Fischer
  * @version $Id: freehep-graphicsio-pdf/src/main/java/org/freehep/graphicsio/pdf/PDFPaintDelayQueue.java 2fa79ac3a135 2007/01/09 18:18:57 duns $
  */
 public class PDFPaintDelayQueue {
 
-    private static int currentNumber = 0;
+    private int currentNumber = 0;
 
     private class Entry {
         private Paint paint;
@@ -48,6 +56,12 @@ public class PDFPaintDelayQueue {
 
     private List<Entry> paintList;
 
+    private Map<Object, Entry> paintMap;
+
+    private Set<Entry> pageSet;
+
+    private int reused;
+
     private PDFWriter pdf;
 
 //    private PDFImageDelayQueue imageDelayQueue;
@@ -58,6 +72,8 @@ public class PDFPaintDelayQueue {
     public PDFPaintDelayQueue(PDFWriter pdf, PDFImageDelayQueue imageDelayQueue) {
         this.pdf = pdf;
         this.paintList = new LinkedList<Entry>();
+        this.paintMap = new HashMap<Object, Entry>();
+        this.pageSet = new LinkedHashSet<Entry>();
 //        this.imageDelayQueue = imageDelayQueue;
         this.pageMatrix = new AffineTransform();
     }
@@ -74,11 +90,56 @@ public class PDFPaintDelayQueue {
 
     public PDFName delayPaint(Paint paint, AffineTransform transform,
             String writeAs) {
-        Entry e = new Entry(paint, transform, writeAs);
-        paintList.add(e);
+        Object key = createKey(paint, transform, writeAs);
+        Entry e = (key != null) ? paintMap.get(key) : null;
+        if (e != null) {
+            reused++;
+        } else {
+            e = new Entry(paint, transform, writeAs);
+            paintList.add(e);
+            if (key != null) {
+                paintMap.put(key, e);
+            }
+        }
+        pageSet.add(e);
         return pdf.name(e.name);
     }
 
+    /**
+     * @return a key which is equal for paints resulting in the same pattern
+     *         dictionary, or null if the paint cannot be shared.
+     */
+    private Object createKey(Paint paint, AffineTransform transform,
+            String writeAs) {
+        if (paint instanceof GradientPaint) {
+            GradientPaint gp = (GradientPaint) paint;
+            return Arrays.asList(new Object[] { GradientPaint.class,
+                    gp.getPoint1(), gp.getPoint2(), gp.getColor1(),
+                    gp.getColor2(), Boolean.valueOf(gp.isCyclic()),
+                    transform, pageMatrix });
+        } else if (paint instanceof TexturePaint) {
+            TexturePaint tp = (TexturePaint) paint;
+            return Arrays.asList(new Object[] { TexturePaint.class,
+                    ImageFingerprint.create(tp.getImage(), null, writeAs),
+                    tp.getAnchorRect(), transform, pageMatrix });
+        }
+        return null;
+    }
+
+    /**
+     * @return number of pattern dictionaries, written or to be written
+     */
+    public int getPaintCount() {
+        return paintList.size();
+    }
+
+    /**
+     * @return number of paints which reused a previous pattern dictionary
+     */
+    public int getReusedCount() {
+        return reused;
+    }
+
     /** Creates a stream for every delayed image. */
     public void processAll() throws IOException {
         ListIterator<Entry> i = paintList.listIterator();
@@ -97,6 +158,9 @@ public class PDFPaintDelayQueue {
                     // FIXME, we could write a color here, to keep the file
                     // valid.
                 }
+                // only the name is needed from now on
+                e.paint = null;
+                e.trafo = null;
             }
         }
     }
@@ -118,6 +182,28 @@ public class PDFPaintDelayQueue {
         return paintList.size();
     }
 
+    /**
+     * Adds the names of the paints used since the last call to
+     * <tt>clearPage()</tt> to the given dictionary.
+     */
+    public int addPagePatterns(PDFDictionary patterns) throws IOException {
+        for (Iterator<Entry> i = pageSet.iterator(); i.hasNext();) {
+            Entry e = i.next();
+            patterns.entry(e.name, pdf.ref(e.name));
+        }
+        return pageSet.size();
+    }
+
+    /** @return true if paints were used on the current page */
+    public boolean hasPagePatterns() {
+        return !pageSet.isEmpty();
+    }
+
+    /** Starts a new page for <tt>addPagePatterns()</tt>. */
+    public void clearPage() {
+        pageSet.clear();
+    }
+
     private void addGradientPaint(Entry e) throws IOException {
         GradientPaint gp = (GradientPaint) e.paint;
 
@@ -52,7 +52,8 @@ public class PDFRedundanceTracker {
         }
     }
 
-    private static int refCount = 1;
+    // per document, so concurrently written documents get the same names
+    private int refCount = 1;
 
     private PDFWriter pdf;
 
@@ -9,9 +9,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.ImageEncoderPool;
+import org.freehep.util.FixedPrecisionEncoder;
 import org.freehep.util.io.ASCII85OutputStream;
 import org.freehep.util.io.ASCIIHexOutputStream;
-import org.freehep.util.io.CountedByteOutputStream;
 import org.freehep.util.io.FinishableOutputStream;
 import org.freehep.util.io.FlateOutputStream;
 
@@ -38,10 +39,15 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
 
     private OutputStream[] stream;
 
-    private CountedByteOutputStream byteCountStream;
+    // offset of the data of the current stream object, and its length once
+    // it is suspended
+    private long start, length;
 
     private String[] encode;
 
+    // reusable buffer for numeric operands
+    private FixedPrecisionEncoder numbers = PDFUtil.createFixedPrecisionEncoder();
+
     PDFStream(PDF pdf, PDFByteWriter writer, String name, PDFObject parent,
             String[] encode) throws IOException {
         super(pdf, writer);
@@ -77,8 +83,8 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
             dictionaryOpen = false;
             out.printPlain("stream\n");
 
-            byteCountStream = new CountedByteOutputStream(out);
-            stream = openFilters(byteCountStream, encode);
+            start = out.getCount();
+            stream = openFilters(out, encode);
         }
     }
 
@@ -88,9 +94,12 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     }
 
     private void write(byte[] b) throws IOException {
-        for (int i = 0; i < b.length; i++) {
-            write((int) b[i]);
-        }
+        write(b, 0, b.length);
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        startStream();
+        stream[0].write(b, off, len);
     }
 
     private static PDFName[] decodeFilters(String[] encode) {
@@ -146,29 +155,67 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
 
     private void write(String s) throws IOException {
         byte[] b = s.getBytes("ISO-8859-1");
-        for (int i = 0; i < b.length; i++) {
-            write(b[i]);
-        }
+        write(b, 0, b.length);
+    }
+
+    /**
+     * @return the cleared operand buffer, to append the numeric operands of an
+     *         operator to.
+     */
+    private FixedPrecisionEncoder operands() {
+        numbers.reset();
+        return numbers;
+    }
+
+    /**
+     * Writes the operands followed by the operator and an end of line.
+     */
+    private void operator(String operator) throws IOException {
+        numbers.append(operator).append(EOL);
+        write(numbers.getBuffer(), 0, numbers.size());
     }
 
     void close() throws IOException {
+        suspend();
+
+        if (gStates > 0) {
+            System.err.println("PDFStream: unbalanced saves()/restores(), too many saves: "+gStates);
+        }
+    }
+
+    /**
+     * Ends the current stream object, but keeps the graphics and text state,
+     * so that the content can be continued in another stream object by
+     * {@link #resume(String, PDFObject)}.
+     */
+    void suspend() throws IOException {
+        startStream();
         closeFilters(stream);
         stream = null;
+        length = out.getCount() - start;
         out.printPlain("\nendstream");
         out.println();
         object.close();
-        
-        if (gStates > 0) {
-            System.err.println("PDFStream: unbalanced saves()/restores(), too many saves: "+gStates);
-        }
+    }
+
+    /**
+     * Continues the content of this stream in a new stream object, using the
+     * preset encoding.
+     */
+    void resume(String name, PDFObject parent) throws IOException {
+        this.name = name;
+        object = parent;
+        // the parent object is closed by the stream, not by its dictionary
+        open(null);
+        dictionaryOpen = true;
     }
 
     String getName() {
         return name;
     }
 
-    public int getLength() {
-        return byteCountStream.getCount();
+    public long getLength() {
+        return length;
     }
 
     public void print(String s) throws IOException {
@@ -213,15 +260,15 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
 
     public void matrix(double m00, double m10, double m01, double m11,
             double m02, double m12) throws IOException {
-        println(PDFUtil.fixedPrecision(m00) + " " + PDFUtil.fixedPrecision(m10)
-                + " " + PDFUtil.fixedPrecision(m01) + " "
-                + PDFUtil.fixedPrecision(m11) + " "
-                + PDFUtil.fixedPrecision(m02) + " "
-                + PDFUtil.fixedPrecision(m12) + " cm");
+        operands().append(m00).append(' ').append(m10).append(' ').append(m01)
+                .append(' ').append(m11).append(' ').append(m02)
+                .append(' ').append(m12);
+        operator(" cm");
     }
 
     public void width(double width) throws IOException {
-        println(PDFUtil.fixedPrecision(width) + " w");
+        operands().append(width);
+        operator(" w");
     }
 
     public void cap(int capStyle) throws IOException {
@@ -233,7 +280,8 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     }
 
     public void mitterLimit(double limit) throws IOException {
-        println(PDFUtil.fixedPrecision(limit) + " M");
+        operands().append(limit);
+        operator(" M");
     }
 
     public void dash(int[] dash, double phase) throws IOException {
@@ -253,7 +301,8 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     }
 
     public void flatness(double flatness) throws IOException {
-        println(PDFUtil.fixedPrecision(flatness) + " i");
+        operands().append(flatness);
+        operator(" i");
     }
 
     public void state(PDFName stateDictionary) throws IOException {
@@ -265,34 +314,34 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     //
     public void cubic(double x1, double y1, double x2, double y2, double x3,
             double y3) throws IOException {
-        println(PDFUtil.fixedPrecision(x1) + " " + PDFUtil.fixedPrecision(y1)
-                + " " + PDFUtil.fixedPrecision(x2) + " "
-                + PDFUtil.fixedPrecision(y2) + " " + PDFUtil.fixedPrecision(x3)
-                + " " + PDFUtil.fixedPrecision(y3) + " c");
+        operands().append(x1).append(' ').append(y1).append(' ').append(x2)
+                .append(' ').append(y2).append(' ').append(x3)
+                .append(' ').append(y3);
+        operator(" c");
     }
 
     public void cubicV(double x2, double y2, double x3, double y3)
             throws IOException {
-        println(PDFUtil.fixedPrecision(x2) + " " + PDFUtil.fixedPrecision(y2)
-                + " " + PDFUtil.fixedPrecision(x3) + " "
-                + PDFUtil.fixedPrecision(y3) + " v");
+        operands().append(x2).append(' ').append(y2).append(' ').append(x3)
+                .append(' ').append(y3);
+        operator(" v");
     }
 
     public void cubicY(double x1, double y1, double x3, double y3)
             throws IOException {
-        println(PDFUtil.fixedPrecision(x1) + " " + PDFUtil.fixedPrecision(y1)
-                + " " + PDFUtil.fixedPrecision(x3) + " "
-                + PDFUtil.fixedPrecision(y3) + " y");
+        operands().append(x1).append(' ').append(y1).append(' ').append(x3)
+                .append(' ').append(y3);
+        operator(" y");
     }
 
     public void move(double x, double y) throws IOException {
-        println(PDFUtil.fixedPrecision(x) + " " + PDFUtil.fixedPrecision(y)
-                + " m");
+        operands().append(x).append(' ').append(y);
+        operator(" m");
     }
 
     public void line(double x, double y) throws IOException {
-        println(PDFUtil.fixedPrecision(x) + " " + PDFUtil.fixedPrecision(y)
-                + " l");
+        operands().append(x).append(' ').append(y);
+        operator(" l");
     }
 
     public void closePath() throws IOException {
@@ -301,9 +350,9 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
 
     public void rectangle(double x, double y, double width, double height)
             throws IOException {
-        println(PDFUtil.fixedPrecision(x) + " " + PDFUtil.fixedPrecision(y)
-                + " " + PDFUtil.fixedPrecision(width) + " "
-                + PDFUtil.fixedPrecision(height) + " re");
+        operands().append(x).append(' ').append(y).append(' ').append(width)
+                .append(' ').append(height);
+        operator(" re");
     }
 
     //
@@ -380,19 +429,23 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     // Text State operators (see Table 5.2)
     //
     public void charSpace(double charSpace) throws IOException {
-        println(PDFUtil.fixedPrecision(charSpace) + " Tc");
+        operands().append(charSpace);
+        operator(" Tc");
     }
 
     public void wordSpace(double wordSpace) throws IOException {
-        println(PDFUtil.fixedPrecision(wordSpace) + " Tw");
+        operands().append(wordSpace);
+        operator(" Tw");
     }
 
     public void scale(double scale) throws IOException {
-        println(PDFUtil.fixedPrecision(scale) + " Tz");
+        operands().append(scale);
+        operator(" Tz");
     }
 
     public void leading(double leading) throws IOException {
-        println(PDFUtil.fixedPrecision(leading) + " TL");
+        operands().append(leading);
+        operator(" TL");
     }
 
     private boolean fontWasSet = false;
@@ -407,28 +460,29 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     }
 
     public void rise(double rise) throws IOException {
-        println(PDFUtil.fixedPrecision(rise) + " Ts");
+        operands().append(rise);
+        operator(" Ts");
     }
 
     //
     // Text Positioning operators (see Table 5.5)
     //
     public void text(double x, double y) throws IOException {
-        println(PDFUtil.fixedPrecision(x) + " " + PDFUtil.fixedPrecision(y)
-                + " Td");
+        operands().append(x).append(' ').append(y);
+        operator(" Td");
     }
 
     public void textLeading(double x, double y) throws IOException {
-        println(PDFUtil.fixedPrecision(x) + " " + PDFUtil.fixedPrecision(y)
-                + " TD");
+        operands().append(x).append(' ').append(y);
+        operator(" TD");
     }
 
     public void textMatrix(double a, double b, double c, double d, double e,
             double f) throws IOException {
-        println(PDFUtil.fixedPrecision(a) + " " + PDFUtil.fixedPrecision(b)
-                + " " + PDFUtil.fixedPrecision(c) + " "
-                + PDFUtil.fixedPrecision(d) + " " + PDFUtil.fixedPrecision(e)
-                + " " + PDFUtil.fixedPrecision(f) + " Tm");
+        operands().append(a).append(' ').append(b).append(' ').append(c)
+                .append(' ').append(d).append(' ').append(e)
+                .append(' ').append(f);
+        operator(" Tm");
     }
 
     public void textLine() throws IOException {
@@ -493,17 +547,16 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     // Type 3 Font operators (see Table 5.10)
     //
     public void glyph(double wx, double wy) throws IOException {
-        println(PDFUtil.fixedPrecision(wx) + " " + PDFUtil.fixedPrecision(wy)
-                + " d0");
+        operands().append(wx).append(' ').append(wy);
+        operator(" d0");
     }
 
     public void glyph(double wx, double wy, double llx, double lly, double urx,
             double ury) throws IOException {
-        println(PDFUtil.fixedPrecision(wx) + " " + PDFUtil.fixedPrecision(wy)
-                + " " + PDFUtil.fixedPrecision(llx) + " "
-                + PDFUtil.fixedPrecision(lly) + " "
-                + PDFUtil.fixedPrecision(urx) + " "
-                + PDFUtil.fixedPrecision(ury) + " d1");
+        operands().append(wx).append(' ').append(wy).append(' ').append(llx)
+                .append(' ').append(lly).append(' ').append(urx)
+                .append(' ').append(ury);
+        operator(" d1");
     }
 
     //
@@ -551,36 +604,38 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     }
 
     public void colorSpace(double g) throws IOException {
-        println(PDFUtil.fixedPrecision(g) + " g");
+        operands().append(g);
+        operator(" g");
     }
 
     public void colorSpaceStroke(double g) throws IOException {
-        println(PDFUtil.fixedPrecision(g) + " G");
+        operands().append(g);
+        operator(" G");
     }
 
     public void colorSpace(double r, double g, double b) throws IOException {
-        println(PDFUtil.fixedPrecision(r) + " " + PDFUtil.fixedPrecision(g)
-                + " " + PDFUtil.fixedPrecision(b) + " rg");
+        operands().append(r).append(' ').append(g).append(' ').append(b);
+        operator(" rg");
     }
 
     public void colorSpaceStroke(double r, double g, double b)
             throws IOException {
-        println(PDFUtil.fixedPrecision(r) + " " + PDFUtil.fixedPrecision(g)
-                + " " + PDFUtil.fixedPrecision(b) + " RG");
+        operands().append(r).append(' ').append(g).append(' ').append(b);
+        operator(" RG");
     }
 
     public void colorSpace(double c, double m, double y, double k)
             throws IOException {
-        println(PDFUtil.fixedPrecision(c) + " " + PDFUtil.fixedPrecision(m)
-                + " " + PDFUtil.fixedPrecision(y) + " "
-                + PDFUtil.fixedPrecision(k) + " k");
+        operands().append(c).append(' ').append(m).append(' ').append(y)
+                .append(' ').append(k);
+        operator(" k");
     }
 
     public void colorSpaceStroke(double c, double m, double y, double k)
             throws IOException {
-        println(PDFUtil.fixedPrecision(c) + " " + PDFUtil.fixedPrecision(m)
-                + " " + PDFUtil.fixedPrecision(y) + " "
-                + PDFUtil.fixedPrecision(k) + " K");
+        operands().append(c).append(' ').append(m).append(' ').append(y)
+                .append(' ').append(k);
+        operator(" K");
     }
 
     //
@@ -591,20 +646,24 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     }
 
     /**
-     * returns the decode-format for an image -format
+     * returns the decode-format for image bytes
      *
-     * @param encode {@link ImageConstants#ZLIB} or {@link ImageConstants#JPG}
+     * @param bytes encoded as {@link ImageConstants#ZLIB} or {@link ImageConstants#JPG},
+     *        binary or ASCII85
      * @return {@link #decodeFilters(String[])}
      */
-    private PDFName[] getFilterName(String encode) {
+    private PDFName[] getFilterName(ImageBytes bytes) throws IOException {
+        String encode = bytes.getFormat();
         if (ImageConstants.ZLIB.equals(encode)) {
-            return decodeFilters(new String[] {
+            return decodeFilters(bytes.isBinary() ? new String[] {
+                ImageConstants.ENCODING_FLATE} : new String[] {
                 ImageConstants.ENCODING_FLATE,
                 ImageConstants.ENCODING_ASCII85});
         }
 
         if (ImageConstants.JPG.equals(encode)) {
-            return decodeFilters(new String[] {
+            return decodeFilters(bytes.isBinary() ? new String[] {
+                ImageConstants.ENCODING_DCT} : new String[] {
                 ImageConstants.ENCODING_DCT,
                 ImageConstants.ENCODING_ASCII85});
         }
@@ -624,26 +683,40 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     public void image(RenderedImage image, Color bkg, String encode)
             throws IOException {
 
-        ImageBytes bytes = new ImageBytes(image, bkg, encode, ImageConstants.COLOR_MODEL_RGB);
+        image(image, new ImageBytes(image, bkg, encode,
+                ImageConstants.COLOR_MODEL_RGB, pdf.isBinary(),
+                new ImageEncoderPool(null)));
+    }
 
+    /**
+     * Writes the image using bytes which may still be being encoded.
+     */
+    void image(RenderedImage image, ImageBytes bytes) throws IOException {
         entry("Width", image.getWidth());
         entry("Height", image.getHeight());
         entry("ColorSpace", pdf.name("DeviceRGB"));
         entry("BitsPerComponent", 8);
-        entry("Filter", getFilterName(bytes.getFormat()));
+        entry("Filter", getFilterName(bytes));
         write(bytes.getBytes());
     }
 
     public void imageMask(RenderedImage image, String encode)
             throws IOException {
 
-        ImageBytes bytes = new ImageBytes(image, null, encode, ImageConstants.COLOR_MODEL_A);
+        imageMask(image, new ImageBytes(image, null, encode,
+                ImageConstants.COLOR_MODEL_A, pdf.isBinary(),
+                new ImageEncoderPool(null)));
+    }
 
+    /**
+     * Writes the mask using bytes which may still be being encoded.
+     */
+    void imageMask(RenderedImage image, ImageBytes bytes) throws IOException {
         entry("Width", image.getWidth());
         entry("Height", image.getHeight());
         entry("BitsPerComponent", 8);
         entry("ColorSpace", pdf.name("DeviceGray"));
-        entry("Filter", getFilterName(bytes.getFormat()));
+        entry("Filter", getFilterName(bytes));
         write(bytes.getBytes());
     }
 
@@ -661,6 +734,7 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
     public void inlineImage(RenderedImage image, Color bkg, String encode)
             throws IOException {
 
+        // inline data stays ASCII85 encoded, so that EI cannot occur in it
         ImageBytes bytes = new ImageBytes(image, bkg, ImageConstants.JPG, ImageConstants.COLOR_MODEL_RGB);
 
         println("BI");
@@ -669,7 +743,7 @@ public class PDFStream extends PDFDictionary implements PDFConstants {
         imageInfo("ColorSpace", pdf.name("DeviceRGB"));
         imageInfo("BitsPerComponent", 8);
 
-        imageInfo("Filter", getFilterName(bytes.getFormat()));
+        imageInfo("Filter", getFilterName(bytes));
         print("ID\n");
 
         write(bytes.getBytes());
@@ -2,14 +2,17 @@
 package org.freehep.graphicsio.pdf;
 
 import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
-import org.freehep.util.ScientificFormat;
+import org.freehep.util.FixedPrecisionEncoder;
 
 /**
  * Utility functions for the PDFWriter. This class handles escaping of strings,
  * formatting of dates, ...
  * <p>
+ * All methods may be called concurrently from different threads.
+ * <p>
  * 
  * @author Mark Donszelmann
  * @version $Id: freehep-graphicsio-pdf/src/main/java/org/freehep/graphicsio/pdf/PDFUtil.java f493ff6e61b2 2005/12/01 18:46:43 duns $
@@ -57,14 +60,28 @@ public class PDFUtil implements PDFConstants {
                 tz = "-" + fmt.format(tzh) + "'" + fmt.format(tzm) + "'";
             }
         }
-        return "(D:" + dateFormat.format(date.getTime()) + tz + ")";
+        // dateFormat is shared and SimpleDateFormat is not thread safe
+        SimpleDateFormat fmt = new SimpleDateFormat(dateFormat.toPattern());
+        return "(D:" + fmt.format(date.getTime()) + tz + ")";
     }
 
-    private static final ScientificFormat scientific = new ScientificFormat(5,
-            100, false);
+    // one encoder per thread, as encoders are not thread safe
+    private static final ThreadLocal<FixedPrecisionEncoder> encoder = new ThreadLocal<FixedPrecisionEncoder>() {
+        protected FixedPrecisionEncoder initialValue() {
+            return createFixedPrecisionEncoder();
+        }
+    };
 
     public static String fixedPrecision(double v) {
-        return scientific.format(v);
+        return encoder.get().format(v);
+    }
+
+    /**
+     * @return a new encoder writing numbers in the same format as
+     *         {@link #fixedPrecision(double)}.
+     */
+    public static FixedPrecisionEncoder createFixedPrecisionEncoder() {
+        return FixedPrecisionEncoder.createSignificant(5, 100);
     }
 
 }
@@ -1,8 +1,13 @@
 // Copyright 2000-2005 FreeHEP
 package org.freehep.graphicsio.pdf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.freehep.util.io.FlateOutputStream;
 
 /**
  * This class creates a PDF file/stream. It keeps track of all logical PDF
@@ -12,6 +17,10 @@ import java.io.OutputStream;
  * This class takes care of wrapping both PDFStreams and PDFDictionaries into
  * PDFObjects.
  * <p>
+ * Optionally (PDF 1.5) all objects which are not streams are packed into
+ * compressed object streams, and the cross-reference table is written as a
+ * compressed cross-reference stream.
+ * <p>
  * 
  * @author Mark Donszelmann
  * @version $Id: freehep-graphicsio-pdf/src/main/java/org/freehep/graphicsio/pdf/PDFWriter.java f493ff6e61b2 2005/12/01 18:46:43 duns $
@@ -20,12 +29,49 @@ public class PDFWriter extends PDF implements PDFConstants {
 
     private String open = null;
 
+    // maximum number of objects in one object stream, a reader has to decode
+    // the complete stream to get to one of them
+    private static final int OBJECTS_PER_STREAM = 100;
+
+    private static final String objectStreamPrefix = "PDF_ObjStm";
+
+    private static final String xrefStreamName = "PDF_XRefStm";
+
+    private boolean objectStreams;
+
+    private ByteArrayOutputStream objectStreamBytes;
+
+    private PDFByteWriter objectStream;
+
+    // object numbers and offsets of the objects in the current object stream
+    private List<int[]> objectStreamEntries;
+
+    private int objectStreamCount = 0;
+
     public PDFWriter(OutputStream out) throws IOException {
         this(out, "1.3");
     }
 
     public PDFWriter(OutputStream writer, String version) throws IOException {
+        this(writer, version, false);
+    }
+
+    /**
+     * @param objectStreams pack all objects but streams into compressed object
+     *        streams and write a cross-reference stream, requires version 1.5
+     *        or higher
+     */
+    public PDFWriter(OutputStream writer, String version, boolean objectStreams)
+            throws IOException {
         super(new PDFByteWriter(writer));
+        this.objectStreams = objectStreams;
+        if (objectStreams) {
+            objectStreamEntries = new ArrayList<int[]>();
+            if (version.compareTo("1.5") < 0) {
+                System.err.println("PDFWriter: object streams need PDF 1.5, not "
+                        + version);
+            }
+        }
 
         // PDF version
         out.println("%PDF-" + version);
@@ -44,14 +90,26 @@ public class PDFWriter extends PDF implements PDFConstants {
             throws IOException {
         // FIXME, check for dangling references
 
-        xref();
-        trailer(catalogName, docInfoName);
+        if (objectStreams) {
+            closeObjectStream();
+            xrefStream(xrefStreamName, catalogName, docInfoName);
+        } else {
+            xref();
+            trailer(catalogName, docInfoName);
+        }
         startxref();
         out.printPlain("%%EOF");
         out.println();
         out.close();
     }
 
+    /**
+     * Passes all complete objects on to the underlying output stream.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
     public void comment(String comment) throws IOException {
         out.println("% " + comment);
     }
@@ -68,13 +126,57 @@ public class PDFWriter extends PDF implements PDFConstants {
         close(object);
     }
 
+    public void object(String name, long number) throws IOException {
+        PDFObject object = openObject(name);
+        object.entry(number);
+        close(object);
+    }
+
     // public void object(String name, String string) throws IOException {
     // PDFObject object = openObject(name);
     // object.entry(string);
     // close(object);
     // }
 
+    /**
+     * Opens an object, which is stored in an object stream if object streams
+     * are enabled. Use only for objects which are not streams.
+     */
     public PDFObject openObject(String name) throws IOException {
+        if (!objectStreams) {
+            return openDirectObject(name);
+        }
+
+        if (open != null)
+            System.err
+                    .println("PDFWriter error: '" + open + "' was not closed");
+        open = "PDFObject: " + name;
+
+        if (objectStreamEntries.size() >= OBJECTS_PER_STREAM) {
+            closeObjectStream();
+        }
+        if (objectStream == null) {
+            objectStreamBytes = new ByteArrayOutputStream();
+            objectStream = new PDFByteWriter(objectStreamBytes);
+        }
+
+        PDFRef ref = ref(name);
+        int objectNumber = ref.getObjectNumber();
+
+        setCompressedXRef(objectNumber, ref(
+                objectStreamPrefix + objectStreamCount).getObjectNumber(),
+                objectStreamEntries.size());
+        objectStreamEntries.add(new int[] { objectNumber,
+                (int) objectStream.getCount() });
+        PDFObject obj = new PDFObject(this, objectStream);
+        return obj;
+    }
+
+    /**
+     * Opens an object which is written directly to the file, never in an
+     * object stream.
+     */
+    private PDFObject openDirectObject(String name) throws IOException {
         // FIXME: check if name was already written!
         if (open != null)
             System.err
@@ -90,6 +192,46 @@ public class PDFWriter extends PDF implements PDFConstants {
         return obj;
     }
 
+    /**
+     * Writes the current object stream, if any objects were stored in it.
+     */
+    private void closeObjectStream() throws IOException {
+        if (objectStreamEntries.isEmpty()) {
+            return;
+        }
+
+        StringBuffer header = new StringBuffer();
+        for (int i = 0; i < objectStreamEntries.size(); i++) {
+            int[] entry = objectStreamEntries.get(i);
+            if (i != 0)
+                header.append(" ");
+            header.append(entry[0]);
+            header.append(" ");
+            header.append(entry[1]);
+        }
+        header.append(EOL);
+        byte[] first = header.toString().getBytes("ISO-8859-1");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FlateOutputStream flate = new FlateOutputStream(bytes);
+        flate.write(first);
+        objectStreamBytes.writeTo(flate);
+        flate.finish();
+
+        PDFDictionary dictionary = openEncodedStream(ref(objectStreamPrefix
+                + objectStreamCount));
+        dictionary.entry("Type", name("ObjStm"));
+        dictionary.entry("N", objectStreamEntries.size());
+        dictionary.entry("First", first.length);
+        dictionary.entry("Filter", name("FlateDecode"));
+        closeEncodedStream(dictionary, bytes.toByteArray());
+
+        objectStreamCount++;
+        objectStreamEntries.clear();
+        objectStream = null;
+        objectStreamBytes = null;
+    }
+
     public void close(PDFObject object) throws IOException {
         object.close();
         open = null;
@@ -114,7 +256,7 @@ public class PDFWriter extends PDF implements PDFConstants {
 
     public PDFStream openStream(String name, String[] encode)
             throws IOException {
-        PDFObject object = openObject(name);
+        PDFObject object = openDirectObject(name);
         PDFStream stream = object.openStream(name, encode);
         stream.entry("Length", ref(name + lengthSuffix));
         return stream;
@@ -126,6 +268,27 @@ public class PDFWriter extends PDF implements PDFConstants {
         object(stream.getName() + lengthSuffix, stream.getLength());
     }
 
+    /**
+     * Closes the current part of the stream and writes its length, so that
+     * other objects can be written before the content is continued by
+     * {@link #resume(PDFStream, String)}.
+     */
+    public void suspend(PDFStream stream) throws IOException {
+        stream.suspend();
+        open = null;
+        object(stream.getName() + lengthSuffix, stream.getLength());
+    }
+
+    /**
+     * Continues a suspended stream in a new stream object with the given
+     * name. All parts need to be listed, in order, by the referring object.
+     */
+    public void resume(PDFStream stream, String name) throws IOException {
+        PDFObject object = openDirectObject(name);
+        stream.resume(name, object);
+        stream.entry("Length", ref(name + lengthSuffix));
+    }
+
     //
     // high level interface
     //
@@ -0,0 +1,150 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.FontConstants;
+import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.pdf.PDFGraphics2D;
+
+/**
+ * Checks the BINARY property of PDFGraphics2D: no stream is ASCII85 encoded,
+ * and images and fonts decode with their declared filters to the same data
+ * as in ASCII output.
+ *
+ * @version $Id$
+ */
+public class PDFBinaryTest extends TestCase {
+
+    private static PDFReader write(boolean binary, String writeImagesAs,
+            String embedFontsAs) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFGraphics2D g = new PDFGraphics2D(out, new Dimension(200, 200));
+        Properties properties = new Properties();
+        properties.setProperty(PDFGraphics2D.BINARY, Boolean.toString(binary));
+        properties.setProperty(PDFGraphics2D.WRITE_IMAGES_AS, writeImagesAs);
+        properties.setProperty(PDFGraphics2D.EMBED_FONTS_AS, embedFontsAs);
+        g.setProperties(properties);
+        g.startExport();
+
+        BufferedImage image = new BufferedImage(32, 16,
+                BufferedImage.TYPE_INT_RGB);
+        BufferedImage transparent = new BufferedImage(16, 16,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 16; y++) {
+                image.setRGB(x, y, (x * 16) << 16 | (y * 16) << 8);
+                image.setRGB(x + 16, y, 0x0000ff);
+                transparent.setRGB(x, y, (x * 16) << 24 | 0xff0000);
+            }
+        }
+        g.drawImage(image, 20, 20, null);
+        g.drawImage(transparent, 100, 20, null);
+
+        Map<TextAttribute, Object> font = new HashMap<TextAttribute, Object>();
+        font.put(TextAttribute.FAMILY, "Serif");
+        font.put(TextAttribute.SIZE, new Float(12));
+        font.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_REGULAR);
+        font.put(TextAttribute.POSTURE, TextAttribute.POSTURE_REGULAR);
+        font.put(TextAttribute.TRACKING, new Float(0));
+        g.setColor(Color.BLACK);
+        g.drawString(new AttributedString("Binary output", font)
+                .getIterator(), 20, 150);
+        g.endExport();
+        return new PDFReader(out.toByteArray());
+    }
+
+    private static boolean isEncoded(PDFReader pdf) throws Exception {
+        for (int i = 1; i < pdf.getSize(); i++) {
+            if (pdf.isStream(i)
+                    && Arrays.asList(PDFReader.getFilters(pdf.getObject(i)))
+                            .contains("ASCII85Decode")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes every stream, checks images and fonts, and returns their
+     * decoded data.
+     */
+    private static List<String> decode(PDFReader pdf) throws Exception {
+        List<String> result = new ArrayList<String>();
+        int images = 0;
+        int fonts = 0;
+        for (int i = 1; i < pdf.getSize(); i++) {
+            if (!pdf.isStream(i)) {
+                continue;
+            }
+            String dictionary = pdf.getObject(i);
+            byte[] data = pdf.getStream(i);
+            if (dictionary.indexOf("/Subtype /Image") >= 0) {
+                int width = PDFReader.getNumber(dictionary, "Width");
+                int height = PDFReader.getNumber(dictionary, "Height");
+                if (Arrays.asList(PDFReader.getFilters(dictionary)).contains(
+                        "DCTDecode")) {
+                    BufferedImage image = ImageIO
+                            .read(new ByteArrayInputStream(data));
+                    assertEquals(width, image.getWidth());
+                    assertEquals(height, image.getHeight());
+                } else {
+                    int components = (dictionary
+                            .indexOf("/DeviceGray") >= 0) ? 1 : 3;
+                    assertEquals(width * height * components, data.length);
+                }
+                images++;
+            } else if (dictionary.indexOf("/Length1") >= 0) {
+                // type 1 font program
+                assertEquals(PDFReader.getNumber(dictionary, "Length1")
+                        + PDFReader.getNumber(dictionary, "Length2"),
+                        data.length);
+                assertTrue(new String(data, "ISO-8859-1").startsWith("%!"));
+                fonts++;
+            } else if (new String(data, "ISO-8859-1").indexOf(" d1") >= 0) {
+                // type 3 glyph
+                fonts++;
+            } else {
+                continue;
+            }
+            result.add(new String(data, "ISO-8859-1"));
+        }
+        // the image, the transparent image and its mask
+        assertEquals(3, images);
+        assertTrue(fonts > 0);
+        return result;
+    }
+
+    private static void check(String writeImagesAs, String embedFontsAs)
+            throws Exception {
+        PDFReader binary = write(true, writeImagesAs, embedFontsAs);
+        PDFReader ascii = write(false, writeImagesAs, embedFontsAs);
+        assertFalse(isEncoded(binary));
+        assertTrue(isEncoded(ascii));
+        assertEquals(decode(ascii), decode(binary));
+    }
+
+    public void testZlibType3() throws Exception {
+        check(ImageConstants.ZLIB, FontConstants.EMBED_FONTS_TYPE3);
+    }
+
+    public void testJPGType1() throws Exception {
+        check(ImageConstants.JPG, FontConstants.EMBED_FONTS_TYPE1);
+    }
+}
@@ -0,0 +1,157 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.StringTokenizer;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.pdf.PDFCatalog;
+import org.freehep.graphicsio.pdf.PDFPage;
+import org.freehep.graphicsio.pdf.PDFPageTree;
+import org.freehep.graphicsio.pdf.PDFStream;
+import org.freehep.graphicsio.pdf.PDFWriter;
+
+/**
+ * Writes a document larger than 2 GB and checks its cross-reference table.
+ * The bulk of the document is a content stream of NUL characters (white
+ * space in PDF), which is not written but skipped, so the file is sparse on
+ * file systems which support it.
+ *
+ * @version $Id$
+ */
+public class PDFLargeFileTest extends TestCase {
+
+    private static final long SIZE = Integer.MAX_VALUE + (64L << 20);
+
+    private static final int CHUNK = 1 << 20;
+
+    /**
+     * Writes to a file, but skips blocks of zeros rather than writing them.
+     */
+    private static class SparseFileOutputStream extends OutputStream {
+
+        private RandomAccessFile file;
+
+        private long position;
+
+        SparseFileOutputStream(File file) throws IOException {
+            this.file = new RandomAccessFile(file, "rw");
+            this.file.setLength(0);
+        }
+
+        public void write(int b) throws IOException {
+            file.seek(position);
+            file.write(b);
+            position++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] != 0) {
+                    file.seek(position);
+                    file.write(b, off, len);
+                    break;
+                }
+            }
+            position += len;
+        }
+
+        public void close() throws IOException {
+            if (file != null) {
+                file.setLength(position);
+                file.close();
+                file = null;
+            }
+        }
+    }
+
+    public void testLargeFile() throws IOException {
+        File file = File.createTempFile("PDFLargeFileTest", ".pdf");
+        try {
+            write(file);
+            assertTrue(file.length() > SIZE);
+            check(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void write(File file) throws IOException {
+        PDFWriter pdf = new PDFWriter(new SparseFileOutputStream(file));
+
+        PDFCatalog catalog = pdf.openCatalog("Catalog", "RootPage");
+        pdf.close(catalog);
+
+        PDFPageTree pages = pdf.openPageTree("RootPage", null);
+        pages.addPage("Page1");
+        pages.setMediaBox(0, 0, 100, 100);
+        pdf.close(pages);
+
+        PDFStream content = pdf.openStream("PageContents");
+        char[] nul = new char[CHUNK];
+        String chunk = new String(nul);
+        for (long n = 0; n < SIZE; n += CHUNK) {
+            content.print(chunk);
+        }
+        pdf.close(content);
+        assertTrue(content.getLength() >= SIZE);
+
+        PDFPage page = pdf.openPage("Page1", "RootPage");
+        page.setContents("PageContents");
+        pdf.close(page);
+
+        pdf.close();
+    }
+
+    private void check(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            // startxref
+            String tail = read(in, in.length() - 64, 64);
+            int index = tail.lastIndexOf("startxref");
+            assertTrue("startxref missing", index >= 0);
+            StringTokenizer st = new StringTokenizer(tail.substring(index
+                    + "startxref".length()));
+            long xref = Long.parseLong(st.nextToken());
+            assertTrue("xref beyond 2 GB", xref > Integer.MAX_VALUE);
+
+            // xref header
+            in.seek(xref);
+            assertEquals("xref", in.readLine());
+            st = new StringTokenizer(in.readLine());
+            assertEquals(0, Integer.parseInt(st.nextToken()));
+            int size = Integer.parseInt(st.nextToken());
+            assertTrue(size > 5);
+
+            // every entry points to its object
+            long entries = in.getFilePointer();
+            long[] offsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                String entry = read(in, entries + i * 20, 20);
+                offsets[i] = Long.parseLong(entry.substring(0, 10));
+            }
+            boolean beyond = false;
+            for (int i = 1; i < size; i++) {
+                String object = read(in, offsets[i], 20);
+                assertTrue("object " + i + " not at " + offsets[i], object
+                        .startsWith(i + " 0 obj"));
+                beyond |= offsets[i] > Integer.MAX_VALUE;
+            }
+            assertTrue("no object beyond 2 GB", beyond);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String read(RandomAccessFile in, long offset, int length)
+            throws IOException {
+        byte[] b = new byte[length];
+        in.seek(offset);
+        in.readFully(b);
+        return new String(b, "ISO-8859-1");
+    }
+}
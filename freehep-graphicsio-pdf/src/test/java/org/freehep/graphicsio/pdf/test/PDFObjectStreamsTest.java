@@ -0,0 +1,120 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.text.AttributedString;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.pdf.PDFGraphics2D;
+
+/**
+ * Checks the cross-reference stream and the object streams written with the
+ * OBJECT_STREAMS property of PDFGraphics2D.
+ *
+ * @version $Id$
+ */
+public class PDFObjectStreamsTest extends TestCase {
+
+    // enough pages for several object streams
+    private static final int PAGES = 40;
+
+    private static PDFReader write() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFGraphics2D g = new PDFGraphics2D(out, new Dimension(200, 200));
+        Properties properties = new Properties();
+        properties.setProperty(PDFGraphics2D.OBJECT_STREAMS, "true");
+        g.setProperties(properties);
+        g.setMultiPage(true);
+        g.startExport();
+
+        Map<TextAttribute, Object> font = new HashMap<TextAttribute, Object>();
+        font.put(TextAttribute.FAMILY, "Serif");
+        font.put(TextAttribute.SIZE, new Float(12));
+        font.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_REGULAR);
+        font.put(TextAttribute.POSTURE, TextAttribute.POSTURE_REGULAR);
+        font.put(TextAttribute.TRACKING, new Float(0));
+
+        for (int i = 0; i < PAGES; i++) {
+            g.openPage(new Dimension(200, 200), "Page " + i);
+            g.setPaint(new GradientPaint(0, 0, Color.RED, 0, 10 + i,
+                    Color.BLUE));
+            g.fillRect(10, 10, 50, 50);
+            BufferedImage image = new BufferedImage(8, 8,
+                    BufferedImage.TYPE_INT_RGB);
+            image.setRGB(i % 8, i / 8, 0x00ff00);
+            g.drawImage(image, 100, 100, null);
+            g.setColor(Color.BLACK);
+            g.drawString(new AttributedString("page " + i, font)
+                    .getIterator(), 20, 150);
+            g.closePage();
+        }
+        g.endExport();
+        return new PDFReader(out.toByteArray());
+    }
+
+    public void testXRefStream() throws Exception {
+        PDFReader pdf = write();
+        assertTrue(pdf.isXRefStream());
+        assertEquals(pdf.getSize(), PDFReader.getNumber(pdf.getTrailer(),
+                "Size"));
+
+        int objectStreams = 0;
+        StringBuffer objects = new StringBuffer();
+        for (int i = 1; i < pdf.getSize(); i++) {
+            switch (pdf.getType(i)) {
+            case 1:
+                // points to the object
+                String object = pdf.getText().substring(
+                        (int) pdf.getOffset(i));
+                assertTrue("object " + i + " not at " + pdf.getOffset(i),
+                        object.startsWith(i + " 0 obj"));
+                objects.append(pdf.getObject(i));
+                if (pdf.getObject(i).indexOf("/Type /ObjStm") >= 0) {
+                    objectStreams++;
+                }
+                break;
+            case 2:
+                // resolves inside its object stream
+                int stream = pdf.getObjectStream(i);
+                assertEquals(1, pdf.getType(stream));
+                String dictionary = pdf.getObject(stream);
+                assertTrue(dictionary.indexOf("/Type /ObjStm") >= 0);
+                int n = PDFReader.getNumber(dictionary, "N");
+                int first = PDFReader.getNumber(dictionary, "First");
+                int[] header = pdf.getObjectStreamHeader(stream);
+                int index = pdf.getIndex(i);
+                assertTrue("index " + index + " of object " + i, index < n);
+                assertEquals(i, header[2 * index]);
+                assertTrue(first + header[2 * index + 1] < pdf
+                        .getStream(stream).length);
+                assertTrue("object " + i + " empty", pdf.getObject(i)
+                        .trim().length() > 0);
+                objects.append(pdf.getObject(i));
+                break;
+            default:
+                fail("object " + i + " is not defined");
+            }
+        }
+        assertTrue("only " + objectStreams + " object streams",
+                objectStreams > 1);
+
+        // every reference is defined
+        Matcher m = Pattern.compile("(\\d+) 0 R").matcher(objects);
+        while (m.find()) {
+            int reference = Integer.parseInt(m.group(1));
+            assertTrue(reference < pdf.getSize());
+            assertTrue(pdf.getType(reference) != 0);
+        }
+    }
+}
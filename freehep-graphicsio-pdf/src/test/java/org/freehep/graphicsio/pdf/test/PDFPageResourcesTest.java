@@ -0,0 +1,116 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.text.AttributedString;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.pdf.PDFGraphics2D;
+
+/**
+ * Checks the PAGE_RESOURCES property of PDFGraphics2D.
+ *
+ * @version $Id$
+ */
+public class PDFPageResourcesTest extends TestCase {
+
+    private static final int PAGES = 3;
+
+    private static String write(boolean pageResources) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFGraphics2D g = new PDFGraphics2D(out, new Dimension(200, 200));
+        Properties properties = new Properties();
+        properties.setProperty(PDFGraphics2D.COMPRESS, "false");
+        properties.setProperty(PDFGraphics2D.PAGE_RESOURCES, Boolean
+                .toString(pageResources));
+        g.setProperties(properties);
+        g.setMultiPage(true);
+        g.startExport();
+
+        Map<TextAttribute, Object> font = new HashMap<TextAttribute, Object>();
+        font.put(TextAttribute.FAMILY, "Serif");
+        font.put(TextAttribute.SIZE, new Float(12));
+        font.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_REGULAR);
+        font.put(TextAttribute.POSTURE, TextAttribute.POSTURE_REGULAR);
+        font.put(TextAttribute.TRACKING, new Float(0));
+
+        BufferedImage logo = new BufferedImage(8, 8,
+                BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < PAGES; i++) {
+            g.openPage(new Dimension(200, 200), "Page " + i);
+            g.setPaint(new GradientPaint(0, 0, Color.RED, 0, 10 + i,
+                    Color.BLUE));
+            g.fillRect(10, 10, 50, 50);
+            g.setPaint(new GradientPaint(0, 0, Color.GREEN, 0, 10,
+                    Color.BLUE));
+            g.fillRect(60, 10, 50, 50);
+            g.setColor(new Color(0, 0, 255, 100 + i));
+            g.fillRect(20, 20, 50, 50);
+            g.drawImage(logo, 100, 100, null);
+            g.drawString(new AttributedString("page " + i, font)
+                    .getIterator(), 20, 150);
+            g.closePage();
+        }
+        g.endExport();
+        return out.toString("ISO-8859-1");
+    }
+
+    private static Set<String> find(String regex, String pdf) {
+        Set<String> result = new HashSet<String>();
+        Matcher m = Pattern.compile(regex).matcher(pdf);
+        while (m.find()) {
+            result.add(m.group(1));
+        }
+        return result;
+    }
+
+    private static int count(String text, String pdf) {
+        int n = 0;
+        for (int i = pdf.indexOf(text); i >= 0; i = pdf.indexOf(text, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static void assertReferencesDefined(String pdf) {
+        Set<String> defined = find("(\\d+) 0 obj", pdf);
+        Set<String> referenced = find("(\\d+) 0 R", pdf);
+        referenced.removeAll(defined);
+        assertTrue("undefined objects " + referenced, referenced.isEmpty());
+    }
+
+    public void testSharedResources() throws Exception {
+        String pdf = write(false);
+        assertReferencesDefined(pdf);
+        assertEquals(1, find("/Resources (\\d+) 0 R", pdf).size());
+    }
+
+    public void testPageResources() throws Exception {
+        String pdf = write(true);
+        assertReferencesDefined(pdf);
+        assertEquals(PAGES, find("/Resources (\\d+) 0 R", pdf).size());
+
+        // every page lists its own gradient and alpha, and the shared
+        // gradient, image and font, which are written once
+        assertEquals(PAGES + 1, find("/(Paint\\d+) \\d+ 0 R", pdf).size());
+        assertEquals(PAGES + 1, count("/Type /Pattern\n", pdf));
+        assertEquals(PAGES, find("/Pattern\\s*<<\\s*/(Paint\\d+)", pdf)
+                .size());
+        assertEquals(1, find("/(Img\\d+) \\d+ 0 R", pdf).size());
+        assertEquals(1, find("/Serif.plain (\\d+) 0 R", pdf).size());
+        assertEquals(1, count("/Type /Font\n", pdf));
+    }
+}
@@ -0,0 +1,320 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.InflaterInputStream;
+
+import org.freehep.util.io.ASCII85InputStream;
+
+/**
+ * Reads just enough of the files written by PDFWriter for the tests: the
+ * cross-reference table or stream, the text of objects, also of objects
+ * stored in object streams, and the data of streams, decoded with their
+ * filters.
+ *
+ * @version $Id$
+ */
+class PDFReader {
+
+    private static final Pattern LENGTH = Pattern
+            .compile("/Length (\\d+)( (\\d+) R)?");
+
+    private static final Pattern FILTER = Pattern
+            .compile("/Filter\\s*(\\[([^\\]]*)\\]|/\\w+)");
+
+    private byte[] bytes;
+
+    private String text;
+
+    private boolean xrefStream;
+
+    private String trailer;
+
+    // type, second and third field of every cross-reference entry
+    private int[] types;
+
+    private long[] fields2;
+
+    private int[] fields3;
+
+    PDFReader(byte[] bytes) throws IOException {
+        this.bytes = bytes;
+        text = new String(bytes, "ISO-8859-1");
+
+        int index = text.lastIndexOf("startxref");
+        if (index < 0) {
+            throw new IOException("startxref missing");
+        }
+        int start = Integer.parseInt(new StringTokenizer(text
+                .substring(index + "startxref".length())).nextToken());
+        if (text.startsWith("xref", start)) {
+            readXRefTable(start);
+        } else {
+            readXRefStream(start);
+        }
+    }
+
+    private void readXRefTable(int start) throws IOException {
+        int end = text.indexOf("trailer", start);
+        trailer = text.substring(end, text.indexOf("startxref", end));
+        StringTokenizer st = new StringTokenizer(text.substring(start
+                + "xref".length(), end));
+        st.nextToken();
+        int size = Integer.parseInt(st.nextToken());
+        types = new int[size];
+        fields2 = new long[size];
+        fields3 = new int[size];
+        for (int i = 0; i < size; i++) {
+            fields2[i] = Long.parseLong(st.nextToken());
+            fields3[i] = Integer.parseInt(st.nextToken());
+            types[i] = st.nextToken().equals("n") ? 1 : 0;
+        }
+    }
+
+    private void readXRefStream(int start) throws IOException {
+        xrefStream = true;
+        trailer = getDictionary(start);
+        if (trailer.indexOf("/Type /XRef") < 0) {
+            throw new IOException("no cross-reference stream at " + start);
+        }
+        int[] widths = getNumbers(trailer, "W");
+        int size = getNumber(trailer, "Size");
+        byte[] table = decode(trailer, getRawStream(start));
+        if (table.length != size * (widths[0] + widths[1] + widths[2])) {
+            throw new IOException("cross-reference stream of "
+                    + table.length + " bytes for " + size + " entries");
+        }
+        types = new int[size];
+        fields2 = new long[size];
+        fields3 = new int[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            types[i] = (widths[0] == 0) ? 1 : (int) field(table, n,
+                    widths[0]);
+            n += widths[0];
+            fields2[i] = field(table, n, widths[1]);
+            n += widths[1];
+            fields3[i] = (int) field(table, n, widths[2]);
+            n += widths[2];
+        }
+    }
+
+    private static long field(byte[] table, int offset, int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = (value << 8) | (table[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /** @return true if the file has a cross-reference stream */
+    boolean isXRefStream() {
+        return xrefStream;
+    }
+
+    /** @return the trailer, or the dictionary of the cross-reference stream */
+    String getTrailer() {
+        return trailer;
+    }
+
+    /** @return the number of cross-reference entries */
+    int getSize() {
+        return types.length;
+    }
+
+    /**
+     * @return 0 for free objects, 1 for objects in the file and 2 for objects
+     *         in object streams
+     */
+    int getType(int objectNumber) {
+        return types[objectNumber];
+    }
+
+    /** @return the offset of an object of type 1 */
+    long getOffset(int objectNumber) {
+        return fields2[objectNumber];
+    }
+
+    /** @return the object stream of an object of type 2 */
+    int getObjectStream(int objectNumber) {
+        return (int) fields2[objectNumber];
+    }
+
+    /** @return the index in its object stream of an object of type 2 */
+    int getIndex(int objectNumber) {
+        return fields3[objectNumber];
+    }
+
+    /** @return the file as text, one character per byte */
+    String getText() {
+        return text;
+    }
+
+    /**
+     * @return the text of an object, for objects in the file from
+     *         <tt>obj</tt> up to their stream data or <tt>endobj</tt>.
+     */
+    String getObject(int objectNumber) throws IOException {
+        switch (types[objectNumber]) {
+        case 1:
+            return getDictionary((int) fields2[objectNumber]);
+        case 2:
+            int stream = getObjectStream(objectNumber);
+            String objects = new String(getStream(stream), "ISO-8859-1");
+            int[] header = getObjectStreamHeader(stream);
+            int index = getIndex(objectNumber);
+            if (header[2 * index] != objectNumber) {
+                throw new IOException("object " + objectNumber
+                        + " not at index " + index + " of object stream "
+                        + stream);
+            }
+            int first = getNumber(getObject(stream), "First");
+            int end = (2 * index + 3 < header.length) ? first
+                    + header[2 * index + 3] : objects.length();
+            return objects.substring(first + header[2 * index + 1], end);
+        default:
+            throw new IOException("object " + objectNumber + " is free");
+        }
+    }
+
+    /**
+     * @return the pairs of object number and offset at the start of an
+     *         object stream.
+     */
+    int[] getObjectStreamHeader(int objectNumber) throws IOException {
+        String dictionary = getObject(objectNumber);
+        int n = getNumber(dictionary, "N");
+        String header = new String(getStream(objectNumber), 0, getNumber(
+                dictionary, "First"), "ISO-8859-1");
+        StringTokenizer st = new StringTokenizer(header);
+        int[] result = new int[2 * n];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Integer.parseInt(st.nextToken());
+        }
+        return result;
+    }
+
+    /** @return true if the object is a stream */
+    boolean isStream(int objectNumber) {
+        if (types[objectNumber] != 1) {
+            return false;
+        }
+        int start = (int) fields2[objectNumber];
+        return text.startsWith("stream\n", start
+                + getDictionary(start).length());
+    }
+
+    /** @return the data of a stream, decoded with its filters */
+    byte[] getStream(int objectNumber) throws IOException {
+        return decode(getObject(objectNumber),
+                getRawStream((int) fields2[objectNumber]));
+    }
+
+    /** @return the filters of a stream, in the order they are applied */
+    static String[] getFilters(String dictionary) {
+        Matcher m = FILTER.matcher(dictionary);
+        if (!m.find()) {
+            return new String[0];
+        }
+        List<String> filters = new ArrayList<String>();
+        StringTokenizer st = new StringTokenizer((m.group(2) != null) ? m
+                .group(2) : m.group(1), "/ \t\r\n");
+        while (st.hasMoreTokens()) {
+            filters.add(st.nextToken());
+        }
+        return filters.toArray(new String[filters.size()]);
+    }
+
+    static int getNumber(String dictionary, String key) throws IOException {
+        Matcher m = Pattern.compile("/" + key + " (\\d+)").matcher(dictionary);
+        if (!m.find()) {
+            throw new IOException("/" + key + " missing in " + dictionary);
+        }
+        return Integer.parseInt(m.group(1));
+    }
+
+    private static int[] getNumbers(String dictionary, String key)
+            throws IOException {
+        Matcher m = Pattern.compile("/" + key + " \\[([^\\]]*)\\]").matcher(
+                dictionary);
+        if (!m.find()) {
+            throw new IOException("/" + key + " missing in " + dictionary);
+        }
+        StringTokenizer st = new StringTokenizer(m.group(1));
+        int[] result = new int[st.countTokens()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Integer.parseInt(st.nextToken());
+        }
+        return result;
+    }
+
+    private String getDictionary(int start) {
+        int end = text.indexOf("endobj", start);
+        int stream = text.indexOf("stream\n", start);
+        if ((stream >= 0) && (stream < end)) {
+            end = stream;
+        }
+        return text.substring(start, end);
+    }
+
+    private byte[] getRawStream(int start) throws IOException {
+        String dictionary = getDictionary(start);
+        Matcher m = LENGTH.matcher(dictionary);
+        if (!m.find()) {
+            throw new IOException("/Length missing in " + dictionary);
+        }
+        int length;
+        if (m.group(2) != null) {
+            length = Integer.parseInt(new StringTokenizer(getObject(Integer
+                    .parseInt(m.group(1))).replaceFirst(
+                    "^\\s*\\d+ \\d+ obj", "")).nextToken());
+        } else {
+            length = Integer.parseInt(m.group(1));
+        }
+        int data = start + dictionary.length() + "stream\n".length();
+        if (!text.startsWith("endstream", data + length + 1)) {
+            throw new IOException("stream at " + start + " is not "
+                    + length + " bytes long");
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(bytes, data, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Applies the filters to the data, up to the first one which is left to
+     * image decoders, such as DCTDecode.
+     */
+    private static byte[] decode(String dictionary, byte[] data)
+            throws IOException {
+        String[] filters = getFilters(dictionary);
+        for (int i = 0; i < filters.length; i++) {
+            InputStream in = new ByteArrayInputStream(data);
+            if (filters[i].equals("FlateDecode")) {
+                in = new InflaterInputStream(in);
+            } else if (filters[i].equals("ASCII85Decode")) {
+                in = new ASCII85InputStream(in);
+            } else if (filters[i].equals("DCTDecode")) {
+                break;
+            } else {
+                throw new IOException("unknown filter " + filters[i]);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            in.close();
+            data = out.toByteArray();
+        }
+        return data;
+    }
+}
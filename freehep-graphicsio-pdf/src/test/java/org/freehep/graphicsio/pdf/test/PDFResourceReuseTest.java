@@ -0,0 +1,102 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf.test;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.Rectangle;
+import java.awt.TexturePaint;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.pdf.PDFGraphics2D;
+
+/**
+ * Checks that equal paints and graphics states are written as one pattern or
+ * ExtGState dictionary.
+ *
+ * @version $Id$
+ */
+public class PDFResourceReuseTest extends TestCase {
+
+    private static PDFGraphics2D create(ByteArrayOutputStream out) {
+        PDFGraphics2D g = new PDFGraphics2D(out, new Dimension(100, 100));
+        Properties properties = new Properties();
+        properties.setProperty(PDFGraphics2D.COMPRESS, "false");
+        g.setProperties(properties);
+        return g;
+    }
+
+    private static int count(String s, String pattern) {
+        int n = 0;
+        for (int i = s.indexOf(pattern); i >= 0; i = s.indexOf(pattern, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+
+    public void testGradientPaint() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFGraphics2D g = create(out);
+        g.startExport();
+        for (int i = 0; i < 100; i++) {
+            // a new but equal paint every time
+            g.setPaint(new GradientPaint(0, 0, Color.RED, 0, 100, Color.BLUE));
+            g.fillRect(10, i, 80, 1);
+        }
+        g.setPaint(new GradientPaint(0, 0, Color.RED, 0, 100, Color.GREEN));
+        g.fillRect(0, 0, 10, 10);
+        g.translate(5, 5);
+        g.setPaint(new GradientPaint(0, 0, Color.RED, 0, 100, Color.BLUE));
+        g.fillRect(0, 0, 10, 10);
+        g.endExport();
+
+        assertEquals(3, g.getPatternCount());
+        assertEquals(99, g.getReusedPatternCount());
+        assertEquals(3, count(out.toString("ISO-8859-1"), "/PatternType 2"));
+    }
+
+    public void testTexturePaint() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFGraphics2D g = create(out);
+        g.startExport();
+        for (int i = 0; i < 10; i++) {
+            BufferedImage image = new BufferedImage(4, 4,
+                    BufferedImage.TYPE_INT_RGB);
+            image.setRGB(1, 1, 0xff0000);
+            g.setPaint(new TexturePaint(image, new Rectangle(0, 0, 4, 4)));
+            g.fillRect(10, i * 10, 80, 10);
+        }
+        g.endExport();
+
+        assertEquals(1, g.getPatternCount());
+        assertEquals(1, count(out.toString("ISO-8859-1"), "/PatternType 1"));
+    }
+
+    public void testExtGState() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFGraphics2D g = create(out);
+        g.startExport();
+        for (int i = 0; i < 10; i++) {
+            g.setColor(new Color(255, 0, 0, 128));
+            g.fillRect(10, i * 10, 80, 5);
+            g.setColor(Color.BLUE);
+            g.fillRect(10, i * 10 + 5, 80, 5);
+        }
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+                0.5f));
+        g.drawImage(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), 0,
+                0, null);
+        g.endExport();
+
+        String pdf = out.toString("ISO-8859-1");
+        assertEquals(g.getExtGStateCount(), count(pdf, "/AIS false"));
+        assertTrue(g.getReusedExtGStateCount() >= 18);
+        // opaque colors, half transparent red and the composite
+        assertEquals(3, g.getExtGStateCount());
+    }
+}
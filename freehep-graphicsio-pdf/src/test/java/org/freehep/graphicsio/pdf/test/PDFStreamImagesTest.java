@@ -0,0 +1,132 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.pdf.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.pdf.PDFGraphics2D;
+
+/**
+ * Checks the STREAM_IMAGES property of PDFGraphics2D.
+ *
+ * @version $Id$
+ */
+public class PDFStreamImagesTest extends TestCase {
+
+    private static final int PAGES = 3;
+
+    private static final int IMAGES = 2;
+
+    // the images drawn so far
+    private List<WeakReference<BufferedImage>> images =
+            new ArrayList<WeakReference<BufferedImage>>();
+
+    private PDFReader write() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFGraphics2D g = new PDFGraphics2D(out, new Dimension(200, 200));
+        Properties properties = new Properties();
+        properties.setProperty(PDFGraphics2D.STREAM_IMAGES, "true");
+        g.setProperties(properties);
+        g.setMultiPage(true);
+        g.startExport();
+        for (int i = 0; i < PAGES; i++) {
+            g.openPage(new Dimension(200, 200), "Page " + i);
+            for (int j = 0; j < IMAGES; j++) {
+                g.setColor(Color.BLUE);
+                g.fillRect(10, 10 + 40 * j, 30, 30);
+                BufferedImage image = new BufferedImage(16, 16,
+                        BufferedImage.TYPE_INT_RGB);
+                image.setRGB(i, j, 0xff0000);
+                g.drawImage(image, 100, 10 + 40 * j, null);
+                images.add(new WeakReference<BufferedImage>(image));
+            }
+            g.setColor(Color.GREEN);
+            g.fillRect(10, 150, 30, 30);
+            g.closePage();
+            assertReleased();
+        }
+        g.endExport();
+        return new PDFReader(out.toByteArray());
+    }
+
+    /** Checks that the images drawn so far can be garbage collected. */
+    private void assertReleased() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            boolean released = true;
+            for (int j = 0; j < images.size(); j++) {
+                released &= images.get(j).get() == null;
+            }
+            if (released) {
+                return;
+            }
+            System.gc();
+            Thread.sleep(10);
+        }
+        fail("images still referenced");
+    }
+
+    private static int reference(String object, String key) {
+        Matcher m = Pattern.compile("/" + key + " (\\d+) 0 R").matcher(
+                object);
+        assertTrue("/" + key + " missing in " + object, m.find());
+        return Integer.parseInt(m.group(1));
+    }
+
+    public void testStreamImages() throws Exception {
+        PDFReader pdf = write();
+
+        long trailer = pdf.getText().lastIndexOf("startxref");
+        int pages = 0;
+        for (int i = 1; i < pdf.getSize(); i++) {
+            String page = pdf.getObject(i);
+            if (page.indexOf("/Type /Page\n") < 0) {
+                continue;
+            }
+            pages++;
+
+            // the contents are an array of streams
+            int contents = reference(page, "Contents");
+            assertFalse(pdf.isStream(contents));
+            Matcher parts = Pattern.compile("(\\d+) 0 R").matcher(
+                    pdf.getObject(contents));
+            List<Integer> numbers = new ArrayList<Integer>();
+            StringBuffer content = new StringBuffer();
+            while (parts.find()) {
+                int part = Integer.parseInt(parts.group(1));
+                assertTrue(pdf.isStream(part));
+                numbers.add(new Integer(part));
+                content.append(new String(pdf.getStream(part), "ISO-8859-1"));
+            }
+            // one part before every image and one after the last
+            assertEquals(IMAGES + 1, numbers.size());
+
+            // the images are written while the page is written
+            String resources = pdf.getObject(reference(pdf
+                    .getObject(reference(page, "Parent")), "Resources"));
+            String xobjects = pdf.getObject(reference(resources, "XObject"));
+            Matcher names = Pattern.compile("/(Img\\d+) Do").matcher(content);
+            int n = 0;
+            while (names.find()) {
+                long image = pdf.getOffset(reference(xobjects, names
+                        .group(1)));
+                assertTrue(pdf.getOffset(numbers.get(0).intValue()) < image);
+                assertTrue(image < pdf.getOffset(numbers.get(
+                        numbers.size() - 1).intValue()));
+                assertTrue(image < trailer);
+                n++;
+            }
+            assertEquals(IMAGES, n);
+        }
+        assertEquals(PAGES, pages);
+    }
+}
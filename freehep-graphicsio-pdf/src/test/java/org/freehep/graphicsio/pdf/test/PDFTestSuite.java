@@ -1,6 +1,13 @@
 // Copyright 2005, FreeHEP.
 package org.freehep.graphicsio.pdf.test;
 
+import java.util.Properties;
+
+import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.pdf.PDFGraphics2D;
+import org.freehep.graphicsio.test.ConcurrentExportTestCase;
+import org.freehep.graphicsio.test.DisplayListTestCase;
+import org.freehep.graphicsio.test.ImageExecutorTestCase;
 import org.freehep.graphicsio.test.TestSuite;
 
 /**
@@ -28,6 +35,21 @@ public class PDFTestSuite extends TestSuite {
     public static TestSuite suite() {
         PDFTestSuite suite = new PDFTestSuite();
         suite.addTests("PDF");
+        suite.addTest(new ConcurrentExportTestCase(PDFGraphics2D.class.getName()));
+
+        Properties objectStreams = new Properties();
+        objectStreams.setProperty(PDFGraphics2D.OBJECT_STREAMS, "true");
+        suite.addTest(new ConcurrentExportTestCase(PDFGraphics2D.class.getName(), objectStreams));
+
+        Properties binary = new Properties();
+        binary.setProperty(PDFGraphics2D.BINARY, "true");
+        suite.addTest(new ConcurrentExportTestCase(PDFGraphics2D.class.getName(), binary));
+
+        suite.addTest(new ImageExecutorTestCase(PDFGraphics2D.class.getName(), null));
+        Properties smallest = new Properties();
+        smallest.setProperty(PDFGraphics2D.WRITE_IMAGES_AS, ImageConstants.SMALLEST);
+        suite.addTest(new ImageExecutorTestCase(PDFGraphics2D.class.getName(), smallest));
+        suite.addTest(new DisplayListTestCase(PDFGraphics2D.class.getName(), null));
         return suite;
     }
 
@@ -11,13 +11,19 @@ import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.*;
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.freehep.graphics2d.TagString;
 import org.freehep.graphics2d.font.CharTable;
 import org.freehep.graphics2d.font.FontUtilities;
 import org.freehep.graphicsio.*;
-import org.freehep.util.ScientificFormat;
+import org.freehep.util.FixedPrecisionEncoder;
 import org.freehep.util.UserProperties;
 import org.freehep.util.images.ImageUtilities;
 
@@ -77,6 +83,38 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
 
     public static final String PDFMARK_TRANSPARENCY = rootKey + ".PDFMarkTransparency";
 
+    /**
+     * Size in bytes of the buffer between the driver and the output stream.
+     * The output stream is only flushed when the buffer is full or the
+     * document is closed.
+     */
+    public static final String BUFFER_SIZE = rootKey + ".BufferSize";
+
+    /**
+     * Keep the body of the document in a temporary file rather than in
+     * memory until the fonts, which have to precede it, are written at the
+     * end. Images are then encoded as soon as they are drawn, so the memory
+     * needed does not depend on the size of the document.
+     */
+    public static final String TEMP_FILE = rootKey + ".TempFile";
+
+    /**
+     * Paint an image drawn several times on a page from one copy of its
+     * data: the first time it is written inline, from the second time on it
+     * is kept in a reusable stream (level 3) or its encoding is reused (level
+     * 2). Every drawn image is fingerprinted to find the repetitions, which
+     * this property turns off.
+     */
+    public static final String SHARE_IMAGES = rootKey + ".ShareImages";
+
+    /**
+     * Define every distinct image once for the whole document, ahead of the
+     * pages, and paint all its occurrences by reference. Without it images
+     * are shared within a page only. Needs PostScript level 3, ignored
+     * otherwise.
+     */
+    public static final String IMAGE_RESOURCES = rootKey + ".ImageResources";
+
     private static final UserProperties defaultProperties = new UserProperties();
     static {
         defaultProperties.setProperty(BACKGROUND, false);
@@ -104,6 +142,11 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         defaultProperties.setProperty(CLIP, true);
         
         defaultProperties.setProperty(PDFMARK_TRANSPARENCY, false);
+
+        defaultProperties.setProperty(BUFFER_SIZE, 65536);
+        defaultProperties.setProperty(TEMP_FILE, false);
+        defaultProperties.setProperty(SHARE_IMAGES, true);
+        defaultProperties.setProperty(IMAGE_RESOURCES, false);
     }
 
     public static Properties getDefaultProperties() {
@@ -121,15 +164,47 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
 
     // The private writer used for this file.
     protected ByteArrayOutputStream ros;
+
+    // where os writes to, ros or tempFile
+    private OutputStream body;
+
+    // body of the document if TEMP_FILE is set, null otherwise
+    private TempFileBuffer tempFile;
+
+    // images defined for the whole document if IMAGE_RESOURCES is set
+    private ImageCache<ImageData> imageResources;
+
+    // definitions of imageResources, written ahead of the body
+    private OutputStream resources;
+
+    private PrintStream resourcesOs;
     
     protected OutputStream imedRos;
 
+    // buffer of imedRos, resized to BUFFER_SIZE on startExport
+    private OutputBuffer imedBuffer;
+
     protected PrintStream os;
     
     protected PrintStream imedOs;
 
     private int postscriptLevel = LEVEL_3;
 
+    // images written on the current page
+    private ImageCache<ImageData> images;
+
+    // number of images of the current page kept in reusable streams
+    private int reusableImages;
+
+    // procedure names of the symbols defined on the current page, by key
+    private Map<String, String> symbols;
+
+    // encodes images, on the calling thread unless an executor is set
+    private ImageEncoderPool imageEncoderPool = new ImageEncoderPool(null);
+
+    // image data still being encoded, to be inserted into ros in writeTrailer
+    private List<DeferredImageData> deferredImages;
+
     // Location on the page
     private int originX = 0;
     private int originY = 0;
@@ -176,32 +251,154 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
 
         // Now initialize the new object.
         ros = graphics.ros;
+        body = graphics.body;
+        tempFile = graphics.tempFile;
+        imageResources = graphics.imageResources;
+        resources = graphics.resources;
+        resourcesOs = graphics.resourcesOs;
         os = graphics.os;
         fontTable = graphics.fontTable;
         postscriptLevel = graphics.postscriptLevel;
+        images = graphics.images;
+        symbols = graphics.symbols;
+        imageEncoderPool = graphics.imageEncoderPool;
+        deferredImages = graphics.deferredImages;
         originX = graphics.originX;
         originY = graphics.originY;
     }
 
     protected void init(OutputStream outputStream) {
-        imedRos = new BufferedOutputStream(outputStream);
+        imedBuffer = new OutputBuffer(outputStream);
+        imedRos = imedBuffer;
         try {
-          imedOs = new PrintStream(imedRos, true, "ISO-8859-1");
+          imedOs = new PrintStream(imedRos, false, "ISO-8859-1");
         }
         catch (UnsupportedEncodingException ex) {
-          imedOs = new PrintStream(imedRos, true);
+          imedOs = new PrintStream(imedRos, false);
         }
               
+        images = new ImageCache<ImageData>();
+        symbols = new HashMap<String, String>();
+        deferredImages = new ArrayList<DeferredImageData>();
+
         ros = new ByteArrayOutputStream();
+        body = ros;
+        os = createPrintStream(body);
+
+        initProperties(defaultProperties);
+        fontTable = new PSFontTable(imedRos, getFontRenderContext());
+    }
+
+    /**
+     * Buffered stream whose buffer size can be changed after it was created.
+     */
+    private static class OutputBuffer extends BufferedOutputStream {
+
+        private OutputBuffer(OutputStream out) {
+            super(out);
+        }
+
+        private void setBufferSize(int size) throws IOException {
+            if (size < 1) size = 1;
+            if (size != buf.length) {
+                flush();
+                buf = new byte[size];
+            }
+        }
+    }
+
+    /**
+     * Buffers the body of the document in a temporary file, which is deleted
+     * once it is copied to the output.
+     */
+    private static class TempFileBuffer extends OutputStream {
+
+        private File file;
+
+        private OutputStream out;
+
+        private TempFileBuffer() throws IOException {
+            file = File.createTempFile("freehep-ps", ".ps");
+            out = new BufferedOutputStream(new FileOutputStream(file), 65536);
+        }
+
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+
+        /**
+         * Closes the buffer and returns a stream to read it back.
+         */
+        private InputStream read() throws IOException {
+            out.close();
+            return new BufferedInputStream(new FileInputStream(file), 65536);
+        }
+
+        private void delete() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // deleted anyway
+            }
+            file.delete();
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out)
+            throws IOException {
+        byte[] buffer = new byte[65536];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+    }
+
+    private static PrintStream createPrintStream(OutputStream out) {
         try {
-          os = new PrintStream(ros, true, "ISO-8859-1");
+            return new PrintStream(out, false, "ISO-8859-1");
+        } catch (UnsupportedEncodingException ex) {
+            return new PrintStream(out, false);
         }
-        catch (UnsupportedEncodingException ex) {
-          os = new PrintStream(ros, true);
+    }
+
+    public void startExport() {
+        try {
+            imedBuffer.setBufferSize(getPropertyInt(BUFFER_SIZE));
+            if (isProperty(TEMP_FILE)) {
+                tempFile = new TempFileBuffer();
+                body = tempFile;
+                os = createPrintStream(body);
+            }
+            if (isProperty(IMAGE_RESOURCES) && (postscriptLevel >= LEVEL_3)) {
+                imageResources = new ImageCache<ImageData>();
+                resources = isProperty(TEMP_FILE) ? new TempFileBuffer()
+                        : new ByteArrayOutputStream();
+                resourcesOs = createPrintStream(resources);
+            }
+        } catch (IOException e) {
+            handleException(e);
         }
+        super.startExport();
+    }
 
-        initProperties(defaultProperties);
-        fontTable = new PSFontTable(imedRos, getFontRenderContext());
+    /**
+     * @return the stream the body of the document is written to, before it
+     *         is copied to the output in writeTrailer.
+     */
+    protected OutputStream getBodyStream() {
+        return body;
     }
 
     /**
@@ -214,6 +411,20 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         defaultProperties.setProperty(CLIP, enabled);
     }
 
+    /**
+     * Sets the executor on which images are encoded, null (the default)
+     * encodes images on the drawing thread. With an executor an image is
+     * encoded as soon as it is drawn, for the "smallest" setting of
+     * WRITE_IMAGES_AS the JPEG and ZLIB trials run concurrently. The encoded
+     * data is inserted at its place in the document when the trailer is
+     * written, so the output does not depend on the executor. Drawn images
+     * should not be modified until the document is closed. The executor is not
+     * shut down.
+     */
+    public void setImageExecutor(ExecutorService executor) {
+        imageEncoderPool = new ImageEncoderPool(executor);
+    }
+
     /**
      * Set the center-on-page flag: when true, the graphic is centered horizontally
      * and vertically on the output page. This flag must be set before the page in question
@@ -255,7 +466,7 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
             Graphics imageGraphics = image.getGraphics();
             getComponent().print(imageGraphics);
 
-            EPSIEncoder encoder = new EPSIEncoder(image, ros,
+            EPSIEncoder encoder = new EPSIEncoder(image, body,
                     getPropertyInt(PREVIEW_BITS), getProperty(ORIENTATION)
                             .equals(PageConstants.PORTRAIT));
             encoder.encode();
@@ -288,8 +499,10 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         // we don't know which glyphs will be needed
         fontTable.embedAll(isProperty(EMBED_FONTS), !isProperty(EMBED_SKIP_STANDARD_FONTS), getProperty(EMBED_FONTS_AS));
       
+        writeImageResources();
+
         os.flush();
-        imedRos.write(ros.toByteArray());
+        writeDeferredImages();
         
         PrintStream os = imedOs;
         os.println();
@@ -300,8 +513,17 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
     }
 
     public void closeStream() throws IOException {
-        imedRos.close();
-        imedOs.close();
+        try {
+            imedRos.close();
+            imedOs.close();
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            if (resources instanceof TempFileBuffer) {
+                ((TempFileBuffer) resources).delete();
+            }
+        }
     }
 
 
@@ -350,6 +572,11 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         }
         resetClip(new Rectangle(0, 0, size.width, size.height));
 
+        // keep pages independent
+        images.clear();
+        reusableImages = 0;
+        symbols.clear();
+
         os.println("save");
         os.println("procDict begin");
         os.println("printColorMap begin");
@@ -395,6 +622,9 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
     }
 
     public void draw(Shape shape) {
+        if (isCulled(shape, true)) {
+            return;
+        }
         try {
             if (getStroke() instanceof BasicStroke) {
                 writePath(shape);
@@ -409,6 +639,9 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
     }
 
     public void fill(Shape shape) {
+        if (isCulled(shape, false)) {
+            return;
+        }
         try {
             if (getPaint() instanceof Color || (getPaint() instanceof GradientPaint && postscriptLevel >= LEVEL_3)) {
                 boolean eofill = writePath(shape);
@@ -424,6 +657,9 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
     }
 
     public void fillAndDraw(Shape shape, Color fillColor) {
+        if (isCulled(shape, true)) {
+            return;
+        }
         try {
             if (getPaint() instanceof Color || (getPaint() instanceof GradientPaint && postscriptLevel >= LEVEL_3)) {
                 setPSColor(fillColor, true);
@@ -439,6 +675,29 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         }
     }
 
+    /**
+     * Writes a symbol as a call of a procedure, which is defined on first
+     * use on the current page.
+     */
+    protected boolean writeSymbol(double x, double y, String key,
+            Shape shape, boolean fill) throws IOException {
+        String name = symbols.get(key);
+        if (name == null) {
+            name = "Sym" + symbols.size();
+            symbols.put(key, name);
+            os.println("userdict /" + name + " {");
+            os.println("gsave translate");
+            boolean eofill = writePath(shape);
+            os.println(fill ? ((eofill) ? "f*" : "f") : "S");
+            os.println("grestore } bind put");
+        }
+        scientific.reset();
+        scientific.append(x).append(' ').append(y).append(' ').append(name);
+        os.write(scientific.getBuffer(), 0, scientific.size());
+        os.println();
+        return true;
+    }
+
     public void copyArea(int x, int y, int width, int height, int dx, int dy) {
         writeWarning(getClass()
                 + ": copyArea(int, int, int, int, int, int) not implemented.");
@@ -455,7 +714,47 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         if (bkg == null) {
             bkg = getBackground();
         }
-        image = ImageUtilities.createRenderedImage(image, bkg);
+
+        // read image format
+        String writeAs = getProperty(WRITE_IMAGES_AS);
+
+        ImageData data;
+        if (imageResources != null) {
+            // identical images are defined once per document
+            data = getImageResource(image, bkg, writeAs);
+        } else if (!isProperty(SHARE_IMAGES)) {
+            data = encodeImage(ImageUtilities.createRenderedImage(image, bkg),
+                    bkg, writeAs);
+            if (imageEncoderPool.getExecutor() == null) {
+                data.finish();
+            }
+        } else {
+            // identical images are encoded only once per page
+            ImageFingerprint key = images.fingerprint(image, bkg, writeAs);
+            data = images.get(key);
+            if (data == null) {
+                data = encodeImage(ImageUtilities.createRenderedImage(image,
+                        bkg), bkg, writeAs);
+                images.put(key, data);
+                if (imageEncoderPool.getExecutor() == null) {
+                    data.finish();
+                }
+            } else if ((data.name == null) && (postscriptLevel >= LEVEL_3)) {
+                // drawn again, keep the data in a reusable stream rather
+                // than inline it once more
+                reusableImages++;
+                data.name = "FHImage" + reusableImages;
+                os.println("userdict /" + data.name + " currentfile "
+                        + "/ASCII85Decode filter /ReusableStreamDecode filter");
+                writeImageBytes(data);
+                os.println("");
+                os.println("put");
+                if (data.encode != null) {
+                    // no longer inserted anywhere
+                    data.bytes = null;
+                }
+            }
+        }
 
         // Write out the PostScript code to start an image
         // definition.
@@ -484,70 +783,252 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         os.println("/ImageMatrix [" + imageWidth + " 0 0 " + imageHeight
                 + " 0 0]");
 
-        // read image format
-        String writeAs = getProperty(WRITE_IMAGES_AS);
+        if (data.name != null) {
+            os.print("/DataSource " + data.name + " dup 0 setfileposition "
+                    + "/");
+            writeImageEncode(data);
+            os.println("Decode filter ");
+            os.println(">> image");
+        } else {
+            os.print("/DataSource currentfile " + "/ASCII85Decode filter "
+                    + "/");
+            writeImageEncode(data);
+            os.println("Decode filter ");
+            os.println(">> image");
+
+            writeImageBytes(data);
+
+            os.println("");
+        }
+
+        writeGraphicsRestore();
+    }
+
+    /**
+     * Returns the image defined ahead of the body with the same content, and
+     * defines it if there is none yet.
+     */
+    private ImageData getImageResource(RenderedImage image, Color bkg,
+            String writeAs) throws IOException {
+        ImageFingerprint key = imageResources.fingerprint(image, bkg, writeAs);
+        ImageData data = imageResources.get(key);
+        if (data == null) {
+            data = encodeImage(ImageUtilities.createRenderedImage(image, bkg),
+                    bkg, writeAs);
+            data.finish();
+            imageResources.put(key, data);
+
+            data.name = "FHImageResource" + imageResources.size();
+            resourcesOs.println("%%BeginResource: file " + data.name);
+            resourcesOs.println("userdict /" + data.name + " currentfile "
+                    + "/ASCII85Decode filter /ReusableStreamDecode filter");
+            resourcesOs.write(data.bytes);
+            resourcesOs.println("");
+            resourcesOs.println("put");
+            resourcesOs.println("%%EndResource");
+            data.bytes = null;
+        }
+        return data;
+    }
+
+    /**
+     * Copies the definitions of the images used in the document to the
+     * output, ahead of the body.
+     */
+    private void writeImageResources() throws IOException {
+        if (resources == null) {
+            return;
+        }
+        resourcesOs.flush();
+        if (resources instanceof TempFileBuffer) {
+            TempFileBuffer buffer = (TempFileBuffer) resources;
+            InputStream in = buffer.read();
+            try {
+                copy(in, imedRos);
+            } finally {
+                in.close();
+                buffer.delete();
+            }
+        } else {
+            ((ByteArrayOutputStream) resources).writeTo(imedRos);
+        }
+        imageResources.clear();
+    }
+
+    /**
+     * Encoded image, either written inline (as bytes) or defined once as
+     * reusable stream (by name). While the image is being encoded, encode and
+     * bytes are null.
+     */
+    private static class ImageData {
+        // encodings still running, null if not needed or finished
+        private Future<byte[]> flateBytes, jpgBytes;
+
+        private String encode;
+
+        private byte[] bytes;
+
+        private String name;
+
+        private ImageData(Future<byte[]> flateBytes, Future<byte[]> jpgBytes) {
+            this.flateBytes = flateBytes;
+            this.jpgBytes = jpgBytes;
+        }
+
+        /**
+         * Waits for the encoding(s) and picks the encoding.
+         */
+        private void finish() throws IOException {
+            if (encode != null) {
+                return;
+            }
+
+            if (jpgBytes == null) {
+                encode = ImageConstants.ENCODING_FLATE;
+                bytes = ImageEncoderPool.get(flateBytes);
+            } else if (flateBytes == null) {
+                encode = ImageConstants.ENCODING_DCT;
+                bytes = ImageEncoderPool.get(jpgBytes);
+            } else {
+                byte[] flate = ImageEncoderPool.get(flateBytes);
+                byte[] jpg = ImageEncoderPool.get(jpgBytes);
+
+                // define encoding and imagebytes
+                if (jpg.length < 0.5 * flate.length) {
+                    encode = ImageConstants.ENCODING_DCT;
+                    bytes = jpg;
+                } else {
+                    encode = ImageConstants.ENCODING_FLATE;
+                    bytes = flate;
+                }
+            }
+            flateBytes = null;
+            jpgBytes = null;
+        }
+    }
+
+    /**
+     * Position in ros at which the encoding name or the bytes of an image
+     * are inserted once the image is encoded.
+     */
+    private static class DeferredImageData {
+        private int offset;
+
+        private ImageData data;
+
+        private boolean encode;
+
+        private DeferredImageData(int offset, ImageData data, boolean encode) {
+            this.offset = offset;
+            this.data = data;
+            this.encode = encode;
+        }
+    }
+
+    private void writeImageEncode(ImageData data) throws IOException {
+        if (tempFile != null) {
+            // the body is not kept in ros, nothing can be inserted later
+            data.finish();
+        }
+        if (data.encode != null) {
+            os.print(data.encode);
+        } else {
+            os.flush();
+            deferredImages.add(new DeferredImageData(ros.size(), data, true));
+        }
+    }
+
+    private void writeImageBytes(ImageData data) throws IOException {
+        if (tempFile != null) {
+            // the body is not kept in ros, nothing can be inserted later
+            data.finish();
+        }
+        if (data.encode != null) {
+            os.write(data.bytes);
+        } else {
+            os.flush();
+            deferredImages.add(new DeferredImageData(ros.size(), data, false));
+        }
+    }
+
+    /**
+     * Copies the body to the output, inserting the deferred image data.
+     */
+    private void writeDeferredImages() throws IOException {
+        if (tempFile != null) {
+            // images were not deferred
+            InputStream in = tempFile.read();
+            try {
+                copy(in, imedRos);
+            } finally {
+                in.close();
+                tempFile.delete();
+            }
+            return;
+        }
+
+        byte[] bytes = ros.toByteArray();
+        int position = 0;
+        for (DeferredImageData deferred : deferredImages) {
+            imedRos.write(bytes, position, deferred.offset - position);
+            position = deferred.offset;
+
+            ImageData data = deferred.data;
+            data.finish();
+            if (deferred.encode) {
+                imedRos.write(data.encode.getBytes("ISO-8859-1"));
+            } else {
+                imedRos.write(data.bytes);
+            }
+        }
+        imedRos.write(bytes, position, bytes.length - position);
+        deferredImages.clear();
+    }
+
+    private ImageData encodeImage(RenderedImage image, Color bkg,
+            String writeAs) {
 
         // used for creating
         //    /DataSource currentfile /ASCII85Decode filter /"encode"Decode filter
         //    >> image "imageBytes"
-        String encode;
-        byte[] imageBytes;
+        Future<byte[]> flateBytes = null;
+        Future<byte[]> jpgBytes = null;
 
         // write as RAW with ZIP compression
         if (ImageConstants.ZLIB.equalsIgnoreCase(writeAs)) {
-            encode = ImageConstants.ENCODING_FLATE;
-            imageBytes = ImageGraphics2D.toByteArray(
-                image,
-                ImageConstants.RAW,
-                ImageConstants.ENCODING_FLATE_ASCII85,
-                ImageGraphics2D.getRAWProperties(bkg, ImageConstants.COLOR_MODEL_RGB));
+            flateBytes = toFlate(image, bkg);
         }
 
         // write as JPEG
         else if (ImageConstants.JPG.equalsIgnoreCase(writeAs)) {
-            encode = ImageConstants.ENCODING_DCT;
-            imageBytes = ImageGraphics2D.toByteArray(
-                image,
-                ImageConstants.JPG,
-                ImageConstants.ENCODING_ASCII85,
-                null);
+            jpgBytes = toJPG(image);
         }
 
-        // write SMALLEST (JPEG or RAW)
+        // write SMALLEST (JPEG or RAW), concurrently if the pool allows
         else {
-            // zip-compressed raw image
-            byte[] flateBytes = ImageGraphics2D.toByteArray(
-                image,
-                ImageConstants.RAW,
-                ImageConstants.ENCODING_FLATE_ASCII85,
-                ImageGraphics2D.getRAWProperties(bkg, ImageConstants.COLOR_MODEL_RGB));
-
-            // jpeg image DCT encoded
-            byte[] jpgBytes = ImageGraphics2D.toByteArray(
-                image,
-                ImageConstants.JPG,
-                ImageConstants.ENCODING_ASCII85,
-                null);
-
-            // define encoding and imagebytes
-            if (jpgBytes.length < 0.5 * flateBytes.length) {
-                encode = ImageConstants.ENCODING_DCT;
-                imageBytes = jpgBytes;
-            } else {
-                encode = ImageConstants.ENCODING_FLATE;
-                imageBytes = flateBytes;
-            }
+            flateBytes = toFlate(image, bkg);
+            jpgBytes = toJPG(image);
         }
 
-        os.println("/DataSource currentfile " + "/ASCII85Decode filter " + "/"
-                + encode + "Decode filter ");
-        os.println(">> image");
-
-        os.write(imageBytes);
+        return new ImageData(flateBytes, jpgBytes);
+    }
 
-        os.println("");
+    // zip-compressed raw image
+    private Future<byte[]> toFlate(RenderedImage image, Color bkg) {
+        return imageEncoderPool.toByteArray(
+            image,
+            ImageConstants.RAW,
+            ImageConstants.ENCODING_FLATE_ASCII85,
+            ImageGraphics2D.getRAWProperties(bkg, ImageConstants.COLOR_MODEL_RGB));
+    }
 
-        writeGraphicsRestore();
+    // jpeg image DCT encoded
+    private Future<byte[]> toJPG(RenderedImage image) {
+        return imageEncoderPool.toByteArray(
+            image,
+            ImageConstants.JPG,
+            ImageConstants.ENCODING_ASCII85,
+            null);
     }
 
     protected void writeString(String str, double x, double y)
@@ -872,7 +1353,9 @@ public abstract class AbstractPSGraphics2D extends AbstractVectorGraphicsIO impl
         }
     }
     
-    private ScientificFormat scientific = new ScientificFormat(6, 9, false);
+    // reusable buffer, same format as new ScientificFormat(6, 9, false)
+    private FixedPrecisionEncoder scientific = FixedPrecisionEncoder
+            .createSignificant(6, 9);
 
     public String fixedPrecision(double d) {
         return scientific.format(d);
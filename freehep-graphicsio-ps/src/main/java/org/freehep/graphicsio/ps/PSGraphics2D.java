@@ -119,7 +119,7 @@ public class PSGraphics2D extends AbstractPSGraphics2D implements
             resetClip(new Rectangle(0, 0, size.width, size.height));
         }
 
-        os = new PrintStream(ros, true);
+        os = new PrintStream(getBodyStream(), false);
         os.println("%!PS-Adobe-3.0");
 
         super.writeHeader();
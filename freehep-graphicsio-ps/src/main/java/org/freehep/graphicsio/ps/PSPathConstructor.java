@@ -5,7 +5,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 
 import org.freehep.graphicsio.QuadToCubicPathConstructor;
-import org.freehep.util.ScientificFormat;
+import org.freehep.util.FixedPrecisionEncoder;
 
 /**
  * @author Mark Donszelmann
@@ -18,7 +18,9 @@ public class PSPathConstructor extends QuadToCubicPathConstructor {
 
     private String moveto, lineto, curveto, close;
 
-    private ScientificFormat scientific = new ScientificFormat(6, 9, false);
+    // reusable buffer for the coordinates
+    private FixedPrecisionEncoder numbers = FixedPrecisionEncoder
+            .createSignificant(6, 9);
 
     public PSPathConstructor(PrintStream os, boolean useProlog,
             boolean intPrecision) {
@@ -39,21 +41,31 @@ public class PSPathConstructor extends QuadToCubicPathConstructor {
     }
 
     public void move(double x, double y) throws IOException {
-        os.println(fixedPrecision(x) + " " + fixedPrecision(y) + " " + moveto);
+        numbers.reset();
+        append(x).append(' ');
+        append(y).append(' ').append(moveto);
+        writeln();
         super.move(x, y);
     }
 
     public void line(double x, double y) throws IOException {
-        os.println(fixedPrecision(x) + " " + fixedPrecision(y) + " " + lineto);
+        numbers.reset();
+        append(x).append(' ');
+        append(y).append(' ').append(lineto);
+        writeln();
         super.line(x, y);
     }
 
     public void cubic(double x1, double y1, double x2, double y2, double x3,
             double y3) throws IOException {
-        os.println(fixedPrecision(x1) + " " + fixedPrecision(y1) + " "
-                + fixedPrecision(x2) + " " + fixedPrecision(y2) + " "
-                + fixedPrecision(x3) + " " + fixedPrecision(y3) + " " + " "
-                + curveto);
+        numbers.reset();
+        append(x1).append(' ');
+        append(y1).append(' ');
+        append(x2).append(' ');
+        append(y2).append(' ');
+        append(x3).append(' ');
+        append(y3).append(' ').append(' ').append(curveto);
+        writeln();
         super.cubic(x1, y1, x2, y2, x3, y3);
     }
 
@@ -66,8 +78,21 @@ public class PSPathConstructor extends QuadToCubicPathConstructor {
         if (intPrecision) {
             return Integer.toString((int) d);
         } else {
-            return scientific.format(d);
+            return numbers.format(d);
 
         }
     }
+
+    private FixedPrecisionEncoder append(double d) {
+        if (intPrecision) {
+            return numbers.append((int) d);
+        } else {
+            return numbers.append(d);
+        }
+    }
+
+    private void writeln() {
+        os.write(numbers.getBuffer(), 0, numbers.size());
+        os.println();
+    }
 }
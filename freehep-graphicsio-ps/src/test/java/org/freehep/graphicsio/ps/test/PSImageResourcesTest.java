@@ -0,0 +1,99 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.ps.test;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.ps.AbstractPSGraphics2D;
+import org.freehep.graphicsio.ps.PSGraphics2D;
+
+/**
+ * Checks the SHARE_IMAGES and IMAGE_RESOURCES properties of
+ * AbstractPSGraphics2D.
+ *
+ * @version $Id$
+ */
+public class PSImageResourcesTest extends TestCase {
+
+    private static final int PAGES = 3;
+
+    private static String write(boolean imageResources, boolean tempFile)
+            throws Exception {
+        return write(true, imageResources, tempFile);
+    }
+
+    private static String write(boolean shareImages, boolean imageResources,
+            boolean tempFile) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PSGraphics2D g = new PSGraphics2D(out, new Dimension(200, 200));
+        Properties properties = new Properties();
+        properties.setProperty(AbstractPSGraphics2D.SHARE_IMAGES, Boolean
+                .toString(shareImages));
+        properties.setProperty(AbstractPSGraphics2D.IMAGE_RESOURCES, Boolean
+                .toString(imageResources));
+        properties.setProperty(AbstractPSGraphics2D.TEMP_FILE, Boolean
+                .toString(tempFile));
+        g.setProperties(properties);
+        g.setDeviceIndependent(true);
+        g.setMultiPage(true);
+        g.startExport();
+        for (int i = 0; i < PAGES; i++) {
+            g.openPage(new Dimension(200, 200), "Page " + i);
+            for (int j = 0; j < 2; j++) {
+                // a new image with the same content every time
+                BufferedImage logo = new BufferedImage(16, 16,
+                        BufferedImage.TYPE_INT_RGB);
+                logo.setRGB(3, 5, 0x00ff00);
+                g.drawImage(logo, 20 + 40 * j, 20, null);
+            }
+            BufferedImage page = new BufferedImage(16, 16,
+                    BufferedImage.TYPE_INT_RGB);
+            page.setRGB(i, i, 0xff0000);
+            g.drawImage(page, 100, 100, null);
+            g.closePage();
+        }
+        g.endExport();
+        return out.toString("ISO-8859-1");
+    }
+
+    private static int count(String s, String pattern) {
+        int n = 0;
+        for (int i = s.indexOf(pattern); i >= 0; i = s.indexOf(pattern, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+
+    public void testPageImages() throws Exception {
+        String ps = write(false, false);
+        // the logo is kept for its second use on every page
+        assertEquals(PAGES, count(ps, "/ReusableStreamDecode filter"));
+        assertEquals(2 * PAGES, count(ps, "FHImage1 "));
+        // its first use and the image drawn once are inline
+        assertEquals(2 * PAGES, count(ps, "/DataSource currentfile"));
+        assertEquals(0, count(ps, "%%BeginResource: file"));
+    }
+
+    public void testShareImagesOff() throws Exception {
+        String ps = write(false, false, false);
+        assertEquals(0, count(ps, "/ReusableStreamDecode filter"));
+        assertEquals(3 * PAGES, count(ps, "/DataSource currentfile"));
+    }
+
+    public void testImageResources() throws Exception {
+        String ps = write(true, false);
+        assertEquals(1 + PAGES, count(ps, "/ReusableStreamDecode filter"));
+        assertEquals(1 + PAGES, count(ps, "%%BeginResource: file"));
+        // every image is defined ahead of the first page
+        assertTrue(ps.lastIndexOf("%%EndResource") < ps.indexOf("%%Page:"));
+        assertEquals(1 + 2 * PAGES, count(ps, "FHImageResource1 "));
+    }
+
+    public void testTempFile() throws Exception {
+        assertEquals(write(true, false), write(true, true));
+    }
+}
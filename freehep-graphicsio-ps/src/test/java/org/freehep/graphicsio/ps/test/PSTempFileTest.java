@@ -0,0 +1,133 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.ps.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.font.TextAttribute;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.text.AttributedString;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.ps.AbstractPSGraphics2D;
+import org.freehep.graphicsio.ps.EPSGraphics2D;
+import org.freehep.graphicsio.ps.PSGraphics2D;
+
+/**
+ * Checks that the TEMP_FILE property does not change the output.
+ *
+ * @version $Id$
+ */
+public class PSTempFileTest extends TestCase {
+
+    private static final int PAGES = 3;
+
+    private static void draw(AbstractPSGraphics2D g, int page) {
+        Map<TextAttribute, Object> font = new HashMap<TextAttribute, Object>();
+        font.put(TextAttribute.FAMILY, "Serif");
+        font.put(TextAttribute.SIZE, new Float(12));
+        font.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_REGULAR);
+        font.put(TextAttribute.POSTURE, TextAttribute.POSTURE_REGULAR);
+        font.put(TextAttribute.TRACKING, new Float(0));
+
+        BufferedImage image = new BufferedImage(16, 8,
+                BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 16; x++) {
+            image.setRGB(x, x / 2, 0xff0000 + page * 40);
+        }
+
+        g.setColor(Color.BLUE);
+        g.fill(new Ellipse2D.Double(10, 10, 80, 40));
+        g.drawImage(image, 100, 20, null);
+        // drawn again from a reusable stream
+        g.drawImage(image, 100, 60, null);
+        g.drawString(new AttributedString("page " + page + " é", font)
+                .getIterator(), 20, 150);
+    }
+
+    private static Properties properties(boolean tempFile) {
+        Properties properties = new Properties();
+        properties.setProperty(AbstractPSGraphics2D.TEMP_FILE, Boolean
+                .toString(tempFile));
+        return properties;
+    }
+
+    private static byte[] writePS(boolean tempFile) throws Exception {
+        return writePS(tempFile, null);
+    }
+
+    private static byte[] writePS(boolean tempFile, ExecutorService executor)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PSGraphics2D g = new PSGraphics2D(out, new Dimension(200, 200));
+        g.setProperties(properties(tempFile));
+        g.setImageExecutor(executor);
+        g.setDeviceIndependent(true);
+        g.setMultiPage(true);
+        g.startExport();
+        for (int i = 0; i < PAGES; i++) {
+            g.openPage(new Dimension(200, 200), "Page " + i);
+            draw(g, i);
+            g.closePage();
+        }
+        g.endExport();
+        return out.toByteArray();
+    }
+
+    private static byte[] writeEPS(boolean tempFile) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EPSGraphics2D g = new EPSGraphics2D(out, new Dimension(200, 200));
+        g.setProperties(properties(tempFile));
+        g.setDeviceIndependent(true);
+        g.startExport();
+        draw(g, 0);
+        g.endExport();
+        return out.toByteArray();
+    }
+
+    private static int countTempFiles() {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        String[] files = dir.list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith("freehep-ps");
+            }
+        });
+        return (files != null) ? files.length : 0;
+    }
+
+    public void testPS() throws Exception {
+        int tempFiles = countTempFiles();
+        byte[] expected = writePS(false);
+        byte[] actual = writePS(true);
+        assertTrue(expected.length > 0);
+        assertTrue(Arrays.equals(expected, actual));
+        assertEquals(tempFiles, countTempFiles());
+    }
+
+    public void testImageExecutor() throws Exception {
+        int tempFiles = countTempFiles();
+        byte[] expected = writePS(false);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertTrue(Arrays.equals(expected, writePS(false, executor)));
+            assertTrue(Arrays.equals(expected, writePS(true, executor)));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(tempFiles, countTempFiles());
+    }
+
+    public void testEPS() throws Exception {
+        assertTrue(Arrays.equals(writeEPS(false), writeEPS(true)));
+    }
+}
@@ -1,6 +1,13 @@
 // Copyright 2005, FreeHEP.
 package org.freehep.graphicsio.ps.test;
 
+import java.util.Properties;
+
+import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.ps.PSGraphics2D;
+import org.freehep.graphicsio.test.ConcurrentExportTestCase;
+import org.freehep.graphicsio.test.DisplayListTestCase;
+import org.freehep.graphicsio.test.ImageExecutorTestCase;
 import org.freehep.graphicsio.test.TestSuite;
 
 /**
@@ -19,6 +26,13 @@ public class PSTestSuite extends TestSuite {
     public static TestSuite suite() {
         PSTestSuite suite = new PSTestSuite();
         suite.addTests("PS");
+        suite.addTest(new ConcurrentExportTestCase(PSGraphics2D.class.getName()));
+
+        suite.addTest(new ImageExecutorTestCase(PSGraphics2D.class.getName(), null));
+        Properties smallest = new Properties();
+        smallest.setProperty(PSGraphics2D.WRITE_IMAGES_AS, ImageConstants.SMALLEST);
+        suite.addTest(new ImageExecutorTestCase(PSGraphics2D.class.getName(), smallest));
+        suite.addTest(new DisplayListTestCase(PSGraphics2D.class.getName(), null));
         return suite;
     }
 
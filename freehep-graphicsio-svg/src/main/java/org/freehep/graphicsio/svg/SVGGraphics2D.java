@@ -13,8 +13,6 @@ import java.awt.image.RenderedImage;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.text.DateFormat;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.text.AttributedCharacterIterator.Attribute;
 import java.util.*;
 import java.util.zip.GZIPOutputStream;
@@ -22,10 +20,13 @@ import java.util.zip.GZIPOutputStream;
 import org.freehep.graphics2d.font.FontUtilities;
 import org.freehep.graphicsio.AbstractVectorGraphicsIO;
 import org.freehep.graphicsio.FontConstants;
+import org.freehep.graphicsio.ImageCache;
 import org.freehep.graphicsio.ImageConstants;
+import org.freehep.graphicsio.ImageFingerprint;
 import org.freehep.graphicsio.ImageGraphics2D;
 import org.freehep.graphicsio.InfoConstants;
 import org.freehep.graphicsio.PageConstants;
+import org.freehep.util.FixedPrecisionEncoder;
 import org.freehep.util.UserProperties;
 import org.freehep.util.Value;
 import org.freehep.util.io.Base64OutputStream;
@@ -86,6 +87,13 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
 
     public static final String TITLE = rootKey + "." + InfoConstants.TITLE;
 
+    /**
+     * Size in bytes of the buffer between the driver and the output stream.
+     * The output stream is only flushed when the buffer is full or the
+     * document is closed.
+     */
+    public static final String BUFFER_SIZE = rootKey + ".BufferSize";
+
     private BasicStroke defaultStroke = new BasicStroke();
 
     public static final String EMBED_FONTS = rootKey + "."
@@ -120,6 +128,8 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
 
         defaultProperties.setProperty(EMBED_FONTS, false);
         defaultProperties.setProperty(TEXT_AS_SHAPES, false);
+
+        defaultProperties.setProperty(BUFFER_SIZE, 65536);
     }
 
     public static Properties getDefaultProperties() {
@@ -153,6 +163,12 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
 
     private Value imageNumber;
 
+    // table for images, shared by all instances of a document
+    private ImageCache<String> images;
+
+    // ids of symbol definitions by key, shared by all instances of a document
+    private Map<String, String> symbols;
+
     private Value clipNumber;
 
     private int width, height;
@@ -193,6 +209,8 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
         this.filename = null;
         this.clipNumber = new Value().set(0);
         this.imageNumber = new Value().set(0);
+        this.images = new ImageCache<String>();
+        this.symbols = new HashMap<String, String>();
     }
 
     protected SVGGraphics2D(SVGGraphics2D graphics, boolean doRestoreOnDispose) {
@@ -208,6 +226,8 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
         textures = graphics.textures;
         clipNumber = graphics.clipNumber;
         imageNumber = graphics.imageNumber;
+        images = graphics.images;
+        symbols = graphics.symbols;
         fontTable = graphics.fontTable;
     }
 
@@ -242,13 +262,15 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
      * Write out the header of this SVG file.
      */
     public void writeHeader() throws IOException {
-        ros = new BufferedOutputStream(ros);
+        int bufferSize = Math.max(1, getPropertyInt(BUFFER_SIZE));
+        ros = new BufferedOutputStream(ros, bufferSize);
         if (isProperty(COMPRESS)) {
-            ros = new GZIPOutputStream(ros);
+            ros = new GZIPOutputStream(ros, bufferSize);
         }
 
         // Always use UTF-8 encoding - Levantovsky, MagicPlot
-        os = new PrintWriter(new OutputStreamWriter(ros, Charset.forName("UTF-8")), true);
+        // no autoflush, the output is flushed when the document is closed
+        os = new PrintWriter(new OutputStreamWriter(ros, Charset.forName("UTF-8")), false);
         fontTable = new SVGFontTable();
 
         // Do the bounding box calculation.
@@ -421,22 +443,15 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
      * @param shape Shape to draw
      */
     public void draw(Shape shape) {
+        if (isCulled(shape, true)) {
+            return;
+        }
+
         // others than BasicStrokes are written by its
         // {@link Stroke#createStrokedShape()}
         if (getStroke() instanceof BasicStroke) {
             PathIterator path = shape.getPathIterator(null);
-
-            Properties style = new Properties();
-            if (getPaint() != null) {
-                style.put("stroke", hexColor(getPaint()));
-                style.put("stroke-opacity", fixedPrecision(alphaColor(getPaint())));
-            }
-
-            // no filling
-            style.put("fill", "none");
-            style.putAll(getStrokeProperties(getStroke(), false));
-
-            writePathIterator(path, shape, style);
+            writePathIterator(path, shape, getDrawStyle());
         } else if (getStroke() != null) {
             // fill the shape created by stroke
             fill(getStroke().createStrokedShape(shape));
@@ -452,32 +467,86 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
      * @param shape Shape to be filled with the current paint
      */
     public void fill(Shape shape) {
+        if (isCulled(shape, false)) {
+            return;
+        }
+
         // draw paint as image if needed
         if (!(getPaint() instanceof Color || getPaint() instanceof GradientPaint)) {
             // draw paint as image
             fill(shape, getPaint());
         } else {
             PathIterator path = shape.getPathIterator(null);
+            writePathIterator(path, shape, getFillStyle(path
+                    .getWindingRule()));
+        }
+    }
 
-            Properties style = new Properties();
+    /**
+     * @return style to draw a shape with the current paint and stroke
+     */
+    private Properties getDrawStyle() {
+        Properties style = new Properties();
+        if (getPaint() != null) {
+            style.put("stroke", hexColor(getPaint()));
+            style.put("stroke-opacity", fixedPrecision(alphaColor(getPaint())));
+        }
 
-            if (path.getWindingRule() == PathIterator.WIND_EVEN_ODD) {
-                style.put("fill-rule", "evenodd");
-            } else {
-                style.put("fill-rule", "nonzero");
-            }
+        // no filling
+        style.put("fill", "none");
+        style.putAll(getStrokeProperties(getStroke(), false));
+        return style;
+    }
 
-            // fill with paint
-            if (getPaint() != null) {
-                style.put("fill", hexColor(getPaint()));
-                style.put("fill-opacity", fixedPrecision(alphaColor(getPaint())));
-            }
+    /**
+     * @return style to fill a shape with the current paint
+     */
+    private Properties getFillStyle(int windingRule) {
+        Properties style = new Properties();
 
-            // no border
-            style.put("stroke", "none");
+        if (windingRule == PathIterator.WIND_EVEN_ODD) {
+            style.put("fill-rule", "evenodd");
+        } else {
+            style.put("fill-rule", "nonzero");
+        }
+
+        // fill with paint
+        if (getPaint() != null) {
+            style.put("fill", hexColor(getPaint()));
+            style.put("fill-opacity", fixedPrecision(alphaColor(getPaint())));
+        }
+
+        // no border
+        style.put("stroke", "none");
+        return style;
+    }
 
-            writePathIterator(path, shape, style);
+    /**
+     * Writes a symbol as a &lt;use&gt; of a &lt;symbol&gt;, which is
+     * defined on first use.
+     */
+    protected boolean writeSymbol(double x, double y, String key,
+            Shape shape, boolean fill) throws IOException {
+        PathIterator path = shape.getPathIterator(null);
+        String id = symbols.get(key);
+        if (id == null) {
+            id = "symbol-" + symbols.size();
+            symbols.put(key, id);
+            os.println("<defs>");
+            os.println("  <symbol id=\"" + id + "\" overflow=\"visible\">");
+            os.println("    " + getPath(path));
+            os.println("  </symbol>");
+            os.println("</defs>");
         }
+
+        Properties style = fill ? getFillStyle(path.getWindingRule())
+                : getDrawStyle();
+        Rectangle2D bounds = shape.getBounds2D();
+        bounds.setRect(bounds.getX() + x, bounds.getY() + y, bounds
+                .getWidth(), bounds.getHeight());
+        writeStyled("<use xlink:href=\"#" + id + "\" x=\"" + fixedPrecision(x)
+                + "\" y=\"" + fixedPrecision(y) + "\"/>", bounds, style);
+        return true;
     }
 
     /**
@@ -488,6 +557,18 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
      * @param style Properties for <g> tag
      */
     private void writePathIterator(PathIterator pi, Shape shape, Properties style) {
+        writeStyled(getPath(pi), shape, style);
+    }
+
+    /**
+     * writes an element with the given style, clipped if the shape is not
+     * completely inside the clip
+     *
+     * @param element path or other element
+     * @param shape outline of the element, for the clip test
+     * @param style Properties for <g> tag
+     */
+    private void writeStyled(String element, Shape shape, Properties style) {
         StringBuffer result = new StringBuffer();
 
         // write style
@@ -496,7 +577,7 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
         result.append(">\n  ");
 
         // draw shape
-        result.append(getPath(pi));
+        result.append(element);
 
         // close style
         result.append("\n</g> <!-- drawing style -->");
@@ -504,7 +585,8 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
         boolean drawClipped = false;
 
         // test if clip intersects pi
-        if (getClip() != null) {
+        Shape clip = getClip();
+        if (clip != null) {
             // Path iterator is already iterated and is 'done' at this moment, so use shape - Levantovsky, MagicPlot
             // create the stroked shape
             Stroke stroke = getStroke() == null? defaultStroke : getStroke();
@@ -512,7 +594,7 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
             // clip should intersect the path
             // if clip contains the bounds completely, clipping is not needed
             // and if clip does not cintain shape at all - it must be clipped too - Levantovsky, MagicPlot
-            drawClipped = getClip().intersects(bounds) || !getClip().contains(bounds);
+            drawClipped = clip.intersects(bounds) || !clip.contains(bounds);
         }
 
         if (drawClipped) {
@@ -539,6 +621,26 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
     protected void writeImage(RenderedImage image, AffineTransform xform,
             Color bkg) throws IOException {
 
+        // identical images are written once and referenced by <use>
+        String writeAs = getProperty(WRITE_IMAGES_AS);
+        ImageFingerprint key = images.fingerprint(image, bkg, writeAs);
+        String id = images.get(key);
+        if (id == null) {
+            String href = writeImageData(image, bkg, writeAs);
+            if (href == null) {
+                return;
+            }
+
+            id = "image-" + images.size();
+            images.put(key, id);
+            os.println("<defs>");
+            os.println("  <image id=\"" + id + "\" x=\"0\" y=\"0\" "
+                    + "width=\"" + image.getWidth() + "\" "
+                    + "height=\"" + image.getHeight() + "\" "
+                    + "xlink:href=\"" + href + "\"/>");
+            os.println("</defs>");
+        }
+
         StringBuffer result = new StringBuffer();
 
         // write style (opacity) - Levantovsky, MagicPlot
@@ -552,14 +654,29 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
         result.append("<g ");
         result.append(style(style));
         result.append(">\n  ");
-        
-        result.append("<image x=\"0\" y=\"0\" " + "width=\"");
-        result.append(image.getWidth());
-        result.append("\" " + "height=\"");
-        result.append(image.getHeight());
-        result.append("\" " + "xlink:href=\"");
 
-        String writeAs = getProperty(WRITE_IMAGES_AS);
+        result.append("<use xlink:href=\"#");
+        result.append(id);
+        result.append("\"/>");
+
+        // close style
+        result.append("\n</g> <!-- drawing style -->");
+
+        os.println(getTransformedString(getTransform(),
+            getClippedString(getTransformedString(xform, result
+                .toString()))));
+    }
+
+    /**
+     * Encodes the image and either embeds it as data url or writes it into a
+     * separate file.
+     *
+     * @return the value for the xlink:href attribute of the image, or null if
+     *         the image could not be written
+     */
+    private String writeImageData(RenderedImage image, Color bkg,
+            String writeAs) throws IOException {
+
         boolean isTransparent = image.getColorModel().hasAlpha()
                 && (bkg == null);
 
@@ -600,7 +717,7 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
             if (filename == null) {
                 writeWarning("SVG: cannot write embedded images, since SVGGraphics2D");
                 writeWarning("     was created from an OutputStream rather than a File.");
-                return;
+                return null;
             }
             
             int imageNum = imageNumber.getInt() + 1;
@@ -613,36 +730,23 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
             imageName += "." + getProperty(EXPORT_SUFFIX) + "-" + imageNum
                     + "." + encode;
 
-            result.append(imageName);
-
             // write the image separately
             FileOutputStream imageStream = new FileOutputStream(dirName
                     + imageName);
 
             imageStream.write(imageBytes);
             imageStream.close();
-        } else {
-            result.append("data:image/");
-            result.append(encode);
-            result.append(";base64,");
 
+            return imageName;
+        } else {
             StringWriter writer = new StringWriter();
             Base64OutputStream b64 = new Base64OutputStream(
                     new WriterOutputStream(writer));
             b64.write(imageBytes);
             b64.finish();
 
-            result.append(writer.toString());
+            return "data:image/" + encode + ";base64," + writer.toString();
         }
-
-        result.append("\"/>");
-
-        // close style
-        result.append("\n</g> <!-- drawing style -->");
-
-        os.println(getTransformedString(getTransform(),
-            getClippedString(getTransformedString(xform, result
-                .toString()))));
     }
 
     /* 5.3. Strings */
@@ -1038,7 +1142,8 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
         StringBuffer result = new StringBuffer();
 
         // clipping
-        if (isProperty(CLIP) && getClip() != null) {
+        Shape clip = isProperty(CLIP) ? getClip() : null;
+        if (clip != null) {
             // SVG uses unique lip numbers, don't reset allways increment them
             clipNumber.set(clipNumber.getInt() + 1);
 
@@ -1046,7 +1151,7 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
             result.append("<clipPath id=\"clip");
             result.append(clipNumber.getInt());
             result.append("\">\n  ");
-            result.append(getPath(getClip().getPathIterator(null)));
+            result.append(getPath(clip.getPathIterator(null)));
             result.append("\n</clipPath>\n");
 
             // use clip
@@ -1059,7 +1164,7 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
         result.append(s);
 
         // close clipping
-        if (isProperty(CLIP) && getClip() != null) {
+        if (clip != null) {
             result.append("\n</g> <!-- clip");
             result.append(clipNumber.getInt());
             result.append(" -->");
@@ -1116,7 +1221,10 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
     }
 
     protected static String getPathContent(PathIterator path) {
-        StringBuffer result = new StringBuffer();
+        // append to the encoder of this thread, after anything a caller
+        // may have left in it
+        FixedPrecisionEncoder result = scientific.get();
+        int mark = result.size();
 
         double[] coords = new double[6];
         result.append("d=\"");
@@ -1126,42 +1234,42 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
             switch (segType) {
                 case PathIterator.SEG_MOVETO:
                     result.append("M ");
-                    result.append(fixedPrecision(coords[0]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[1]));
+                    result.append(coords[0]);
+                    result.append(' ');
+                    result.append(coords[1]);
                     break;
                 case PathIterator.SEG_LINETO:
                     result.append("L ");
-                    result.append(fixedPrecision(coords[0]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[1]));
+                    result.append(coords[0]);
+                    result.append(' ');
+                    result.append(coords[1]);
                     break;
                 case PathIterator.SEG_CUBICTO:
                     result.append("C ");
-                    result.append(fixedPrecision(coords[0]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[1]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[2]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[3]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[4]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[5]));
+                    result.append(coords[0]);
+                    result.append(' ');
+                    result.append(coords[1]);
+                    result.append(' ');
+                    result.append(coords[2]);
+                    result.append(' ');
+                    result.append(coords[3]);
+                    result.append(' ');
+                    result.append(coords[4]);
+                    result.append(' ');
+                    result.append(coords[5]);
                     break;
                 case PathIterator.SEG_QUADTO:
                     result.append("Q ");
-                    result.append(fixedPrecision(coords[0]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[1]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[2]));
-                    result.append(" ");
-                    result.append(fixedPrecision(coords[3]));
+                    result.append(coords[0]);
+                    result.append(' ');
+                    result.append(coords[1]);
+                    result.append(' ');
+                    result.append(coords[2]);
+                    result.append(' ');
+                    result.append(coords[3]);
                     break;
                 case PathIterator.SEG_CLOSE:
-                    result.append("z");
+                    result.append('z');
                     break;
             }
 
@@ -1170,12 +1278,14 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
 
             // Not needed but makes the output readable
             if (!path.isDone()) {
-                result.append(" ");
+                result.append(' ');
             }
         }
-        result.append("\"");
+        result.append('"');
 
-        return result.toString();
+        String content = result.toString(mark);
+        result.truncate(mark);
+        return content;
     }
 
     protected String getPath(PathIterator path) {
@@ -1243,20 +1353,32 @@ public class SVGGraphics2D extends AbstractVectorGraphicsIO {
 
     /**
      * for fixedPrecision(double d), SVG does not understand "1E-7"
-     * we have to use ".0000007" instead
+     * we have to use ".0000007" instead. One encoder per thread, as
+     * encoders are not thread safe.
      */
-    private static DecimalFormat scientific = new DecimalFormat(
-        "#.####################",
-        new DecimalFormatSymbols(Locale.US));
+    private static final ThreadLocal<FixedPrecisionEncoder> scientific = new ThreadLocal<FixedPrecisionEncoder>() {
+        protected FixedPrecisionEncoder initialValue() {
+            return createFixedPrecisionEncoder();
+        }
+    };
 
     /**
-     * converts the double value to a representing string
+     * converts the double value to a representing string, may be called
+     * concurrently from several threads
      *
      * @param d double value to convert
      * @return same as string
      */
     public static String fixedPrecision(double d) {
-        return scientific.format(d);
+        return scientific.get().format(d);
+    }
+
+    /**
+     * @return a new encoder writing numbers in the same format as
+     *         {@link #fixedPrecision(double)}.
+     */
+    protected static FixedPrecisionEncoder createFixedPrecisionEncoder() {
+        return FixedPrecisionEncoder.createFractional(20);
     }
 
     protected PrintWriter getOutputStream() {
@@ -1,6 +1,9 @@
 // Copyright 2005, FreeHEP.
 package org.freehep.graphicsio.svg.test;
 
+import org.freehep.graphicsio.svg.SVGGraphics2D;
+import org.freehep.graphicsio.test.ConcurrentExportTestCase;
+import org.freehep.graphicsio.test.DisplayListTestCase;
 import org.freehep.graphicsio.test.TestSuite;
 
 /**
@@ -12,6 +15,8 @@ public class SVGTestSuite extends TestSuite {
     public static TestSuite suite() {
         SVGTestSuite suite = new SVGTestSuite();
         suite.addTests("SVG");
+        suite.addTest(new ConcurrentExportTestCase(SVGGraphics2D.class.getName()));
+        suite.addTest(new DisplayListTestCase(SVGGraphics2D.class.getName(), null));
         return suite;
     }
 
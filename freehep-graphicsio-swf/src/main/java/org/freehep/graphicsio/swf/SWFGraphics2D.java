@@ -26,6 +26,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.Properties;
 import java.util.Vector;
 
@@ -63,12 +64,19 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 	public static final String WRITE_IMAGES_AS = rootKey + "."
 			+ ImageConstants.WRITE_IMAGES_AS;
 
+	/**
+	 * Compress the file. An uncompressed file written to a <tt>File</tt> is
+	 * written in place, rather than kept in memory until it is closed.
+	 */
+	public static final String COMPRESS = rootKey + ".Compress";
+
 	private static final UserProperties defaultProperties = new UserProperties();
 	static {
 		defaultProperties.setProperty(TRANSPARENT, true);
 		defaultProperties.setProperty(BACKGROUND, false);
 		defaultProperties.setProperty(BACKGROUND_COLOR, Color.GRAY);
 		defaultProperties.setProperty(WRITE_IMAGES_AS, ImageConstants.SMALLEST);
+		defaultProperties.setProperty(COMPRESS, true);
 		// Seems not to work yet...
 		defaultProperties.setProperty(CLIP, false);
 		defaultProperties.setProperty(TEXT_AS_SHAPES, true);
@@ -86,6 +94,10 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 
 	private OutputStream ros;
 
+	// true if ros is a file opened by this class, which can be written in
+	// place
+	private boolean seekable;
+
 	private SWFOutputStream os;
 
 	private Value id;
@@ -94,8 +106,6 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 
 	private static final float frameRate = 20.0f;
 
-	private boolean compress = true;
-
 	private LineStyleArray lineStyles;
 
 	private FillStyleArray fillStyles;
@@ -137,11 +147,13 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 	public SWFGraphics2D(File file, Dimension size)
 			throws FileNotFoundException {
 		this(new FileOutputStream(file), size);
+		seekable = true;
 	}
 
 	public SWFGraphics2D(File file, Component component)
 			throws FileNotFoundException {
 		this(new FileOutputStream(file), component);
+		seekable = true;
 	}
 
 	public SWFGraphics2D(OutputStream os, Dimension size) {
@@ -198,8 +210,15 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 	 */
 	/* 3.1 Header & Trailer */
 	public void writeHeader() throws IOException {
-		os = new SWFOutputStream(new BufferedOutputStream(ros), SWF_VERSION, getSize(),
-				frameRate, compress);
+		if (seekable && !isProperty(COMPRESS)) {
+			// tags go straight to the file, instead of into memory
+			FileChannel channel = ((FileOutputStream) ros).getChannel();
+			os = new SWFOutputStream(channel, SWF_VERSION, getSize(),
+					frameRate, false);
+		} else {
+			os = new SWFOutputStream(new BufferedOutputStream(ros),
+					SWF_VERSION, getSize(), frameRate, isProperty(COMPRESS));
+		}
 
 		String description = getCreator() + ":" + getClass().getName();
 		if (!isDeviceIndependent()) {
@@ -280,6 +299,9 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 	/* 5.1.4. shapes */
 
 	public void draw(Shape shape) {
+		if (isCulled(shape, true)) {
+			return;
+		}
 		Shape strokedShape = getStroke().createStrokedShape(shape);
 		if (fillStroke) {
 			// do this for dashed lines and non-round linejoins and linecaps
@@ -313,6 +335,9 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 	}
 
 	public void fill(Shape shape) {
+		if (isCulled(shape, false)) {
+			return;
+		}
 		try {
 			Rectangle2D bounds = new BasicStroke().createStrokedShape(shape)
 					.getBounds2D();
@@ -345,6 +370,9 @@ public class SWFGraphics2D extends AbstractVectorGraphicsIO implements
 	}
 
 	public void fillAndDraw(Shape shape, Color fillColor) {
+		if (isCulled(shape, true)) {
+			return;
+		}
 		try {
 			setFillColor(fillColor);
 			fill(shape);
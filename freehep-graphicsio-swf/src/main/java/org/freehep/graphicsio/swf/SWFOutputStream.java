@@ -5,8 +5,11 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 
 import org.freehep.util.io.ActionHeader;
 import org.freehep.util.io.TagHeader;
@@ -15,6 +18,13 @@ import org.freehep.util.io.TaggedOutputStream;
 /**
  * This class extends the TaggedOutputStream with several methods to write SWF
  * primitives to the stream and to write TagHeaders.
+ * <p>
+ * The header holds the length of the file and the number of frames, so the
+ * tags are kept in memory until close(). An uncompressed file written to a
+ * FileChannel, for instance of a RandomAccessFile, is written in place
+ * instead, and close() writes the header over a placeholder. The frame count
+ * of a compressed file is part of the compressed data, which is why it is
+ * always kept in memory.
  * 
  * @author Mark Donszelmann
  * @author Charles Loomis
@@ -30,6 +40,11 @@ public class SWFOutputStream extends TaggedOutputStream implements SWFConstants
 
     private boolean compress;
 
+    // file the tags are written to directly, or null
+    private FileChannel channel;
+
+    private long start;
+
     private final static AffineTransform identityMatrix = new AffineTransform();
 
     public SWFOutputStream(OutputStream os, Dimension size, float frameRate,
@@ -49,25 +64,58 @@ public class SWFOutputStream extends TaggedOutputStream implements SWFConstants
             SWFActionSet actionSet, Dimension size, float frameRate,
             boolean compress) throws IOException {
 
+        this(os, null, tagSet, actionSet, size, frameRate, compress);
+    }
+
+    public SWFOutputStream(FileChannel channel, int version, Dimension size,
+            float frameRate, boolean compress) throws IOException {
+
+        this(new BufferedOutputStream(Channels.newOutputStream(channel)),
+                compress ? null : channel, new SWFTagSet(version),
+                new SWFActionSet(version), size, frameRate, compress);
+    }
+
+    private SWFOutputStream(OutputStream os, FileChannel channel,
+            SWFTagSet tagSet, SWFActionSet actionSet, Dimension size,
+            float frameRate, boolean compress) throws IOException {
+
         // SWF is little-endian
         super(os, tagSet, actionSet, true);
         this.size = size;
         this.frameRate = frameRate;
         this.compress = compress;
+        this.channel = channel;
+
+        if (channel == null) {
+            // will be popped by close()
+            pushBuffer();
+        } else {
+            // will be overwritten by close(), the header has a fixed size
+            start = channel.position();
+            writeHeader(new SWFHeader(getVersion(), 0, size, frameRate, 0,
+                    false));
+        }
 
-        // will be popped by close()
-        pushBuffer();
-        
         // add FileAttributes
         writeTag(new FileAttributes());
     }
 
     public void close() throws IOException {
-        long len = popBuffer() + SWFHeader.size();
-        SWFHeader header = new SWFHeader(getVersion(), len, size, frameRate,
-                frameCount, compress);
-        writeHeader(header);
-        append();
+        if (channel == null) {
+            long len = popBuffer() + getHeaderSize();
+            SWFHeader header = new SWFHeader(getVersion(), len, size,
+                    frameRate, frameCount, compress);
+            writeHeader(header);
+            append();
+        } else {
+            flush();
+            long end = channel.position();
+            channel.position(start);
+            writeHeader(new SWFHeader(getVersion(), end - start, size,
+                    frameRate, frameCount, false));
+            flush();
+            channel.position(end);
+        }
 
         super.close();
     }
@@ -98,14 +146,28 @@ public class SWFOutputStream extends TaggedOutputStream implements SWFConstants
         writeUnsignedShort(fixed);
     }
 
-    public void writeRect(Rectangle2D rect) throws IOException {
+    /**
+     * @return the number of bytes of the header, of which the frame
+     *         rectangle takes as many bits as its largest coordinate needs.
+     */
+    private int getHeaderSize() {
+        int nbits = minBits(new Rectangle2D.Double(0, 0, size.width,
+                size.height));
+        return 8 + (5 + 4 * nbits + 7) / 8 + 4;
+    }
 
+    private static int minBits(Rectangle2D rect) {
         int nbits = 0;
         nbits = Math.max(nbits, minBits((int) (rect.getMinX() * TWIPS), true));
         nbits = Math.max(nbits, minBits((int) (rect.getMaxX() * TWIPS), true));
         nbits = Math.max(nbits, minBits((int) (rect.getMinY() * TWIPS), true));
         nbits = Math.max(nbits, minBits((int) (rect.getMaxY() * TWIPS), true));
-        writeRect(rect, nbits);
+        return nbits;
+    }
+
+    public void writeRect(Rectangle2D rect) throws IOException {
+
+        writeRect(rect, minBits(rect));
     }
 
     public void writeRect(Rectangle2D rect, int nbits) throws IOException {
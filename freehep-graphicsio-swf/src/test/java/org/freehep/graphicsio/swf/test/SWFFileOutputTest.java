@@ -0,0 +1,92 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.swf.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.swf.SWFGraphics2D;
+
+/**
+ * Checks that SWFGraphics2D writes the same uncompressed file in place as
+ * through a stream, where the header is written after the tags are
+ * buffered.
+ *
+ * @version $Id$
+ */
+public class SWFFileOutputTest extends TestCase {
+
+    private static void draw(SWFGraphics2D g, boolean compress) {
+        Properties properties = new Properties();
+        properties.setProperty(SWFGraphics2D.COMPRESS, Boolean
+                .toString(compress));
+        g.setProperties(properties);
+        g.startExport();
+        for (int i = 0; i < 100; i++) {
+            g.setColor(new Color(2 * i, 255 - 2 * i, 100));
+            g.drawLine(i, 0, 200 - i, 200);
+            g.fillRect(i, i, 3, 3);
+        }
+        g.endExport();
+    }
+
+    private static byte[] read(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = new FileInputStream(file);
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    /** @return the file length written in the header */
+    private static long getLength(byte[] swf) {
+        return (swf[4] & 0xFF) | (swf[5] & 0xFF) << 8 | (swf[6] & 0xFF) << 16
+                | (long) (swf[7] & 0xFF) << 24;
+    }
+
+    private static void check(Dimension size, boolean compress)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        draw(new SWFGraphics2D(out, size), compress);
+        byte[] expected = out.toByteArray();
+        if (!compress) {
+            assertEquals(expected.length, getLength(expected));
+        }
+
+        File file = File.createTempFile("SWFFileOutputTest", ".swf");
+        try {
+            draw(new SWFGraphics2D(file, size), compress);
+            byte[] actual = read(file);
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals("byte " + i, expected[i], actual[i]);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testFile() throws Exception {
+        check(new Dimension(200, 200), false);
+    }
+
+    public void testLargeFrame() throws Exception {
+        // the frame rectangle takes one byte more than usual
+        check(new Dimension(2000, 2000), false);
+    }
+
+    public void testCompressedFile() throws Exception {
+        check(new Dimension(200, 200), true);
+    }
+}
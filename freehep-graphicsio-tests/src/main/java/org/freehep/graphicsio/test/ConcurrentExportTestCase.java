@@ -0,0 +1,175 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.font.TextAttribute;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.freehep.graphics2d.VectorGraphics;
+
+/**
+ * Stress test for concurrent use of independent graphics instances. A number
+ * of documents are first written one after the other, then all of them are
+ * written again, several times, from a pool of threads. Every concurrently
+ * written document has to be byte for byte identical to its single threaded
+ * counterpart.
+ * <p>
+ * The drawing exercises number formatting, paints, transparency and fonts,
+ * which all used to share static state between graphics instances.
+ *
+ * @version $Id$
+ */
+public class ConcurrentExportTestCase extends junit.framework.TestCase {
+
+    private static final int DOCUMENTS = 16;
+
+    private static final int THREADS = 8;
+
+    private static final int ROUNDS = 4;
+
+    private String className;
+
+    private Properties properties;
+
+    /**
+     * @param className name of the VectorGraphics class to be tested, which
+     *        needs a constructor (OutputStream, Dimension)
+     * @param properties extra properties to be set on each instance, may be
+     *        null
+     */
+    public ConcurrentExportTestCase(String className, Properties properties) {
+        super("Concurrent Export Test for " + className);
+        this.className = className;
+        this.properties = properties;
+    }
+
+    public ConcurrentExportTestCase(String className) {
+        this(className, null);
+    }
+
+    protected void runTest() throws Throwable {
+        final GraphicsExporter exporter = new GraphicsExporter(className,
+                properties);
+
+        byte[][] expected = new byte[DOCUMENTS][];
+        for (int i = 0; i < DOCUMENTS; i++) {
+            expected[i] = export(exporter, i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < DOCUMENTS; i++) {
+                    final int document = i;
+                    results.add(executor.submit(new Callable<byte[]>() {
+                        public byte[] call() throws Exception {
+                            return export(exporter, document);
+                        }
+                    }));
+                }
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                int document = i % DOCUMENTS;
+                assertTrue("Document " + document + " of round "
+                        + (i / DOCUMENTS) + " differs from single threaded output",
+                        Arrays.equals(expected[document], results.get(i).get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private byte[] export(GraphicsExporter exporter, final int document)
+            throws Exception {
+        return exporter.export(new GraphicsExporter.Drawing() {
+            void paint(VectorGraphics g) {
+                ConcurrentExportTestCase.this.paint(g, document);
+            }
+        });
+    }
+
+    /**
+     * Draws a drawing which only depends on the document number.
+     */
+    protected void paint(VectorGraphics g, int document) {
+        Random random = new Random(document);
+        int w = TestingPanel.width;
+        int h = TestingPanel.height;
+
+        for (int i = 0; i < 50; i++) {
+            GeneralPath path = new GeneralPath();
+            path.moveTo(random.nextFloat() * w, random.nextFloat() * h);
+            for (int j = 0; j < 5; j++) {
+                path.curveTo(random.nextFloat() * w, random.nextFloat() * h,
+                        random.nextFloat() * w, random.nextFloat() * h, random
+                                .nextFloat()
+                                * w, random.nextFloat() * h);
+            }
+            g.setColor(new Color(random.nextInt(0x1000000)));
+            g.setStroke(new BasicStroke(random.nextFloat() * 5));
+            g.draw(path);
+            g.draw(new Line2D.Double(random.nextDouble() * w, random
+                    .nextDouble()
+                    * h, random.nextDouble() * w, random.nextDouble() * h));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            g.setPaint(new GradientPaint(random.nextFloat() * w, random
+                    .nextFloat()
+                    * h, new Color(random.nextInt(0x1000000)), random
+                    .nextFloat()
+                    * w, random.nextFloat() * h, new Color(random
+                    .nextInt(0x1000000))));
+            g.fill(new Ellipse2D.Double(random.nextDouble() * w, random
+                    .nextDouble()
+                    * h, random.nextDouble() * w / 4, random.nextDouble() * h
+                    / 4));
+        }
+
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+                0.5f));
+        g.setColor(Color.BLUE);
+        g.fill(new Rectangle2D.Double(random.nextDouble() * w, random
+                .nextDouble()
+                * h, w / 4.0, h / 4.0));
+        g.setComposite(AlphaComposite.SrcOver);
+
+        // attributed strings go through the FontMap
+        String[] families = { "Serif", "SansSerif", "Monospaced" };
+        for (int i = 0; i < families.length; i++) {
+            Map<TextAttribute, Object> attributes = new HashMap<TextAttribute, Object>();
+            attributes.put(TextAttribute.FAMILY, families[i]);
+            attributes.put(TextAttribute.SIZE, new Float(12 + i * 6));
+            attributes.put(TextAttribute.WEIGHT,
+                    ((document + i) % 2 == 0) ? TextAttribute.WEIGHT_REGULAR
+                            : TextAttribute.WEIGHT_BOLD);
+            attributes.put(TextAttribute.POSTURE,
+                    (document % 3 == 0) ? TextAttribute.POSTURE_OBLIQUE
+                            : TextAttribute.POSTURE_REGULAR);
+            attributes.put(TextAttribute.FOREGROUND, Color.BLACK);
+            attributes.put(TextAttribute.TRACKING, new Float(0));
+            g.drawString(new AttributedString("Document " + document,
+                    attributes).getIterator(), 20, 40 + i * 40);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Polygon;
+import java.awt.font.TextAttribute;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.freehep.graphics2d.DisplayList;
+import org.freehep.graphics2d.DisplayListGraphics2D;
+import org.freehep.graphics2d.VectorGraphics;
+
+/**
+ * Checks that replaying a {@link DisplayList} into a driver gives the same
+ * output as drawing into the driver directly, also when one list is replayed
+ * on several threads at the same time.
+ *
+ * @version $Id$
+ */
+public class DisplayListTestCase extends junit.framework.TestCase {
+
+    private static final int THREADS = 4;
+
+    private static final int REPLAYS = 12;
+
+    private String className;
+
+    private Properties properties;
+
+    /**
+     * @param className name of the VectorGraphics class to be tested, which
+     *        needs a constructor (OutputStream, Dimension)
+     * @param properties extra properties to be set, may be null
+     */
+    public DisplayListTestCase(String className, Properties properties) {
+        super("Display List Test for " + className);
+        this.className = className;
+        this.properties = properties;
+    }
+
+    protected void runTest() throws Throwable {
+        final GraphicsExporter exporter = new GraphicsExporter(className,
+                properties);
+
+        byte[] expected = exporter.export(new GraphicsExporter.Drawing() {
+            void paint(VectorGraphics g) {
+                DisplayListTestCase.this.paint(g);
+            }
+        });
+
+        DisplayListGraphics2D recorder = new DisplayListGraphics2D();
+        paint(recorder);
+        final DisplayList list = recorder.getDisplayList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < REPLAYS; i++) {
+                results.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        return exporter.export(new GraphicsExporter.Drawing() {
+                            void paint(VectorGraphics g) {
+                                list.replay(g);
+                            }
+                        });
+                    }
+                }));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                assertTrue("Replay " + i + " differs from direct output",
+                        Arrays.equals(expected, results.get(i).get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    protected void paint(VectorGraphics g) {
+        Random random = new Random(11);
+        int w = TestingPanel.width;
+        int h = TestingPanel.height;
+
+        // shapes and paths
+        for (int i = 0; i < 20; i++) {
+            GeneralPath path = new GeneralPath();
+            path.moveTo(random.nextFloat() * w, random.nextFloat() * h);
+            path.quadTo(random.nextFloat() * w, random.nextFloat() * h, random
+                    .nextFloat()
+                    * w, random.nextFloat() * h);
+            path.curveTo(random.nextFloat() * w, random.nextFloat() * h,
+                    random.nextFloat() * w, random.nextFloat() * h, random
+                            .nextFloat()
+                            * w, random.nextFloat() * h);
+            path.closePath();
+            g.setColor(new Color(random.nextInt(0x1000000)));
+            g.setStroke(new BasicStroke(1 + random.nextFloat() * 3,
+                    BasicStroke.CAP_ROUND, BasicStroke.JOIN_BEVEL));
+            if (i % 2 == 0) {
+                g.draw(path);
+            } else {
+                g.fill(path);
+            }
+        }
+        g.setLineWidth(2.0);
+        g.drawLine(10, 10, w - 10, h - 10);
+        g.drawRect(20.5, 20.5, 100, 50);
+        g.fillRect(30, 80, 40, 20);
+        g.drawOval(150, 20, 60, 40);
+        g.fillOval(220.25, 20, 40, 60);
+        g.drawRoundRect(300, 20, 80, 40, 10, 10);
+        g.fillArc(400, 20, 60, 60, 30, 120);
+        g.draw(new Arc2D.Double(400, 100, 60, 60, 0, 270, Arc2D.CHORD));
+        g.drawPolyline(new double[] { 10, 50, 90, 130 }, new double[] { 200,
+                240, 200, 240 }, 4);
+        g.fillPolygon(new Polygon(new int[] { 150, 190, 170 }, new int[] {
+                200, 200, 240 }, 3));
+
+        // symbols
+        for (int s = 0; s < 10; s++) {
+            g.drawSymbol(20 + s * 30, 300, 10, s);
+            g.fillSymbol(20 + s * 30, 330, 10, s);
+            g.fillAndDrawSymbol(20 + s * 30, 360, 10, s, Color.ORANGE);
+        }
+
+        // nested graphics with transform and clip
+        VectorGraphics child = (VectorGraphics) g.create();
+        child.translate(300, 250);
+        child.rotate(0.2);
+        child.clip(new Ellipse2D.Double(0, 0, 150, 100));
+        child.setPaint(new GradientPaint(0, 0, Color.RED, 150, 100,
+                Color.BLUE));
+        child.fill(new Rectangle2D.Double(-10, -10, 200, 200));
+        child.setComposite(AlphaComposite.getInstance(
+                AlphaComposite.SRC_OVER, 0.5f));
+        child.setColor(Color.GREEN);
+        child.fillRect(20, 20, 60, 30);
+        child.dispose();
+
+        g.setClip(0, 0, w / 2, h);
+        g.fillAndDraw(new Rectangle2D.Double(200, 380, 300, 40), Color.YELLOW);
+        g.setClip(null);
+
+        // images
+        BufferedImage image = new BufferedImage(32, 24,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, ((x * 8) << 16) | ((y * 10) << 8)
+                        | ((x + y) << 24) | 0x40);
+            }
+        }
+        g.drawImage(image, 20, 420, null);
+        g.drawImage(image, 60, 420, 64, 48, Color.WHITE, null);
+        g.drawImage(image, AffineTransform.getTranslateInstance(140, 420),
+                null);
+
+        // text
+        Map<TextAttribute, Object> attributes = new HashMap<TextAttribute, Object>();
+        attributes.put(TextAttribute.FAMILY, "Serif");
+        attributes.put(TextAttribute.SIZE, new Float(18));
+        attributes.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_BOLD);
+        attributes.put(TextAttribute.POSTURE, TextAttribute.POSTURE_REGULAR);
+        attributes.put(TextAttribute.FOREGROUND, Color.BLACK);
+        attributes.put(TextAttribute.TRACKING, new Float(0));
+        g.drawString(new AttributedString("Display List", attributes)
+                .getIterator(), 250, 460);
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.Dimension;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.util.Properties;
+
+import org.freehep.graphics2d.VectorGraphics;
+import org.freehep.util.UserProperties;
+
+/**
+ * Exports drawings of the size of the {@link TestingPanel} with a
+ * VectorGraphics class given by name, for the test cases which compare the
+ * output of several exports byte for byte. Exports are device independent,
+ * so their output does not depend on the date or the platform. The exporter
+ * may be used from several threads at the same time.
+ *
+ * @version $Id$
+ */
+class GraphicsExporter {
+
+    /**
+     * The content of an export.
+     */
+    abstract static class Drawing {
+
+        /**
+         * Called before the export is started, does nothing by default.
+         */
+        void setUp(VectorGraphics g) throws Exception {
+        }
+
+        abstract void paint(VectorGraphics g) throws Exception;
+    }
+
+    private Constructor<?> constructor;
+
+    private Properties properties;
+
+    /**
+     * @param className name of the VectorGraphics class, which needs a
+     *        constructor (OutputStream, Dimension)
+     * @param properties extra properties to be set on each instance, may be
+     *        null
+     */
+    GraphicsExporter(String className, Properties properties)
+            throws ClassNotFoundException, NoSuchMethodException {
+        constructor = Class.forName(className).getConstructor(
+                new Class<?>[] { OutputStream.class, Dimension.class });
+        this.properties = properties;
+    }
+
+    /** @return the VectorGraphics class */
+    Class<?> getGraphicsClass() {
+        return constructor.getDeclaringClass();
+    }
+
+    /**
+     * @return the output of the drawing
+     */
+    byte[] export(Drawing drawing) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        VectorGraphics g = (VectorGraphics) constructor
+                .newInstance(new Object[] { bytes,
+                        new Dimension(TestingPanel.width, TestingPanel.height) });
+        UserProperties user = (properties == null) ? new UserProperties()
+                : new UserProperties(properties);
+        g.setProperties(user);
+        g.setDeviceIndependent(true);
+        drawing.setUp(g);
+
+        g.startExport();
+        drawing.paint(g);
+        g.endExport();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,119 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.freehep.graphics2d.VectorGraphics;
+
+/**
+ * Checks that encoding images on an executor, see
+ * <tt>setImageExecutor(ExecutorService)</tt> of the PDF and PS drivers, gives
+ * the same output as encoding them on the drawing thread. The drawing
+ * contains opaque, transparent, noisy and repeated images.
+ *
+ * @version $Id$
+ */
+public class ImageExecutorTestCase extends junit.framework.TestCase {
+
+    private static final int THREADS = 4;
+
+    private String className;
+
+    private Properties properties;
+
+    /**
+     * @param className name of the VectorGraphics class to be tested, which
+     *        needs a constructor (OutputStream, Dimension) and a method
+     *        setImageExecutor(ExecutorService)
+     * @param properties extra properties to be set, may be null
+     */
+    public ImageExecutorTestCase(String className, Properties properties) {
+        super("Image Executor Test for " + className);
+        this.className = className;
+        this.properties = properties;
+    }
+
+    protected void runTest() throws Throwable {
+        GraphicsExporter exporter = new GraphicsExporter(className, properties);
+        Method setImageExecutor = exporter.getGraphicsClass().getMethod(
+                "setImageExecutor", new Class<?>[] { ExecutorService.class });
+        byte[] expected = export(exporter, setImageExecutor, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue("Output with executor differs, run " + i, Arrays
+                        .equals(expected, export(exporter, setImageExecutor,
+                                executor)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private byte[] export(GraphicsExporter exporter,
+            final Method setImageExecutor, final ExecutorService executor)
+            throws Exception {
+        return exporter.export(new GraphicsExporter.Drawing() {
+            void setUp(VectorGraphics g) throws Exception {
+                setImageExecutor.invoke(g, new Object[] { executor });
+            }
+
+            void paint(VectorGraphics g) {
+                ImageExecutorTestCase.this.paint(g);
+            }
+        });
+    }
+
+    protected void paint(VectorGraphics g) {
+        Random random = new Random(42);
+        BufferedImage[] images = new BufferedImage[6];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = createImage(random, i);
+        }
+
+        for (int i = 0; i < 24; i++) {
+            BufferedImage image = images[random.nextInt(images.length)];
+            int x = random.nextInt(TestingPanel.width - image.getWidth());
+            int y = random.nextInt(TestingPanel.height - image.getHeight());
+            if (i % 3 == 0) {
+                g.drawImage(image, x, y, Color.white, null);
+            } else {
+                g.drawImage(image, x, y, null);
+            }
+        }
+    }
+
+    private static BufferedImage createImage(Random random, int kind) {
+        int w = 40 + random.nextInt(60);
+        int h = 30 + random.nextInt(60);
+        boolean alpha = (kind % 3 == 2);
+        BufferedImage image = new BufferedImage(w, h,
+                alpha ? BufferedImage.TYPE_INT_ARGB
+                        : BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int rgb;
+                if (kind % 2 == 0) {
+                    // smooth, compresses well with flate
+                    rgb = ((x * 255 / w) << 16) | ((y * 255 / h) << 8) | 0x40;
+                } else {
+                    // noisy, compresses better as JPEG
+                    rgb = random.nextInt(0x1000000);
+                }
+                if (alpha) {
+                    rgb |= (((x + y) * 255 / (w + h)) << 24);
+                }
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+}
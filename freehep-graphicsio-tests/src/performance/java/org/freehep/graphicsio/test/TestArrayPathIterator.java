@@ -0,0 +1,98 @@
+package org.freehep.graphicsio.test;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+import org.freehep.graphics2d.ArrayPath;
+
+/**
+ * Iterates a large ArrayPath with a transform, the way the drivers do when
+ * writing a polyline, and compares it to transforming a copy of all points
+ * first. Prints the time per iteration and per point.
+ *
+ * Usage: TestArrayPathIterator [points [iterations]]
+ * <p>
+ * for instance <tt>1000000 50</tt>.
+ *
+ * @version $Id$
+ */
+public class TestArrayPathIterator {
+
+    private static final int WARMUP = 5;
+
+    public static void main(String[] args) {
+        int points = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+
+        double[] x = new double[points];
+        double[] y = new double[points];
+        Random random = new Random(1);
+        for (int i = 0; i < points; i++) {
+            x[i] = i;
+            y[i] = random.nextGaussian();
+        }
+        ArrayPath path = new ArrayPath(x, y, points, false, 0);
+        AffineTransform t = new AffineTransform(0.001, 0.0002, -0.0001, 50,
+                20, 300);
+
+        double sum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sum += iterate(path.getPathIterator(t));
+            sum += iterate(copyAndTransform(x, y, points, t));
+        }
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sum += iterate(path.getPathIterator(t));
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sum += iterate(copyAndTransform(x, y, points, t));
+        }
+        long t2 = System.nanoTime();
+
+        System.out.println("ArrayPath, " + points + " points, " + iterations
+                + " iterations (checksum " + (float) sum + ")");
+        print("streaming", t1 - t0, iterations, points);
+        print("copying  ", t2 - t1, iterations, points);
+    }
+
+    private static void print(String label, long nanos, int iterations,
+            int points) {
+        double perIteration = nanos / (double) iterations;
+        System.out.println("    " + label + ": "
+                + (long) (perIteration / 1000) + " us/iteration, "
+                + (float) (perIteration / points) + " ns/point");
+    }
+
+    private static double iterate(PathIterator pi) {
+        double[] coords = new double[6];
+        double sum = 0;
+        while (!pi.isDone()) {
+            pi.currentSegment(coords);
+            sum += coords[0] + coords[1];
+            pi.next();
+        }
+        return sum;
+    }
+
+    /**
+     * The former implementation: transforms all points into new arrays.
+     */
+    private static PathIterator copyAndTransform(double[] x, double[] y,
+            int n, AffineTransform t) {
+        double[] tx = new double[n];
+        double[] ty = new double[n];
+        Point2D s = new Point2D.Double();
+        Point2D d = new Point2D.Double();
+        for (int i = 0; i < n; i++) {
+            s.setLocation(x[i], y[i]);
+            t.transform(s, d);
+            tx[i] = d.getX();
+            ty[i] = d.getY();
+        }
+        return new ArrayPath(tx, ty, n, false, 0).getPathIterator(null);
+    }
+}
@@ -0,0 +1,128 @@
+package org.freehep.graphicsio.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.Line2D;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.util.Properties;
+import java.util.Random;
+
+import org.freehep.graphics2d.VectorGraphics;
+import org.freehep.util.UserProperties;
+
+/**
+ * Writes a scatter plot of short line segments with a vector graphics driver
+ * into a stream which behaves like a socket: every flush and every write call
+ * which reaches it costs a fixed amount of time. Prints the throughput and the
+ * number of flushes and writes which reached the stream.
+ *
+ * Usage: TestOutputThroughput className [segments [bufferSize
+ * [compress]]]
+ * <p>
+ * for instance <tt>org.freehep.graphicsio.svg.SVGGraphics2D 1000000</tt> or
+ * <tt>org.freehep.graphicsio.ps.PSGraphics2D 1000000 8192</tt>. The
+ * bufferSize sets the BufferSize property of the driver, compress its
+ * Binary (SVG) property.
+ *
+ * @version $Id$
+ */
+public class TestOutputThroughput {
+
+    // cost of a system call on the sink
+    private static final long CALL_NANOS = 2000;
+
+    /**
+     * Discards the data, but counts and charges for calls.
+     */
+    private static class SocketLikeOutputStream extends OutputStream {
+        private long bytes, writes, flushes;
+
+        private void call() {
+            long end = System.nanoTime() + CALL_NANOS;
+            while (System.nanoTime() < end) {
+                // busy wait, sleep is not precise enough
+            }
+        }
+
+        public void write(int b) throws IOException {
+            bytes++;
+            writes++;
+            call();
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            bytes += len;
+            writes++;
+            call();
+        }
+
+        public void flush() throws IOException {
+            flushes++;
+            call();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err
+                    .println("Usage: TestOutputThroughput className [segments [bufferSize [compress]]]");
+            System.exit(1);
+        }
+        String className = args[0];
+        int segments = (args.length > 1) ? Integer.parseInt(args[1]) : 1000000;
+
+        Class<?> cls = Class.forName(className);
+        Properties properties = new Properties();
+        if (args.length > 2) {
+            properties.setProperty(rootKey(cls) + ".BufferSize", args[2]);
+        }
+        if (args.length > 3) {
+            properties.setProperty(rootKey(cls) + ".Binary", args[3]);
+        }
+
+        Constructor<?> constructor = cls.getConstructor(new Class[] {
+                OutputStream.class, Dimension.class });
+        SocketLikeOutputStream out = new SocketLikeOutputStream();
+        int width = 800;
+        int height = 600;
+        VectorGraphics g = (VectorGraphics) constructor
+                .newInstance(new Object[] { out,
+                        new Dimension(width, height) });
+        g.setProperties(new UserProperties(properties));
+        g.setDeviceIndependent(true);
+
+        long t0 = System.nanoTime();
+        g.startExport();
+        g.setColor(Color.BLUE);
+        Random random = new Random(1);
+        Line2D.Double line = new Line2D.Double();
+        for (int i = 0; i < segments; i++) {
+            double x = random.nextGaussian() * width / 6 + width / 2;
+            double y = random.nextGaussian() * height / 6 + height / 2;
+            line.setLine(x, y, x + 1.5, y + 1.5);
+            g.draw(line);
+        }
+        g.endExport();
+        long t1 = System.nanoTime();
+
+        double seconds = (t1 - t0) / 1e9;
+        System.out.println(className + ": " + segments + " segments, "
+                + out.bytes + " bytes");
+        System.out.println("    time:       " + (long) (seconds * 1000) + " ms");
+        System.out.println("    throughput: " + (long) (segments / seconds)
+                + " segments/s, " + (long) (out.bytes / seconds / 1024)
+                + " KB/s");
+        System.out.println("    writes:     " + out.writes);
+        System.out.println("    flushes:    " + out.flushes);
+    }
+
+    /**
+     * @return the prefix of the property keys of the driver
+     */
+    private static String rootKey(Class<?> cls) throws Exception {
+        String key = (String) cls.getField("TITLE").get(null);
+        return key.substring(0, key.lastIndexOf('.'));
+    }
+}
@@ -0,0 +1,113 @@
+package org.freehep.graphicsio.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.util.Properties;
+import java.util.Random;
+
+import org.freehep.graphics2d.PolylineDecimator;
+import org.freehep.graphics2d.VectorGraphics;
+import org.freehep.graphicsio.AbstractVectorGraphicsIO;
+import org.freehep.util.UserProperties;
+
+/**
+ * Writes a noisy waveform as a single polyline with a vector graphics driver,
+ * once as is and once with the DECIMATION_PIXEL_SIZE property set. Prints the
+ * number of points written, the size of the output and the export time.
+ *
+ * Usage: TestPolylineDecimation className [points [pixelSize]]
+ * <p>
+ * for instance <tt>org.freehep.graphicsio.pdf.PDFGraphics2D 10000000</tt> or
+ * <tt>org.freehep.graphicsio.svg.SVGGraphics2D 1000000 0.25</tt>. The
+ * pixelSize is given in device units and defaults to 1.
+ *
+ * @version $Id$
+ */
+public class TestPolylineDecimation {
+
+    private static final int WIDTH = 800;
+
+    private static final int HEIGHT = 600;
+
+    /**
+     * Discards the data, but counts the bytes.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+
+        public void write(int b) throws IOException {
+            bytes++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            bytes += len;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err
+                    .println("Usage: TestPolylineDecimation className [points [pixelSize]]");
+            System.exit(1);
+        }
+        String className = args[0];
+        int points = (args.length > 1) ? Integer.parseInt(args[1]) : 10000000;
+        double pixelSize = (args.length > 2) ? Double.parseDouble(args[2]) : 1;
+
+        double[] x = new double[points];
+        double[] y = new double[points];
+        Random random = new Random(1);
+        for (int i = 0; i < points; i++) {
+            x[i] = i;
+            y[i] = Math.sin(i * 20.0 / points) * 200 + random.nextGaussian()
+                    * 30;
+        }
+        AffineTransform transform = new AffineTransform(WIDTH
+                / (double) points, 0, 0, -1, 0, HEIGHT / 2);
+
+        double[] xOut = new double[points];
+        double[] yOut = new double[points];
+        long t0 = System.nanoTime();
+        int kept = PolylineDecimator.decimate(x, y, 0, points, transform,
+                pixelSize, xOut, yOut);
+        long t1 = System.nanoTime();
+        System.out.println(className + ": " + points + " points in, " + kept
+                + " points out at pixel size " + pixelSize + " ("
+                + (t1 - t0) / 1000000 + " ms)");
+
+        Constructor<?> constructor = Class.forName(className).getConstructor(
+                new Class[] { OutputStream.class, Dimension.class });
+        export(constructor, "full     ", x, y, transform, 0);
+        export(constructor, "decimated", x, y, transform, pixelSize);
+    }
+
+    private static void export(Constructor<?> constructor, String label,
+            double[] x, double[] y, AffineTransform transform,
+            double pixelSize) throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        VectorGraphics g = (VectorGraphics) constructor
+                .newInstance(new Object[] { out,
+                        new Dimension(WIDTH, HEIGHT) });
+        Properties properties = new Properties();
+        properties.setProperty(AbstractVectorGraphicsIO.DECIMATION_PIXEL_SIZE,
+                Double.toString(pixelSize));
+        g.setProperties(new UserProperties(properties));
+        g.setDeviceIndependent(true);
+
+        long t0 = System.nanoTime();
+        g.startExport();
+        g.setColor(Color.BLUE);
+        g.setLineWidth(0.5);
+        g.transform(transform);
+        g.drawPolyline(x, y, x.length);
+        g.endExport();
+        long t1 = System.nanoTime();
+
+        System.out.println("    " + label + ": " + out.bytes + " bytes, "
+                + (t1 - t0) / 1000000 + " ms");
+    }
+}
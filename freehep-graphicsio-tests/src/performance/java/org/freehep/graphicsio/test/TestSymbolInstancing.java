@@ -0,0 +1,103 @@
+package org.freehep.graphicsio.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.util.Properties;
+import java.util.Random;
+
+import org.freehep.graphics2d.VectorGraphics;
+import org.freehep.graphics2d.VectorGraphicsConstants;
+import org.freehep.graphicsio.AbstractVectorGraphicsIO;
+import org.freehep.util.UserProperties;
+
+/**
+ * Writes a scatter plot of filled circles and crosses with a vector graphics
+ * driver, once as is and once with the SYMBOL_INSTANCING property set. Prints
+ * the size of the output and the export time.
+ *
+ * Usage: TestSymbolInstancing className [symbols]
+ * <p>
+ * for instance <tt>org.freehep.graphicsio.pdf.PDFGraphics2D 500000</tt>.
+ *
+ * @version $Id$
+ */
+public class TestSymbolInstancing {
+
+    private static final int WIDTH = 800;
+
+    private static final int HEIGHT = 600;
+
+    /**
+     * Discards the data, but counts the bytes.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+
+        public void write(int b) throws IOException {
+            bytes++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            bytes += len;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err
+                    .println("Usage: TestSymbolInstancing className [symbols]");
+            System.exit(1);
+        }
+        String className = args[0];
+        int symbols = (args.length > 1) ? Integer.parseInt(args[1]) : 500000;
+
+        double[] x = new double[symbols];
+        double[] y = new double[symbols];
+        Random random = new Random(1);
+        for (int i = 0; i < symbols; i++) {
+            x[i] = WIDTH / 2 + random.nextGaussian() * WIDTH / 6;
+            y[i] = HEIGHT / 2 + random.nextGaussian() * HEIGHT / 6;
+        }
+
+        System.out.println(className + ": " + symbols + " symbols");
+        Constructor<?> constructor = Class.forName(className).getConstructor(
+                new Class[] { OutputStream.class, Dimension.class });
+        export(constructor, "shapes   ", x, y, false);
+        export(constructor, "instanced", x, y, true);
+    }
+
+    private static void export(Constructor<?> constructor, String label,
+            double[] x, double[] y, boolean instancing) throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        VectorGraphics g = (VectorGraphics) constructor
+                .newInstance(new Object[] { out,
+                        new Dimension(WIDTH, HEIGHT) });
+        Properties properties = new Properties();
+        properties.setProperty(AbstractVectorGraphicsIO.SYMBOL_INSTANCING,
+                Boolean.toString(instancing));
+        g.setProperties(new UserProperties(properties));
+        g.setDeviceIndependent(true);
+
+        long t0 = System.nanoTime();
+        g.startExport();
+        for (int i = 0; i < x.length; i++) {
+            if (i % 2 == 0) {
+                g.setColor(Color.BLUE);
+                g.fillSymbol(x[i], y[i], 4,
+                        VectorGraphicsConstants.SYMBOL_CIRCLE);
+            } else {
+                g.setColor(Color.RED);
+                g.drawSymbol(x[i], y[i], 4,
+                        VectorGraphicsConstants.SYMBOL_CROSS);
+            }
+        }
+        g.endExport();
+        long t1 = System.nanoTime();
+
+        System.out.println("    " + label + ": " + out.bytes + " bytes, "
+                + (t1 - t0) / 1000000 + " ms");
+    }
+}
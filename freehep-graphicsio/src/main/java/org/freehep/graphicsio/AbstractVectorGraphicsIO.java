@@ -28,6 +28,7 @@ import java.awt.font.TextAttribute;
 import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Rectangle2D;
@@ -46,6 +47,8 @@ import java.text.AttributedCharacterIterator.Attribute;
 import java.util.Arrays;
 import java.util.Map;
 
+import org.freehep.graphics2d.PolylineDecimator;
+import org.freehep.graphics2d.SymbolShape;
 import org.freehep.graphics2d.font.FontEncoder;
 import org.freehep.graphics2d.font.FontMap;
 import org.freehep.graphics2d.font.FontUtilities;
@@ -80,6 +83,12 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
     
     public static final String ALLOW_PREVIEW_INCLUDING = rootKey + ".ALLOW_PREVIEW_INCLUDING";
 
+    public static final String CULL = rootKey + ".CULL";
+
+    public static final String DECIMATION_PIXEL_SIZE = rootKey + ".DECIMATION_PIXEL_SIZE";
+
+    public static final String SYMBOL_INSTANCING = rootKey + ".SYMBOL_INSTANCING";
+
     /*
      * ================================================================================
      * Table of Contents: ------------------ 1. Constructors & Factory Methods
@@ -102,9 +111,15 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
     private Rectangle deviceClip;
 
     /**
-     * Untransformed clipping Area defined by the user
+     * Clipping region defined by the user, in device space
+     */
+    private ClipRegion userClip;
+
+    /**
+     * Clip in the current user space, kept until the clip or the transform
+     * changes
      */
-    private Area userClip;
+    private Shape userSpaceClip;
 
     private AffineTransform currentTransform;
     
@@ -117,6 +132,12 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
 
     private RenderingHints hints;
 
+    /**
+     * Number of shapes and polylines left out by culling, shared with all
+     * graphics created from this one
+     */
+    private int[] culledCount;
+
     /*
      * ================================================================================
      * 1. Constructors & Factory Methods
@@ -151,6 +172,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
         deviceClip = (size != null ? new Rectangle(0, 0, size.width,
                 size.height) : null);
         userClip = null;
+        culledCount = new int[1];
         currentTransform = new AffineTransform();
         currentComposite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER);
         currentStroke = new BasicStroke(1.0f, BasicStroke.CAP_SQUARE,
@@ -195,6 +217,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
         deviceClip = (size != null ? new Rectangle(0, 0, size.width,
                 size.height) : null);
         userClip = null;
+        culledCount = new int[1];
         GraphicsConfiguration gc = component.getGraphicsConfiguration();
         currentTransform = (gc != null) ? gc.getDefaultTransform()
                 : new AffineTransform();
@@ -226,8 +249,10 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
         component = graphics.component;
 
         deviceClip = new Rectangle(graphics.deviceClip);
-        userClip = (graphics.userClip != null) ? new Area(graphics.userClip)
-                : null;
+        userClip = (graphics.userClip != null) ? new ClipRegion(
+                graphics.userClip) : null;
+        userSpaceClip = graphics.userSpaceClip;
+        culledCount = graphics.culledCount;
         currentTransform = new AffineTransform(graphics.currentTransform);
         currentComposite = graphics.currentComposite;
         currentStroke = graphics.currentStroke;
@@ -239,6 +264,9 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
       getProperties().setProperty(ALLOW_RESIZING_AND_MARGINS, "true");
       getProperties().setProperty(ALLOW_BACKGROUND, "true");
       getProperties().setProperty(ALLOW_PREVIEW_INCLUDING, "true");
+      getProperties().setProperty(CULL, "false");
+      getProperties().setProperty(DECIMATION_PIXEL_SIZE, "0");
+      getProperties().setProperty(SYMBOL_INSTANCING, "false");
     }
     
     /*
@@ -254,6 +282,17 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
         return component;
     }
 
+    /**
+     * Returns the number of shapes and polylines which were not written
+     * because they were completely outside the clip, see {@link #CULL}. The
+     * count includes all graphics created from the same document.
+     *
+     * @return number of culled primitives
+     */
+    public int getCulledCount() {
+        return culledCount[0];
+    }
+
     /*
      * ================================================================================ |
      * 3. Header, Trailer, Multipage & Comments
@@ -340,6 +379,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
     protected void resetClip(Rectangle clip) {
         deviceClip = clip;
         userClip = null;
+        userSpaceClip = null;
     }
 
     /*
@@ -384,6 +424,260 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
      * ================================================================================
      */
 
+    /* 5.1.2. polylines, polygons */
+    /**
+     * Draws a polyline. If CULL is set, the points in front of the first and
+     * behind the last segment near the clip are left out, keeping one point
+     * outside the clip at either end. If DECIMATION_PIXEL_SIZE is set to a
+     * positive size in device space, only the points visible at that size are
+     * written, see {@link PolylineDecimator}. Dashed lines are neither
+     * trimmed nor decimated, as this would shift the dash pattern.
+     */
+    public void drawPolyline(double[] xPoints, double[] yPoints, int nPoints) {
+        Stroke stroke = getStroke();
+        if ((nPoints <= 2) || !(stroke instanceof BasicStroke)
+                || (((BasicStroke) stroke).getDashArray() != null)) {
+            super.drawPolyline(xPoints, yPoints, nPoints);
+            return;
+        }
+
+        int first = 0;
+        int last = nPoints - 1;
+        Rectangle2D view = isProperty(CULL) ? getCullingBounds(stroke) : null;
+        if (view != null) {
+            double vx1 = view.getMinX();
+            double vy1 = view.getMinY();
+            double vx2 = view.getMaxX();
+            double vy2 = view.getMaxY();
+            first = -1;
+            for (int i = 1; i < nPoints; i++) {
+                double x1 = xPoints[i - 1], x2 = xPoints[i];
+                double y1 = yPoints[i - 1], y2 = yPoints[i];
+                if ((Math.max(x1, x2) >= vx1) && (Math.min(x1, x2) <= vx2)
+                        && (Math.max(y1, y2) >= vy1)
+                        && (Math.min(y1, y2) <= vy2)) {
+                    if (first < 0) {
+                        first = i - 1;
+                    }
+                    last = i;
+                }
+            }
+
+            if (first < 0) {
+                culledCount[0]++;
+                return;
+            }
+        }
+
+        int n = last - first + 1;
+        double pixelSize = getPropertyDouble(DECIMATION_PIXEL_SIZE);
+        if ((pixelSize > 0) || (n < nPoints)) {
+            double[] x = new double[n];
+            double[] y = new double[n];
+            n = PolylineDecimator.decimate(xPoints, yPoints, first, n,
+                    currentTransform, pixelSize, x, y);
+            super.drawPolyline(x, y, n);
+            return;
+        }
+        super.drawPolyline(xPoints, yPoints, nPoints);
+    }
+
+    /* 5.1.4. shapes */
+    /**
+     * Draws a symbol. If SYMBOL_INSTANCING is set, the driver may write the
+     * symbol once and refer to it for every further symbol of the same kind
+     * and size, see {@link #writeSymbol(double, double, String, Shape, boolean)}.
+     */
+    public void drawSymbol(double x, double y, double size, int symbol) {
+        if ((size > 0) && writeSymbolInstance(x, y, size, symbol, false)) {
+            return;
+        }
+        super.drawSymbol(x, y, size, symbol);
+    }
+
+    /**
+     * Fills a symbol. If SYMBOL_INSTANCING is set, the driver may write the
+     * symbol once and refer to it for every further symbol of the same kind
+     * and size, see {@link #writeSymbol(double, double, String, Shape, boolean)}.
+     */
+    public void fillSymbol(double x, double y, double size, int symbol) {
+        if ((size > 0) && writeSymbolInstance(x, y, size, symbol, true)) {
+            return;
+        }
+        super.fillSymbol(x, y, size, symbol);
+    }
+
+    /**
+     * Creates the shape of a symbol around the origin, the same shape which
+     * drawSymbol and fillSymbol draw around (x, y), and hands it to
+     * writeSymbol.
+     *
+     * @return false if the symbol needs to be drawn as a shape
+     */
+    private boolean writeSymbolInstance(double x, double y, double size,
+            int symbol, boolean filled) {
+        if (!(getPaint() instanceof Color)
+                || !(getStroke() instanceof BasicStroke)
+                || !isProperty(SYMBOL_INSTANCING)) {
+            return false;
+        }
+
+        Shape shape;
+        boolean fill;
+        switch (symbol) {
+        case SYMBOL_VLINE:
+        case SYMBOL_STAR:
+        case SYMBOL_HLINE:
+        case SYMBOL_PLUS:
+        case SYMBOL_CROSS:
+            SymbolShape lines = new SymbolShape();
+            lines.create(symbol, 0, 0, size);
+            shape = lines;
+            fill = false;
+            break;
+
+        case SYMBOL_BOX:
+        case SYMBOL_UP_TRIANGLE:
+        case SYMBOL_DN_TRIANGLE:
+        case SYMBOL_DIAMOND:
+            SymbolShape area = new SymbolShape();
+            area.create(symbol, 0, 0, size);
+            shape = area;
+            fill = filled;
+            break;
+
+        case SYMBOL_CIRCLE:
+            double diameter = Math.max(1, size);
+            diameter += (diameter % 2);
+            shape = new Ellipse2D.Double(-diameter / 2, -diameter / 2,
+                    diameter, diameter);
+            fill = filled;
+            break;
+
+        default:
+            return false;
+        }
+
+        Rectangle2D bounds = shape.getBounds2D();
+        bounds.setRect(bounds.getX() + x, bounds.getY() + y, bounds
+                .getWidth(), bounds.getHeight());
+        if (isCulled(bounds, !fill)) {
+            return true;
+        }
+
+        String key = symbol + " " + size + (fill ? " fill" : " draw");
+        try {
+            return writeSymbol(x, y, key, shape, fill);
+        } catch (IOException e) {
+            handleException(e);
+            return true;
+        }
+    }
+
+    /**
+     * Writes a symbol at (x, y) by referring to a definition of its shape,
+     * which is written on first use. Only called if SYMBOL_INSTANCING is
+     * set, the paint is a Color and the stroke a BasicStroke. The default
+     * implementation returns false, so the symbol is drawn as a shape.
+     *
+     * @param x position of the symbol
+     * @param y position of the symbol
+     * @param key equal for symbols with equal shapes
+     * @param shape shape of the symbol around the origin
+     * @param fill true if the shape is to be filled, false if it is to be
+     *        drawn with the current stroke
+     * @return false if the symbol was not written
+     */
+    protected boolean writeSymbol(double x, double y, String key,
+            Shape shape, boolean fill) throws IOException {
+        return false;
+    }
+
+    /**
+     * Checks if a shape can be left out because it lies completely outside
+     * the clip and the page. Always returns false unless the CULL property is
+     * set. Drivers call this at the start of draw, fill and fillAndDraw.
+     *
+     * @param shape shape to be drawn or filled
+     * @param stroked true if the shape will be drawn with the current stroke
+     * @return true if nothing of the shape would be visible
+     */
+    protected boolean isCulled(Shape shape, boolean stroked) {
+        if (!isProperty(CULL)) {
+            return false;
+        }
+
+        Stroke stroke = stroked ? getStroke() : null;
+        if ((stroke != null) && !(stroke instanceof BasicStroke)) {
+            shape = stroke.createStrokedShape(shape);
+            stroke = null;
+        }
+        Rectangle2D view = getCullingBounds(stroke);
+        if ((view == null) || shape.intersects(view)) {
+            return false;
+        }
+        culledCount[0]++;
+        return true;
+    }
+
+    /**
+     * Returns the bounds of the page and the clip in user space, enlarged by
+     * one device unit and by the extent of the stroke.
+     *
+     * @param stroke stroke to enlarge the bounds for, may be null
+     * @return bounds in user space, or null if culling is not possible
+     */
+    private Rectangle2D getCullingBounds(Stroke stroke) {
+        Rectangle2D view = (deviceClip != null) ? new Rectangle2D.Double(
+                deviceClip.x, deviceClip.y, deviceClip.width,
+                deviceClip.height) : null;
+        if (userClip != null) {
+            Rectangle2D clip = userClip.getBounds2D();
+            if (view != null) {
+                Rectangle2D.intersect(view, clip, view);
+            } else {
+                view = clip;
+            }
+        }
+        if (view == null) {
+            return null;
+        }
+        if (view.isEmpty()) {
+            // nothing is visible
+            return new Rectangle2D.Double();
+        }
+
+        AffineTransform inverse;
+        try {
+            inverse = currentTransform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            return null;
+        }
+        double[] pts = { view.getMinX() - 1, view.getMinY() - 1,
+                view.getMaxX() + 1, view.getMinY() - 1, view.getMaxX() + 1,
+                view.getMaxY() + 1, view.getMinX() - 1, view.getMaxY() + 1 };
+        inverse.transform(pts, 0, pts, 0, 4);
+        double x1 = pts[0], x2 = x1;
+        double y1 = pts[1], y2 = y1;
+        for (int i = 2; i < pts.length; i += 2) {
+            x1 = Math.min(x1, pts[i]);
+            x2 = Math.max(x2, pts[i]);
+            y1 = Math.min(y1, pts[i + 1]);
+            y2 = Math.max(y2, pts[i + 1]);
+        }
+
+        // half the line width, or more for square caps and miter joins
+        double pad = 0;
+        if (stroke instanceof BasicStroke) {
+            BasicStroke bs = (BasicStroke) stroke;
+            double limit = (bs.getLineJoin() == BasicStroke.JOIN_MITER) ? bs
+                    .getMiterLimit() : 1;
+            pad = bs.getLineWidth() / 2 * Math.max(Math.sqrt(2), limit);
+        }
+        return new Rectangle2D.Double(x1 - pad, y1 - pad, x2 - x1 + 2 * pad,
+                y2 - y1 + 2 * pad);
+    }
+
     /* 5.3. Images */
     public boolean drawImage(Image image, int x, int y, ImageObserver observer) {
         int imageWidth = image.getWidth(observer);
@@ -733,6 +1027,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
         // Fix for FREEHEP-569
     	oldTransform.setTransform(currentTransform);
         currentTransform.setTransform(transform);
+        userSpaceClip = null;
         try {
             writeSetTransform(transform);
         } catch (IOException e) {
@@ -747,6 +1042,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
      */
     public void transform(AffineTransform transform) {
         currentTransform.concatenate(transform);
+        userSpaceClip = null;
         try {
             writeTransform(transform);
         } catch (IOException e) {
@@ -762,6 +1058,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
      */
     public void translate(double x, double y) {
         currentTransform.translate(x, y);
+        userSpaceClip = null;
         try {
             writeTransform(new AffineTransform(1, 0, 0, 1, x, y));
         } catch (IOException e) {
@@ -778,6 +1075,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
      */
     public void rotate(double theta) {
         currentTransform.rotate(theta);
+        userSpaceClip = null;
         try {
             writeTransform(new AffineTransform(Math.cos(theta),
                     Math.sin(theta), -Math.sin(theta), Math.cos(theta), 0, 0));
@@ -794,6 +1092,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
      */
     public void scale(double sx, double sy) {
         currentTransform.scale(sx, sy);
+        userSpaceClip = null;
         try {
             writeTransform(new AffineTransform(sx, 0, 0, sy, 0, 0));
         } catch (IOException e) {
@@ -809,6 +1108,7 @@ public abstract class AbstractVectorGraphicsIO extends VectorGraphicsIO {
      */
     public void shear(double shx, double shy) {
         currentTransform.shear(shx, shy);
+        userSpaceClip = null;
         try {
             writeTransform(new AffineTransform(1, shy, shx, 1, 0, 0));
         } catch (IOException e) {
@@ -858,7 +1158,20 @@ s     *
      * @return current clip
      */
     public Shape getClip() {
-        return (userClip != null) ? new Area(untransformShape(userClip)) : null;
+        if (userClip == null) {
+            return null;
+        }
+        if (userSpaceClip == null) {
+            userSpaceClip = userClip.getShape(currentTransform);
+            if (userSpaceClip == null) {
+                return null;
+            }
+        }
+        // hand out a copy, the caller may modify it
+        if (userSpaceClip instanceof Area) {
+            return new Area(userSpaceClip);
+        }
+        return (Shape) ((Rectangle2D) userSpaceClip).clone();
     }
 
     /**
@@ -868,7 +1181,7 @@ s     *
      */
     public Rectangle getClipBounds() {
         Shape clip = getClip();
-        return (clip != null) ? getClip().getBounds() : null;
+        return (clip != null) ? clip.getBounds() : null;
     }
 
     /**
@@ -937,9 +1250,8 @@ s     *
      * @param s used for clipping
      */
     public void setClip(Shape s) {
-
-        Shape ts = transformShape(s);
-        userClip = (ts != null) ? new Area(ts) : null;
+        userClip = (s != null) ? new ClipRegion(s, currentTransform) : null;
+        userSpaceClip = null;
 
         try {
             writeSetClip(s);
@@ -955,16 +1267,14 @@ s     *
      * @param s used for clipping
      */
     public void clip(Shape s) {
-        Shape ts = transformShape(s);
-        if (userClip != null) {
-            if (ts != null) {
-                userClip.intersect(new Area(ts));
-            } else {
-                userClip = null;
-            }
+        if (s == null) {
+            userClip = null;
+        } else if (userClip != null) {
+            userClip.intersect(s, currentTransform);
         } else {
-            userClip = (ts != null) ? new Area(ts) : null;
+            userClip = new ClipRegion(s, currentTransform);
         }
+        userSpaceClip = null;
 
         try {
 	    writeClip(s);
@@ -1414,26 +1724,6 @@ s     *
         return path;
     }
 
-    private Shape transformShape(AffineTransform at, Shape s) {
-        if (s == null)
-            return null;
-        return at.createTransformedShape(s);
-    }
-
-    private Shape transformShape(Shape s) {
-        return transformShape(getTransform(), s);
-    }
-
-    private Shape untransformShape(Shape s) {
-        if (s == null)
-            return null;
-        try {
-            return transformShape(getTransform().createInverse(), s);
-        } catch (NoninvertibleTransformException e) {
-            return null;
-        }
-    }
-
     /**
      * Draws an overline for the text at (x, y). The method is usesefull for
      * drivers that do not support overlines by itself.
@@ -0,0 +1,182 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Clipping region in device space, as tracked by
+ * {@link AbstractVectorGraphicsIO}. Rectangles which stay axis-aligned under
+ * the transform (translations, scales, flips and quadrant rotations) are kept
+ * as their corner coordinates and intersected arithmetically. Any other clip
+ * is kept as an <tt>Area</tt>, which is turned back into a rectangle whenever
+ * an intersection makes it rectangular again.
+ *
+ * @version $Id$
+ */
+public class ClipRegion {
+
+    // device space corners of a rectangular region, valid if area is null
+    private double x1, y1, x2, y2;
+
+    // region if it is not a rectangle
+    private Area area;
+
+    /**
+     * Creates the region of a shape drawn with the given transform.
+     *
+     * @param s clip in user space
+     * @param transform transform from user to device space
+     */
+    public ClipRegion(Shape s, AffineTransform transform) {
+        if (!setRectangle(s, transform)) {
+            area = new Area(transform.createTransformedShape(s));
+            simplify();
+        }
+    }
+
+    /**
+     * Creates a copy of the given region.
+     */
+    public ClipRegion(ClipRegion region) {
+        x1 = region.x1;
+        y1 = region.y1;
+        x2 = region.x2;
+        y2 = region.y2;
+        area = (region.area != null) ? new Area(region.area) : null;
+    }
+
+    /**
+     * @return true if the region is an axis-aligned rectangle in device space
+     */
+    public boolean isRectangular() {
+        return area == null;
+    }
+
+    /**
+     * @return a new rectangle with the bounds of the region in device space
+     */
+    public Rectangle2D getBounds2D() {
+        if (area != null) {
+            return area.getBounds2D();
+        }
+        return new Rectangle2D.Double(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    /**
+     * Intersects this region with a shape drawn with the given transform.
+     *
+     * @param s clip in user space
+     * @param transform transform from user to device space
+     */
+    public void intersect(Shape s, AffineTransform transform) {
+        if (area == null) {
+            double rx1 = x1, ry1 = y1, rx2 = x2, ry2 = y2;
+            if (setRectangle(s, transform)) {
+                x1 = Math.max(x1, rx1);
+                y1 = Math.max(y1, ry1);
+                x2 = Math.min(x2, rx2);
+                y2 = Math.min(y2, ry2);
+                if ((x1 >= x2) || (y1 >= y2)) {
+                    area = new Area();
+                }
+                return;
+            }
+            area = new Area(new Rectangle2D.Double(rx1, ry1, rx2 - rx1, ry2
+                    - ry1));
+        }
+        area.intersect(new Area(transform.createTransformedShape(s)));
+        simplify();
+    }
+
+    /**
+     * Returns the region in the user space of the given transform.
+     *
+     * @param transform transform from user to device space
+     * @return a new clip shape, a <tt>Rectangle2D</tt> if possible, or null if
+     *         the transform cannot be inverted
+     */
+    public Shape getShape(AffineTransform transform) {
+        AffineTransform inverse;
+        try {
+            inverse = transform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            return null;
+        }
+
+        if ((area == null) && isRectilinear(inverse)) {
+            double[] pts = { x1, y1, x2, y2 };
+            inverse.transform(pts, 0, pts, 0, 2);
+            return createRectangle(pts);
+        }
+
+        Shape device = (area != null) ? area : new Rectangle2D.Double(x1, y1,
+                x2 - x1, y2 - y1);
+        return new Area(inverse.createTransformedShape(device));
+    }
+
+    /**
+     * Sets the corners if the shape is a rectangle which stays axis-aligned
+     * under the transform.
+     *
+     * @return false if the shape cannot be represented by its corners
+     */
+    private boolean setRectangle(Shape s, AffineTransform transform) {
+        Rectangle2D r;
+        if (s instanceof Rectangle2D) {
+            r = (Rectangle2D) s;
+        } else if ((s instanceof Area) && ((Area) s).isRectangular()) {
+            r = s.getBounds2D();
+        } else {
+            return false;
+        }
+        if (!isRectilinear(transform)) {
+            return false;
+        }
+        if (r.isEmpty()) {
+            area = new Area();
+            return true;
+        }
+
+        double[] pts = { r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY() };
+        transform.transform(pts, 0, pts, 0, 2);
+        x1 = Math.min(pts[0], pts[2]);
+        y1 = Math.min(pts[1], pts[3]);
+        x2 = Math.max(pts[0], pts[2]);
+        y2 = Math.max(pts[1], pts[3]);
+        return true;
+    }
+
+    /**
+     * Goes back to the corners if the area is a rectangle.
+     */
+    private void simplify() {
+        if (area.isRectangular() && !area.isEmpty()) {
+            Rectangle2D r = area.getBounds2D();
+            x1 = r.getMinX();
+            y1 = r.getMinY();
+            x2 = r.getMaxX();
+            y2 = r.getMaxY();
+            area = null;
+        }
+    }
+
+    private static Rectangle2D createRectangle(double[] pts) {
+        double minX = Math.min(pts[0], pts[2]);
+        double minY = Math.min(pts[1], pts[3]);
+        return new Rectangle2D.Double(minX, minY, Math.max(pts[0], pts[2])
+                - minX, Math.max(pts[1], pts[3]) - minY);
+    }
+
+    /**
+     * @return true if the transform maps axis-aligned rectangles onto
+     *         axis-aligned rectangles
+     */
+    private static boolean isRectilinear(AffineTransform t) {
+        return ((t.getShearX() == 0) && (t.getShearY() == 0))
+                || ((t.getScaleX() == 0) && (t.getScaleY() == 0));
+    }
+}
@@ -147,16 +147,28 @@ public class DummyGraphics2D extends AbstractVectorGraphicsIO {
     /* 5.1.4. shapes */
 
     public void draw(Shape shape) {
+        // Leave out shapes outside the clip if culling is enabled.
+        if (isCulled(shape, true)) {
+            return;
+        }
         writeWarning(getClass() + ": draw(Shape) not implemented.");
         // Write out the stroke of the shape.
     }
 
     public void fill(Shape shape) {
+        // Leave out shapes outside the clip if culling is enabled.
+        if (isCulled(shape, false)) {
+            return;
+        }
         writeWarning(getClass() + ": fill(Shape) not implemented.");
         // Write out the fill of the shape.
     }
 
     public void fillAndDraw(Shape shape, Color fillColor) {
+        // Leave out shapes outside the clip if culling is enabled.
+        if (isCulled(shape, true)) {
+            return;
+        }
         writeWarning(getClass()
                 + ": fillAndDraw(Shape, Color) not implemented.");
         // Write out the fill with fillColor and stroke of the shape in
@@ -0,0 +1,76 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio;
+
+import java.awt.Color;
+import java.awt.image.RenderedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per document cache of written images, keyed on {@link ImageFingerprint}.
+ * A driver looks up an image before writing it; if an image with the same
+ * content was written before, the value stored for it (the name of a PDF
+ * XObject, a PostScript procedure, an SVG element id, ...) can be referenced
+ * instead of writing the image data again.
+ *
+ * @version $Id$
+ */
+public class ImageCache<V> {
+
+    private Map<ImageFingerprint, V> entries = new HashMap<ImageFingerprint, V>();
+
+    private int hits, misses;
+
+    /**
+     * @return the fingerprint for the image, to be used with get and put.
+     */
+    public ImageFingerprint fingerprint(RenderedImage image, Color bkg,
+            String encoding) {
+        return ImageFingerprint.create(image, bkg, encoding);
+    }
+
+    /**
+     * @return the value stored for the fingerprint, or null if no image with
+     *         this fingerprint was stored.
+     */
+    public V get(ImageFingerprint key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public void put(ImageFingerprint key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * @return number of distinct images stored
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of lookups which found a previously stored image
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups which did not find a stored image
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    public void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+}
@@ -0,0 +1,102 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio;
+
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Encodes images into byte arrays, see
+ * {@link ImageGraphics2D#toByteArray(RenderedImage, String, String, Properties)},
+ * on the threads of an <tt>ExecutorService</tt>. A driver submits an image as
+ * soon as it is drawn and only waits for the result when the bytes have to be
+ * written, so encoding overlaps with drawing. Trials of several formats for
+ * the same image are separate tasks, so they run concurrently as well.
+ * <p>
+ * Without an executor every task is run immediately on the calling thread.
+ * <p>
+ * The results do not depend on the order in which tasks complete, it is up
+ * to the driver to write them in the order they were submitted. Images must
+ * not be modified after they are submitted.
+ *
+ * @version $Id$
+ */
+public class ImageEncoderPool {
+
+    private final ExecutorService executor;
+
+    /**
+     * @param executor executor to run the encoding tasks, or null to encode
+     *        on the calling thread. The executor is not shut down by this
+     *        pool.
+     */
+    public ImageEncoderPool(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the executor, or null if images are encoded on the calling
+     *         thread
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Starts encoding the image.
+     *
+     * @see ImageGraphics2D#toByteArray(RenderedImage, String, String,
+     *      Properties)
+     */
+    public Future<byte[]> toByteArray(final RenderedImage image,
+            final String format, final String encoding, final Properties props) {
+        return submit(new Callable<byte[]>() {
+            public byte[] call() throws IOException {
+                return ImageGraphics2D.toByteArray(image, format, encoding,
+                        props);
+            }
+        });
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        if (executor != null) {
+            return executor.submit(task);
+        }
+        FutureTask<T> future = new FutureTask<T>(task);
+        future.run();
+        return future;
+    }
+
+    /**
+     * Waits for the result of an encoding task.
+     *
+     * @throws IOException if the encoding failed or was interrupted
+     */
+    public static byte[] get(Future<byte[]> bytes) throws IOException {
+        try {
+            return bytes.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Image encoding interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            IOException io = new IOException("Image encoding failed: " + cause);
+            io.initCause(cause);
+            throw io;
+        }
+    }
+}
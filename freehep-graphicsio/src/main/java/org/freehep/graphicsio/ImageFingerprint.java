@@ -0,0 +1,171 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Content based key for an image. Two fingerprints are equal if the images
+ * have the same size, color model and pixel samples, and are to be written
+ * with the same background color and encoding. The pixels are hashed every
+ * time a fingerprint is created, so an image which is modified between two
+ * draws results in two different fingerprints.
+ *
+ * The drivers use fingerprints as keys into an {@link ImageCache} to write
+ * identical images only once per document.
+ *
+ * @version $Id$
+ */
+public final class ImageFingerprint {
+
+    private static final String ALGORITHM = "SHA-1";
+
+    private final int width, height;
+
+    private final Color bkg;
+
+    private final String encoding;
+
+    private final byte[] digest;
+
+    private final int hashCode;
+
+    private ImageFingerprint(int width, int height, Color bkg, String encoding,
+            byte[] digest) {
+        this.width = width;
+        this.height = height;
+        this.bkg = bkg;
+        this.encoding = encoding;
+        this.digest = digest;
+
+        int h = Arrays.hashCode(digest);
+        h = 31 * h + width;
+        h = 31 * h + height;
+        h = 31 * h + (bkg != null ? bkg.hashCode() : 0);
+        h = 31 * h + (encoding != null ? encoding.hashCode() : 0);
+        hashCode = h;
+    }
+
+    /**
+     * Creates the fingerprint of the given image.
+     *
+     * @param image image to be fingerprinted
+     * @param bkg background color the image will be written with, may be null
+     * @param encoding encoding (or any other driver specific qualifier) the
+     *        image will be written with, may be null
+     * @return fingerprint of the image
+     */
+    public static ImageFingerprint create(RenderedImage image, Color bkg,
+            String encoding) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-1
+            throw new RuntimeException(e);
+        }
+
+        digestColorModel(md, image.getColorModel());
+
+        Raster raster = (image instanceof BufferedImage) ? ((BufferedImage) image)
+                .getRaster()
+                : image.getData();
+        int w = raster.getWidth();
+        int h = raster.getHeight();
+        int x0 = raster.getMinX();
+        int y0 = raster.getMinY();
+        int bands = raster.getNumBands();
+        int[] samples = new int[w * bands];
+        byte[] bytes = new byte[samples.length * 4];
+        for (int y = 0; y < h; y++) {
+            raster.getPixels(x0, y0 + y, w, 1, samples);
+            int j = 0;
+            for (int i = 0; i < samples.length; i++) {
+                int s = samples[i];
+                bytes[j++] = (byte) (s >>> 24);
+                bytes[j++] = (byte) (s >>> 16);
+                bytes[j++] = (byte) (s >>> 8);
+                bytes[j++] = (byte) s;
+            }
+            md.update(bytes);
+        }
+
+        return new ImageFingerprint(image.getWidth(), image.getHeight(), bkg,
+                encoding, md.digest());
+    }
+
+    private static void digestColorModel(MessageDigest md, ColorModel cm) {
+        if (cm == null) {
+            return;
+        }
+        md.update(cm.getClass().getName().getBytes());
+        md.update((byte) cm.getColorSpace().getType());
+        md.update((byte) cm.getTransparency());
+        md.update((byte) (cm.isAlphaPremultiplied() ? 1 : 0));
+        int[] sizes = cm.getComponentSize();
+        for (int i = 0; i < sizes.length; i++) {
+            md.update((byte) sizes[i]);
+        }
+        if (cm instanceof IndexColorModel) {
+            IndexColorModel icm = (IndexColorModel) cm;
+            int[] rgbs = new int[icm.getMapSize()];
+            icm.getRGBs(rgbs);
+            for (int i = 0; i < rgbs.length; i++) {
+                md.update((byte) (rgbs[i] >>> 24));
+                md.update((byte) (rgbs[i] >>> 16));
+                md.update((byte) (rgbs[i] >>> 8));
+                md.update((byte) rgbs[i]);
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int hashCode() {
+        return hashCode;
+    }
+
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ImageFingerprint)) {
+            return false;
+        }
+        ImageFingerprint other = (ImageFingerprint) obj;
+        return (hashCode == other.hashCode)
+                && (width == other.width)
+                && (height == other.height)
+                && Arrays.equals(digest, other.digest)
+                && (bkg == null ? other.bkg == null : bkg.equals(other.bkg))
+                && (encoding == null ? other.encoding == null : encoding
+                        .equals(other.encoding));
+    }
+
+    public String toString() {
+        StringBuffer s = new StringBuffer("ImageFingerprint[");
+        s.append(width);
+        s.append("x");
+        s.append(height);
+        s.append(", ");
+        for (int i = 0; i < digest.length; i++) {
+            s.append(Integer.toHexString((digest[i] >> 4) & 0x0F));
+            s.append(Integer.toHexString(digest[i] & 0x0F));
+        }
+        s.append("]");
+        return s.toString();
+    }
+}
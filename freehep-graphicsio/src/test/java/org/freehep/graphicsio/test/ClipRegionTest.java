@@ -0,0 +1,189 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.ClipRegion;
+
+/**
+ * Checks ClipRegion against the intersection of Areas it replaces.
+ *
+ * @version $Id$
+ */
+public class ClipRegionTest extends TestCase {
+
+    private static final double EPSILON = 1e-9;
+
+    private static AffineTransform createTransform(Random random,
+            boolean rectilinear) {
+        AffineTransform t = new AffineTransform();
+        t.translate(random.nextDouble() * 100 - 50,
+                random.nextDouble() * 100 - 50);
+        t.scale((random.nextBoolean() ? -1 : 1)
+                * (0.5 + random.nextDouble() * 3), 0.5 + random.nextDouble() * 3);
+        if (rectilinear) {
+            int quadrants = random.nextInt(4);
+            for (int i = 0; i < quadrants; i++) {
+                t.concatenate(new AffineTransform(0, 1, -1, 0, 0, 0));
+            }
+        } else {
+            t.rotate(0.3);
+        }
+        return t;
+    }
+
+    private static Rectangle2D createRectangle(Random random) {
+        return new Rectangle2D.Double(random.nextDouble() * 200 - 100, random
+                .nextDouble() * 200 - 100, random.nextDouble() * 150, random
+                .nextDouble() * 150);
+    }
+
+    private static Area reference(Area device, AffineTransform t)
+            throws Exception {
+        return new Area(t.createInverse().createTransformedShape(device));
+    }
+
+    private static void assertSameRegion(String message, Area expected,
+            Shape actual) {
+        Rectangle2D e = expected.getBounds2D();
+        Rectangle2D a = actual.getBounds2D();
+        if (expected.isEmpty()) {
+            assertTrue(message + " should be empty", new Area(actual)
+                    .isEmpty());
+            return;
+        }
+        assertEquals(message, e.getMinX(), a.getMinX(), EPSILON);
+        assertEquals(message, e.getMinY(), a.getMinY(), EPSILON);
+        assertEquals(message, e.getMaxX(), a.getMaxX(), EPSILON);
+        assertEquals(message, e.getMaxY(), a.getMaxY(), EPSILON);
+
+        // only slivers from rounding may differ
+        Area difference = new Area(actual);
+        difference.exclusiveOr(expected);
+        double size = getSize(difference);
+        assertTrue(message + " differs by " + size, size < 1e-6 * getSize(
+                expected));
+    }
+
+    /**
+     * @return the sum of the sizes of all subpaths of a flattened shape
+     */
+    private static double getSize(Shape s) {
+        double size = 0;
+        double subpath = 0;
+        double[] c = new double[6];
+        double x0 = 0, y0 = 0, x = 0, y = 0;
+        for (PathIterator pi = s.getPathIterator(null, 0.01); !pi.isDone(); pi
+                .next()) {
+            switch (pi.currentSegment(c)) {
+            case PathIterator.SEG_MOVETO:
+                size += Math.abs(subpath);
+                subpath = 0;
+                x0 = x = c[0];
+                y0 = y = c[1];
+                break;
+            case PathIterator.SEG_LINETO:
+                subpath += (x * c[1] - c[0] * y) / 2;
+                x = c[0];
+                y = c[1];
+                break;
+            case PathIterator.SEG_CLOSE:
+                subpath += (x * y0 - x0 * y) / 2;
+                x = x0;
+                y = y0;
+                break;
+            }
+        }
+        return size + Math.abs(subpath);
+    }
+
+    public void testRectangles() throws Exception {
+        Random random = new Random(3);
+        for (int run = 0; run < 200; run++) {
+            AffineTransform t = createTransform(random, true);
+            Rectangle2D r = createRectangle(random);
+            ClipRegion region = new ClipRegion(r, t);
+            Area device = new Area(t.createTransformedShape(r));
+            for (int i = 0; i < 4; i++) {
+                assertTrue(region.isRectangular() || device.isEmpty());
+                Shape clip = region.getShape(t);
+                assertSameRegion("run " + run + " step " + i, reference(
+                        device, t), clip);
+                if (!device.isEmpty()) {
+                    assertTrue(clip instanceof Rectangle2D);
+                }
+
+                t.concatenate(createTransform(random, true));
+                r = createRectangle(random);
+                region.intersect(r, t);
+                device.intersect(new Area(t.createTransformedShape(r)));
+            }
+        }
+    }
+
+    public void testGeneralShapes() throws Exception {
+        Random random = new Random(7);
+        for (int run = 0; run < 50; run++) {
+            AffineTransform t = createTransform(random, true);
+            Rectangle2D r = createRectangle(random);
+            ClipRegion region = new ClipRegion(r, t);
+            Area device = new Area(t.createTransformedShape(r));
+
+            // rotated rectangle
+            AffineTransform rotated = createTransform(random, false);
+            r = createRectangle(random);
+            region.intersect(r, rotated);
+            device.intersect(new Area(rotated.createTransformedShape(r)));
+            assertSameRegion("rotated " + run, reference(device, t), region
+                    .getShape(t));
+            assertSameRegion("rotated space " + run,
+                    reference(device, rotated), region.getShape(rotated));
+
+            // ellipse
+            Shape e = new Ellipse2D.Double(-50, -50, 100, 80);
+            region.intersect(e, t);
+            device.intersect(new Area(t.createTransformedShape(e)));
+            assertSameRegion("ellipse " + run, reference(device, t), region
+                    .getShape(t));
+        }
+    }
+
+    public void testBackToRectangle() {
+        AffineTransform t = AffineTransform.getScaleInstance(2, 2);
+        ClipRegion region = new ClipRegion(new Ellipse2D.Double(0, 0, 100,
+                100), t);
+        assertFalse(region.isRectangular());
+        region.intersect(new Rectangle2D.Double(40, 40, 20, 20), t);
+        assertTrue(region.isRectangular());
+        assertEquals(new Rectangle2D.Double(40, 40, 20, 20), region
+                .getShape(t));
+    }
+
+    public void testEmpty() {
+        AffineTransform t = AffineTransform.getTranslateInstance(5, 5);
+        ClipRegion region = new ClipRegion(new Rectangle2D.Double(0, 0, 10,
+                10), t);
+        region.intersect(new Rectangle2D.Double(20, 0, 10, 10), t);
+        Shape clip = region.getShape(t);
+        assertTrue(clip instanceof Area);
+        assertTrue(((Area) clip).isEmpty());
+    }
+
+    public void testCopy() {
+        AffineTransform t = new AffineTransform();
+        ClipRegion region = new ClipRegion(new Rectangle2D.Double(0, 0, 10,
+                10), t);
+        ClipRegion copy = new ClipRegion(region);
+        region.intersect(new Rectangle2D.Double(5, 5, 10, 10), t);
+        assertEquals(new Rectangle2D.Double(0, 0, 10, 10), copy.getShape(t));
+        assertEquals(new Rectangle2D.Double(5, 5, 5, 5), region.getShape(t));
+    }
+}
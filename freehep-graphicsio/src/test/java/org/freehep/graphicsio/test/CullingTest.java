@@ -0,0 +1,141 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.BasicStroke;
+import java.awt.Dimension;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphics2d.ArrayPath;
+import org.freehep.graphicsio.AbstractVectorGraphicsIO;
+import org.freehep.graphicsio.DummyGraphics2D;
+
+/**
+ * Checks the CULL property of AbstractVectorGraphicsIO.
+ *
+ * @version $Id$
+ */
+public class CullingTest extends TestCase {
+
+    private static class RecordingGraphics2D extends DummyGraphics2D {
+
+        private List<Shape> shapes = new ArrayList<Shape>();
+
+        private RecordingGraphics2D(boolean cull) {
+            super(new Dimension(100, 100), false);
+            Properties properties = new Properties();
+            properties.setProperty(AbstractVectorGraphicsIO.CULL, Boolean
+                    .toString(cull));
+            setProperties(properties);
+        }
+
+        public void draw(Shape shape) {
+            if (!isCulled(shape, true)) {
+                shapes.add(shape);
+            }
+        }
+
+        public void fill(Shape shape) {
+            if (!isCulled(shape, false)) {
+                shapes.add(shape);
+            }
+        }
+    }
+
+    public void testDisabled() {
+        RecordingGraphics2D g = new RecordingGraphics2D(false);
+        g.fill(new Rectangle2D.Double(500, 500, 10, 10));
+        g.drawPolyline(new double[] { -50, -40, -30 }, new double[] { 0, 0,
+                0 }, 3);
+        assertEquals(2, g.shapes.size());
+        assertEquals(0, g.getCulledCount());
+    }
+
+    public void testShapes() {
+        RecordingGraphics2D g = new RecordingGraphics2D(true);
+        g.fill(new Rectangle2D.Double(10, 10, 10, 10));
+        g.fill(new Rectangle2D.Double(500, 500, 10, 10));
+        g.fill(new Ellipse2D.Double(-50, -50, 40, 40));
+        assertEquals(1, g.shapes.size());
+        assertEquals(2, g.getCulledCount());
+
+        // the stroke reaches into the page
+        g.setStroke(new BasicStroke(20, BasicStroke.CAP_BUTT,
+                BasicStroke.JOIN_ROUND));
+        g.draw(new Line2D.Double(-8, 0, -8, 100));
+        g.draw(new Line2D.Double(-30, 0, -30, 100));
+        assertEquals(2, g.shapes.size());
+        assertEquals(3, g.getCulledCount());
+    }
+
+    public void testClipAndTransform() {
+        RecordingGraphics2D g = new RecordingGraphics2D(true);
+        g.clipRect(0, 0, 50, 50);
+        g.fill(new Rectangle2D.Double(60, 60, 10, 10));
+        assertEquals(1, g.getCulledCount());
+
+        g.translate(50, 50);
+        g.rotate(Math.PI / 4);
+        g.fill(new Rectangle2D.Double(-5, -5, 10, 10));
+        g.fill(new Rectangle2D.Double(-5, 100, 10, 10));
+        assertEquals(1, g.shapes.size());
+        assertEquals(2, g.getCulledCount());
+
+        // counted for the whole document
+        DummyGraphics2D child = (DummyGraphics2D) g.create();
+        assertEquals(2, child.getCulledCount());
+    }
+
+    public void testPolylineTrimming() {
+        RecordingGraphics2D g = new RecordingGraphics2D(true);
+        int n = 2001;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i - 1000;
+            y[i] = 50;
+        }
+        g.drawPolyline(x, y, n);
+        assertEquals(1, g.shapes.size());
+        assertEquals(0, g.getCulledCount());
+
+        List<Double> points = new ArrayList<Double>();
+        double[] c = new double[6];
+        for (PathIterator pi = g.shapes.get(0).getPathIterator(null); !pi
+                .isDone(); pi.next()) {
+            pi.currentSegment(c);
+            points.add(new Double(c[0]));
+        }
+        assertTrue(points.size() < 120);
+        assertTrue(points.get(0).doubleValue() < 0);
+        assertTrue(points.get(points.size() - 1).doubleValue() > 100);
+
+        // nothing visible at all
+        g.translate(0, 200);
+        g.drawPolyline(x, y, n);
+        assertEquals(1, g.shapes.size());
+        assertEquals(1, g.getCulledCount());
+    }
+
+    public void testArrayPathIntersects() {
+        ArrayPath triangle = new ArrayPath(new double[] { 0, 100, 0 },
+                new double[] { 0, 0, 100 }, 3, true, 0);
+        assertTrue(triangle.intersects(10, 10, 5, 5));
+        assertTrue(triangle.intersects(40, 40, 20, 20));
+        assertFalse(triangle.intersects(80, 80, 10, 10));
+        assertFalse(triangle.intersects(200, 0, 10, 10));
+
+        ArrayPath line = new ArrayPath(new double[] { 0, 100 }, new double[] {
+                50, 50 }, 2, false, 0);
+        assertTrue(line.intersects(40, 40, 20, 20));
+        assertFalse(line.intersects(40, 60, 20, 20));
+    }
+}
@@ -0,0 +1,67 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphicsio.ImageCache;
+import org.freehep.graphicsio.ImageFingerprint;
+
+/**
+ * @version $Id$
+ */
+public class ImageFingerprintTest extends TestCase {
+
+    private static BufferedImage createImage(Color color, int type) {
+        BufferedImage image = new BufferedImage(16, 8, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillOval(0, 0, 16, 8);
+        g.dispose();
+        return image;
+    }
+
+    public void testEqualContent() {
+        BufferedImage a = createImage(Color.RED, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage b = createImage(Color.RED, BufferedImage.TYPE_INT_ARGB);
+        assertEquals(ImageFingerprint.create(a, null, "PNG"),
+                ImageFingerprint.create(b, null, "PNG"));
+        assertEquals(ImageFingerprint.create(a, null, "PNG").hashCode(),
+                ImageFingerprint.create(b, null, "PNG").hashCode());
+    }
+
+    public void testDifferentContent() {
+        BufferedImage a = createImage(Color.RED, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage b = createImage(Color.BLUE, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage c = createImage(Color.RED, BufferedImage.TYPE_INT_RGB);
+        ImageFingerprint fa = ImageFingerprint.create(a, null, "PNG");
+        assertFalse(fa.equals(ImageFingerprint.create(b, null, "PNG")));
+        assertFalse(fa.equals(ImageFingerprint.create(c, null, "PNG")));
+        assertFalse(fa.equals(ImageFingerprint.create(a, Color.WHITE, "PNG")));
+        assertFalse(fa.equals(ImageFingerprint.create(a, null, "JPG")));
+    }
+
+    public void testModifiedImage() {
+        BufferedImage a = createImage(Color.RED, BufferedImage.TYPE_INT_ARGB);
+        ImageFingerprint before = ImageFingerprint.create(a, null, null);
+        a.setRGB(3, 3, 0xFF00FF00);
+        assertFalse(before.equals(ImageFingerprint.create(a, null, null)));
+    }
+
+    public void testCache() {
+        ImageCache<String> cache = new ImageCache<String>();
+        BufferedImage a = createImage(Color.RED, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage b = createImage(Color.RED, BufferedImage.TYPE_INT_ARGB);
+
+        ImageFingerprint key = cache.fingerprint(a, null, null);
+        assertNull(cache.get(key));
+        cache.put(key, "image-0");
+        assertEquals("image-0", cache.get(cache.fingerprint(b, null, null)));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
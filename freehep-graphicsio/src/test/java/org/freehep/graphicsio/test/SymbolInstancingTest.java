@@ -0,0 +1,109 @@
+// Copyright 2026, FreeHEP.
+package org.freehep.graphicsio.test;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.freehep.graphics2d.VectorGraphicsConstants;
+import org.freehep.graphicsio.AbstractVectorGraphicsIO;
+import org.freehep.graphicsio.DummyGraphics2D;
+
+/**
+ * Checks the SYMBOL_INSTANCING property of AbstractVectorGraphicsIO.
+ *
+ * @version $Id$
+ */
+public class SymbolInstancingTest extends TestCase {
+
+    private static class RecordingGraphics2D extends DummyGraphics2D {
+
+        private List<Shape> shapes = new ArrayList<Shape>();
+
+        private List<String> keys = new ArrayList<String>();
+
+        private List<Shape> symbols = new ArrayList<Shape>();
+
+        private RecordingGraphics2D(boolean instancing) {
+            super(new Dimension(100, 100), false);
+            Properties properties = new Properties();
+            properties.setProperty(AbstractVectorGraphicsIO.SYMBOL_INSTANCING,
+                    Boolean.toString(instancing));
+            setProperties(properties);
+        }
+
+        public void draw(Shape shape) {
+            shapes.add(shape);
+        }
+
+        public void fill(Shape shape) {
+            shapes.add(shape);
+        }
+
+        protected boolean writeSymbol(double x, double y, String key,
+                Shape shape, boolean fill) {
+            keys.add(key);
+            symbols.add(AffineTransform.getTranslateInstance(x, y)
+                    .createTransformedShape(shape));
+            return true;
+        }
+    }
+
+    public void testDisabled() {
+        RecordingGraphics2D g = new RecordingGraphics2D(false);
+        g.fillSymbol(10, 10, 6, VectorGraphicsConstants.SYMBOL_BOX);
+        assertEquals(1, g.shapes.size());
+        assertEquals(0, g.keys.size());
+    }
+
+    public void testKeys() {
+        RecordingGraphics2D g = new RecordingGraphics2D(true);
+        g.fillSymbol(10, 10, 6, VectorGraphicsConstants.SYMBOL_BOX);
+        g.fillSymbol(20, 30, 6, VectorGraphicsConstants.SYMBOL_BOX);
+        g.drawSymbol(20, 30, 6, VectorGraphicsConstants.SYMBOL_BOX);
+        g.fillSymbol(20, 30, 8, VectorGraphicsConstants.SYMBOL_BOX);
+        // lines are never filled
+        g.fillSymbol(40, 40, 6, VectorGraphicsConstants.SYMBOL_PLUS);
+        g.drawSymbol(50, 40, 6, VectorGraphicsConstants.SYMBOL_PLUS);
+        assertEquals(0, g.shapes.size());
+        assertEquals(6, g.keys.size());
+        assertEquals(g.keys.get(0), g.keys.get(1));
+        assertFalse(g.keys.get(1).equals(g.keys.get(2)));
+        assertFalse(g.keys.get(1).equals(g.keys.get(3)));
+        assertEquals(g.keys.get(4), g.keys.get(5));
+    }
+
+    public void testSameShape() {
+        int[] types = { VectorGraphicsConstants.SYMBOL_BOX,
+                VectorGraphicsConstants.SYMBOL_UP_TRIANGLE,
+                VectorGraphicsConstants.SYMBOL_DN_TRIANGLE,
+                VectorGraphicsConstants.SYMBOL_DIAMOND,
+                VectorGraphicsConstants.SYMBOL_CIRCLE };
+        for (int i = 0; i < types.length; i++) {
+            RecordingGraphics2D shapes = new RecordingGraphics2D(false);
+            RecordingGraphics2D symbols = new RecordingGraphics2D(true);
+            shapes.fillSymbol(33.5, 41, 7, types[i]);
+            symbols.fillSymbol(33.5, 41, 7, types[i]);
+            Area expected = new Area(shapes.shapes.get(0));
+            expected.exclusiveOr(new Area(symbols.symbols.get(0)));
+            assertTrue("symbol " + types[i], expected.getBounds2D()
+                    .getWidth() < 1e-6);
+        }
+    }
+
+    public void testPaint() {
+        RecordingGraphics2D g = new RecordingGraphics2D(true);
+        g.setPaint(new GradientPaint(0, 0, Color.RED, 10, 10, Color.BLUE));
+        g.fillSymbol(10, 10, 6, VectorGraphicsConstants.SYMBOL_BOX);
+        assertEquals(1, g.shapes.size());
+        assertEquals(0, g.keys.size());
+    }
+}